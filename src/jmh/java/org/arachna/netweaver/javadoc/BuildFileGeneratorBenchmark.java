@@ -0,0 +1,120 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.arachna.netweaver.dc.types.DevelopmentComponent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for generating build files and resolving links of development
+ * components in tracks of different sizes.
+ *
+ * @author Dirk Weigenand
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class BuildFileGeneratorBenchmark {
+    /**
+     * number of development components in the track.
+     */
+    @Param({ "10", "100", "1000", "10000" })
+    public int components;
+
+    /**
+     * the synthetic track.
+     */
+    private SyntheticTrack track;
+
+    /**
+     * development components of the track.
+     */
+    private List<DevelopmentComponent> developmentComponents;
+
+    /**
+     * generator under test.
+     */
+    private BuildFileGenerator generator;
+
+    /**
+     * index of the development component to generate the next build file for.
+     */
+    private int next;
+
+    /**
+     * Create the track and a generator for it. The source folders are scanned
+     * up front as done by the builder.
+     *
+     * @throws IOException
+     *             when the workspace could not be created.
+     * @throws InterruptedException
+     *             when scanning was interrupted.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        track = new SyntheticTrack(components, 42);
+        developmentComponents = track.getDevelopmentComponents();
+
+        final SourceInventory sourceInventory = new SourceInventory(track.getAntHelper());
+        sourceInventory.scan(developmentComponents);
+        generator =
+            new BuildFileGenerator(track.getAntHelper(), track.createIndex(), null, false, null, new ClassPathResolver(),
+                sourceInventory);
+    }
+
+    /**
+     * Remove the workspace of the track.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        track.delete();
+    }
+
+    /**
+     * Generate the build file of one development component (cycling through
+     * all development components of the track).
+     *
+     * @return the location of the generated build file.
+     */
+    @Benchmark
+    public String execute() {
+        return generator.execute(developmentComponents.get(next++ % developmentComponents.size()));
+    }
+
+    /**
+     * Resolve the links of all development components of the track using a
+     * new index (i.e. without cached entries).
+     *
+     * @param blackhole
+     *            sink for the resolved links.
+     */
+    @Benchmark
+    public void getLinks(final Blackhole blackhole) {
+        final DevelopmentComponentIndex index = track.createIndex();
+
+        for (final DevelopmentComponent component : developmentComponents) {
+            blackhole.consume(index.getLinks(component));
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.arachna.netweaver.dc.types.DevelopmentComponent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for generating the JavaDoc overview of tracks of different
+ * sizes.
+ *
+ * @author Dirk Weigenand
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class OverviewGeneratorBenchmark {
+    /**
+     * number of development components in the track.
+     */
+    @Param({ "10", "100", "1000", "10000" })
+    public int components;
+
+    /**
+     * the synthetic track.
+     */
+    private SyntheticTrack track;
+
+    /**
+     * generator under test.
+     */
+    private OverviewGenerator generator;
+
+    /**
+     * JavaDoc folder of the workspace.
+     */
+    private File javaDocFolder;
+
+    /**
+     * Create the track (with a JavaDoc folder per development component) and
+     * an overview generator for it.
+     *
+     * @throws IOException
+     *             when the workspace could not be created.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        track = new SyntheticTrack(components, 42);
+        javaDocFolder = new File(track.getWorkspace(), "javadoc");
+
+        if (!javaDocFolder.mkdirs()) {
+            throw new IOException("Could not mkdir " + javaDocFolder.getAbsolutePath());
+        }
+
+        final DevelopmentComponentIndex index = track.createIndex();
+
+        // the overview only shows development components with published
+        // documentation
+        for (final DevelopmentComponent component : track.getDevelopmentComponents()) {
+            final File folder = new File(index.getJavaDocFolder(component));
+
+            if (!folder.mkdirs()) {
+                throw new IOException("Could not mkdir " + folder.getAbsolutePath());
+            }
+        }
+
+        generator = new OverviewGenerator(track.getWorkspace(), track.getDevelopmentConfiguration(), index);
+    }
+
+    /**
+     * Remove the workspace of the track.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        track.delete();
+    }
+
+    /**
+     * Stream the compartments and development components of the track to
+     * <code>index.xml</code>.
+     */
+    @Benchmark
+    public void createIndexXml() {
+        generator.createIndexXml(new File(javaDocFolder, "index.xml"));
+    }
+
+    /**
+     * Write <code>index.xml</code> and transform it into
+     * <code>index.html</code>.
+     */
+    @Benchmark
+    public void createIndexHtml() {
+        generator.createIndexHtml(javaDocFolder);
+    }
+
+    /**
+     * Calculate the fingerprint deciding whether the overview is up to date.
+     *
+     * @return the fingerprint.
+     */
+    @Benchmark
+    public String calculateFingerprint() {
+        return generator.calculateFingerprint();
+    }
+}
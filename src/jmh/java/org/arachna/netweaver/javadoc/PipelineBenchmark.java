@@ -0,0 +1,753 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import hudson.Util;
+import hudson.model.BuildListener;
+import hudson.model.StreamBuildListener;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.arachna.ant.AntHelper;
+import org.arachna.netweaver.dc.types.DevelopmentComponent;
+
+/**
+ * End-to-end benchmark of the JavaDoc pipeline on a {@link SyntheticTrack}:
+ * scanning sources, generating build files (or JavaDoc parameters), running
+ * JavaDoc (with or without UmlGraph), rendering UML diagrams, committing the
+ * documentation, generating the overview and compressing the documentation.
+ *
+ * For every run the wall clock and CPU time per stage, the peak RSS, the
+ * number of bytes written to disk and the number and size of generated files
+ * are reported, so that execution modes can be compared offline on a single
+ * Linux box:
+ *
+ * <pre>
+ * mvn -Pbenchmarks test-compile exec:java -Dexec.classpathScope=test \
+ *   -Dexec.mainClass=org.arachna.netweaver.javadoc.PipelineBenchmark \
+ *   -Dexec.args="--compartments 20 --components 50 --classes 3 --mode parallel --parallelism 4 --uml --runs 3"
+ * </pre>
+ *
+ * The stages are run through the {@link JavaDocPipeline} also used by
+ * {@link JavaDocBuilder} (including the content store, archives, the result
+ * cache and compression of the documentation). Each run removes the
+ * documentation (and with it the fingerprints) of the previous run, so every
+ * run regenerates the documentation of all development components unless it
+ * is taken from the result cache.
+ *
+ * Peak RSS and bytes written of this JVM are read from <code>/proc</code>,
+ * those of Ant runs are measured using <code>/usr/bin/time</code> when
+ * available.
+ *
+ * @author Dirk Weigenand
+ */
+public final class PipelineBenchmark {
+    /**
+     * GNU time used to measure Ant runs.
+     */
+    private static final File TIME = new File("/usr/bin/time");
+
+    /**
+     * size of blocks reported by GNU time as file system outputs.
+     */
+    private static final long BLOCK_SIZE = 512;
+
+    /**
+     * bytes per kilo byte.
+     */
+    private static final long KILO = 1024;
+
+    /**
+     * maximum size of the result cache in bytes.
+     */
+    private static final long RESULT_CACHE_SIZE = 2048L * KILO * KILO;
+
+    /**
+     * Execution modes of the pipeline.
+     */
+    enum Mode {
+        /**
+         * one Ant run per development component, one at a time.
+         */
+        Sequential,
+
+        /**
+         * one Ant run per development component, several at a time.
+         */
+        Parallel,
+
+        /**
+         * one Ant run for all development components.
+         */
+        Batch,
+
+        /**
+         * JavaDoc run via the {@link javax.tools.DocumentationTool} API inside
+         * this JVM.
+         */
+        InProcess;
+
+        /**
+         * Determine the mode with the given name ignoring case and dashes.
+         *
+         * @param name
+         *            name of the mode (e.g. <code>in-process</code>).
+         * @return the mode with the given name.
+         */
+        static Mode fromString(final String name) {
+            for (final Mode mode : values()) {
+                if (mode.name().equalsIgnoreCase(name.replace("-", ""))) {
+                    return mode;
+                }
+            }
+
+            throw new IllegalArgumentException("Unknown mode " + name + ", use one of " + Arrays.asList(values()));
+        }
+    }
+
+    /**
+     * number of software components.
+     */
+    private int compartments = 10;
+
+    /**
+     * number of development components per software component.
+     */
+    private int components = SyntheticTrack.COMPONENTS_PER_COMPARTMENT;
+
+    /**
+     * number of classes per package.
+     */
+    private int classes = SyntheticTrack.CLASSES;
+
+    /**
+     * the execution mode.
+     */
+    private Mode mode = Mode.Parallel;
+
+    /**
+     * number of development components processed in parallel.
+     */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * indicate whether UML diagrams should be generated.
+     */
+    private boolean useUmlGraph;
+
+    /**
+     * number of runs.
+     */
+    private int runs = 1;
+
+    /**
+     * seed for choosing used development components.
+     */
+    private long seed = 42;
+
+    /**
+     * the Ant executable.
+     */
+    private String ant = "ant";
+
+    /**
+     * folder containing the UmlGraph jar (passed to Ant).
+     */
+    private String umlGraphDir = findUmlGraphDir();
+
+    /**
+     * file to append results to as CSV (may be <code>null</code>).
+     */
+    private File csv;
+
+    /**
+     * indicate whether the workspace should be kept.
+     */
+    private boolean keep;
+
+    /**
+     * indicate whether the documentation of each development component
+     * should be packed into an archive.
+     */
+    private boolean pack;
+
+    /**
+     * folder of the result cache (<code>null</code>: no result cache).
+     */
+    private File resultCache;
+
+    /**
+     * peak RSS of the Ant runs of the current run in kilo bytes.
+     */
+    private long antPeakRss;
+
+    /**
+     * bytes written by the Ant runs of the current run.
+     */
+    private long antBytesWritten;
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args
+     *            command line arguments (see {@link #usage()}).
+     * @throws Exception
+     *             when the synthetic track could not be created or the
+     *             benchmark was interrupted.
+     */
+    public static void main(final String[] args) throws Exception {
+        final PipelineBenchmark benchmark = new PipelineBenchmark();
+
+        if (!benchmark.parse(args)) {
+            System.err.println(usage());
+            System.exit(1);
+        }
+
+        benchmark.execute();
+    }
+
+    /**
+     * @return usage of the command line arguments
+     */
+    private static String usage() {
+        return "usage: PipelineBenchmark [--compartments n] [--components dcs-per-compartment] [--classes classes-per-package]\n"
+            + "  [--mode sequential|parallel|batch|in-process] [--parallelism n] [--uml] [--runs n] [--seed n]\n"
+            + "  [--ant path-to-ant] [--umlgraph-dir folder] [--csv file] [--keep] [--pack] [--result-cache folder]";
+    }
+
+    /**
+     * Parse the given command line arguments.
+     *
+     * @param args
+     *            command line arguments.
+     * @return <code>true</code> when the arguments could be parsed,
+     *         <code>false</code> otherwise.
+     */
+    boolean parse(final String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            final String option = args[i];
+
+            if ("--uml".equals(option)) {
+                useUmlGraph = true;
+            }
+            else if ("--keep".equals(option)) {
+                keep = true;
+            }
+            else if ("--pack".equals(option)) {
+                pack = true;
+            }
+            else if (i + 1 == args.length) {
+                return false;
+            }
+            else {
+                final String value = args[++i];
+
+                if ("--compartments".equals(option)) {
+                    compartments = Integer.parseInt(value);
+                }
+                else if ("--components".equals(option)) {
+                    components = Integer.parseInt(value);
+                }
+                else if ("--classes".equals(option)) {
+                    classes = Integer.parseInt(value);
+                }
+                else if ("--mode".equals(option)) {
+                    mode = Mode.fromString(value);
+                }
+                else if ("--parallelism".equals(option)) {
+                    parallelism = Integer.parseInt(value);
+                }
+                else if ("--runs".equals(option)) {
+                    runs = Integer.parseInt(value);
+                }
+                else if ("--seed".equals(option)) {
+                    seed = Long.parseLong(value);
+                }
+                else if ("--ant".equals(option)) {
+                    ant = value;
+                }
+                else if ("--umlgraph-dir".equals(option)) {
+                    umlGraphDir = value;
+                }
+                else if ("--csv".equals(option)) {
+                    csv = new File(value);
+                }
+                else if ("--result-cache".equals(option)) {
+                    resultCache = new File(value);
+                }
+                else {
+                    return false;
+                }
+            }
+        }
+
+        return compartments > 0 && components > 0 && classes > 0 && parallelism > 0 && runs > 0;
+    }
+
+    /**
+     * Create the synthetic track and run the pipeline on it the requested
+     * number of times.
+     *
+     * @throws IOException
+     *             when the track could not be created or results could not
+     *             be written.
+     * @throws InterruptedException
+     *             when the benchmark was interrupted.
+     */
+    void execute() throws IOException, InterruptedException {
+        final SyntheticTrack track = new SyntheticTrack(compartments * components, components, classes, seed);
+
+        try {
+            for (int run = 1; run <= runs; run++) {
+                run(track, run);
+            }
+        }
+        finally {
+            if (keep) {
+                System.out.println("workspace: " + track.getWorkspace().getAbsolutePath());
+            }
+            else {
+                track.delete();
+            }
+        }
+    }
+
+    /**
+     * Run the pipeline once on the given track (after removing the
+     * documentation generated by a previous run) and report the results.
+     *
+     * @param track
+     *            the synthetic track.
+     * @param run
+     *            number of the run.
+     * @throws IOException
+     *             when results could not be written.
+     * @throws InterruptedException
+     *             when the benchmark was interrupted.
+     */
+    private void run(final SyntheticTrack track, final int run) throws IOException, InterruptedException {
+        final File javaDocFolder = new File(track.getWorkspace(), "javadoc");
+        Util.deleteRecursive(javaDocFolder);
+        resetPeakRss();
+
+        synchronized (this) {
+            antPeakRss = 0;
+            antBytesWritten = 0;
+        }
+
+        final long bytesWritten = readProc("io", "write_bytes");
+        final long start = System.currentTimeMillis();
+        final AntHelper antHelper = track.getAntHelper();
+        final DevelopmentComponentIndex index =
+            new DevelopmentComponentIndex(track.getDevelopmentComponentFactory(), antHelper.getPathToWorkspace(),
+                Collections.<String> emptyList());
+        final List<DevelopmentComponent> dcs = track.getDevelopmentComponents();
+        final JobDurationHistory durations = new JobDurationHistory(new File(track.getWorkspace(), JobDurationHistory.FILE_NAME));
+        final ResultCache cache = resultCache == null ? null : new FolderResultCache(resultCache, RESULT_CACHE_SIZE);
+        final JavaDocPipeline pipeline =
+            new JavaDocPipeline(antHelper, index, track.getDevelopmentConfiguration(), null, useUmlGraph,
+                mode == Mode.Sequential ? 1 : parallelism, pack ? new JavaDocArchive() : null, true, cache, durations,
+                new JavaDocPipeline.AntRunner() {
+                    public boolean execute(final String buildFile, final BuildListener listener) throws InterruptedException {
+                        return ant(buildFile, listener.getLogger());
+                    }
+                });
+        pipeline.scan(dcs);
+
+        final long scanned = System.currentTimeMillis() - start;
+        final OutputStream log = new FileOutputStream(new File(track.getWorkspace(), "pipeline.log"), true);
+        final boolean succeeded;
+
+        try {
+            succeeded =
+                pipeline.execute(dcs, mode == Mode.InProcess ? new DocumentationToolRunner() : null, mode == Mode.Batch,
+                    new StreamBuildListener(log));
+        }
+        finally {
+            IOUtils.closeQuietly(log);
+        }
+
+        final long elapsed = System.currentTimeMillis() - start;
+        final long[] output = new long[2];
+        count(javaDocFolder, output);
+
+        final Map<JavaDocStage, StageMetrics> totals = new EnumMap<JavaDocStage, StageMetrics>(JavaDocStage.class);
+
+        for (final StageMetrics total : new JavaDocMetricsAction(null, pipeline.getMetrics()).getTotals()) {
+            totals.put(total.getStage(), total);
+        }
+
+        final long jvmPeakRss = readProc("status", "VmHWM:") * KILO;
+        final long jvmBytesWritten = readProc("io", "write_bytes") - bytesWritten;
+
+        synchronized (this) {
+            report(run, succeeded, elapsed, scanned, totals, new long[] { jvmPeakRss, antPeakRss * KILO, jvmBytesWritten,
+                antBytesWritten, output[0], output[1] });
+        }
+    }
+
+    /**
+     * Run the <code>javadoc</code> target of the given Ant build file (via
+     * GNU time when available to measure peak RSS and bytes written).
+     *
+     * @param buildFile
+     *            location of the Ant build file.
+     * @param logger
+     *            stream to write the output of Ant to.
+     * @return <code>true</code> when the Ant run succeeded,
+     *         <code>false</code> otherwise.
+     * @throws InterruptedException
+     *             when the benchmark was interrupted.
+     */
+    private boolean ant(final String buildFile, final PrintStream logger) throws InterruptedException {
+        final File statistics = new File(buildFile + ".time");
+        final List<String> command = new ArrayList<String>();
+
+        if (TIME.canExecute()) {
+            command.addAll(Arrays.asList(TIME.getAbsolutePath(), "-o", statistics.getAbsolutePath(), "-f", "%M %O"));
+        }
+
+        command.addAll(Arrays.asList(ant, "-f", buildFile));
+
+        if (umlGraphDir != null) {
+            command.add("-Dumlgraph.dir=" + umlGraphDir);
+        }
+
+        command.add("javadoc");
+
+        try {
+            final Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            final ByteArrayCollector collector = new ByteArrayCollector(process.getInputStream());
+            final int exitCode = process.waitFor();
+            final byte[] output = collector.getBytes();
+
+            synchronized (logger) {
+                logger.write(output, 0, output.length);
+            }
+
+            if (statistics.exists()) {
+                recordAntRun(statistics);
+            }
+
+            return exitCode == 0;
+        }
+        catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Record peak RSS and bytes written of an Ant run from the given output
+     * of GNU time (the last line containing <code>maxrss outputs</code>).
+     *
+     * @param statistics
+     *            file GNU time wrote its output to.
+     * @throws IOException
+     *             when the file could not be read.
+     */
+    private void recordAntRun(final File statistics) throws IOException {
+        final BufferedReader reader = new BufferedReader(new FileReader(statistics));
+        String last = null;
+
+        try {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                last = line;
+            }
+        }
+        finally {
+            IOUtils.closeQuietly(reader);
+        }
+
+        if (!statistics.delete()) {
+            throw new IOException("Could not delete " + statistics.getAbsolutePath());
+        }
+
+        final String[] values = last == null ? new String[0] : last.trim().split("\\s+");
+
+        if (values.length == 2) {
+            synchronized (this) {
+                antPeakRss = Math.max(antPeakRss, Long.parseLong(values[0]));
+                antBytesWritten += Long.parseLong(values[1]) * BLOCK_SIZE;
+            }
+        }
+    }
+
+    /**
+     * Write the results of a run to standard out (and the CSV file if
+     * requested).
+     *
+     * @param run
+     *            number of the run.
+     * @param succeeded
+     *            indicate whether the pipeline succeeded.
+     * @param elapsed
+     *            wall clock time of the whole pipeline in milliseconds.
+     * @param scanned
+     *            wall clock time of scanning sources in milliseconds.
+     * @param totals
+     *            metrics summed up per stage.
+     * @param resources
+     *            peak RSS of the JVM and Ant, bytes written by the JVM and
+     *            Ant, number and size of generated files.
+     * @throws IOException
+     *             when the CSV file could not be written.
+     */
+    private void report(final int run, final boolean succeeded, final long elapsed, final long scanned,
+        final Map<JavaDocStage, StageMetrics> totals, final long[] resources) throws IOException {
+        final PrintStream out = System.out;
+        out.println(String.format("run %d: mode %s, parallelism %d, UmlGraph %s, %d development components, %d classes (%s)", run,
+            mode, mode == Mode.Sequential ? 1 : parallelism, useUmlGraph ? "on" : "off", compartments * components, compartments
+                * components * classes * 2, succeeded ? "succeeded" : "failed"));
+        out.println(String.format("  elapsed %d ms, source scan %d ms", elapsed, scanned));
+        out.println(String.format("  %-10s %10s %10s %10s %10s %14s", "stage", "wall ms", "cpu ms", "sources", "files", "bytes"));
+
+        for (final StageMetrics total : totals.values()) {
+            out.println(String.format("  %-10s %10d %10d %10d %10d %14d", total.getStage(), total.getWallTime(),
+                total.getCpuTime(), total.getSourceFiles(), total.getGeneratedFiles(), total.getOutputBytes()));
+        }
+
+        out.println(String.format("  peak RSS: JVM %d bytes, Ant %d bytes", resources[0], resources[1]));
+        out.println(String.format("  written to disk: JVM %d bytes, Ant %d bytes", resources[2], resources[3]));
+        out.println(String.format("  output: %d files, %d bytes", resources[4], resources[5]));
+
+        if (csv != null) {
+            writeCsv(run, succeeded, elapsed, scanned, totals, resources);
+        }
+    }
+
+    /**
+     * Append the results of a run to the CSV file (writing a header line
+     * when the file is new).
+     *
+     * @param run
+     *            number of the run.
+     * @param succeeded
+     *            indicate whether the pipeline succeeded.
+     * @param elapsed
+     *            wall clock time of the whole pipeline in milliseconds.
+     * @param scanned
+     *            wall clock time of scanning sources in milliseconds.
+     * @param totals
+     *            metrics summed up per stage.
+     * @param resources
+     *            peak RSS of the JVM and Ant, bytes written by the JVM and
+     *            Ant, number and size of generated files.
+     * @throws IOException
+     *             when the CSV file could not be written.
+     */
+    private void writeCsv(final int run, final boolean succeeded, final long elapsed, final long scanned,
+        final Map<JavaDocStage, StageMetrics> totals, final long[] resources) throws IOException {
+        final boolean exists = csv.exists();
+        final PrintWriter writer = new PrintWriter(new FileWriter(csv, true));
+
+        try {
+            if (!exists) {
+                writer.print("mode,parallelism,uml,compartments,components,classes,run,succeeded,elapsed,scan");
+
+                for (final JavaDocStage stage : JavaDocStage.values()) {
+                    writer.print("," + stage.name().toLowerCase() + "Wall");
+                }
+
+                writer.println(",jvmPeakRss,antPeakRss,jvmWritten,antWritten,files,bytes");
+            }
+
+            writer.print(String.format("%s,%d,%s,%d,%d,%d,%d,%s,%d,%d", mode, mode == Mode.Sequential ? 1 : parallelism,
+                useUmlGraph, compartments, components, classes, run, succeeded, elapsed, scanned));
+
+            for (final JavaDocStage stage : JavaDocStage.values()) {
+                final StageMetrics total = totals.get(stage);
+                writer.print("," + (total == null ? 0 : total.getWallTime()));
+            }
+
+            for (final long resource : resources) {
+                writer.print("," + resource);
+            }
+
+            writer.println();
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Reset the peak RSS (<code>VmHWM</code>) of this JVM (supported on Linux
+     * since 4.0, ignored otherwise).
+     */
+    private void resetPeakRss() {
+        try {
+            final OutputStream clearRefs = new FileOutputStream("/proc/self/clear_refs");
+
+            try {
+                clearRefs.write('5');
+            }
+            finally {
+                IOUtils.closeQuietly(clearRefs);
+            }
+        }
+        catch (final IOException e) {
+            // peak RSS includes previous runs then
+        }
+    }
+
+    /**
+     * Read a value from a file in <code>/proc/self</code>.
+     *
+     * @param file
+     *            name of the file (e.g. <code>status</code>).
+     * @param key
+     *            key of the value (e.g. <code>VmHWM:</code>).
+     * @return the value or <code>0</code> when it is not available.
+     */
+    private long readProc(final String file, final String key) {
+        try {
+            final BufferedReader reader = new BufferedReader(new FileReader(new File("/proc/self", file)));
+
+            try {
+                String line;
+
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith(key)) {
+                        return Long.parseLong(line.substring(key.length()).replaceAll("[^0-9]", ""));
+                    }
+                }
+            }
+            finally {
+                IOUtils.closeQuietly(reader);
+            }
+        }
+        catch (final IOException e) {
+            // not on Linux
+        }
+
+        return 0;
+    }
+
+    /**
+     * Determine the folder containing the UmlGraph jar on the class path.
+     *
+     * @return the folder containing the UmlGraph jar or <code>null</code>
+     *         when it is not on the class path.
+     */
+    private static String findUmlGraphDir() {
+        try {
+            return new File(Class.forName("org.umlgraph.doclet.UmlGraphDoc").getProtectionDomain().getCodeSource().getLocation()
+                .toURI()).getParent();
+        }
+        catch (final ClassNotFoundException e) {
+            return null;
+        }
+        catch (final URISyntaxException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Count the files and their sizes in the given folder and its sub
+     * folders.
+     *
+     * @param folder
+     *            folder to count files in.
+     * @param output
+     *            array to add the number of files (index 0) and their size
+     *            (index 1) to.
+     */
+    private void count(final File folder, final long[] output) {
+        final File[] files = folder.listFiles();
+
+        if (files != null) {
+            for (final File file : files) {
+                if (file.isDirectory()) {
+                    count(file, output);
+                }
+                else {
+                    output[0]++;
+                    output[1] += file.length();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the output of a process in a background thread, so that the
+     * process does not block on a full pipe.
+     */
+    private static final class ByteArrayCollector extends Thread {
+        /**
+         * output of the process.
+         */
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        /**
+         * stream to read the output from.
+         */
+        private final InputStream input;
+
+        /**
+         * Start reading the given stream.
+         *
+         * @param input
+         *            stream to read the output from.
+         */
+        ByteArrayCollector(final InputStream input) {
+            this.input = input;
+            setDaemon(true);
+            start();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void run() {
+            final byte[] buffer = new byte[4096];
+            int length;
+
+            try {
+                while ((length = input.read(buffer)) != -1) {
+                    bytes.write(buffer, 0, length);
+                }
+            }
+            catch (final IOException e) {
+                // process ended
+            }
+            finally {
+                IOUtils.closeQuietly(input);
+            }
+        }
+
+        /**
+         * Wait for the process output to end.
+         *
+         * @return the output of the process
+         * @throws InterruptedException
+         *             when interrupted while waiting.
+         */
+        byte[] getBytes() throws InterruptedException {
+            join();
+
+            return bytes.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,335 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import hudson.Util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.arachna.ant.AntHelper;
+import org.arachna.netweaver.dc.types.Compartment;
+import org.arachna.netweaver.dc.types.CompartmentState;
+import org.arachna.netweaver.dc.types.DevelopmentComponent;
+import org.arachna.netweaver.dc.types.DevelopmentComponentFactory;
+import org.arachna.netweaver.dc.types.DevelopmentComponentType;
+import org.arachna.netweaver.dc.types.DevelopmentConfiguration;
+import org.arachna.netweaver.dc.types.PublicPartReference;
+
+/**
+ * Synthetic development configuration (track) with a workspace on disk used
+ * by the benchmarks.
+ *
+ * Development components are grouped into software components of
+ * {@link #COMPONENTS_PER_COMPARTMENT} development components each (unless
+ * specified otherwise). Every development component uses the public part
+ * {@link #PUBLIC_PART} of up to {@link #FAN_OUT} development components
+ * created before it. Used development components are chosen with a bias
+ * towards the first ones created, so that a few base libraries are used by
+ * most development components as in real tracks.
+ *
+ * @author Dirk Weigenand
+ */
+final class SyntheticTrack {
+    /**
+     * number of development components per software component.
+     */
+    static final int COMPONENTS_PER_COMPARTMENT = 50;
+
+    /**
+     * maximum number of development components used by a development
+     * component.
+     */
+    static final int FAN_OUT = 8;
+
+    /**
+     * number of packages per development component.
+     */
+    private static final int PACKAGES = 2;
+
+    /**
+     * default number of classes per package.
+     */
+    static final int CLASSES = 3;
+
+    /**
+     * name of the public part every development component exposes.
+     */
+    static final String PUBLIC_PART = "api";
+
+    /**
+     * vendor of the development components.
+     */
+    private static final String VENDOR = "example.com";
+
+    /**
+     * the workspace of the track.
+     */
+    private final File workspace;
+
+    /**
+     * registry of the development components.
+     */
+    private final DevelopmentComponentFactory dcFactory = new DevelopmentComponentFactory();
+
+    /**
+     * the development configuration.
+     */
+    private final DevelopmentConfiguration configuration = new DevelopmentConfiguration("DI1_Synthetic_D");
+
+    /**
+     * the development components in the order they were created.
+     */
+    private final List<DevelopmentComponent> components = new ArrayList<DevelopmentComponent>();
+
+    /**
+     * helper for determining source folders and class paths.
+     */
+    private final AntHelper antHelper;
+
+    /**
+     * number of classes per package.
+     */
+    private final int classes;
+
+    /**
+     * Create a track with the given number of development components in a new
+     * temporary workspace.
+     *
+     * @param size
+     *            number of development components.
+     * @param seed
+     *            seed for choosing used development components.
+     * @throws IOException
+     *             when the workspace could not be created.
+     */
+    SyntheticTrack(final int size, final long seed) throws IOException {
+        this(size, COMPONENTS_PER_COMPARTMENT, CLASSES, seed);
+    }
+
+    /**
+     * Create a track with the given number of development components in a new
+     * temporary workspace.
+     *
+     * @param size
+     *            number of development components.
+     * @param componentsPerCompartment
+     *            number of development components per software component.
+     * @param classes
+     *            number of classes per package.
+     * @param seed
+     *            seed for choosing used development components.
+     * @throws IOException
+     *             when the workspace could not be created.
+     */
+    SyntheticTrack(final int size, final int componentsPerCompartment, final int classes, final long seed) throws IOException {
+        workspace = File.createTempFile("synthetic-track", "");
+
+        if (!workspace.delete() || !workspace.mkdirs()) {
+            throw new IOException("Could not create workspace " + workspace.getAbsolutePath());
+        }
+
+        this.classes = classes;
+        antHelper = new AntHelper(workspace.getAbsolutePath(), dcFactory);
+        configuration.setCaption("Synthetic track with " + size + " development components");
+        configuration.setSourceVersion("1.6");
+
+        final Random random = new Random(seed);
+        Compartment compartment = null;
+
+        for (int i = 0; i < size; i++) {
+            if (i % componentsPerCompartment == 0) {
+                final String softwareComponent = String.format("SC%04d", i / componentsPerCompartment);
+                compartment =
+                    new Compartment(VENDOR + "_" + softwareComponent + "_1", CompartmentState.Source, VENDOR, softwareComponent,
+                        softwareComponent);
+                configuration.add(compartment);
+            }
+
+            final DevelopmentComponent component =
+                dcFactory.create(VENDOR, String.format("sc%04d/dc%05d", i / componentsPerCompartment, i),
+                    DevelopmentComponentType.Java);
+            component.addSourceFolder("src/packages");
+            component.setOutputFolder(new File(workspace, "classes/" + i).getAbsolutePath());
+
+            for (int j = Math.min(i, FAN_OUT); j > 0; j--) {
+                final double r = random.nextDouble();
+                final DevelopmentComponent used = components.get((int)(i * r * r));
+                component.addUsedDevelopmentComponent(new PublicPartReference(used.getVendor(), used.getName(), PUBLIC_PART));
+            }
+
+            compartment.add(component);
+            components.add(component);
+            createSources(component, i);
+            createPublicPart(component);
+        }
+    }
+
+    /**
+     * @return the workspace of the track
+     */
+    File getWorkspace() {
+        return workspace;
+    }
+
+    /**
+     * @return the registry of the development components
+     */
+    DevelopmentComponentFactory getDevelopmentComponentFactory() {
+        return dcFactory;
+    }
+
+    /**
+     * @return the development configuration
+     */
+    DevelopmentConfiguration getDevelopmentConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * @return the development components in the order they were created
+     */
+    List<DevelopmentComponent> getDevelopmentComponents() {
+        return Collections.unmodifiableList(components);
+    }
+
+    /**
+     * @return the helper for determining source folders and class paths
+     */
+    AntHelper getAntHelper() {
+        return antHelper;
+    }
+
+    /**
+     * Create an index of the development components of the track.
+     *
+     * @return a new index (without cached entries).
+     */
+    DevelopmentComponentIndex createIndex() {
+        return new DevelopmentComponentIndex(dcFactory, workspace.getAbsolutePath(),
+            Collections.singletonList("http://docs.oracle.com/javase/6/docs/api/"));
+    }
+
+    /**
+     * Remove the workspace.
+     *
+     * @throws IOException
+     *             when the workspace could not be removed.
+     */
+    void delete() throws IOException {
+        Util.deleteRecursive(workspace);
+    }
+
+    /**
+     * Create the Java sources of the given development component.
+     *
+     * @param component
+     *            development component to create sources for.
+     * @param number
+     *            number of the development component.
+     * @throws IOException
+     *             when a source file could not be written.
+     */
+    private void createSources(final DevelopmentComponent component, final int number) throws IOException {
+        final File sources = new File(antHelper.getBaseLocation(component), "src/packages");
+
+        for (int p = 0; p < PACKAGES; p++) {
+            final String packageName = String.format("com.example.dc%05d.p%d", number, p);
+            final File folder = new File(sources, packageName.replace('.', '/'));
+
+            if (!folder.mkdirs()) {
+                throw new IOException("Could not mkdir " + folder.getAbsolutePath());
+            }
+
+            for (int c = 0; c < classes; c++) {
+                write(new File(folder, "Class" + c + ".java"), createClass(packageName, c));
+            }
+        }
+    }
+
+    /**
+     * Create the source of a class. Every class but the first one of a package
+     * refers to its predecessor, so that UML diagrams contain associations.
+     *
+     * @param packageName
+     *            package of the class.
+     * @param number
+     *            number of the class in the package.
+     * @return the source of the class.
+     */
+    private String createClass(final String packageName, final int number) {
+        final StringBuilder source = new StringBuilder();
+        source.append(String.format("package %s;%n%n/**%n * Synthetic class.%n */%npublic class Class%d {%n", packageName, number));
+
+        if (number > 0) {
+            source.append(String.format("    /**%n     * predecessor.%n     */%n    private Class%d previous;%n%n", number - 1));
+            source.append(String.format("    /**%n     * @return the predecessor%n     */%n    public Class%d getPrevious() {%n"
+                + "        return previous;%n    }%n%n", number - 1));
+        }
+
+        source.append(String.format("    /**%n     * @return a value%n     */%n    public int value() {%n        return %d;%n    }%n}%n",
+            number));
+
+        return source.toString();
+    }
+
+    /**
+     * Create the (empty) jar of the public part {@link #PUBLIC_PART} of the
+     * given development component as the NWDI build would.
+     *
+     * @param component
+     *            development component to create the public part for.
+     * @throws IOException
+     *             when the jar could not be written.
+     */
+    private void createPublicPart(final DevelopmentComponent component) throws IOException {
+        final File folder =
+            new File(antHelper.getBaseLocation(component), String.format("gen/default/public/%s/lib/java", PUBLIC_PART));
+
+        if (!folder.mkdirs()) {
+            throw new IOException("Could not mkdir " + folder.getAbsolutePath());
+        }
+
+        final Manifest manifest = new Manifest();
+        manifest.getMainAttributes().putValue("Manifest-Version", "1.0");
+        final OutputStream output = new FileOutputStream(new File(folder, component.getNormalizedName("~") + ".jar"));
+
+        try {
+            new JarOutputStream(output, manifest).finish();
+        }
+        finally {
+            output.close();
+        }
+    }
+
+    /**
+     * Write the given content to the given file.
+     *
+     * @param file
+     *            file to write.
+     * @param content
+     *            content to write.
+     * @throws IOException
+     *             when the file could not be written.
+     */
+    private void write(final File file, final String content) throws IOException {
+        final OutputStream output = new FileOutputStream(file);
+
+        try {
+            output.write(content.getBytes(Charset.forName("UTF-8")));
+        }
+        finally {
+            output.close();
+        }
+    }
+}
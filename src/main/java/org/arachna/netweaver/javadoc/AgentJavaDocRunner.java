@@ -0,0 +1,541 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.Computer;
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.remoting.Callable;
+import hudson.remoting.RemoteOutputStream;
+import hudson.remoting.VirtualChannel;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Runs JavaDoc on agents carrying a configured label.
+ *
+ * For each development component the least busy online agent of the label is
+ * chosen. The inputs of the JavaDoc run (source folders, compiled classes and
+ * the package lists of linked documentation) are copied into a temporary
+ * folder on the agent, JavaDoc is executed there via the
+ * {@link javax.tools.DocumentationTool} API and the generated documentation
+ * is copied back into the JavaDoc folder of the development component in the
+ * workspace. The output of JavaDoc is streamed into the build log while it
+ * runs.
+ *
+ * Class path jars are kept in a cache folder on each agent keyed by their
+ * path, size and modification time on the controller, so a jar used by many
+ * development components is copied to an agent only once (and again only
+ * when it changed).
+ *
+ * @author Dirk Weigenand
+ */
+final class AgentJavaDocRunner implements JavaDocRunner {
+    /**
+     * name of the folder (relative to the root folder of an agent) containing
+     * the temporary folders of JavaDoc runs.
+     */
+    static final String WORK_FOLDER = "javadoc-jobs";
+
+    /**
+     * name of the folder (relative to {@link #WORK_FOLDER}) caching class
+     * path jars.
+     */
+    static final String JAR_CACHE = "jars";
+
+    /**
+     * name of the folder (relative to the temporary folder of a JavaDoc run)
+     * receiving the generated documentation.
+     */
+    private static final String JAVADOC = "javadoc";
+
+    /**
+     * names of package lists of linked documentation.
+     */
+    private static final String[] PACKAGE_LISTS = { "package-list", "element-list" };
+
+    /**
+     * Encoding of the JavaDoc output sent back from agents.
+     */
+    private static final String UTF8 = "UTF-8";
+
+    /**
+     * suffix of cached class path jars.
+     */
+    private static final String JAR = ".jar";
+
+    /**
+     * label of the agents to run JavaDoc on.
+     */
+    private final Label label;
+
+    /**
+     * number of JavaDoc runs currently executing per agent.
+     */
+    private final Map<String, Integer> running = new HashMap<String, Integer>();
+
+    /**
+     * Create a runner executing JavaDoc on agents carrying the given label.
+     *
+     * @param label
+     *            label of the agents to run JavaDoc on.
+     */
+    AgentJavaDocRunner(final Label label) {
+        this.label = label;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean execute(final JavaDocParameters parameters, final PrintStream logger) throws InterruptedException {
+        final Node node = acquire();
+
+        if (node == null) {
+            logger.println(String.format("No online agent with label %s available.", label.getName()));
+
+            return false;
+        }
+
+        FilePath workFolder = null;
+
+        try {
+            final FilePath jobs = node.getRootPath().child(WORK_FOLDER);
+            final FilePath jarCache = jobs.child(JAR_CACHE);
+            jarCache.mkdirs();
+            workFolder = jobs.createTempDir(parameters.getComponent(), "");
+
+            logger.println(String.format("Generating JavaDoc for %s on %s.", parameters.getComponent(), node.getNodeName()));
+
+            final Map<String, String> transfers = createTransfers(parameters);
+
+            for (final Map.Entry<String, String> transfer : transfers.entrySet()) {
+                copy(new File(transfer.getKey()), workFolder.child(transfer.getValue()));
+            }
+
+            final Map<String, String> jars = createCachedJars(parameters);
+            updateJarCache(jars, jarCache);
+
+            final boolean succeeded =
+                node.getChannel().call(
+                    new RemoteJavaDoc(relocate(parameters, transfers, jars, workFolder.getRemote(), jarCache.getRemote()),
+                        new RemoteOutputStream(logger))).booleanValue();
+
+            if (succeeded) {
+                final File javaDocDir = new File(parameters.getJavaDocDir());
+
+                if (!javaDocDir.exists() && !javaDocDir.mkdirs()) {
+                    throw new IllegalStateException("Could not mkdir " + javaDocDir.getAbsolutePath());
+                }
+
+                workFolder.child(JAVADOC).copyRecursiveTo(new FilePath(javaDocDir));
+            }
+
+            return succeeded;
+        }
+        catch (final IOException e) {
+            logger.println(String.format("Generating JavaDoc for %s on %s failed: %s", parameters.getComponent(), node.getNodeName(),
+                e.getMessage()));
+
+            return false;
+        }
+        finally {
+            delete(workFolder);
+            release(node);
+        }
+    }
+
+    /**
+     * Determine the files and folders to copy into the temporary folder of
+     * the given JavaDoc run on an agent (class path jars are cached, see
+     * {@link #createCachedJars(JavaDocParameters)}).
+     *
+     * @param parameters
+     *            inputs of the JavaDoc run.
+     * @return paths on the controller mapped to the paths (relative to the
+     *         temporary folder of the JavaDoc run) to copy them to.
+     */
+    Map<String, String> createTransfers(final JavaDocParameters parameters) {
+        final Map<String, String> transfers = new LinkedHashMap<String, String>();
+        int index = 0;
+
+        for (final String sourcePath : parameters.getSourcePaths()) {
+            transfers.put(sourcePath, "sources/" + index++);
+        }
+
+        if (new File(parameters.getClasses()).exists()) {
+            transfers.put(parameters.getClasses(), "classes");
+        }
+
+        index = 0;
+
+        for (final JavaDocLink link : parameters.getLinks()) {
+            final String folder = getPackageListFolder(link);
+
+            if (folder != null) {
+                for (final String name : PACKAGE_LISTS) {
+                    final File packageList = new File(folder, name);
+
+                    if (packageList.exists()) {
+                        transfers.put(packageList.getAbsolutePath(), String.format("links/%d/%s", index, name));
+                    }
+                }
+            }
+
+            index++;
+        }
+
+        return transfers;
+    }
+
+    /**
+     * Determine the names of the class path jars of the given JavaDoc run in
+     * the jar cache of an agent. The name is derived from path, size and
+     * modification time of the jar on the controller. Missing jars are
+     * skipped.
+     *
+     * @param parameters
+     *            inputs of the JavaDoc run.
+     * @return paths of the jars on the controller mapped to their names in
+     *         the jar cache.
+     */
+    Map<String, String> createCachedJars(final JavaDocParameters parameters) {
+        final Map<String, String> jars = new LinkedHashMap<String, String>();
+
+        for (final String jar : parameters.getClassPaths()) {
+            final File file = new File(jar);
+
+            if (file.isFile()) {
+                jars.put(jar, String.format("%s-%x-%x%s", Util.getDigestOf(file.getAbsolutePath()), Long.valueOf(file.length()),
+                    Long.valueOf(file.lastModified()), JAR));
+            }
+        }
+
+        return jars;
+    }
+
+    /**
+     * Create the parameters for running JavaDoc on an agent from the given
+     * parameters.
+     *
+     * @param parameters
+     *            inputs of the JavaDoc run on the controller.
+     * @param transfers
+     *            paths on the controller mapped to the paths (relative to the
+     *            temporary folder of the JavaDoc run) they were copied to.
+     * @param jars
+     *            paths of class path jars on the controller mapped to their
+     *            names in the jar cache.
+     * @param workFolder
+     *            temporary folder of the JavaDoc run on the agent.
+     * @param jarCache
+     *            folder caching class path jars on the agent.
+     * @return inputs of the JavaDoc run on the agent.
+     */
+    JavaDocParameters relocate(final JavaDocParameters parameters, final Map<String, String> transfers,
+        final Map<String, String> jars, final String workFolder, final String jarCache) {
+        final Map<String, String> sourcePaths = new LinkedHashMap<String, String>();
+
+        for (final String sourcePath : parameters.getSourcePaths()) {
+            sourcePaths.put(new File(sourcePath).getAbsolutePath() + File.separator, resolve(workFolder, transfers.get(sourcePath)));
+        }
+
+        final Collection<String> sourceFiles = new ArrayList<String>();
+
+        for (final String file : parameters.getSourceFiles()) {
+            for (final Map.Entry<String, String> sourcePath : sourcePaths.entrySet()) {
+                if (file.startsWith(sourcePath.getKey())) {
+                    sourceFiles.add(resolve(sourcePath.getValue(),
+                        file.substring(sourcePath.getKey().length()).replace(File.separatorChar, '/')));
+                    break;
+                }
+            }
+        }
+
+        final Collection<String> classPaths = new ArrayList<String>();
+
+        for (final String jar : jars.values()) {
+            classPaths.add(resolve(jarCache, jar));
+        }
+
+        final Collection<JavaDocLink> links = new ArrayList<JavaDocLink>();
+        int index = 0;
+
+        for (final JavaDocLink link : parameters.getLinks()) {
+            if (hasPackageList(transfers, index)) {
+                links.add(new JavaDocLink(link.getHref(), resolve(workFolder, "links/" + index)));
+            }
+            else if (link.isOffline()) {
+                links.add(new JavaDocLink(link.getHref(), null));
+            }
+            else {
+                links.add(link);
+            }
+
+            index++;
+        }
+
+        return new JavaDocParameters(parameters.getVendor(), parameters.getComponent(), sourcePaths.values(),
+            parameters.getPackages(), sourceFiles, resolve(workFolder, "classes"), classPaths, resolve(workFolder, JAVADOC),
+            parameters.getSource(), parameters.getHeader(), links, parameters.getProxy(), parameters.isUseUmlGraph());
+    }
+
+    /**
+     * Determine the folder containing the package list of the given link on
+     * the controller.
+     *
+     * @param link
+     *            link to other JavaDoc documentation.
+     * @return the folder containing the package list or <code>null</code>
+     *         when JavaDoc should read it from the linked location.
+     */
+    private String getPackageListFolder(final JavaDocLink link) {
+        if (link.isOffline()) {
+            return link.getPackageListLoc();
+        }
+
+        if (!link.getHref().contains("://")) {
+            return link.getHref();
+        }
+
+        return null;
+    }
+
+    /**
+     * Determine whether a package list has been copied for the link with the
+     * given index.
+     *
+     * @param transfers
+     *            paths on the controller mapped to the paths (relative to the
+     *            temporary folder of the JavaDoc run) they were copied to.
+     * @param index
+     *            index of the link.
+     * @return <code>true</code> when a package list of the link has been
+     *         copied, <code>false</code> otherwise.
+     */
+    private boolean hasPackageList(final Map<String, String> transfers, final int index) {
+        for (final String name : PACKAGE_LISTS) {
+            if (transfers.containsValue(String.format("links/%d/%s", index, name))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Resolve the given relative path against the given folder.
+     *
+     * @param folder
+     *            folder on an agent.
+     * @param path
+     *            path relative to the given folder separated by '/'.
+     * @return the resolved path.
+     */
+    private String resolve(final String folder, final String path) {
+        return folder + '/' + path;
+    }
+
+    /**
+     * Copy the given class path jars missing in the given jar cache of an
+     * agent into it. A jar is copied to a temporary file renamed afterwards,
+     * so concurrent JavaDoc runs never use a partially copied jar. Cached
+     * outdated versions of a copied jar are removed.
+     *
+     * @param jars
+     *            paths of class path jars on the controller mapped to their
+     *            names in the jar cache.
+     * @param jarCache
+     *            folder caching class path jars on the agent.
+     * @throws IOException
+     *             when copying failed.
+     * @throws InterruptedException
+     *             when the build was interrupted.
+     */
+    private void updateJarCache(final Map<String, String> jars, final FilePath jarCache) throws IOException,
+        InterruptedException {
+        final Set<String> cached = new HashSet<String>();
+
+        for (final FilePath file : jarCache.list()) {
+            cached.add(file.getName());
+        }
+
+        for (final Map.Entry<String, String> jar : jars.entrySet()) {
+            final String name = jar.getValue();
+
+            if (!cached.contains(name)) {
+                final FilePath temporary = jarCache.createTempFile(name, ".tmp");
+                new FilePath(new File(jar.getKey())).copyTo(temporary);
+                temporary.renameTo(jarCache.child(name));
+                final String path = name.substring(0, name.indexOf('-') + 1);
+
+                for (final String outdated : cached) {
+                    if (outdated.startsWith(path) && outdated.endsWith(JAR)) {
+                        jarCache.child(outdated).delete();
+                    }
+                }
+
+                cached.add(name);
+            }
+        }
+    }
+
+    /**
+     * Copy the given file or folder on the controller to the given location
+     * on an agent.
+     *
+     * @param source
+     *            file or folder on the controller.
+     * @param target
+     *            location on the agent.
+     * @throws IOException
+     *             when copying failed.
+     * @throws InterruptedException
+     *             when the build was interrupted.
+     */
+    private void copy(final File source, final FilePath target) throws IOException, InterruptedException {
+        if (source.isDirectory()) {
+            target.mkdirs();
+            new FilePath(source).copyRecursiveTo(target);
+        }
+        else if (source.exists()) {
+            new FilePath(source).copyTo(target);
+        }
+    }
+
+    /**
+     * Delete the given temporary folder of a JavaDoc run logging errors.
+     *
+     * @param workFolder
+     *            temporary folder of a JavaDoc run (may be <code>null</code>).
+     * @throws InterruptedException
+     *             when the build was interrupted.
+     */
+    private void delete(final FilePath workFolder) throws InterruptedException {
+        if (workFolder != null) {
+            try {
+                workFolder.deleteRecursive();
+            }
+            catch (final IOException e) {
+                Logger.getLogger(getClass()).error("Could not delete " + workFolder.getRemote(), e);
+            }
+        }
+    }
+
+    /**
+     * Choose the online agent of the label executing the least JavaDoc runs
+     * and register a JavaDoc run for it.
+     *
+     * @return the chosen agent or <code>null</code> when no agent of the label
+     *         is online.
+     */
+    private synchronized Node acquire() {
+        Node chosen = null;
+        int load = Integer.MAX_VALUE;
+
+        for (final Node node : label.getNodes()) {
+            final Computer computer = node.toComputer();
+            final VirtualChannel channel = node.getChannel();
+
+            if (computer != null && computer.isOnline() && channel != null) {
+                final Integer current = running.get(node.getNodeName());
+                final int runs = current == null ? 0 : current.intValue();
+
+                if (runs < load) {
+                    chosen = node;
+                    load = runs;
+                }
+            }
+        }
+
+        if (chosen != null) {
+            running.put(chosen.getNodeName(), Integer.valueOf(load + 1));
+        }
+
+        return chosen;
+    }
+
+    /**
+     * Unregister a JavaDoc run for the given agent.
+     *
+     * @param node
+     *            agent a JavaDoc run finished on.
+     */
+    private synchronized void release(final Node node) {
+        final Integer current = running.get(node.getNodeName());
+
+        if (current != null) {
+            running.put(node.getNodeName(), Integer.valueOf(Math.max(0, current.intValue() - 1)));
+        }
+    }
+
+    /**
+     * Executes JavaDoc on an agent via the {@link DocumentationToolRunner}.
+     */
+    private static final class RemoteJavaDoc implements Callable<Boolean, IOException> {
+        /**
+         * serialization version.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * inputs of the JavaDoc run relative to the agent.
+         */
+        private final JavaDocParameters parameters;
+
+        /**
+         * stream forwarding the output of JavaDoc into the build log.
+         */
+        private final OutputStream output;
+
+        /**
+         * Create a JavaDoc run to execute on an agent.
+         *
+         * @param parameters
+         *            inputs of the JavaDoc run relative to the agent.
+         * @param output
+         *            stream forwarding the output of JavaDoc into the build
+         *            log.
+         */
+        RemoteJavaDoc(final JavaDocParameters parameters, final OutputStream output) {
+            this.parameters = parameters;
+            this.output = output;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public Boolean call() throws IOException {
+            final PrintStream logger = new PrintStream(output, true, UTF8);
+            boolean succeeded = false;
+
+            try {
+                if (DocumentationToolRunner.isAvailable()) {
+                    succeeded = new DocumentationToolRunner().execute(parameters, logger);
+                }
+                else {
+                    logger.println("javax.tools.DocumentationTool is not available on this agent (not running on a JDK?).");
+                }
+            }
+            finally {
+                logger.flush();
+            }
+
+            return Boolean.valueOf(succeeded);
+        }
+    }
+}
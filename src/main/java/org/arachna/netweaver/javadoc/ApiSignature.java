@@ -0,0 +1,401 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import hudson.Util;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Calculates the API signature of compiled classes (a jar file or a folder
+ * containing class files): a digest over the public and protected types and
+ * their public and protected fields and methods (names, access flags,
+ * descriptors, generic signatures and declared exceptions) read directly from
+ * the class files.
+ *
+ * JavaDoc reads used development components from the class path and links to
+ * their JavaDoc documentation, so their implementation (method bodies,
+ * private members, resources) does not influence the JavaDoc documentation of
+ * development components using them. Only changes of the API signature do.
+ *
+ * @author Dirk Weigenand
+ */
+final class ApiSignature {
+    /**
+     * suffix of class files.
+     */
+    private static final String CLASS_SUFFIX = ".class";
+
+    /**
+     * magic number of class files.
+     */
+    private static final int MAGIC = 0xCAFEBABE;
+
+    /**
+     * access flag <code>public</code>.
+     */
+    private static final int ACC_PUBLIC = 0x0001;
+
+    /**
+     * access flag <code>protected</code>.
+     */
+    private static final int ACC_PROTECTED = 0x0004;
+
+    /**
+     * access flag of synthetic (compiler generated) classes and members.
+     */
+    private static final int ACC_SYNTHETIC = 0x1000;
+
+    /**
+     * access flags of types relevant for the API (public, final, interface,
+     * abstract, annotation, enum).
+     */
+    private static final int TYPE_FLAGS = 0x6611;
+
+    /**
+     * access flags of members relevant for the API (public, protected,
+     * static, final, transient/varargs, abstract).
+     */
+    private static final int MEMBER_FLAGS = 0x049D;
+
+    /**
+     * Encoding to use for digesting the API.
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * declarations of the API sorted by name.
+     */
+    private final Set<String> declarations = new TreeSet<String>();
+
+    /**
+     * Calculate the API signature of the given jar file or folder of class
+     * files.
+     *
+     * @param file
+     *            jar file or folder containing class files.
+     * @return the API signature as a hex string.
+     * @throws IOException
+     *             when a class file could not be read or is malformed.
+     */
+    static String calculate(final File file) throws IOException {
+        final ApiSignature signature = new ApiSignature();
+
+        if (file.isDirectory()) {
+            signature.addFolder(file);
+        }
+        else if (file.isFile()) {
+            signature.addJar(file);
+        }
+
+        return signature.getSignature();
+    }
+
+    /**
+     * @return the API signature of the classes read as a hex string.
+     */
+    String getSignature() {
+        final MessageDigest digest;
+
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        }
+        catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        for (final String declaration : declarations) {
+            digest.update(declaration.getBytes(UTF8));
+            digest.update((byte)0);
+        }
+
+        return Util.toHexString(digest.digest());
+    }
+
+    /**
+     * Add the API of the class files in the given folder and its sub folders.
+     *
+     * @param folder
+     *            folder containing class files.
+     * @throws IOException
+     *             when a class file could not be read or is malformed.
+     */
+    private void addFolder(final File folder) throws IOException {
+        final File[] children = folder.listFiles();
+
+        if (children == null) {
+            return;
+        }
+
+        Arrays.sort(children);
+
+        for (final File child : children) {
+            if (child.isDirectory()) {
+                addFolder(child);
+            }
+            else if (child.getName().endsWith(CLASS_SUFFIX)) {
+                final InputStream input = new FileInputStream(child);
+
+                try {
+                    addClass(input);
+                }
+                finally {
+                    IOUtils.closeQuietly(input);
+                }
+            }
+        }
+    }
+
+    /**
+     * Add the API of the class files in the given jar file.
+     *
+     * @param jar
+     *            jar file containing class files.
+     * @throws IOException
+     *             when a class file could not be read or is malformed.
+     */
+    private void addJar(final File jar) throws IOException {
+        final ZipFile zip = new ZipFile(jar);
+
+        try {
+            final Enumeration<? extends ZipEntry> entries = zip.entries();
+
+            while (entries.hasMoreElements()) {
+                final ZipEntry entry = entries.nextElement();
+
+                if (!entry.isDirectory() && entry.getName().endsWith(CLASS_SUFFIX)) {
+                    final InputStream input = zip.getInputStream(entry);
+
+                    try {
+                        addClass(input);
+                    }
+                    finally {
+                        IOUtils.closeQuietly(input);
+                    }
+                }
+            }
+        }
+        finally {
+            zip.close();
+        }
+    }
+
+    /**
+     * Add the API of the given class file. Only the constant pool, the access
+     * flags, the type hierarchy and the declarations of fields and methods
+     * are read, everything else is skipped.
+     *
+     * @param classFile
+     *            stream containing a class file.
+     * @throws IOException
+     *             when the class file could not be read or is malformed.
+     */
+    void addClass(final InputStream classFile) throws IOException {
+        final DataInputStream input = new DataInputStream(new BufferedInputStream(classFile));
+
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not a class file.");
+        }
+
+        input.readUnsignedShort();
+        input.readUnsignedShort();
+        final String[] constants = readConstantPool(input);
+        final int access = input.readUnsignedShort();
+        final String name = getClassName(constants, input.readUnsignedShort());
+
+        if ((access & ACC_PUBLIC) == 0 || (access & ACC_SYNTHETIC) != 0 || name.endsWith("module-info")) {
+            return;
+        }
+
+        final StringBuilder type = new StringBuilder(name).append(' ').append(access & TYPE_FLAGS);
+        type.append(" extends ").append(getClassName(constants, input.readUnsignedShort())).append(" implements");
+
+        for (int i = input.readUnsignedShort(); i > 0; i--) {
+            type.append(' ').append(getClassName(constants, input.readUnsignedShort()));
+        }
+
+        // fields and methods share the same structure
+        for (int kind = 0; kind < 2; kind++) {
+            for (int i = input.readUnsignedShort(); i > 0; i--) {
+                final int memberAccess = input.readUnsignedShort();
+                final String member =
+                    String.format("%s.%s %d %s", name, constants[input.readUnsignedShort()], memberAccess & MEMBER_FLAGS,
+                        constants[input.readUnsignedShort()]);
+                final String attributes = readAttributes(input, constants);
+
+                if ((memberAccess & (ACC_PUBLIC | ACC_PROTECTED)) != 0 && (memberAccess & ACC_SYNTHETIC) == 0) {
+                    declarations.add(member + attributes);
+                }
+            }
+        }
+
+        declarations.add(type.append(readAttributes(input, constants)).toString());
+    }
+
+    /**
+     * Read the constant pool of a class file. Only UTF-8 constants and class
+     * references (resolved to the class name) are kept.
+     *
+     * @param input
+     *            class file positioned at the constant pool.
+     * @return the UTF-8 constants and class names by index.
+     * @throws IOException
+     *             when the class file could not be read or is malformed.
+     */
+    private String[] readConstantPool(final DataInputStream input) throws IOException {
+        final int count = input.readUnsignedShort();
+        final String[] constants = new String[count];
+        final int[] classes = new int[count];
+
+        for (int i = 1; i < count; i++) {
+            final int tag = input.readUnsignedByte();
+
+            switch (tag) {
+                case 1:
+                    constants[i] = input.readUTF();
+                    break;
+                case 7:
+                    classes[i] = input.readUnsignedShort();
+                    break;
+                case 8:
+                case 16:
+                case 19:
+                case 20:
+                    skip(input, 2);
+                    break;
+                case 15:
+                    skip(input, 3);
+                    break;
+                case 3:
+                case 4:
+                case 9:
+                case 10:
+                case 11:
+                case 12:
+                case 17:
+                case 18:
+                    skip(input, 4);
+                    break;
+                case 5:
+                case 6:
+                    skip(input, 8);
+                    i++;
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+
+        for (int i = 1; i < count; i++) {
+            if (classes[i] > 0) {
+                constants[i] = constants[classes[i]];
+            }
+        }
+
+        return constants;
+    }
+
+    /**
+     * Read the attributes of a class, field or method keeping those relevant
+     * for the API (generic signature and declared exceptions).
+     *
+     * @param input
+     *            class file positioned at the attributes.
+     * @param constants
+     *            the constant pool of the class file.
+     * @return the relevant attributes.
+     * @throws IOException
+     *             when the class file could not be read or is malformed.
+     */
+    private String readAttributes(final DataInputStream input, final String[] constants) throws IOException {
+        final StringBuilder attributes = new StringBuilder();
+
+        for (int i = input.readUnsignedShort(); i > 0; i--) {
+            final String name = constants[input.readUnsignedShort()];
+            final int length = input.readInt();
+
+            if ("Signature".equals(name)) {
+                attributes.append(" signature ").append(constants[input.readUnsignedShort()]);
+            }
+            else if ("Exceptions".equals(name)) {
+                attributes.append(" throws");
+
+                for (int j = input.readUnsignedShort(); j > 0; j--) {
+                    attributes.append(' ').append(getClassName(constants, input.readUnsignedShort()));
+                }
+            }
+            else {
+                skip(input, length);
+            }
+        }
+
+        return attributes.toString();
+    }
+
+    /**
+     * Get the name of the class referenced by the given constant pool index.
+     *
+     * @param constants
+     *            the constant pool of the class file.
+     * @param index
+     *            index of a class reference (<code>0</code>: none).
+     * @return the name of the referenced class.
+     * @throws IOException
+     *             when the index does not reference a class.
+     */
+    private String getClassName(final String[] constants, final int index) throws IOException {
+        if (index == 0) {
+            return "";
+        }
+
+        final String name = index < constants.length ? constants[index] : null;
+
+        if (name == null) {
+            throw new IOException("Invalid class reference " + index);
+        }
+
+        return name;
+    }
+
+    /**
+     * Skip the given number of bytes.
+     *
+     * @param input
+     *            stream to skip bytes of.
+     * @param count
+     *            number of bytes to skip.
+     * @throws IOException
+     *             when the stream ends prematurely.
+     */
+    private void skip(final DataInputStream input, final int count) throws IOException {
+        int remaining = count;
+
+        while (remaining > 0) {
+            final int skipped = input.skipBytes(remaining);
+
+            if (skipped <= 0) {
+                throw new EOFException();
+            }
+
+            remaining -= skipped;
+        }
+    }
+}
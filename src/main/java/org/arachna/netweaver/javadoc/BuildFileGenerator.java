@@ -5,23 +5,30 @@ package org.arachna.netweaver.javadoc;
 
 import hudson.ProxyConfiguration;
 
+import java.io.DataInputStream;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.Reader;
-import java.io.Writer;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.velocity.VelocityContext;
-import org.apache.velocity.app.VelocityEngine;
 import org.apache.velocity.context.Context;
 import org.arachna.ant.AntHelper;
 import org.arachna.netweaver.dc.types.DevelopmentComponent;
 import org.arachna.netweaver.dc.types.DevelopmentComponentFactory;
 import org.arachna.netweaver.dc.types.DevelopmentComponentType;
-import org.arachna.netweaver.dc.types.PublicPartReference;
 
 /**
  * An ant build file generator for the JavaDoc task.
@@ -29,6 +36,40 @@ import org.arachna.netweaver.dc.types.PublicPartReference;
  * @author Dirk Weigenand
  */
 final class BuildFileGenerator {
+    /**
+     * Location of the template for JavaDoc build files on the class path.
+     */
+    static final String TEMPLATE = "/org/arachna/netweaver/javadoc/javadoc-build.vm";
+
+    /**
+     * Location of the template for build files documenting a batch of
+     * development components on the class path.
+     */
+    static final String BATCH_TEMPLATE = "/org/arachna/netweaver/javadoc/javadoc-batch-build.vm";
+
+    /**
+     * Location of the macros shared by the build file templates on the class
+     * path.
+     */
+    static final String MACROS = "/org/arachna/netweaver/javadoc/javadoc-macros.vm";
+
+    /**
+     * suffix of the file a batch build file touches before documenting a
+     * development component.
+     */
+    static final String STARTED = "started";
+
+    /**
+     * suffix of the file a batch build file touches after documenting a
+     * development component.
+     */
+    static final String FINISHED = "finished";
+
+    /**
+     * Encoding of generated build files.
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
     /**
      * Helper class for setting up an ant task with class path, source file sets
      * etc.
@@ -41,25 +82,38 @@ final class BuildFileGenerator {
     private final ProxyConfiguration proxy;
 
     /**
-     * links to add to existing javadoc documentation.
+     * index of JavaDoc folders, used development components and links of
+     * development components.
      */
-    private final Collection<String> links;
+    private final DevelopmentComponentIndex index;
 
     /**
-     * Registry for development components.
+     * Indicate that UmlGraph should be used for generating UML images of class-
+     * and inheritance relations.
      */
-    private final DevelopmentComponentFactory dcFactory;
+    private final boolean useUmlGraph;
 
     /**
-     * The template engine to use for build file generation.
+     * cache for package lists of external JavaDoc documentation (may be
+     * <code>null</code>).
      */
-    private final VelocityEngine engine;
+    private final PackageListCache packageLists;
 
     /**
-     * Indicate that UmlGraph should be used for generating UML images of class-
-     * and inheritance relations.
+     * resolver for jar files in class path folders.
      */
-    private final boolean useUmlGraph;
+    private final ClassPathResolver classPathResolver;
+
+    /**
+     * inventory of the source folders of development components.
+     */
+    private final SourceInventory sourceInventory;
+
+    /**
+     * store to commit generated JavaDoc documentation into (may be
+     * <code>null</code>: generate directly into the JavaDoc folders).
+     */
+    private final ContentStore store;
 
     /**
      * Create an executor for executing the Javadoc ant task using the given ant
@@ -70,14 +124,12 @@ final class BuildFileGenerator {
      *            class path for a given development component
      * @param links
      *            links to add to existing javadoc documentation
-     * @param engine
-     *            template engine to use for generating build files.
      */
     BuildFileGenerator(final AntHelper antHelper, final DevelopmentComponentFactory dcFactory, final Collection<String> links,
-        final VelocityEngine engine, final boolean useUmlGraph) {
+        final boolean useUmlGraph) {
         this(antHelper, dcFactory, links, /*
                                            * Hudson. getInstance ().proxy
-                                           */null, engine, useUmlGraph);
+                                           */null, useUmlGraph);
     }
 
     /**
@@ -93,8 +145,6 @@ final class BuildFileGenerator {
      *            links to add to existing javadoc documentation
      * @param proxy
      *            the wwwproxy to use for referencing external javadocs.
-     * @param engine
-     *            template engine to use for generating build files.
      * @param useUmlGraph
      *            indicate whether to run UmlGraph and include generated images
      *            (<code>true</code>: yes, run UmlGraph. <code>false</code> 
@@ -102,13 +152,82 @@ final class BuildFileGenerator {
      * 
      */
     BuildFileGenerator(final AntHelper antHelper, final DevelopmentComponentFactory dcFactory, final Collection<String> links,
-        final ProxyConfiguration proxy, final VelocityEngine engine, final boolean useUmlGraph) {
+        final ProxyConfiguration proxy, final boolean useUmlGraph) {
+        this(antHelper, new DevelopmentComponentIndex(dcFactory, antHelper.getPathToWorkspace(), links), proxy, useUmlGraph, null,
+            new ClassPathResolver(), new SourceInventory(antHelper));
+    }
+
+    /**
+     * Create an executor for executing the Javadoc ant task using the given ant
+     * helper object and links to related javadoc documentation.
+     * 
+     * @param antHelper
+     *            helper for populating an ant task with source filesets and
+     *            class path for a given development component
+     * @param index
+     *            index of JavaDoc folders, used development components and
+     *            links of development components (including the links to
+     *            add to existing javadoc documentation).
+     * @param proxy
+     *            the wwwproxy to use for referencing external javadocs.
+     * @param useUmlGraph
+     *            indicate whether to run UmlGraph and include generated images
+     *            (<code>true</code>: yes, run UmlGraph. <code>false</code> 
+     *            don't care about it).
+     * @param packageLists
+     *            cache for package lists of external javadocs
+     *            (<code>null</code>: let javadoc fetch them).
+     * @param classPathResolver
+     *            resolver for jar files in class path folders.
+     * @param sourceInventory
+     *            inventory of the source folders of development components.
+     */
+    BuildFileGenerator(final AntHelper antHelper, final DevelopmentComponentIndex index, final ProxyConfiguration proxy,
+        final boolean useUmlGraph, final PackageListCache packageLists, final ClassPathResolver classPathResolver,
+        final SourceInventory sourceInventory) {
+        this(antHelper, index, proxy, useUmlGraph, packageLists, classPathResolver, sourceInventory, null);
+    }
+
+    /**
+     * Create an executor for executing the Javadoc ant task using the given ant
+     * helper object and links to related javadoc documentation.
+     * 
+     * @param antHelper
+     *            helper for populating an ant task with source filesets and
+     *            class path for a given development component
+     * @param index
+     *            index of JavaDoc folders, used development components and
+     *            links of development components (including the links to
+     *            add to existing javadoc documentation).
+     * @param proxy
+     *            the wwwproxy to use for referencing external javadocs.
+     * @param useUmlGraph
+     *            indicate whether to run UmlGraph and include generated images
+     *            (<code>true</code>: yes, run UmlGraph. <code>false</code> 
+     *            don't care about it).
+     * @param packageLists
+     *            cache for package lists of external javadocs
+     *            (<code>null</code>: let javadoc fetch them).
+     * @param classPathResolver
+     *            resolver for jar files in class path folders.
+     * @param sourceInventory
+     *            inventory of the source folders of development components.
+     * @param store
+     *            store to commit generated JavaDoc documentation into
+     *            (<code>null</code>: generate directly into the JavaDoc
+     *            folders).
+     */
+    BuildFileGenerator(final AntHelper antHelper, final DevelopmentComponentIndex index, final ProxyConfiguration proxy,
+        final boolean useUmlGraph, final PackageListCache packageLists, final ClassPathResolver classPathResolver,
+        final SourceInventory sourceInventory, final ContentStore store) {
         this.antHelper = antHelper;
-        this.dcFactory = dcFactory;
-        this.links = links;
+        this.index = index;
         this.proxy = proxy;
-        this.engine = engine;
         this.useUmlGraph = useUmlGraph;
+        this.packageLists = packageLists;
+        this.classPathResolver = classPathResolver;
+        this.sourceInventory = sourceInventory;
+        this.store = store;
     }
 
     /**
@@ -119,36 +238,185 @@ final class BuildFileGenerator {
      */
     public String execute(final DevelopmentComponent component) {
         String location = null;
-        final Collection<String> sources = antHelper.createSourceFileSets(component);
-
-        if (!sources.isEmpty()) {
-            final Context context = createContext(component, sources);
+        final JavaDocParameters parameters = createParameters(component);
 
-            Writer buildFile = null;
+        if (parameters != null) {
+            location = createBuildXmlLocation(component);
 
             try {
-                location = createBuildXmlLocation(component);
-                buildFile = new FileWriter(location);
-                evaluateContext(context, buildFile);
+                final Context context = new VelocityContext();
+                context.put("dc", createTemplateParameters(parameters));
+                writeIfChanged(new File(location), evaluateContext(TEMPLATE, context));
             }
             catch (final IOException e) {
                 throw new IllegalStateException(e);
             }
-            finally {
-                if (buildFile != null) {
-                    try {
-                        buildFile.close();
-                    }
-                    catch (final IOException e) {
-                        throw new IllegalStateException(e);
-                    }
+        }
+
+        return location;
+    }
+
+    /**
+     * Generate a build file documenting the given development components in a
+     * single Ant run.
+     * 
+     * The build file contains a macro per development component. Its default
+     * target processes the given levels one after another; the development
+     * components of one level are processed in parallel. A level only starts
+     * when all development components of the previous level have been
+     * documented (Ant would run targets depending on each other
+     * sequentially). Each macro touches the {@link #getBatchMarker markers}
+     * of its development component before and after running JavaDoc, so
+     * their modification times tell how long JavaDoc took.
+     * 
+     * @param levels
+     *            development components grouped by their dependency level.
+     * @param threadCount
+     *            maximum number of development components to document
+     *            concurrently.
+     * @return location of the generated build file or <code>null</code> when
+     *         none of the given development components has sources.
+     */
+    String executeBatch(final List<Collection<DevelopmentComponent>> levels, final int threadCount) {
+        final Map<DevelopmentComponent, Map<String, Object>> components =
+            new LinkedHashMap<DevelopmentComponent, Map<String, Object>>();
+        final Map<String, String> staged = new HashMap<String, String>();
+
+        for (final Collection<DevelopmentComponent> level : levels) {
+            for (final DevelopmentComponent component : level) {
+                if (store != null) {
+                    staged.put(getJavaDocFolder(component), getOutputFolder(component));
+                }
+            }
+        }
+
+        for (final Collection<DevelopmentComponent> level : levels) {
+            for (final DevelopmentComponent component : level) {
+                final JavaDocParameters parameters = createParameters(component, staged);
+
+                if (parameters != null) {
+                    final Map<String, Object> dc = createTemplateParameters(parameters);
+                    dc.put("macro", String.format("javadoc-dc-%d", components.size()));
+                    dc.put("started", getBatchMarker(component, STARTED).getAbsolutePath());
+                    dc.put("finished", getBatchMarker(component, FINISHED).getAbsolutePath());
+                    components.put(component, dc);
+                }
+            }
+        }
+
+        if (components.isEmpty()) {
+            return null;
+        }
+
+        final List<Collection<Map<String, Object>>> batches = new ArrayList<Collection<Map<String, Object>>>();
+
+        for (final Collection<DevelopmentComponent> level : levels) {
+            final Collection<Map<String, Object>> batch = new ArrayList<Map<String, Object>>();
+
+            for (final DevelopmentComponent component : level) {
+                final Map<String, Object> dc = components.get(component);
+
+                if (dc != null) {
+                    batch.add(dc);
                 }
             }
+
+            if (!batch.isEmpty()) {
+                batches.add(batch);
+            }
+        }
+
+        final Context context = new VelocityContext();
+        context.put("components", components.values());
+        context.put("levels", batches);
+        context.put("threadCount", Integer.valueOf(Math.max(1, threadCount)));
+        final String location = String.format("%s/javadoc-batch-build.xml", antHelper.getPathToWorkspace());
+
+        try {
+            writeIfChanged(new File(location), evaluateContext(BATCH_TEMPLATE, context));
+        }
+        catch (final IOException e) {
+            throw new IllegalStateException(e);
         }
 
         return location;
     }
 
+    /**
+     * Determine the inputs of a JavaDoc run for the given development
+     * component.
+     * 
+     * @param component
+     *            development component to document with JavaDoc.
+     * @return the parameters for the JavaDoc run or <code>null</code> when the
+     *         development component has no Java sources.
+     */
+    JavaDocParameters createParameters(final DevelopmentComponent component) {
+        return createParameters(component, Collections.<String, String> emptyMap());
+    }
+
+    /**
+     * Determine the inputs of a JavaDoc run for the given development
+     * component.
+     * 
+     * @param component
+     *            development component to document with JavaDoc.
+     * @param staged
+     *            JavaDoc folders of used development components documented
+     *            in the same run mapped to the staging folders their
+     *            package lists are generated into.
+     * @return the parameters for the JavaDoc run or <code>null</code> when the
+     *         development component has no Java sources.
+     */
+    private JavaDocParameters createParameters(final DevelopmentComponent component, final Map<String, String> staged) {
+        final Collection<String> sourceFiles = sourceInventory.getSourceFiles(component);
+
+        if (sourceFiles.isEmpty()) {
+            return null;
+        }
+
+        final String source = component.getCompartment().getDevelopmentConfiguration().getSourceVersion();
+
+        return new JavaDocParameters(component.getVendor(), index.getFolderName(component),
+            sourceInventory.getSourcePaths(component), sourceInventory.getPackages(component), sourceFiles,
+            component.getOutputFolder(), classPathResolver.resolve(antHelper.createClassPath(component)),
+            getOutputFolder(component), source, getHeader(component), resolveLinks(getLinks(component), staged),
+            getProxyConfigurationParams(), useUmlGraph(component));
+    }
+
+    /**
+     * Resolve the given links using the package list cache (if any).
+     * 
+     * Links to JavaDoc folders of development components are made relative
+     * and read the package list from the JavaDoc folder (or from the
+     * respective staging folder when its documentation is generated in the
+     * same run).
+     * 
+     * @param links
+     *            links to JavaDoc documentation.
+     * @param staged
+     *            JavaDoc folders mapped to the staging folders their package
+     *            lists are generated into.
+     * @return the links to use for a JavaDoc run.
+     */
+    private Collection<JavaDocLink> resolveLinks(final Collection<String> links, final Map<String, String> staged) {
+        final Collection<JavaDocLink> resolved = new ArrayList<JavaDocLink>();
+
+        for (final String link : links) {
+            final String relativeLink = index.getRelativeLink(link);
+            final String packageListLoc = staged.get(link);
+
+            if (relativeLink != null) {
+                resolved.add(new JavaDocLink(relativeLink, packageListLoc == null ? link : packageListLoc));
+            }
+            else {
+                resolved.add(packageLists == null ? new JavaDocLink(link, null) : packageLists.resolve(link));
+            }
+        }
+
+        return resolved;
+    }
+
     /**
      * @param component
      * @return
@@ -158,34 +426,158 @@ final class BuildFileGenerator {
     }
 
     /**
+     * Render the given build file template using the given context.
+     * 
+     * @param template
+     *            location of the template on the class path.
      * @param context
-     * @param buildFile
+     *            context to render the template with.
+     * @return the rendered build file.
+     */
+    private String evaluateContext(final String template, final Context context) {
+        final StringWriter buildFile = new StringWriter();
+        TemplateCache.getTemplate(template).merge(context, buildFile);
+
+        return buildFile.toString();
+    }
+
+    /**
+     * Write the given content to the given file unless the file already has
+     * exactly this content. Keeping unchanged build files untouched preserves
+     * their time stamps for change detection.
+     * 
+     * @param file
+     *            file to write.
+     * @param content
+     *            content to write.
      * @throws IOException
+     *             when reading or writing the file failed.
      */
-    private void evaluateContext(final Context context, final Writer buildFile) throws IOException {
-        engine.evaluate(context, buildFile, "javadoc-build", getTemplateReader());
+    private void writeIfChanged(final File file, final String content) throws IOException {
+        final byte[] bytes = content.getBytes(UTF8);
+
+        if (file.length() == bytes.length && Arrays.equals(bytes, readFully(file))) {
+            return;
+        }
+
+        final OutputStream output = new FileOutputStream(file);
+
+        try {
+            output.write(bytes);
+        }
+        finally {
+            output.close();
+        }
+    }
+
+    /**
+     * Read the content of the given file.
+     * 
+     * @param file
+     *            file to read.
+     * @return content of the given file.
+     * @throws IOException
+     *             when reading the file failed.
+     */
+    private byte[] readFully(final File file) throws IOException {
+        final byte[] content = new byte[(int)file.length()];
+        final DataInputStream input = new DataInputStream(new FileInputStream(file));
+
+        try {
+            input.readFully(content);
+        }
+        finally {
+            input.close();
+        }
+
+        return content;
     }
 
     /**
+     * Create the parameters of a development component as used by the build
+     * file templates.
+     * 
+     * @param parameters
+     *            inputs of the JavaDoc run for a development component.
+     * @return the parameters of the development component as used by the
+     *         build file templates.
+     */
+    private Map<String, Object> createTemplateParameters(final JavaDocParameters parameters) {
+        final Map<String, Object> dc = new HashMap<String, Object>();
+        dc.put("sourcePaths", parameters.getSourcePaths());
+        dc.put("packages", parameters.getPackages());
+        dc.put("defaultPackageFiles", getDefaultPackageFiles(parameters));
+        dc.put("classes", parameters.getClasses());
+        dc.put("classpaths", parameters.getClassPaths());
+        dc.put("javaDocDir", parameters.getJavaDocDir());
+        dc.put("source", parameters.getSource());
+        dc.put("header", parameters.getHeader().replace("<", "&lt;").replace(">", "&gt;"));
+        dc.put("links", createTemplateParameters(parameters.getLinks()));
+        dc.put("proxy", parameters.getProxy());
+        dc.put("useUmlGraph", Boolean.valueOf(parameters.isUseUmlGraph()));
+        dc.put("vendor", parameters.getVendor());
+        dc.put("component", parameters.getComponent());
+
+        return dc;
+    }
+
+    /**
+     * Get the number of Java sources of the given development component.
+     *
      * @param component
-     * @param sources
-     * @return
+     *            development component to count the Java sources of.
+     * @return the number of Java sources of the given development component.
      */
-    private Context createContext(final DevelopmentComponent component, final Collection<String> sources) {
-        final Context context = new VelocityContext();
-        context.put("sourcePaths", sources);
-        context.put("classes", component.getOutputFolder());
-        context.put("classpaths", antHelper.createClassPath(component));
-        context.put("javaDocDir", getJavaDocFolder(component));
-        context.put("source", component.getCompartment().getDevelopmentConfiguration().getSourceVersion());
-        context.put("header", getHeader(component));
-        context.put("links", getLinks(component));
-        context.put("proxy", getProxyConfigurationParams());
-        context.put("useUmlGraph", useUmlGraph(component));
-        context.put("vendor", component.getVendor());
-        context.put("component", component.getNormalizedName("~"));
-
-        return context;
+    int getSourceFileCount(final DevelopmentComponent component) {
+        return sourceInventory.getSourceFiles(component).size();
+    }
+
+    /**
+     * Determine the Java sources in the default package, i.e. directly in one
+     * of the source folders.
+     * 
+     * @param parameters
+     *            inputs of the JavaDoc run for a development component.
+     * @return the Java sources in the default package.
+     */
+    private Collection<String> getDefaultPackageFiles(final JavaDocParameters parameters) {
+        final Collection<String> sourcePaths = new HashSet<String>();
+
+        for (final String sourcePath : parameters.getSourcePaths()) {
+            sourcePaths.add(new File(sourcePath).getAbsolutePath());
+        }
+
+        final Collection<String> files = new ArrayList<String>();
+
+        for (final String file : parameters.getSourceFiles()) {
+            if (sourcePaths.contains(new File(file).getParent())) {
+                files.add(file);
+            }
+        }
+
+        return files;
+    }
+
+    /**
+     * Create the parameters of the given links as used by the build file
+     * templates.
+     * 
+     * @param links
+     *            links to JavaDoc documentation.
+     * @return the parameters of the links as used by the build file
+     *         templates.
+     */
+    private Collection<Map<String, String>> createTemplateParameters(final Collection<JavaDocLink> links) {
+        final Collection<Map<String, String>> result = new ArrayList<Map<String, String>>();
+
+        for (final JavaDocLink link : links) {
+            final Map<String, String> parameters = new HashMap<String, String>();
+            parameters.put("href", link.getHref());
+            parameters.put("packageListLoc", link.getPackageListLoc());
+            result.add(parameters);
+        }
+
+        return result;
     }
 
     /**
@@ -199,25 +591,30 @@ final class BuildFileGenerator {
      * @return <code>true</code> when UML diagrams should be generated for the
      *         given development component, <code>false</code> otherwise.
      */
-    private Boolean useUmlGraph(final DevelopmentComponent component) {
+    Boolean useUmlGraph(final DevelopmentComponent component) {
         return Boolean.valueOf(useUmlGraph) && !DevelopmentComponentType.WebDynpro.equals(component.getType())
             && component.getType().canContainJavaSources();
     }
 
     /**
+     * @param component
      * @return
      */
-    private Reader getTemplateReader() {
-        return new InputStreamReader(this.getClass().getResourceAsStream("/org/arachna/netweaver/javadoc/javadoc-build.vm"));
+    String getHeader(final DevelopmentComponent component) {
+        return String.format("<div class='compartment'>Compartment %s<br/>Development Component %s:%s</div>", component
+            .getCompartment().getName(), component.getVendor(), component.getName());
     }
 
     /**
+     * Get the development components used by the given development component.
+     *
      * @param component
-     * @return
+     *            development component to get the used development components
+     *            for.
+     * @return the used development components.
      */
-    private String getHeader(final DevelopmentComponent component) {
-        return String.format("&lt;div class='compartment'&gt;Compartment %s&lt;br/&gt;Development Component %s:%s&lt;/div&gt;", component
-            .getCompartment().getName(), component.getVendor(), component.getName());
+    Collection<DevelopmentComponent> getUsedDevelopmentComponents(final DevelopmentComponent component) {
+        return index.getUsedDevelopmentComponents(component);
     }
 
     /**
@@ -228,19 +625,8 @@ final class BuildFileGenerator {
      *            DC to use to determine which other projects (DCs) should be
      *            referenced.
      */
-    private Collection<String> getLinks(final DevelopmentComponent component) {
-        final Collection<String> links = new HashSet<String>();
-        links.addAll(this.links);
-
-        for (final PublicPartReference referencedDC : component.getUsedDevelopmentComponents()) {
-            final DevelopmentComponent usedDC = dcFactory.get(referencedDC.getVendor(), referencedDC.getName());
-
-            if (usedDC != null && usedDC.getCompartment().isSourceState()) {
-                links.add(getJavaDocFolder(usedDC));
-            }
-        }
-
-        return links;
+    Collection<String> getLinks(final DevelopmentComponent component) {
+        return index.getLinks(component);
     }
 
     /**
@@ -273,8 +659,38 @@ final class BuildFileGenerator {
      *            for
      * @return folder to output javadoc to
      */
-    private String getJavaDocFolder(final DevelopmentComponent component) {
-        return String.format("%s/javadoc/%s", antHelper.getPathToWorkspace(), component.getNormalizedName("~")).replace('/',
-            File.separatorChar);
+    String getJavaDocFolder(final DevelopmentComponent component) {
+        return index.getJavaDocFolder(component);
+    }
+
+    /**
+     * Calculate the folder JavaDoc generates the documentation of the given
+     * development component into. This is the staging folder of its JavaDoc
+     * folder when generated documentation is committed into a
+     * {@link ContentStore}.
+     * 
+     * @param component
+     *            development component to calculate the output folder for
+     * @return folder JavaDoc generates the documentation into
+     */
+    String getOutputFolder(final DevelopmentComponent component) {
+        final String javaDocFolder = getJavaDocFolder(component);
+
+        return store == null ? javaDocFolder : store.getStagingFolder(new File(javaDocFolder)).getAbsolutePath();
+    }
+
+    /**
+     * Get the marker a batch build file touches before ({@link #STARTED}) or
+     * after ({@link #FINISHED}) documenting the given development component.
+     * 
+     * @param component
+     *            development component to get the marker for.
+     * @param suffix
+     *            {@link #STARTED} or {@link #FINISHED}.
+     * @return the marker file.
+     */
+    File getBatchMarker(final DevelopmentComponent component, final String suffix) {
+        return new File(String.format("%s/javadoc-batch/%s.%s", antHelper.getPathToWorkspace(), index.getFolderName(component),
+            suffix));
     }
 }
@@ -0,0 +1,172 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolves the class path folders of development components to the jar files
+ * contained therein.
+ *
+ * Each folder is scanned at most once per build (i.e. per instance). Scan
+ * results are also kept across builds together with the modification times of
+ * the scanned folders and reused as long as none of these folders changed.
+ *
+ * @author Dirk Weigenand
+ */
+final class ClassPathResolver {
+    /**
+     * maximum number of folders whose scan results are kept across builds.
+     */
+    private static final int MAX_CACHED_FOLDERS = 10000;
+
+    /**
+     * scan results kept across builds.
+     */
+    private static final Map<String, ScanResult> CACHE = Collections.synchronizedMap(new LinkedHashMap<String, ScanResult>(16,
+        0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, ScanResult> eldest) {
+            return size() > MAX_CACHED_FOLDERS;
+        }
+    });
+
+    /**
+     * jar files of the folders resolved during the current build.
+     */
+    private final ConcurrentMap<String, List<File>> resolved = new ConcurrentHashMap<String, List<File>>();
+
+    /**
+     * List the jar files in the given folder and its sub folders.
+     *
+     * @param folder
+     *            folder to search for jar files.
+     * @return jar files found in the given folder sorted by path.
+     */
+    List<File> listJars(final File folder) {
+        final String key = folder.getAbsolutePath();
+        List<File> jars = resolved.get(key);
+
+        if (jars == null) {
+            ScanResult result = CACHE.get(key);
+
+            if (result == null || !result.isUpToDate()) {
+                result = new ScanResult(folder);
+                CACHE.put(key, result);
+            }
+
+            jars = result.jars;
+            resolved.put(key, jars);
+        }
+
+        return jars;
+    }
+
+    /**
+     * Resolve the given class path folders to the jar files contained
+     * therein.
+     *
+     * @param folders
+     *            class path folders of a development component.
+     * @return paths of the jar files in the given folders (in the order of the
+     *         given folders, without duplicates).
+     */
+    Collection<String> resolve(final Collection<String> folders) {
+        final Collection<String> jars = new LinkedHashSet<String>();
+
+        for (final String folder : folders) {
+            for (final File jar : listJars(new File(folder))) {
+                jars.add(jar.getAbsolutePath());
+            }
+        }
+
+        return jars;
+    }
+
+    /**
+     * Jar files found in a folder together with the modification times of the
+     * folder and its sub folders at the time of the scan.
+     */
+    private static final class ScanResult {
+        /**
+         * jar files found.
+         */
+        private final List<File> jars;
+
+        /**
+         * scanned folders mapped to their modification times.
+         */
+        private final Map<File, Long> folders = new HashMap<File, Long>();
+
+        /**
+         * Scan the given folder and its sub folders for jar files.
+         *
+         * @param folder
+         *            folder to scan.
+         */
+        ScanResult(final File folder) {
+            final List<File> jars = new ArrayList<File>();
+            scan(folder, jars);
+            this.jars = Collections.unmodifiableList(jars);
+        }
+
+        /**
+         * Determine whether the scanned folders are unchanged. Adding,
+         * removing or renaming a file changes the modification time of the
+         * containing folder.
+         *
+         * @return <code>true</code> when none of the scanned folders was
+         *         modified since the scan, <code>false</code> otherwise.
+         */
+        boolean isUpToDate() {
+            for (final Map.Entry<File, Long> folder : folders.entrySet()) {
+                if (folder.getKey().lastModified() != folder.getValue().longValue()) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * Add the jar files in the given folder and its sub folders to the
+         * given list.
+         *
+         * @param folder
+         *            folder to scan.
+         * @param jars
+         *            list to add found jar files to.
+         */
+        private void scan(final File folder, final List<File> jars) {
+            folders.put(folder, Long.valueOf(folder.lastModified()));
+            final File[] files = folder.listFiles();
+
+            if (files != null) {
+                Arrays.sort(files);
+
+                for (final File file : files) {
+                    if (file.isDirectory()) {
+                        scan(file, jars);
+                    }
+                    else if (file.getName().endsWith(".jar")) {
+                        jars.add(file);
+                    }
+                }
+            }
+        }
+    }
+}
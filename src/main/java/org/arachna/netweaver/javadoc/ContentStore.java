@@ -0,0 +1,866 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import hudson.Util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.Logger;
+
+/**
+ * Content addressed store for the generated JavaDoc documentation of
+ * development components.
+ *
+ * JavaDoc documentation is generated into a staging folder and committed into
+ * the JavaDoc folder of the development component afterwards. Committing
+ * adds each file to the store (named after the SHA-1 hash of its content)
+ * unless it is stored already and replaces the staged file with a hard link
+ * to the stored object. Thus identical files (style sheets, images,
+ * unchanged pages) are kept on disk only once, and files whose content did
+ * not change keep their inode and modification time (and with it the ETags
+ * of {@link JavaDocAction} and the compressed siblings written by
+ * {@link Precompressor}, which are carried over).
+ *
+ * The completed staging folder is then published. Where the file system
+ * supports symbolic links the JavaDoc folder is a symbolic link to the
+ * current version of the documentation: the staging folder is renamed into
+ * the versions folder and a new link to it is renamed over the JavaDoc
+ * folder, which replaces the link atomically. Readers see either the
+ * previous or the new documentation, never a partially written, mixed or
+ * missing one. Otherwise the staging folder is swapped with the JavaDoc
+ * folder by renaming both. Since Java offers no atomic exchange of two
+ * folders the JavaDoc folder is missing for the short time between both
+ * renames (requests answered during that time fail with 404 Not Found).
+ * Where the JavaDoc folder cannot be renamed (e.g. files opened on Windows)
+ * its files are replaced one by one instead, so readers may see a mix of the
+ * previous and the new files until the commit is finished. Files are never written in
+ * place, so the shared objects of the store are never modified. When the
+ * file system does not support hard links the files are copied instead.
+ *
+ * @author Dirk Weigenand
+ */
+final class ContentStore {
+    /**
+     * folder (in the JavaDoc folder) JavaDoc documentation is generated into
+     * before committing it.
+     */
+    static final String STAGING_FOLDER = ".staging";
+
+    /**
+     * folder (in the JavaDoc folder) containing the stored files.
+     */
+    static final String STORE_FOLDER = ".store";
+
+    /**
+     * folder (in the JavaDoc folder) containing the objects referenced by
+     * each JavaDoc folder of a development component (one file per JavaDoc
+     * folder listing the hashes of its files).
+     */
+    static final String REFERENCES_FOLDER = ".references";
+
+    /**
+     * folder (in the JavaDoc folder) containing the published versions of
+     * the JavaDoc folders linked to symbolically.
+     */
+    static final String VERSIONS_FOLDER = ".versions";
+
+    /**
+     * the JavaDoc folder.
+     */
+    private final File javaDocFolder;
+
+    /**
+     * folder containing the stored files.
+     */
+    private final File storeFolder;
+
+    /**
+     * folder containing the objects referenced by each JavaDoc folder.
+     */
+    private final File referencesFolder;
+
+    /**
+     * folder containing the published versions of the JavaDoc folders.
+     */
+    private final File versionsFolder;
+
+    /**
+     * indicates whether the file system supports hard links.
+     */
+    private volatile boolean linksSupported = true;
+
+    /**
+     * indicates whether JavaDoc folders can be published by replacing a
+     * symbolic link.
+     */
+    private volatile boolean symbolicLinksSupported = true;
+
+    /**
+     * number of files committed unchanged.
+     */
+    private int unchanged;
+
+    /**
+     * number of files linked to (or copied from) an existing object.
+     */
+    private int linked;
+
+    /**
+     * number of objects added to the store.
+     */
+    private int stored;
+
+    /**
+     * number of files removed from JavaDoc folders (or objects pruned from
+     * the store).
+     */
+    private int removed;
+
+    /**
+     * Create a content store in the given JavaDoc folder.
+     *
+     * @param javaDocFolder
+     *            the JavaDoc folder.
+     */
+    ContentStore(final File javaDocFolder) {
+        this.javaDocFolder = javaDocFolder;
+        storeFolder = new File(javaDocFolder, STORE_FOLDER);
+        referencesFolder = new File(javaDocFolder, REFERENCES_FOLDER);
+        versionsFolder = new File(javaDocFolder, VERSIONS_FOLDER);
+    }
+
+    /**
+     * Get the staging folder for the given JavaDoc folder of a development
+     * component.
+     *
+     * @param folder
+     *            JavaDoc folder of a development component.
+     * @return the staging folder to generate the JavaDoc documentation into.
+     */
+    File getStagingFolder(final File folder) {
+        return new File(new File(javaDocFolder, STAGING_FOLDER), folder.getName());
+    }
+
+    /**
+     * Prepare an empty staging folder for the given JavaDoc folder of a
+     * development component.
+     *
+     * @param folder
+     *            JavaDoc folder of a development component.
+     */
+    void prepare(final File folder) {
+        final File staging = getStagingFolder(folder);
+
+        try {
+            Util.deleteRecursive(staging);
+        }
+        catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        if (!staging.mkdirs()) {
+            throw new IllegalStateException("Could not create " + staging.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Commit the JavaDoc documentation generated into the staging folder of
+     * the given JavaDoc folder of a development component and publish it.
+     *
+     * @param folder
+     *            JavaDoc folder of a development component.
+     */
+    void commit(final File folder) {
+        final File staging = getStagingFolder(folder);
+        final Set<String> committed = new HashSet<String>();
+        final Set<String> objects = new HashSet<String>();
+
+        try {
+            store(staging, folder, "", committed, objects);
+
+            if (folder.exists()) {
+                carryOver(folder, staging, "", committed);
+            }
+
+            publish(staging, folder, committed);
+            writeReferences(folder, objects);
+        }
+        catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Remove the staging folders left by failed runs, the versions no longer
+     * linked to by any JavaDoc folder and the objects of the store no longer
+     * referenced by any JavaDoc folder (mark and sweep over the references
+     * written when committing). JavaDoc folders committed without writing
+     * references are hashed once to create them.
+     */
+    void prune() {
+        try {
+            Util.deleteRecursive(new File(javaDocFolder, STAGING_FOLDER));
+            pruneVersions();
+            final Set<String> reachable = mark();
+            final File[] folders = storeFolder.listFiles();
+
+            for (final File folder : folders == null ? new File[0] : folders) {
+                final File[] objects = folder.listFiles();
+
+                if (objects != null) {
+                    for (final File object : objects) {
+                        if (!reachable.contains(folder.getName() + object.getName())) {
+                            Files.delete(object.toPath());
+                            count(0, 0, 0, 1);
+                        }
+                    }
+                }
+
+                folder.delete();
+            }
+        }
+        catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the number of files committed unchanged
+     */
+    synchronized int getUnchanged() {
+        return unchanged;
+    }
+
+    /**
+     * @return the number of files linked to (or copied from) an existing
+     *         object
+     */
+    synchronized int getLinked() {
+        return linked;
+    }
+
+    /**
+     * @return the number of objects added to the store
+     */
+    synchronized int getStored() {
+        return stored;
+    }
+
+    /**
+     * @return the number of files removed from JavaDoc folders and objects
+     *         pruned from the store
+     */
+    synchronized int getRemoved() {
+        return removed;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized String toString() {
+        return String.format("%d files unchanged, %d linked to stored files, %d stored, %d removed", unchanged, linked, stored,
+            removed);
+    }
+
+    /**
+     * Store the files of the given staging folder and replace them with links
+     * to the respective objects.
+     *
+     * @param staging
+     *            (sub folder of) a staging folder.
+     * @param target
+     *            the respective (sub folder of the) JavaDoc folder.
+     * @param path
+     *            path of the folders relative to the staging folder.
+     * @param committed
+     *            set to add the relative paths of the committed files to.
+     * @param objects
+     *            set to add the hashes of the committed files to.
+     * @throws IOException
+     *             when a file could not be stored or linked.
+     */
+    private void store(final File staging, final File target, final String path, final Set<String> committed,
+        final Set<String> objects) throws IOException {
+        final File[] files = staging.listFiles();
+
+        if (files == null) {
+            return;
+        }
+
+        for (final File file : files) {
+            final String relativePath = path + file.getName();
+            final File targetFile = new File(target, file.getName());
+
+            if (file.isDirectory()) {
+                store(file, targetFile, relativePath + "/", committed, objects);
+            }
+            else {
+                objects.add(storeFile(file, targetFile));
+            }
+
+            committed.add(relativePath);
+        }
+    }
+
+    /**
+     * Add the given staged file to the store unless an object with the same
+     * content exists and replace it with a link to the object.
+     *
+     * @param file
+     *            the staged file.
+     * @param target
+     *            the respective file in the JavaDoc folder.
+     * @return the hash of the content of the file.
+     * @throws IOException
+     *             when the file could not be stored or linked.
+     */
+    private String storeFile(final File file, final File target) throws IOException {
+        final String hash = digest(file);
+        final File object = new File(new File(storeFolder, hash.substring(0, 2)), hash.substring(2));
+
+        if (!linksSupported && target.isFile() && hash.equals(digest(target))) {
+            // keep the modification time of the unchanged file
+            Files.copy(target.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+            count(1, 0, 0, 0);
+
+            return hash;
+        }
+
+        final boolean unchanged = object.exists() && target.isFile() && Files.isSameFile(object.toPath(), target.toPath());
+        final boolean added = !object.exists() && add(file, object);
+
+        Files.delete(file.toPath());
+        link(object, file);
+        count(unchanged ? 1 : 0, unchanged || added ? 0 : 1, added ? 1 : 0, 0);
+
+        return hash;
+    }
+
+    /**
+     * Create the given object as hard link to (or copy of) the given staged
+     * file. Creating the link fails when the object exists, so of several
+     * development components storing the same content concurrently exactly
+     * one adds the object (a rename would silently replace it).
+     *
+     * @param file
+     *            the staged file.
+     * @param object
+     *            the object to create.
+     * @return <code>true</code> when the file was added to the store,
+     *         <code>false</code> when the object has been stored concurrently
+     *         by another development component.
+     * @throws IOException
+     *             when the object could not be created.
+     */
+    private boolean add(final File file, final File object) throws IOException {
+        Files.createDirectories(object.getParentFile().toPath());
+
+        try {
+            link(file, object);
+        }
+        catch (final FileAlreadyExistsException e) {
+            Logger.getLogger(getClass()).debug(object.getAbsolutePath() + " already stored.");
+
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Create the given file as hard link to (or copy of) the given existing
+     * file. Copies are written into a temporary file first, so the file never
+     * appears partially written.
+     *
+     * @param existing
+     *            the file to link to.
+     * @param file
+     *            the file to create.
+     * @throws FileAlreadyExistsException
+     *             when the file to create exists.
+     * @throws IOException
+     *             when the file could not be linked or copied.
+     */
+    private void link(final File existing, final File file) throws IOException {
+        if (linksSupported) {
+            try {
+                Files.createLink(file.toPath(), existing.toPath());
+
+                return;
+            }
+            catch (final FileAlreadyExistsException e) {
+                throw e;
+            }
+            catch (final UnsupportedOperationException e) {
+                linksSupported = false;
+            }
+            catch (final IOException e) {
+                Logger.getLogger(getClass()).warn("Hard links not supported, copying files instead.", e);
+                linksSupported = false;
+            }
+        }
+
+        final File temporary = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+
+        try {
+            Files.copy(existing.toPath(), temporary.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.COPY_ATTRIBUTES);
+            Files.move(temporary.toPath(), file.toPath());
+        }
+        finally {
+            Files.deleteIfExists(temporary.toPath());
+        }
+    }
+
+    /**
+     * Carry the compressed siblings of unchanged files over from the given
+     * (sub folder of the) JavaDoc folder into the staging folder and count
+     * the files no longer generated.
+     *
+     * @param folder
+     *            (sub folder of) a JavaDoc folder.
+     * @param staging
+     *            the respective (sub folder of the) staging folder.
+     * @param path
+     *            path of the folder relative to the JavaDoc folder.
+     * @param committed
+     *            relative paths of the committed files.
+     * @throws IOException
+     *             when a compressed sibling could not be linked.
+     */
+    private void carryOver(final File folder, final File staging, final String path, final Set<String> committed)
+        throws IOException {
+        final File[] files = folder.listFiles();
+
+        if (files == null) {
+            return;
+        }
+
+        for (final File file : files) {
+            final String name = file.getName();
+
+            if (file.isDirectory()) {
+                carryOver(file, new File(staging, name), path + name + "/", committed);
+            }
+            else if (name.endsWith(Precompressor.SUFFIX)) {
+                final File source = new File(staging, name.substring(0, name.length() - Precompressor.SUFFIX.length()));
+
+                if (source.isFile() && source.lastModified() == file.lastModified()) {
+                    link(file, new File(staging, name));
+                }
+            }
+            else if (!committed.contains(path + name)) {
+                count(0, 0, 0, 1);
+            }
+        }
+    }
+
+    /**
+     * Publish the given staging folder as the given JavaDoc folder: replace
+     * the symbolic link where supported, otherwise swap the staging folder
+     * with the JavaDoc folder. The JavaDoc folder is renamed out of the way
+     * before the staging folder is renamed into its place, so it is briefly
+     * missing in between.
+     *
+     * @param staging
+     *            the staging folder.
+     * @param folder
+     *            the JavaDoc folder.
+     * @param committed
+     *            relative paths of the committed files.
+     * @throws IOException
+     *             when the staging folder could not be published.
+     */
+    private void publish(final File staging, final File folder, final Set<String> committed) throws IOException {
+        if (symbolicLinksSupported && publishVersion(staging, folder)) {
+            return;
+        }
+
+        if (!folder.exists() && !Files.isSymbolicLink(folder.toPath())) {
+            Files.move(staging.toPath(), folder.toPath(), StandardCopyOption.ATOMIC_MOVE);
+
+            return;
+        }
+
+        final File previous = new File(staging.getParentFile(), "." + folder.getName());
+        Util.deleteRecursive(previous);
+
+        try {
+            Files.move(folder.toPath(), previous.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (final IOException e) {
+            Logger.getLogger(getClass()).warn(
+                String.format("Could not rename %s, replacing its files instead.", folder.getAbsolutePath()), e);
+            replace(staging, folder);
+            removeStale(folder, "", committed);
+            Util.deleteRecursive(staging);
+
+            return;
+        }
+
+        try {
+            Files.move(staging.toPath(), folder.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (final IOException e) {
+            Files.move(previous.toPath(), folder.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            throw e;
+        }
+
+        Util.deleteRecursive(previous);
+    }
+
+    /**
+     * Publish the given staging folder as new version of the given JavaDoc
+     * folder: rename it into the versions folder and rename a new symbolic
+     * link to it over the JavaDoc folder. A JavaDoc folder published by
+     * renaming folders before is renamed out of the way once.
+     *
+     * @param staging
+     *            the staging folder.
+     * @param folder
+     *            the JavaDoc folder.
+     * @return <code>true</code> when the staging folder has been published,
+     *         <code>false</code> when symbolic links are not supported (the
+     *         staging folder is left in place).
+     * @throws IOException
+     *             when the staging folder could not be published.
+     */
+    private boolean publishVersion(final File staging, final File folder) throws IOException {
+        Files.createDirectories(versionsFolder.toPath());
+        final File version = createVersion(folder);
+        final Path link = new File(folder.getParentFile(), "." + folder.getName() + ".link").toPath();
+        Files.deleteIfExists(link);
+
+        try {
+            Files.createSymbolicLink(link, folder.getParentFile().toPath().relativize(version.toPath()));
+        }
+        catch (final UnsupportedOperationException e) {
+            symbolicLinksSupported = false;
+
+            return false;
+        }
+        catch (final IOException e) {
+            Logger.getLogger(getClass()).warn("Symbolic links not supported, renaming folders instead.", e);
+            symbolicLinksSupported = false;
+
+            return false;
+        }
+
+        Files.move(staging.toPath(), version.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        File previous = null;
+
+        try {
+            if (Files.isSymbolicLink(folder.toPath())) {
+                previous = folder.getParentFile().toPath().resolve(Files.readSymbolicLink(folder.toPath())).toFile();
+                Files.move(link, folder.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            }
+            else if (folder.exists()) {
+                previous = new File(staging.getParentFile(), "." + folder.getName());
+                Util.deleteRecursive(previous);
+                Files.move(folder.toPath(), previous.toPath(), StandardCopyOption.ATOMIC_MOVE);
+
+                try {
+                    Files.move(link, folder.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                }
+                catch (final IOException e) {
+                    Files.move(previous.toPath(), folder.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                    throw e;
+                }
+            }
+            else {
+                Files.move(link, folder.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        catch (final IOException e) {
+            Logger.getLogger(getClass()).warn(
+                String.format("Could not replace %s by a symbolic link, renaming folders instead.", folder.getAbsolutePath()),
+                e);
+            Files.deleteIfExists(link);
+            Files.move(version.toPath(), staging.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            symbolicLinksSupported = false;
+
+            return false;
+        }
+
+        if (previous != null) {
+            Util.deleteRecursive(previous);
+        }
+
+        return true;
+    }
+
+    /**
+     * Determine a new (not yet existing) version of the given JavaDoc folder
+     * in the versions folder.
+     *
+     * @param folder
+     *            the JavaDoc folder.
+     * @return the new version.
+     */
+    private File createVersion(final File folder) {
+        long time = System.currentTimeMillis();
+        File version;
+
+        do {
+            version = new File(versionsFolder, String.format("%s.%x", folder.getName(), Long.valueOf(time++)));
+        }
+        while (version.exists());
+
+        return version;
+    }
+
+    /**
+     * Remove the versions no longer linked to by any JavaDoc folder (left by
+     * failed runs or by JavaDoc folders removed).
+     *
+     * @throws IOException
+     *             when a version could not be removed.
+     */
+    private void pruneVersions() throws IOException {
+        final File[] versions = versionsFolder.listFiles();
+
+        if (versions == null) {
+            return;
+        }
+
+        final Set<String> linked = new HashSet<String>();
+        final File[] folders = javaDocFolder.listFiles();
+
+        for (final File folder : folders == null ? new File[0] : folders) {
+            if (!folder.getName().startsWith(".") && Files.isSymbolicLink(folder.toPath())) {
+                linked.add(Files.readSymbolicLink(folder.toPath()).getFileName().toString());
+            }
+        }
+
+        for (final File version : versions) {
+            if (!linked.contains(version.getName())) {
+                Util.deleteRecursive(version);
+            }
+        }
+    }
+
+    /**
+     * Replace the files of the given (sub folder of the) JavaDoc folder with
+     * the files of the given staging folder one by one.
+     *
+     * @param staging
+     *            (sub folder of) a staging folder.
+     * @param folder
+     *            the respective (sub folder of the) JavaDoc folder.
+     * @throws IOException
+     *             when a file could not be replaced.
+     */
+    private void replace(final File staging, final File folder) throws IOException {
+        if (folder.isFile() && !folder.delete() || !folder.isDirectory() && !folder.mkdirs()) {
+            throw new IOException("Could not create " + folder.getAbsolutePath());
+        }
+
+        final File[] files = staging.listFiles();
+
+        if (files == null) {
+            return;
+        }
+
+        for (final File file : files) {
+            final File target = new File(folder, file.getName());
+
+            if (file.isDirectory()) {
+                replace(file, target);
+            }
+            else if (!target.isFile() || !Files.isSameFile(file.toPath(), target.toPath())) {
+                if (target.isDirectory()) {
+                    Util.deleteRecursive(target);
+                }
+
+                Files.move(file.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+    }
+
+    /**
+     * Remove files and folders from the given (sub folder of the) JavaDoc
+     * folder that have not been committed. Compressed siblings are left to
+     * the {@link Precompressor}.
+     *
+     * @param folder
+     *            (sub folder of) a JavaDoc folder.
+     * @param path
+     *            path of the folder relative to the JavaDoc folder.
+     * @param committed
+     *            relative paths of the committed files.
+     * @throws IOException
+     *             when a file could not be removed.
+     */
+    private void removeStale(final File folder, final String path, final Set<String> committed) throws IOException {
+        final File[] files = folder.listFiles();
+
+        if (files == null) {
+            return;
+        }
+
+        for (final File file : files) {
+            final String relativePath = path + file.getName();
+
+            if (!committed.contains(relativePath)) {
+                if (!file.getName().endsWith(Precompressor.SUFFIX)) {
+                    Util.deleteRecursive(file);
+                }
+            }
+            else if (file.isDirectory()) {
+                removeStale(file, relativePath + "/", committed);
+            }
+        }
+    }
+
+    /**
+     * Determine the objects referenced by the JavaDoc folders of the
+     * development components. References of JavaDoc folders that no longer
+     * exist are removed.
+     *
+     * @return the names of the referenced objects (hashes).
+     * @throws IOException
+     *             when references could not be read or written.
+     */
+    private Set<String> mark() throws IOException {
+        final Set<String> reachable = new HashSet<String>();
+        final File[] folders = javaDocFolder.listFiles();
+
+        for (final File folder : folders == null ? new File[0] : folders) {
+            if (folder.isDirectory() && !folder.getName().startsWith(".")) {
+                final File references = new File(referencesFolder, folder.getName());
+
+                if (!references.isFile()) {
+                    final Set<String> objects = new HashSet<String>();
+                    collect(folder, objects);
+                    writeReferences(folder, objects);
+                }
+
+                reachable.addAll(Files.readAllLines(references.toPath(), Charset.forName("UTF-8")));
+            }
+        }
+
+        final File[] references = referencesFolder.listFiles();
+
+        for (final File file : references == null ? new File[0] : references) {
+            if (!new File(javaDocFolder, file.getName()).isDirectory()) {
+                Files.delete(file.toPath());
+            }
+        }
+
+        return reachable;
+    }
+
+    /**
+     * Add the hashes of the files in the given (sub folder of a) JavaDoc
+     * folder to the given set. Compressed siblings are not stored and thus
+     * skipped.
+     *
+     * @param folder
+     *            (sub folder of) a JavaDoc folder.
+     * @param objects
+     *            set to add the hashes to.
+     * @throws IOException
+     *             when a file could not be read.
+     */
+    private void collect(final File folder, final Set<String> objects) throws IOException {
+        final File[] files = folder.listFiles();
+
+        if (files == null) {
+            return;
+        }
+
+        for (final File file : files) {
+            if (file.isDirectory()) {
+                collect(file, objects);
+            }
+            else if (!file.getName().endsWith(Precompressor.SUFFIX)) {
+                objects.add(digest(file));
+            }
+        }
+    }
+
+    /**
+     * Write the objects referenced by the given JavaDoc folder.
+     *
+     * @param folder
+     *            JavaDoc folder of a development component.
+     * @param objects
+     *            hashes of the files of the JavaDoc folder.
+     * @throws IOException
+     *             when the references could not be written.
+     */
+    private void writeReferences(final File folder, final Set<String> objects) throws IOException {
+        Files.createDirectories(referencesFolder.toPath());
+        final File references = new File(referencesFolder, folder.getName());
+        final File temporary = new File(referencesFolder, folder.getName() + ".tmp");
+        Files.write(temporary.toPath(), objects, Charset.forName("UTF-8"));
+        Files.move(temporary.toPath(), references.toPath(), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Update the statistics.
+     *
+     * @param unchanged
+     *            number of files committed unchanged.
+     * @param linked
+     *            number of files linked to an existing object.
+     * @param stored
+     *            number of objects added to the store.
+     * @param removed
+     *            number of files removed.
+     */
+    private synchronized void count(final int unchanged, final int linked, final int stored, final int removed) {
+        this.unchanged += unchanged;
+        this.linked += linked;
+        this.stored += stored;
+        this.removed += removed;
+    }
+
+    /**
+     * Calculate the SHA-1 hash of the content of the given file.
+     *
+     * @param file
+     *            file to hash.
+     * @return the hash as hex string.
+     * @throws IOException
+     *             when reading the file failed.
+     */
+    private String digest(final File file) throws IOException {
+        final InputStream input = new FileInputStream(file);
+
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            final byte[] buffer = new byte[8192];
+            int length;
+
+            while ((length = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, length);
+            }
+
+            return Util.toHexString(digest.digest());
+        }
+        catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        finally {
+            IOUtils.closeQuietly(input);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.arachna.netweaver.dc.types.DevelopmentComponent;
+import org.arachna.netweaver.dc.types.DevelopmentComponentFactory;
+import org.arachna.netweaver.dc.types.PublicPartReference;
+
+/**
+ * Index of the development components of a track used during one build.
+ *
+ * The index maps development components to their JavaDoc folders, to the
+ * development components they use and to the links to put into their JavaDoc
+ * documentation. Entries are resolved once on first access and shared by
+ * build file generation, scheduling and the overview page. Link lists are
+ * immutable and development components with equal links share the same list.
+ *
+ * @author Dirk Weigenand
+ */
+final class DevelopmentComponentIndex {
+    /**
+     * Registry for development components.
+     */
+    private final DevelopmentComponentFactory dcFactory;
+
+    /**
+     * folder containing the JavaDoc documentation of all development
+     * components.
+     */
+    private final String javaDocBaseFolder;
+
+    /**
+     * links to JavaDoc documentation generated elsewhere.
+     */
+    private final Collection<String> links;
+
+    /**
+     * names of the JavaDoc folders of development components.
+     */
+    private final ConcurrentMap<DevelopmentComponent, String> folderNames = new ConcurrentHashMap<DevelopmentComponent, String>();
+
+    /**
+     * JavaDoc folders of development components.
+     */
+    private final ConcurrentMap<DevelopmentComponent, String> javaDocFolders = new ConcurrentHashMap<DevelopmentComponent, String>();
+
+    /**
+     * development components used by development components.
+     */
+    private final ConcurrentMap<DevelopmentComponent, Collection<DevelopmentComponent>> usedComponents =
+        new ConcurrentHashMap<DevelopmentComponent, Collection<DevelopmentComponent>>();
+
+    /**
+     * links to put into the JavaDoc documentation of development components.
+     */
+    private final ConcurrentMap<DevelopmentComponent, List<String>> componentLinks =
+        new ConcurrentHashMap<DevelopmentComponent, List<String>>();
+
+    /**
+     * distinct link lists shared by development components.
+     */
+    private final ConcurrentMap<List<String>, List<String>> sharedLinks = new ConcurrentHashMap<List<String>, List<String>>();
+
+    /**
+     * Create an index for the development components of a track.
+     *
+     * @param dcFactory
+     *            registry for development components.
+     * @param workspace
+     *            path to the workspace of the build.
+     * @param links
+     *            links to JavaDoc documentation generated elsewhere.
+     */
+    DevelopmentComponentIndex(final DevelopmentComponentFactory dcFactory, final String workspace, final Collection<String> links) {
+        this.dcFactory = dcFactory;
+        this.javaDocBaseFolder = String.format("%s/javadoc/", workspace).replace('/', File.separatorChar);
+        this.links = new ArrayList<String>(links);
+    }
+
+    /**
+     * Get the name of the JavaDoc folder of the given development component
+     * (relative to the JavaDoc folder of the workspace).
+     *
+     * @param component
+     *            development component to get the folder name for.
+     * @return name of the JavaDoc folder of the given development component.
+     */
+    String getFolderName(final DevelopmentComponent component) {
+        String folderName = folderNames.get(component);
+
+        if (folderName == null) {
+            folderName = component.getNormalizedName("~");
+            folderNames.put(component, folderName);
+        }
+
+        return folderName;
+    }
+
+    /**
+     * Get the folder to output JavaDoc to for the given development component.
+     *
+     * @param component
+     *            development component to get the JavaDoc folder for.
+     * @return folder to output JavaDoc to.
+     */
+    String getJavaDocFolder(final DevelopmentComponent component) {
+        String javaDocFolder = javaDocFolders.get(component);
+
+        if (javaDocFolder == null) {
+            javaDocFolder = javaDocBaseFolder + getFolderName(component).replace('/', File.separatorChar);
+            javaDocFolders.put(component, javaDocFolder);
+        }
+
+        return javaDocFolder;
+    }
+
+    /**
+     * Get the link to the given JavaDoc folder of a development component
+     * relative to the JavaDoc folder of another development component. The
+     * generated documentation does not depend on the location of the
+     * workspace this way (and links work when it is served by the
+     * {@link JavaDocAction}).
+     *
+     * @param link
+     *            a link to JavaDoc documentation.
+     * @return the relative link or <code>null</code> when the given link is
+     *         not a JavaDoc folder in the workspace.
+     */
+    String getRelativeLink(final String link) {
+        return link.startsWith(javaDocBaseFolder) ? "../" + link.substring(javaDocBaseFolder.length()).replace(File.separatorChar, '/')
+            : null;
+    }
+
+    /**
+     * Get the development components used by the given development component
+     * that are known to the development component registry.
+     *
+     * @param component
+     *            development component to get the used development components
+     *            for.
+     * @return the used development components (without the given one).
+     */
+    Collection<DevelopmentComponent> getUsedDevelopmentComponents(final DevelopmentComponent component) {
+        Collection<DevelopmentComponent> used = usedComponents.get(component);
+
+        if (used == null) {
+            final Collection<DevelopmentComponent> resolved = new ArrayList<DevelopmentComponent>();
+
+            for (final PublicPartReference reference : component.getUsedDevelopmentComponents()) {
+                final DevelopmentComponent usedDC = dcFactory.get(reference.getVendor(), reference.getName());
+
+                if (usedDC != null && usedDC != component && !resolved.contains(usedDC)) {
+                    resolved.add(usedDC);
+                }
+            }
+
+            used = Collections.unmodifiableCollection(resolved);
+            usedComponents.put(component, used);
+        }
+
+        return used;
+    }
+
+    /**
+     * Get the links to put into the JavaDoc documentation of the given
+     * development component: the configured links and the JavaDoc folders of
+     * used development components in source state.
+     *
+     * @param component
+     *            development component to get the links for.
+     * @return sorted, immutable list of links.
+     */
+    List<String> getLinks(final DevelopmentComponent component) {
+        List<String> result = componentLinks.get(component);
+
+        if (result == null) {
+            final Set<String> links = new TreeSet<String>(this.links);
+
+            for (final DevelopmentComponent usedDC : getUsedDevelopmentComponents(component)) {
+                if (usedDC.getCompartment().isSourceState()) {
+                    links.add(getJavaDocFolder(usedDC));
+                }
+            }
+
+            result = Collections.unmodifiableList(new ArrayList<String>(links));
+            final List<String> shared = sharedLinks.putIfAbsent(result, result);
+
+            if (shared != null) {
+                result = shared;
+            }
+
+            componentLinks.put(component, result);
+        }
+
+        return result;
+    }
+}
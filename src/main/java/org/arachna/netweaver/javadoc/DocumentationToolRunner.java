@@ -0,0 +1,260 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import javax.tools.DocumentationTool;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Runs JavaDoc in process via the {@link DocumentationTool} API using the
+ * same inputs as the generated Ant build files.
+ *
+ * The standard doclet keeps its configuration in static fields. Runs are
+ * therefore serialized within one JVM, processing several development
+ * components concurrently only overlaps the other stages (templates, UML
+ * diagrams, publishing) with the JavaDoc runs.
+ *
+ * @author Dirk Weigenand
+ */
+final class DocumentationToolRunner implements JavaDocRunner {
+    /**
+     * Lock serializing JavaDoc runs in this JVM.
+     */
+    private static final Object LOCK = new Object();
+
+    /**
+     * class name of the UmlGraph doclet.
+     */
+    private static final String UMLGRAPH_DOCLET = "org.umlgraph.doclet.UmlGraphDoc";
+
+    /**
+     * interface of doclets accepted by the {@link DocumentationTool} API
+     * since JDK 9.
+     */
+    private static final String DOCLET_API = "jdk.javadoc.doclet.Doclet";
+
+    /**
+     * legacy doclet API implemented by the UmlGraph doclet, removed in JDK 13.
+     */
+    private static final String LEGACY_DOCLET_API = "com.sun.javadoc.Doclet";
+
+    /**
+     * Options for the UmlGraph doclet (excluding the output folder).
+     */
+    private static final List<String> UMLGRAPH_OPTIONS = Arrays.asList("-inferrel", "-inferdep", "-hide", "java.*", "-all",
+        "-attributes", "-operations", "-horizontal", "-collpackages", "java.util.*, com.sap.*, javax.ejb.*", "-postfixpackage",
+        "-nodefontsize", "9", "-nodefontpackagesize", "7", "-qualify", "-types", "-visibility", "-outputencoding", "utf8");
+
+    /**
+     * Encoding of sources and generated documentation.
+     */
+    private static final String UTF8 = "UTF-8";
+
+    /**
+     * Determine whether the {@link DocumentationTool} API is available in the
+     * running JVM (i.e. Jenkins runs on a JDK).
+     *
+     * @return <code>true</code> when JavaDoc can be run in process,
+     *         <code>false</code> otherwise.
+     */
+    static boolean isAvailable() {
+        return ToolProvider.getSystemDocumentationTool() != null;
+    }
+
+    /**
+     * Determine whether the UmlGraph doclet can be run via the
+     * {@link DocumentationTool} API of the running JVM. The doclet uses the
+     * legacy <code>com.sun.javadoc</code> API, which is only accepted up to
+     * JDK 12.
+     *
+     * @return <code>true</code> when UML diagrams can be generated in process,
+     *         <code>false</code> otherwise.
+     */
+    static boolean isUmlGraphSupported() {
+        final DocumentationTool tool = ToolProvider.getSystemDocumentationTool();
+
+        if (tool == null) {
+            return false;
+        }
+
+        final ClassLoader loader =
+            tool.getClass().getClassLoader() == null ? ClassLoader.getSystemClassLoader() : tool.getClass().getClassLoader();
+
+        if (loadClass(LEGACY_DOCLET_API, loader) != null) {
+            return true;
+        }
+
+        final Class<?> docletApi = loadClass(DOCLET_API, loader);
+        final Class<?> doclet = loadClass(UMLGRAPH_DOCLET, DocumentationToolRunner.class.getClassLoader());
+
+        return docletApi != null && doclet != null && docletApi.isAssignableFrom(doclet);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean execute(final JavaDocParameters parameters, final PrintStream logger) {
+        if (parameters.isUseUmlGraph() && !isUmlGraphSupported()) {
+            logger.println(String.format("The UmlGraph doclet can't be run by the JavaDoc tool of this JVM (%s, JDK 13 or later). "
+                + "Use the Ant engine to generate UML diagrams.", System.getProperty("java.version")));
+
+            return false;
+        }
+
+        final DocumentationTool tool = ToolProvider.getSystemDocumentationTool();
+        final StandardJavaFileManager fileManager = tool.getStandardFileManager(null, null, Charset.forName(UTF8));
+        final File javaDocDir = new File(parameters.getJavaDocDir());
+
+        if (!javaDocDir.exists() && !javaDocDir.mkdirs()) {
+            throw new IllegalStateException("Could not mkdir " + javaDocDir.getAbsolutePath());
+        }
+
+        try {
+            final Iterable<? extends JavaFileObject> sources =
+                fileManager.getJavaFileObjectsFromStrings(parameters.getSourceFiles());
+            final PrintWriter out = new PrintWriter(logger, true);
+
+            synchronized (LOCK) {
+                return tool.getTask(out, fileManager, null, getDoclet(parameters), createOptions(parameters), sources).call();
+            }
+        }
+        finally {
+            try {
+                fileManager.close();
+            }
+            catch (final IOException e) {
+                Logger.getLogger(getClass()).error("", e);
+            }
+        }
+    }
+
+    /**
+     * Create the command line options for JavaDoc from the given parameters.
+     *
+     * @param parameters
+     *            inputs of the JavaDoc run.
+     * @return JavaDoc command line options.
+     */
+    List<String> createOptions(final JavaDocParameters parameters) {
+        final List<String> options = new ArrayList<String>();
+        options.addAll(Arrays.asList("-d", parameters.getJavaDocDir()));
+        options.addAll(Arrays.asList("-sourcepath", join(parameters.getSourcePaths())));
+        options.addAll(Arrays.asList("-classpath", join(createClassPath(parameters))));
+
+        if (parameters.getSource() != null) {
+            options.addAll(Arrays.asList("-source", parameters.getSource()));
+        }
+
+        options.addAll(Arrays.asList("-encoding", UTF8, "-charset", UTF8, "-docencoding", UTF8));
+        options.addAll(Arrays.asList("-author", "-version", "-header", parameters.getHeader()));
+
+        for (final JavaDocLink link : parameters.getLinks()) {
+            if (link.isOffline()) {
+                options.addAll(Arrays.asList("-linkoffline", link.getHref(), link.getPackageListLoc()));
+            }
+            else {
+                options.addAll(Arrays.asList("-link", link.getHref()));
+            }
+        }
+
+        if (parameters.isUseUmlGraph()) {
+            options.addAll(UMLGRAPH_OPTIONS);
+        }
+
+        return options;
+    }
+
+    /**
+     * Get the doclet to use for the given parameters.
+     *
+     * @param parameters
+     *            inputs of the JavaDoc run.
+     * @return the UmlGraph doclet class when UML diagrams shall be generated,
+     *         <code>null</code> (i.e. the standard doclet) otherwise.
+     */
+    private Class<?> getDoclet(final JavaDocParameters parameters) {
+        if (!parameters.isUseUmlGraph()) {
+            return null;
+        }
+
+        try {
+            return Class.forName(UMLGRAPH_DOCLET);
+        }
+        catch (final ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Load the given class without initializing it.
+     *
+     * @param name
+     *            name of the class to load.
+     * @param loader
+     *            class loader to load the class with.
+     * @return the class or <code>null</code> when it is not available.
+     */
+    private static Class<?> loadClass(final String name, final ClassLoader loader) {
+        try {
+            return Class.forName(name, false, loader);
+        }
+        catch (final ClassNotFoundException e) {
+            return null;
+        }
+        catch (final LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Create the class path for the JavaDoc run.
+     *
+     * @param parameters
+     *            inputs of the JavaDoc run.
+     * @return the folder containing the compiled classes followed by the jars
+     *         the development component depends on.
+     */
+    private Collection<String> createClassPath(final JavaDocParameters parameters) {
+        final Collection<String> classPath = new ArrayList<String>();
+        classPath.add(parameters.getClasses());
+        classPath.addAll(parameters.getClassPaths());
+
+        return classPath;
+    }
+
+    /**
+     * Join the given paths using the platform path separator.
+     *
+     * @param paths
+     *            paths to join.
+     * @return the joined paths.
+     */
+    private String join(final Collection<String> paths) {
+        final StringBuilder joined = new StringBuilder();
+
+        for (final String path : paths) {
+            if (joined.length() > 0) {
+                joined.append(File.pathSeparatorChar);
+            }
+
+            joined.append(path);
+        }
+
+        return joined.toString();
+    }
+}
@@ -0,0 +1,425 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import hudson.Util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.Logger;
+
+/**
+ * Renders the <code>.dot</code> files generated by UmlGraph to SVG.
+ *
+ * Diagrams are rendered by a pool of <code>dot</code> processes sized to the
+ * available processors and shared by all builds running on this node. Rendered
+ * diagrams are cached using the SHA-1 of the <code>.dot</code> file as key so
+ * that unchanged diagrams are never rendered twice.
+ *
+ * @author Dirk Weigenand
+ */
+final class DotRenderer {
+    /**
+     * name of the folder (relative to the JavaDoc folder of the workspace)
+     * containing rendered diagrams.
+     */
+    static final String CACHE_FOLDER = ".svg-cache";
+
+    /**
+     * days after which unused diagrams are removed from the cache.
+     */
+    private static final int MAX_UNUSED_DAYS = 30;
+
+    /**
+     * pool of threads each running one <code>dot</code> process at a time.
+     */
+    private static final ExecutorService POOL = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+        new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "dot renderer " + count.incrementAndGet());
+                thread.setDaemon(true);
+
+                return thread;
+            }
+        });
+
+    /**
+     * folder containing rendered diagrams.
+     */
+    private final File cacheFolder;
+
+    /**
+     * the <code>dot</code> executable.
+     */
+    private final String dot;
+
+    /**
+     * Create a renderer using the given folder for caching rendered diagrams
+     * and the <code>dot</code> executable found on the path.
+     *
+     * @param cacheFolder
+     *            folder containing rendered diagrams.
+     */
+    DotRenderer(final File cacheFolder) {
+        this(cacheFolder, "dot");
+    }
+
+    /**
+     * Create a renderer using the given folder for caching rendered diagrams
+     * and the given <code>dot</code> executable.
+     *
+     * @param cacheFolder
+     *            folder containing rendered diagrams.
+     * @param dot
+     *            the <code>dot</code> executable.
+     */
+    DotRenderer(final File cacheFolder, final String dot) {
+        this.cacheFolder = cacheFolder;
+        this.dot = dot;
+    }
+
+    /**
+     * Render the <code>.dot</code> files in the given folder and its sub
+     * folders to SVG.
+     *
+     * @param javaDocDir
+     *            folder containing the generated documentation.
+     * @param logger
+     *            stream to write error messages to.
+     * @return statistics about the rendered diagrams.
+     * @throws InterruptedException
+     *             when the build was interrupted.
+     */
+    Statistics render(final File javaDocDir, final PrintStream logger) throws InterruptedException {
+        final long start = System.currentTimeMillis();
+
+        if (!cacheFolder.exists() && !cacheFolder.mkdirs()) {
+            throw new IllegalStateException("Could not mkdir " + cacheFolder.getAbsolutePath());
+        }
+
+        final Collection<File> dotFiles = new ArrayList<File>();
+        collectDotFiles(javaDocDir, dotFiles);
+
+        final List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+
+        for (final File dotFile : dotFiles) {
+            results.add(POOL.submit(new Callable<Boolean>() {
+                public Boolean call() throws IOException, InterruptedException {
+                    return renderDiagram(dotFile, logger);
+                }
+            }));
+        }
+
+        int reused = 0;
+        int failed = 0;
+
+        try {
+            for (final Future<Boolean> result : results) {
+                try {
+                    if (result.get()) {
+                        reused++;
+                    }
+                }
+                catch (final ExecutionException e) {
+                    synchronized (logger) {
+                        e.getCause().printStackTrace(logger);
+                    }
+
+                    failed++;
+                }
+            }
+        }
+        finally {
+            for (final Future<Boolean> result : results) {
+                result.cancel(true);
+            }
+        }
+
+        return new Statistics(dotFiles.size() - reused - failed, reused, failed, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Remove diagrams from the cache that have not been used for
+     * {@value #MAX_UNUSED_DAYS} days.
+     */
+    void prune() {
+        final File[] files = cacheFolder.listFiles();
+
+        if (files != null) {
+            final long oldest = System.currentTimeMillis() - MAX_UNUSED_DAYS * 24L * 60L * 60L * 1000L;
+
+            for (final File file : files) {
+                if (file.lastModified() < oldest && !file.delete()) {
+                    Logger.getLogger(getClass()).warn("Could not delete " + file.getAbsolutePath());
+                }
+            }
+        }
+    }
+
+    /**
+     * Render the given <code>.dot</code> file to an SVG file next to it.
+     *
+     * @param dotFile
+     *            the <code>.dot</code> file to render.
+     * @param logger
+     *            stream to write error messages to.
+     * @return <code>true</code> when the diagram was taken from the cache,
+     *         <code>false</code> when it was rendered.
+     * @throws IOException
+     *             when rendering the diagram failed.
+     * @throws InterruptedException
+     *             when the build was interrupted.
+     */
+    private boolean renderDiagram(final File dotFile, final PrintStream logger) throws IOException, InterruptedException {
+        final File svg = new File(dotFile.getParentFile(), dotFile.getName().replaceFirst("\\.dot$", ".svg"));
+        final File cached = new File(cacheFolder, digest(dotFile) + ".svg");
+
+        if (cached.exists()) {
+            // keep diagrams in use from being pruned
+            cached.setLastModified(System.currentTimeMillis());
+            copy(cached, svg);
+
+            return true;
+        }
+
+        final File rendered = File.createTempFile("dot", ".svg", cacheFolder);
+        final File output = File.createTempFile("dot", ".log", cacheFolder);
+
+        try {
+            // output goes to a file so only waitFor() blocks, which can be
+            // interrupted when the build is aborted
+            final Process process =
+                new ProcessBuilder(dot, "-Tsvg", "-o", rendered.getAbsolutePath(), dotFile.getAbsolutePath()).redirectErrorStream(true)
+                    .redirectOutput(output).start();
+            final int exitCode;
+            boolean exited = false;
+
+            try {
+                process.getOutputStream().close();
+                exitCode = process.waitFor();
+                exited = true;
+            }
+            finally {
+                if (!exited) {
+                    process.destroy();
+                }
+            }
+
+            if (exitCode != 0) {
+                synchronized (logger) {
+                    logger.println(new String(Files.readAllBytes(output.toPath()), Charset.defaultCharset()));
+                }
+
+                throw new IOException("dot failed to render " + dotFile.getAbsolutePath());
+            }
+
+            copy(rendered, svg);
+
+            // another build may have rendered the same diagram in the meantime
+            if (!rendered.renameTo(cached) && !cached.exists()) {
+                throw new IOException("Could not rename " + rendered.getAbsolutePath() + " to " + cached.getAbsolutePath());
+            }
+        }
+        finally {
+            for (final File file : new File[] { rendered, output }) {
+                if (file.exists() && !file.delete()) {
+                    Logger.getLogger(getClass()).warn("Could not delete " + file.getAbsolutePath());
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Collect the <code>.dot</code> files in the given folder and its sub
+     * folders.
+     *
+     * @param folder
+     *            folder to search for <code>.dot</code> files.
+     * @param dotFiles
+     *            collection to add found <code>.dot</code> files to.
+     */
+    private void collectDotFiles(final File folder, final Collection<File> dotFiles) {
+        final File[] files = folder.listFiles();
+
+        if (files != null) {
+            for (final File file : files) {
+                if (file.isDirectory()) {
+                    collectDotFiles(file, dotFiles);
+                }
+                else if (file.getName().endsWith(".dot")) {
+                    dotFiles.add(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Calculate the SHA-1 of the content of the given file.
+     *
+     * @param file
+     *            file to digest.
+     * @return the digest as a hex string.
+     * @throws IOException
+     *             when the file could not be read.
+     */
+    private String digest(final File file) throws IOException {
+        final InputStream input = new FileInputStream(file);
+
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            final byte[] buffer = new byte[8192];
+            int length;
+
+            while ((length = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, length);
+            }
+
+            return Util.toHexString(digest.digest());
+        }
+        catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        finally {
+            IOUtils.closeQuietly(input);
+        }
+    }
+
+    /**
+     * Copy the given file.
+     *
+     * @param source
+     *            file to copy.
+     * @param target
+     *            file to copy to.
+     * @throws IOException
+     *             when copying failed.
+     */
+    private void copy(final File source, final File target) throws IOException {
+        final InputStream input = new FileInputStream(source);
+        OutputStream output = null;
+
+        try {
+            output = new FileOutputStream(target);
+            Util.copyStream(input, output);
+            output.close();
+        }
+        finally {
+            IOUtils.closeQuietly(input);
+            IOUtils.closeQuietly(output);
+        }
+    }
+
+    /**
+     * Statistics about the diagrams of a development component.
+     */
+    static final class Statistics {
+        /**
+         * number of diagrams rendered.
+         */
+        private final int rendered;
+
+        /**
+         * number of diagrams taken from the cache.
+         */
+        private final int reused;
+
+        /**
+         * number of diagrams that could not be rendered.
+         */
+        private final int failed;
+
+        /**
+         * milliseconds spent rendering diagrams.
+         */
+        private final long duration;
+
+        /**
+         * Create statistics about the diagrams of a development component.
+         *
+         * @param rendered
+         *            number of diagrams rendered.
+         * @param reused
+         *            number of diagrams taken from the cache.
+         * @param failed
+         *            number of diagrams that could not be rendered.
+         * @param duration
+         *            milliseconds spent rendering diagrams.
+         */
+        Statistics(final int rendered, final int reused, final int failed, final long duration) {
+            this.rendered = rendered;
+            this.reused = reused;
+            this.failed = failed;
+            this.duration = duration;
+        }
+
+        /**
+         * @return the number of diagrams rendered
+         */
+        int getRendered() {
+            return rendered;
+        }
+
+        /**
+         * @return the number of diagrams taken from the cache
+         */
+        int getReused() {
+            return reused;
+        }
+
+        /**
+         * @return the number of diagrams that could not be rendered
+         */
+        int getFailed() {
+            return failed;
+        }
+
+        /**
+         * @return the milliseconds spent rendering diagrams
+         */
+        long getDuration() {
+            return duration;
+        }
+
+        /**
+         * @return <code>true</code> when all diagrams could be rendered,
+         *         <code>false</code> otherwise.
+         */
+        boolean isSucceeded() {
+            return failed == 0;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return String.format("%d diagrams rendered, %d reused from cache, %d failed in %d ms", rendered, reused, failed, duration);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+/**
+ * Engines available for executing JavaDoc for development components.
+ *
+ * @author Dirk Weigenand
+ */
+public enum ExecutionEngine {
+    /**
+     * Generate an Ant build file per development component and run it in a
+     * separate process.
+     */
+    Ant("Ant build file per development component"),
+
+    /**
+     * Generate one Ant build file for all development components and run it
+     * in a single separate process.
+     */
+    AntBatch("one Ant build file for all development components"),
+
+    /**
+     * Run JavaDoc in the Jenkins process via the
+     * {@link javax.tools.DocumentationTool} API.
+     */
+    DocumentationTool("in process via javax.tools.DocumentationTool"),
+
+    /**
+     * Run JavaDoc in a worker process that is kept alive between development
+     * components and builds.
+     */
+    Daemon("JavaDoc worker process kept alive between builds"),
+
+    /**
+     * Run JavaDoc on the agents carrying the configured label.
+     */
+    Agents("distributed to the agents carrying the configured label");
+
+    /**
+     * human readable description of the engine.
+     */
+    private final String description;
+
+    /**
+     * Create an engine with the given description.
+     *
+     * @param description
+     *            human readable description of the engine.
+     */
+    private ExecutionEngine(final String description) {
+        this.description = description;
+    }
+
+    /**
+     * @return the human readable description of the engine.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Get the engine with the given name falling back to {@link #Ant} for
+     * unknown names.
+     *
+     * @param name
+     *            name of the engine.
+     * @return the engine with the given name or {@link #Ant}.
+     */
+    public static ExecutionEngine fromString(final String name) {
+        for (final ExecutionEngine engine : values()) {
+            if (engine.name().equals(name)) {
+                return engine;
+            }
+        }
+
+        return Ant;
+    }
+}
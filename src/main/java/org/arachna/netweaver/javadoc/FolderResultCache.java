@@ -0,0 +1,274 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+
+/**
+ * A {@link ResultCache} storing the JavaDoc documentation of each fingerprint
+ * as an uncompressed archive (<code>&lt;fingerprint&gt;.zip</code>) in a
+ * folder. The folder may be local to the Jenkins master or located on a shared
+ * file system. Archives are written to temporary files and renamed, so
+ * concurrent jobs never see partially written entries.
+ *
+ * Restoring an entry updates its modification time. The size of all entries
+ * is determined when the first entry is stored and then updated with the
+ * size of each stored entry. When it exceeds the configured size the folder
+ * is listed again and the least recently used entries are evicted. An entry
+ * that cannot be restored is considered corrupt and removed.
+ *
+ * @author Dirk Weigenand
+ */
+final class FolderResultCache implements ResultCache {
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(FolderResultCache.class);
+
+    /**
+     * folder containing the cache entries.
+     */
+    private final File folder;
+
+    /**
+     * maximum size of all cache entries in bytes.
+     */
+    private final long maxBytes;
+
+    /**
+     * size of all cache entries in bytes (<code>-1</code>: not determined
+     * yet).
+     */
+    private long size = -1;
+
+    /**
+     * number of entries restored.
+     */
+    private int restored;
+
+    /**
+     * number of entries stored.
+     */
+    private int stored;
+
+    /**
+     * Create a cache in the given folder.
+     *
+     * @param folder
+     *            folder containing the cache entries.
+     * @param maxBytes
+     *            maximum size of all cache entries in bytes.
+     */
+    FolderResultCache(final File folder, final long maxBytes) {
+        this.folder = folder;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean restore(final String key, final File target) {
+        final File entry = getEntry(key);
+
+        if (!entry.isFile()) {
+            return false;
+        }
+
+        try {
+            JavaDocArchive.unpack(entry, target, null);
+            entry.setLastModified(System.currentTimeMillis());
+            count(true);
+
+            return true;
+        }
+        catch (final IOException e) {
+            LOGGER.warn(String.format("Could not restore %s from %s, removing it.", target.getAbsolutePath(),
+                entry.getAbsolutePath()), e);
+            clear(target);
+
+            if (!entry.delete()) {
+                LOGGER.warn("Could not delete " + entry.getAbsolutePath());
+            }
+
+            return false;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void store(final String key, final File source) {
+        if (!folder.isDirectory() && !folder.mkdirs()) {
+            LOGGER.warn("Could not create " + folder.getAbsolutePath());
+            return;
+        }
+
+        try {
+            final File entry = getEntry(key);
+            JavaDocArchive.write(source, entry);
+            count(false);
+            evict(entry.length());
+        }
+        catch (final IOException e) {
+            LOGGER.warn(String.format("Could not store %s in %s.", source.getAbsolutePath(), folder.getAbsolutePath()), e);
+        }
+    }
+
+    /**
+     * @return the number of entries restored
+     */
+    synchronized int getRestored() {
+        return restored;
+    }
+
+    /**
+     * @return the number of entries stored
+     */
+    synchronized int getStored() {
+        return stored;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized String toString() {
+        return String.format("%d restored from and %d stored in %s", restored, stored, folder.getAbsolutePath());
+    }
+
+    /**
+     * Get the archive of the cache entry with the given fingerprint.
+     *
+     * @param key
+     *            fingerprint of the inputs of a JavaDoc run.
+     * @return the archive of the cache entry.
+     */
+    private File getEntry(final String key) {
+        return new File(folder, key + JavaDocArchive.SUFFIX);
+    }
+
+    /**
+     * Add the given size of a stored entry to the size of all entries and
+     * remove the least recently used entries when they no longer fit into the
+     * configured size.
+     *
+     * @param length
+     *            size of the stored entry in bytes.
+     */
+    private synchronized void evict(final long length) {
+        if (size < 0) {
+            size = getSize(listEntries());
+        }
+        else {
+            size += length;
+        }
+
+        if (size <= maxBytes) {
+            return;
+        }
+
+        final List<File> entries = listEntries();
+        size = getSize(entries);
+
+        Collections.sort(entries, new Comparator<File>() {
+            public int compare(final File first, final File second) {
+                final long difference = first.lastModified() - second.lastModified();
+
+                return difference < 0 ? -1 : difference > 0 ? 1 : 0;
+            }
+        });
+
+        for (final File entry : entries) {
+            if (size <= maxBytes) {
+                break;
+            }
+
+            final long entryLength = entry.length();
+
+            if (entry.delete()) {
+                size -= entryLength;
+            }
+        }
+    }
+
+    /**
+     * List the archives of the cache entries.
+     *
+     * @return the archives of the cache entries.
+     */
+    private List<File> listEntries() {
+        final List<File> entries = new ArrayList<File>();
+        final File[] files = folder.listFiles();
+
+        if (files != null) {
+            for (final File file : files) {
+                if (file.isFile() && file.getName().endsWith(JavaDocArchive.SUFFIX)) {
+                    entries.add(file);
+                }
+            }
+        }
+
+        return entries;
+    }
+
+    /**
+     * Calculate the size of the given cache entries.
+     *
+     * @param entries
+     *            archives of cache entries.
+     * @return the size of the given cache entries in bytes.
+     */
+    private long getSize(final List<File> entries) {
+        long total = 0;
+
+        for (final File entry : entries) {
+            total += entry.length();
+        }
+
+        return total;
+    }
+
+    /**
+     * Remove the content of the given folder (after a partial restore).
+     *
+     * @param file
+     *            folder to clear.
+     */
+    private void clear(final File file) {
+        final File[] children = file.listFiles();
+
+        if (children != null) {
+            for (final File child : children) {
+                clear(child);
+
+                if (!child.delete()) {
+                    LOGGER.warn("Could not delete " + child.getAbsolutePath());
+                }
+            }
+        }
+    }
+
+    /**
+     * Update the statistics.
+     *
+     * @param restore
+     *            <code>true</code> when an entry was restored,
+     *            <code>false</code> when an entry was stored.
+     */
+    private synchronized void count(final boolean restore) {
+        if (restore) {
+            restored++;
+        }
+        else {
+            stored++;
+        }
+    }
+}
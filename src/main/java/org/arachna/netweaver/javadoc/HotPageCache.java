@@ -0,0 +1,207 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded in memory cache of the content of frequently requested files of
+ * the JavaDoc documentation (e.g. overview, package frames and the search
+ * index).
+ *
+ * The least recently used files are evicted when the total size of the
+ * cached content exceeds the configured limit. Cached content is validated
+ * against size and modification time of the file on every access, so files
+ * rewritten by a build are read again.
+ *
+ * @author Dirk Weigenand
+ */
+final class HotPageCache {
+    /**
+     * cached pages by absolute path in least recently used order.
+     */
+    private final LinkedHashMap<String, Page> pages = new LinkedHashMap<String, Page>(64, 0.75f, true);
+
+    /**
+     * maximum number of bytes cached.
+     */
+    private final long maxBytes;
+
+    /**
+     * maximum size of a file to cache.
+     */
+    private final int maxPageBytes;
+
+    /**
+     * number of bytes currently cached.
+     */
+    private long bytes;
+
+    /**
+     * number of requests answered from the cache.
+     */
+    private long hits;
+
+    /**
+     * number of requests that had to read the file.
+     */
+    private long misses;
+
+    /**
+     * Create a cache with the given limits.
+     *
+     * @param maxBytes
+     *            maximum number of bytes cached.
+     * @param maxPageBytes
+     *            maximum size of a file to cache.
+     */
+    HotPageCache(final long maxBytes, final int maxPageBytes) {
+        this.maxBytes = maxBytes;
+        this.maxPageBytes = maxPageBytes;
+    }
+
+    /**
+     * Get the content of the given file.
+     *
+     * @param file
+     *            file to get the content of.
+     * @return the content of the file or <code>null</code> when it is too
+     *         large to be cached (and should be streamed instead).
+     * @throws IOException
+     *             when the file could not be read.
+     */
+    byte[] get(final File file) throws IOException {
+        final long length = file.length();
+
+        if (length > maxPageBytes) {
+            return null;
+        }
+
+        final String key = file.getAbsolutePath();
+        final long lastModified = file.lastModified();
+
+        synchronized (this) {
+            final Page page = pages.get(key);
+
+            if (page != null && page.length == length && page.lastModified == lastModified) {
+                hits++;
+
+                return page.content;
+            }
+        }
+
+        final byte[] content = read(file, (int)length);
+
+        synchronized (this) {
+            misses++;
+            final Page previous = pages.put(key, new Page(content, lastModified));
+
+            if (previous != null) {
+                bytes -= previous.length;
+            }
+
+            bytes += content.length;
+            evict();
+        }
+
+        return content;
+    }
+
+    /**
+     * @return the number of bytes currently cached
+     */
+    synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return the number of requests answered from the cache
+     */
+    synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of requests that had to read the file
+     */
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Remove the least recently used pages until the cached content fits the
+     * limit.
+     */
+    private void evict() {
+        while (bytes > maxBytes && !pages.isEmpty()) {
+            final Map.Entry<String, Page> eldest = pages.entrySet().iterator().next();
+            bytes -= eldest.getValue().length;
+            pages.remove(eldest.getKey());
+        }
+    }
+
+    /**
+     * Read the given file.
+     *
+     * @param file
+     *            file to read.
+     * @param length
+     *            length of the file.
+     * @return the content of the file.
+     * @throws IOException
+     *             when the file could not be read.
+     */
+    private byte[] read(final File file, final int length) throws IOException {
+        final byte[] content = new byte[length];
+        final DataInputStream input = new DataInputStream(new FileInputStream(file));
+
+        try {
+            input.readFully(content);
+        }
+        finally {
+            input.close();
+        }
+
+        return content;
+    }
+
+    /**
+     * Content of a cached file.
+     */
+    private static final class Page {
+        /**
+         * content of the file.
+         */
+        private final byte[] content;
+
+        /**
+         * size of the file.
+         */
+        private final long length;
+
+        /**
+         * modification time of the file.
+         */
+        private final long lastModified;
+
+        /**
+         * Create a cached page.
+         *
+         * @param content
+         *            content of the file.
+         * @param lastModified
+         *            modification time of the file.
+         */
+        Page(final byte[] content, final long lastModified) {
+            this.content = content;
+            this.length = content.length;
+            this.lastModified = lastModified;
+        }
+    }
+}
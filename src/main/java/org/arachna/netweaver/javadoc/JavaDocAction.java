@@ -0,0 +1,473 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import hudson.FilePath;
+import hudson.model.AbstractProject;
+import hudson.model.Item;
+import hudson.model.ProminentProjectAction;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+/**
+ * {@link ProminentProjectAction} serving the JavaDoc documentation in the
+ * workspace of a project.
+ *
+ * Files are served with strong ETags (derived from size and modification
+ * time) and <code>Cache-Control</code> headers, so browsers revalidate
+ * instead of downloading unchanged pages. Compressed siblings written by
+ * {@link Precompressor} at build time are served to browsers accepting gzip.
+ * Small files are kept in a {@link HotPageCache} shared by all projects.
+ * Files of development components packed by {@link JavaDocArchive} are read
+ * from their archive (with ETags derived from size and checksum of the
+ * entry).
+ *
+ * Like the workspace browser the action requires the permission to browse
+ * the workspace of the project and sends the content security policy
+ * configured via the system property
+ * <code>hudson.model.DirectoryBrowserSupport.CSP</code>. The default policy
+ * of Jenkins blocks scripts, so the search of the overview page (hidden
+ * until its script runs) is only available when the policy allows scripts
+ * (e.g. <code>script-src 'self'</code>).
+ *
+ * @author Dirk Weigenand
+ */
+public final class JavaDocAction implements ProminentProjectAction {
+    /**
+     * seconds browsers may use a file without revalidating it.
+     */
+    static final int MAX_AGE = 600;
+
+    /**
+     * system property containing the content security policy for files in
+     * workspaces.
+     */
+    private static final String CSP_PROPERTY = "hudson.model.DirectoryBrowserSupport.CSP";
+
+    /**
+     * default content security policy of Jenkins for files in workspaces.
+     */
+    private static final String DEFAULT_CSP = "sandbox; default-src 'none'; img-src 'self'; style-src 'self';";
+
+    /**
+     * cache of frequently requested files shared by all projects (up to 32MB
+     * of files not larger than 512KB).
+     */
+    private static final HotPageCache CACHE = new HotPageCache(32 * 1024 * 1024, 512 * 1024);
+
+    /**
+     * content types by file suffix.
+     */
+    private static final Map<String, String> CONTENT_TYPES = new HashMap<String, String>();
+
+    static {
+        CONTENT_TYPES.put("html", "text/html;charset=UTF-8");
+        CONTENT_TYPES.put("css", "text/css;charset=UTF-8");
+        CONTENT_TYPES.put("js", "application/javascript;charset=UTF-8");
+        CONTENT_TYPES.put("json", "application/json;charset=UTF-8");
+        CONTENT_TYPES.put("svg", "image/svg+xml");
+        CONTENT_TYPES.put("txt", "text/plain;charset=UTF-8");
+        CONTENT_TYPES.put("xml", "application/xml");
+        CONTENT_TYPES.put("png", "image/png");
+        CONTENT_TYPES.put("gif", "image/gif");
+        CONTENT_TYPES.put("jpg", "image/jpeg");
+        CONTENT_TYPES.put("zip", "application/zip");
+    }
+
+    /**
+     * the project whose JavaDoc documentation is served.
+     */
+    private final AbstractProject<?, ?> project;
+
+    /**
+     * Create an action serving the JavaDoc documentation of the given project.
+     *
+     * @param project
+     *            the project whose JavaDoc documentation is served.
+     */
+    JavaDocAction(final AbstractProject<?, ?> project) {
+        this.project = project;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getIconFileName() {
+        if (!project.hasPermission(Item.WORKSPACE)) {
+            return null;
+        }
+
+        final File javaDocFolder = getJavaDocFolder();
+
+        return javaDocFolder != null && new File(javaDocFolder, "index.html").exists() ? "help.gif" : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getDisplayName() {
+        return "JavaDoc";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getUrlName() {
+        return "javadoc";
+    }
+
+    /**
+     * @return the project whose JavaDoc documentation is served
+     */
+    public AbstractProject<?, ?> getProject() {
+        return project;
+    }
+
+    /**
+     * Serve the requested file of the JavaDoc documentation to users allowed
+     * to browse the workspace of the project.
+     *
+     * @param request
+     *            the request for a file.
+     * @param response
+     *            the response to write the file to.
+     * @throws IOException
+     *             when the file could not be read or written.
+     */
+    public void doDynamic(final StaplerRequest request, final StaplerResponse response) throws IOException {
+        project.checkPermission(Item.WORKSPACE);
+
+        final File javaDocFolder = getJavaDocFolder();
+        File file = javaDocFolder == null ? null : resolve(javaDocFolder, request.getRestOfPath());
+
+        if (file != null && file.isDirectory()) {
+            if (!request.getRequestURI().endsWith("/")) {
+                response.sendRedirect2(request.getRequestURI() + "/");
+                return;
+            }
+
+            file = new File(file, "index.html");
+        }
+
+        if (file != null && file.isFile()) {
+            serve(request, response, file);
+        }
+        else if (file == null || !serveFromArchive(request, response, javaDocFolder, request.getRestOfPath())) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+
+    /**
+     * Serve the requested file from the archive of the development component
+     * it belongs to.
+     *
+     * @param request
+     *            the request for a file.
+     * @param response
+     *            the response to write the file to.
+     * @param javaDocFolder
+     *            the JavaDoc folder.
+     * @param path
+     *            path of the requested file relative to the JavaDoc folder.
+     * @return <code>true</code> when the file was served, <code>false</code>
+     *         when there is no such archive or entry.
+     * @throws IOException
+     *             when the file could not be read or written.
+     */
+    private boolean serveFromArchive(final StaplerRequest request, final StaplerResponse response, final File javaDocFolder,
+        final String path) throws IOException {
+        final String relativePath = path.startsWith("/") ? path.substring(1) : path;
+        final int separator = relativePath.indexOf('/');
+
+        if (separator < 0) {
+            return false;
+        }
+
+        final File archive = new File(javaDocFolder, relativePath.substring(0, separator) + JavaDocArchive.SUFFIX);
+
+        if (!archive.isFile()) {
+            return false;
+        }
+
+        String name = relativePath.substring(separator + 1);
+
+        if (name.length() == 0 || name.endsWith("/")) {
+            name += "index.html";
+        }
+
+        final JavaDocArchive.OpenArchive open = JavaDocArchive.open(archive);
+
+        try {
+            return serveEntry(request, response, open.getZipFile(), name);
+        }
+        finally {
+            open.release();
+        }
+    }
+
+    /**
+     * Serve the entry with the given name from the given archive.
+     *
+     * @param request
+     *            the request for a file.
+     * @param response
+     *            the response to write the file to.
+     * @param zip
+     *            the archive of the development component.
+     * @param name
+     *            name of the requested entry.
+     * @return <code>true</code> when the entry was served,
+     *         <code>false</code> when there is no such entry.
+     * @throws IOException
+     *             when the entry could not be read or written.
+     */
+    private boolean serveEntry(final StaplerRequest request, final StaplerResponse response, final ZipFile zip, final String name)
+        throws IOException {
+        final ZipEntry entry = zip.getEntry(name);
+
+        if (entry == null || entry.isDirectory()) {
+            if (zip.getEntry(name + "/") == null) {
+                return false;
+            }
+
+            response.sendRedirect2(request.getRequestURI() + "/");
+
+            return true;
+        }
+
+        final String etag = String.format("\"%x-%x\"", Long.valueOf(entry.getSize()), Long.valueOf(entry.getCrc()));
+
+        if (!writeHeaders(request, response, name, etag, entry.getTime(), false, entry.getSize())) {
+            return true;
+        }
+
+        final InputStream input = zip.getInputStream(entry);
+
+        try {
+            copy(input, response.getOutputStream());
+        }
+        finally {
+            input.close();
+        }
+
+        return true;
+    }
+
+    /**
+     * Write the given file (or its compressed sibling) to the response unless
+     * the browser's copy is still valid.
+     *
+     * @param request
+     *            the request for the file.
+     * @param response
+     *            the response to write the file to.
+     * @param file
+     *            the requested file.
+     * @throws IOException
+     *             when the file could not be read or written.
+     */
+    private void serve(final StaplerRequest request, final StaplerResponse response, final File file) throws IOException {
+        final boolean compressible = Precompressor.isCompressible(file);
+        final String acceptEncoding = request.getHeader("Accept-Encoding");
+        final File compressed =
+            compressible && acceptEncoding != null && acceptEncoding.contains("gzip") ? Precompressor.getCompressed(file) : null;
+        final File content = compressed != null ? compressed : file;
+        final String etag = getETag(content, compressed != null);
+
+        if (compressible) {
+            response.setHeader("Vary", "Accept-Encoding");
+        }
+
+        if (!writeHeaders(request, response, file.getName(), etag, file.lastModified(), compressed != null, content.length())) {
+            return;
+        }
+
+        final OutputStream output = response.getOutputStream();
+        final byte[] cached = CACHE.get(content);
+
+        if (cached != null) {
+            output.write(cached);
+        }
+        else {
+            final InputStream input = new FileInputStream(content);
+
+            try {
+                copy(input, output);
+            }
+            finally {
+                input.close();
+            }
+        }
+    }
+
+    /**
+     * Write the headers of the response for a file.
+     *
+     * @param request
+     *            the request for the file.
+     * @param response
+     *            the response to write the headers to.
+     * @param name
+     *            name of the file.
+     * @param etag
+     *            the ETag of the file.
+     * @param lastModified
+     *            modification time of the file.
+     * @param compressed
+     *            indicate whether a compressed sibling is sent.
+     * @param length
+     *            number of bytes to send.
+     * @return <code>true</code> when the content of the file should be sent,
+     *         <code>false</code> when the browser's copy is still valid or
+     *         only the headers were requested.
+     */
+    private boolean writeHeaders(final StaplerRequest request, final StaplerResponse response, final String name,
+        final String etag, final long lastModified, final boolean compressed, final long length) {
+        response.setHeader("ETag", etag);
+        response.setDateHeader("Last-Modified", lastModified);
+        response.setHeader("Cache-Control", "private, max-age=" + MAX_AGE);
+
+        if (isNotModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return false;
+        }
+
+        response.setContentType(getContentType(name));
+
+        final String csp = System.getProperty(CSP_PROPERTY, DEFAULT_CSP);
+
+        if (csp.trim().length() > 0) {
+            response.setHeader("Content-Security-Policy", csp);
+        }
+
+        if (compressed) {
+            response.setHeader("Content-Encoding", "gzip");
+        }
+
+        response.setContentLength((int)length);
+
+        return !"HEAD".equals(request.getMethod());
+    }
+
+    /**
+     * Copy the given stream to the given output stream.
+     *
+     * @param input
+     *            stream to copy.
+     * @param output
+     *            stream to copy to.
+     * @throws IOException
+     *             when reading or writing failed.
+     */
+    private void copy(final InputStream input, final OutputStream output) throws IOException {
+        final byte[] buffer = new byte[8192];
+        int length;
+
+        while ((length = input.read(buffer)) != -1) {
+            output.write(buffer, 0, length);
+        }
+    }
+
+    /**
+     * Determine whether the browser's copy of a file is still valid.
+     *
+     * @param request
+     *            the request for the file.
+     * @param etag
+     *            the current ETag of the file.
+     * @param lastModified
+     *            modification time of the file.
+     * @return <code>true</code> when the browser's copy is still valid,
+     *         <code>false</code> otherwise.
+     */
+    private boolean isNotModified(final StaplerRequest request, final String etag, final long lastModified) {
+        final String ifNoneMatch = request.getHeader("If-None-Match");
+
+        if (ifNoneMatch != null) {
+            return ifNoneMatch.trim().equals("*") || ifNoneMatch.contains(etag);
+        }
+
+        final long ifModifiedSince = request.getDateHeader("If-Modified-Since");
+
+        return ifModifiedSince != -1 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    /**
+     * Get the JavaDoc folder in the workspace of the project.
+     *
+     * @return the JavaDoc folder or <code>null</code> when the project has no
+     *         workspace on this node.
+     */
+    File getJavaDocFolder() {
+        final FilePath workspace = project.getSomeWorkspace();
+
+        return workspace == null || workspace.isRemote() ? null : new File(workspace.getRemote(), "javadoc");
+    }
+
+    /**
+     * Resolve the given path in the JavaDoc folder. Paths leaving the JavaDoc
+     * folder and paths to hidden files or folders (caches) are rejected.
+     *
+     * @param javaDocFolder
+     *            the JavaDoc folder.
+     * @param path
+     *            path relative to the JavaDoc folder.
+     * @return the file or <code>null</code> when the path is rejected.
+     */
+    static File resolve(final File javaDocFolder, final String path) {
+        File file = javaDocFolder;
+
+        for (final String segment : path.split("/")) {
+            if (segment.startsWith(".") || segment.indexOf('\\') >= 0) {
+                return null;
+            }
+
+            if (segment.length() > 0) {
+                file = new File(file, segment);
+            }
+        }
+
+        return file;
+    }
+
+    /**
+     * Get the ETag of the given file.
+     *
+     * @param file
+     *            the file to be sent.
+     * @param compressed
+     *            indicate whether the file is a compressed sibling.
+     * @return the ETag of the file.
+     */
+    static String getETag(final File file, final boolean compressed) {
+        return String.format("\"%x-%x%s\"", Long.valueOf(file.length()), Long.valueOf(file.lastModified()), compressed ? "-gz"
+            : "");
+    }
+
+    /**
+     * Determine the content type of a file.
+     *
+     * @param name
+     *            name of the file.
+     * @return the content type of the file.
+     */
+    static String getContentType(final String name) {
+        final String contentType = CONTENT_TYPES.get(name.substring(name.lastIndexOf('.') + 1).toLowerCase());
+
+        return contentType == null ? "application/octet-stream" : contentType;
+    }
+}
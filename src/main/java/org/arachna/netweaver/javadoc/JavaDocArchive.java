@@ -0,0 +1,471 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import hudson.Util;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.Logger;
+
+/**
+ * Packs the JavaDoc documentation of a development component into a single
+ * uncompressed (stored) archive next to the overview
+ * (<code>javadoc/&lt;folder&gt;.zip</code>), so archiving, copying and
+ * cleaning the JavaDoc folder deal with one file per development component
+ * instead of thousands.
+ *
+ * Only the package lists stay in the JavaDoc folder of the development
+ * component, for JavaDoc runs of development components linking to it.
+ * {@link JavaDocAction} serves the other files from the archive. Open
+ * archives are shared between requests (their central directory is read only
+ * once) and reopened when the archive has been replaced. Requests hold a
+ * reference to the opened archive while reading from it, an archive replaced
+ * or evicted from the open archives is closed when its last reader releases
+ * it.
+ *
+ * @author Dirk Weigenand
+ */
+final class JavaDocArchive {
+    /**
+     * suffix of archives.
+     */
+    static final String SUFFIX = ".zip";
+
+    /**
+     * files kept in the JavaDoc folder of a development component.
+     */
+    static final Collection<String> LINK_FILES = Arrays.asList("package-list", "element-list");
+
+    /**
+     * maximum number of archives kept open for serving files.
+     */
+    private static final int MAX_OPEN = 64;
+
+    /**
+     * archives opened for serving files by absolute path in least recently
+     * used order.
+     */
+    private static final Map<String, OpenArchive> OPEN = new LinkedHashMap<String, OpenArchive>(16, 0.75f, true);
+
+    /**
+     * number of archives written.
+     */
+    private int archives;
+
+    /**
+     * number of files packed.
+     */
+    private int files;
+
+    /**
+     * Get the archive of the given JavaDoc folder of a development component.
+     *
+     * @param folder
+     *            JavaDoc folder of a development component.
+     * @return the archive of the JavaDoc folder.
+     */
+    static File getArchive(final File folder) {
+        return new File(folder.getPath() + SUFFIX);
+    }
+
+    /**
+     * Pack the JavaDoc documentation generated into the given staging folder
+     * into the given archive and remove the packed files (except the package
+     * lists) from the staging folder. The archive is written to a temporary
+     * file replacing the archive atomically.
+     *
+     * @param staging
+     *            staging folder containing the generated JavaDoc
+     *            documentation.
+     * @param archive
+     *            the archive to write.
+     */
+    void pack(final File staging, final File archive) {
+        final int packed;
+
+        try {
+            packed = write(staging, archive);
+            final File[] children = staging.listFiles();
+
+            if (children != null) {
+                for (final File child : children) {
+                    if (!LINK_FILES.contains(child.getName())) {
+                        Util.deleteRecursive(child);
+                    }
+                }
+            }
+        }
+        catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        count(packed);
+    }
+
+    /**
+     * @return the number of archives written
+     */
+    synchronized int getArchives() {
+        return archives;
+    }
+
+    /**
+     * @return the number of files packed
+     */
+    synchronized int getFiles() {
+        return files;
+    }
+
+    /**
+     * Write the files of the given folder into the given archive. The archive
+     * is written to a temporary file replacing the archive atomically.
+     *
+     * @param folder
+     *            folder to write into the archive.
+     * @param archive
+     *            the archive to write.
+     * @return the number of files written into the archive.
+     * @throws IOException
+     *             when a file could not be read or the archive could not be
+     *             written.
+     */
+    static int write(final File folder, final File archive) throws IOException {
+        final File temporary = File.createTempFile(archive.getName(), ".tmp", archive.getParentFile());
+        ZipOutputStream output = null;
+
+        try {
+            output = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)));
+            output.setMethod(ZipOutputStream.STORED);
+            final int written = add(output, folder, "");
+            output.close();
+            output = null;
+            Files.move(temporary.toPath(), archive.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            return written;
+        }
+        finally {
+            IOUtils.closeQuietly(output);
+            Files.deleteIfExists(temporary.toPath());
+        }
+    }
+
+    /**
+     * Extract the files with the given names (and the content of the folders
+     * with the given names) from the given archive.
+     *
+     * @param archive
+     *            archive to extract from.
+     * @param folder
+     *            folder to extract to.
+     * @param names
+     *            names of the files and folders to extract
+     *            (<code>null</code>: extract all files).
+     * @throws IOException
+     *             when the archive could not be read or a file could not be
+     *             written.
+     */
+    static void unpack(final File archive, final File folder, final Collection<String> names) throws IOException {
+        final ZipFile zip = new ZipFile(archive);
+
+        try {
+            final Enumeration<? extends ZipEntry> entries = zip.entries();
+
+            while (entries.hasMoreElements()) {
+                final ZipEntry entry = entries.nextElement();
+                final String name = entry.getName();
+                final int separator = name.indexOf('/');
+
+                if (!entry.isDirectory() && (names == null || names.contains(separator < 0 ? name : name.substring(0, separator)))
+                    && name.indexOf("..") < 0) {
+                    final File file = new File(folder, name);
+                    file.getParentFile().mkdirs();
+                    final InputStream input = zip.getInputStream(entry);
+
+                    try {
+                        Files.copy(input, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    finally {
+                        input.close();
+                    }
+                }
+            }
+        }
+        finally {
+            zip.close();
+        }
+    }
+
+    /**
+     * Open the given archive for serving files. Archives are kept open and
+     * reopened when they have been replaced. The caller must
+     * {@link OpenArchive#release()} the opened archive after reading from it.
+     *
+     * @param archive
+     *            archive to open.
+     * @return the opened archive.
+     * @throws IOException
+     *             when the archive could not be opened.
+     */
+    static OpenArchive open(final File archive) throws IOException {
+        final String key = archive.getAbsolutePath();
+        final long length = archive.length();
+        final long lastModified = archive.lastModified();
+
+        synchronized (OPEN) {
+            OpenArchive open = OPEN.get(key);
+
+            if (open != null && (open.length != length || open.lastModified != lastModified)) {
+                OPEN.remove(key);
+                open.evict();
+                open = null;
+            }
+
+            if (open == null) {
+                open = new OpenArchive(new ZipFile(archive), length, lastModified);
+                OPEN.put(key, open);
+
+                if (OPEN.size() > MAX_OPEN) {
+                    final Map.Entry<String, OpenArchive> eldest = OPEN.entrySet().iterator().next();
+                    OPEN.remove(eldest.getKey());
+                    eldest.getValue().evict();
+                }
+            }
+
+            open.readers++;
+
+            return open;
+        }
+    }
+
+    /**
+     * Add the files of the given (sub folder of the) staging folder to the
+     * archive.
+     *
+     * @param output
+     *            the archive.
+     * @param folder
+     *            (sub folder of) the staging folder.
+     * @param path
+     *            path of the folder relative to the staging folder.
+     * @return the number of files added.
+     * @throws IOException
+     *             when a file could not be read or written.
+     */
+    private static int add(final ZipOutputStream output, final File folder, final String path) throws IOException {
+        final File[] children = folder.listFiles();
+        int added = 0;
+
+        if (children == null) {
+            return added;
+        }
+
+        Arrays.sort(children);
+
+        for (final File child : children) {
+            final String name = path + child.getName();
+
+            if (child.isDirectory()) {
+                final ZipEntry entry = new ZipEntry(name + "/");
+                entry.setSize(0);
+                entry.setCrc(0);
+                entry.setTime(child.lastModified());
+                output.putNextEntry(entry);
+                output.closeEntry();
+                added += add(output, child, name + "/");
+            }
+            else {
+                final ZipEntry entry = new ZipEntry(name);
+                entry.setSize(child.length());
+                entry.setCompressedSize(child.length());
+                entry.setCrc(getCrc(child));
+                entry.setTime(child.lastModified());
+                output.putNextEntry(entry);
+                copy(child, output);
+                output.closeEntry();
+                added++;
+            }
+        }
+
+        return added;
+    }
+
+    /**
+     * Calculate the CRC-32 checksum of the given file (stored entries require
+     * it before their content is written).
+     *
+     * @param file
+     *            file to calculate the checksum of.
+     * @return the checksum of the file.
+     * @throws IOException
+     *             when the file could not be read.
+     */
+    private static long getCrc(final File file) throws IOException {
+        final CRC32 crc = new CRC32();
+        final InputStream input = new FileInputStream(file);
+
+        try {
+            final byte[] buffer = new byte[8192];
+            int length;
+
+            while ((length = input.read(buffer)) != -1) {
+                crc.update(buffer, 0, length);
+            }
+        }
+        finally {
+            IOUtils.closeQuietly(input);
+        }
+
+        return crc.getValue();
+    }
+
+    /**
+     * Copy the content of the given file to the given stream.
+     *
+     * @param file
+     *            file to copy.
+     * @param output
+     *            stream to copy to.
+     * @throws IOException
+     *             when the file could not be read or written.
+     */
+    private static void copy(final File file, final OutputStream output) throws IOException {
+        final InputStream input = new FileInputStream(file);
+
+        try {
+            final byte[] buffer = new byte[8192];
+            int length;
+
+            while ((length = input.read(buffer)) != -1) {
+                output.write(buffer, 0, length);
+            }
+        }
+        finally {
+            IOUtils.closeQuietly(input);
+        }
+    }
+
+    /**
+     * Update the statistics.
+     *
+     * @param packed
+     *            number of files packed into an archive.
+     */
+    private synchronized void count(final int packed) {
+        archives++;
+        files += packed;
+    }
+
+    /**
+     * An archive opened for serving files.
+     */
+    static final class OpenArchive {
+        /**
+         * the opened archive.
+         */
+        private final ZipFile zip;
+
+        /**
+         * size of the archive when it was opened.
+         */
+        private final long length;
+
+        /**
+         * modification time of the archive when it was opened.
+         */
+        private final long lastModified;
+
+        /**
+         * number of requests reading from the archive (guarded by
+         * {@link JavaDocArchive#OPEN}).
+         */
+        private int readers;
+
+        /**
+         * indicates whether the archive has been removed from the open
+         * archives (guarded by {@link JavaDocArchive#OPEN}).
+         */
+        private boolean evicted;
+
+        /**
+         * Create an opened archive.
+         *
+         * @param zip
+         *            the opened archive.
+         * @param length
+         *            size of the archive when it was opened.
+         * @param lastModified
+         *            modification time of the archive when it was opened.
+         */
+        OpenArchive(final ZipFile zip, final long length, final long lastModified) {
+            this.zip = zip;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * @return the opened archive
+         */
+        ZipFile getZipFile() {
+            return zip;
+        }
+
+        /**
+         * Release the archive after reading from it. The archive is closed
+         * when it has been evicted and this was its last reader.
+         */
+        void release() {
+            synchronized (OPEN) {
+                readers--;
+
+                if (evicted && readers == 0) {
+                    close();
+                }
+            }
+        }
+
+        /**
+         * Remove the archive from the open archives. It is closed immediately
+         * when no request is reading from it, otherwise when its last reader
+         * releases it.
+         */
+        private void evict() {
+            evicted = true;
+
+            if (readers == 0) {
+                close();
+            }
+        }
+
+        /**
+         * Close the archive logging errors.
+         */
+        private void close() {
+            try {
+                zip.close();
+            }
+            catch (final IOException e) {
+                Logger.getLogger(JavaDocArchive.class).error("", e);
+            }
+        }
+    }
+}
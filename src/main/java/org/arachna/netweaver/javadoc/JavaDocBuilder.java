@@ -3,21 +3,24 @@ package org.arachna.netweaver.javadoc;
 import hudson.Extension;
 import hudson.Launcher;
 import hudson.Util;
+import hudson.model.Action;
 import hudson.model.BuildListener;
 import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
 import hudson.model.Hudson;
+import hudson.model.Label;
 import hudson.tasks.BuildStepDescriptor;
 import hudson.tasks.Builder;
+import hudson.util.ListBoxModel;
 
 import java.io.File;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 
 import net.sf.json.JSONArray;
 import net.sf.json.JSONObject;
 
-import org.apache.velocity.app.VelocityEngine;
 import org.arachna.netweaver.dc.types.DevelopmentComponent;
 import org.arachna.netweaver.hudson.nwdi.AntTaskBuilder;
 import org.arachna.netweaver.hudson.nwdi.DCWithJavaSourceAcceptingFilter;
@@ -41,6 +44,34 @@ public class JavaDocBuilder extends AntTaskBuilder {
 
     private boolean useUmlGraph;
 
+    /**
+     * maximum number of development components to generate JavaDoc
+     * documentation for concurrently.
+     */
+    private int parallelism = 1;
+
+    /**
+     * engine to use for executing JavaDoc.
+     */
+    private ExecutionEngine engine = ExecutionEngine.Ant;
+
+    /**
+     * label of the agents to distribute JavaDoc runs to.
+     */
+    private String agentLabel;
+
+    /**
+     * indicates whether the JavaDoc documentation of each development
+     * component should be packed into an archive.
+     */
+    private boolean packArchives;
+
+    /**
+     * indicates whether compressed copies of the generated JavaDoc
+     * documentation should be written for serving them to browsers.
+     */
+    private boolean precompress;
+
     /**
      * @return the useUmlGraph
      */
@@ -52,6 +83,64 @@ public class JavaDocBuilder extends AntTaskBuilder {
         this.useUmlGraph = useUmlGraph;
     }
 
+    /**
+     * @return the maximum number of development components to generate JavaDoc
+     *         documentation for concurrently.
+     */
+    public final int getParallelism() {
+        return Math.max(1, parallelism);
+    }
+
+    public void setParallelism(final int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * @return the engine to use for executing JavaDoc.
+     */
+    public final ExecutionEngine getEngine() {
+        return engine == null ? ExecutionEngine.Ant : engine;
+    }
+
+    public void setEngine(final ExecutionEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * @return the label of the agents to distribute JavaDoc runs to.
+     */
+    public final String getAgentLabel() {
+        return agentLabel;
+    }
+
+    public void setAgentLabel(final String agentLabel) {
+        this.agentLabel = Util.fixEmptyAndTrim(agentLabel);
+    }
+
+    /**
+     * @return whether the JavaDoc documentation of each development component
+     *         should be packed into an archive.
+     */
+    public final boolean getPackArchives() {
+        return packArchives;
+    }
+
+    public void setPackArchives(final boolean packArchives) {
+        this.packArchives = packArchives;
+    }
+
+    /**
+     * @return whether compressed copies of the generated JavaDoc
+     *         documentation should be written for serving them to browsers.
+     */
+    public final boolean getPrecompress() {
+        return precompress;
+    }
+
+    public void setPrecompress(final boolean precompress) {
+        this.precompress = precompress;
+    }
+
     /**
      * @return the links
      */
@@ -96,32 +185,112 @@ public class JavaDocBuilder extends AntTaskBuilder {
      *            launcher to use to execute the Ant JavaDoc task.
      * @param listener
      *            the listener to use for logging.
+     * @return <code>true</code> when the JavaDoc documentation of all
+     *         development components could be generated, <code>false</code>
+     *         when generation failed for at least one of them (which fails
+     *         the build).
      */
     @Override
     public boolean perform(final AbstractBuild build, final Launcher launcher, final BuildListener listener) {
         final NWDIBuild nwdiBuild = (NWDIBuild)build;
-        final VelocityEngine velocityEngine = getVelocityEngine();
-        final BuildFileGenerator generator =
-            new BuildFileGenerator(getAntHelper(), nwdiBuild.getDevelopmentComponentFactory(), links, velocityEngine, useUmlGraph);
+        final File javaDocFolder = new File(getAntHelper().getPathToWorkspace(), "javadoc");
+        final PackageListCache packageLists =
+            new PackageListCache(new File(javaDocFolder, PackageListCache.CACHE_FOLDER), getDescriptor().getPackageListTimeToLive(),
+                listener.getLogger());
+        final DevelopmentComponentIndex index =
+            new DevelopmentComponentIndex(nwdiBuild.getDevelopmentComponentFactory(), getAntHelper().getPathToWorkspace(), links);
+        final JobDurationHistory durations =
+            new JobDurationHistory(new File(nwdiBuild.getProject().getRootDir(), JobDurationHistory.FILE_NAME));
+        final JavaDocPipeline pipeline =
+            new JavaDocPipeline(getAntHelper(), index, nwdiBuild.getDevelopmentConfiguration(), packageLists, useUmlGraph,
+                getParallelism(), packArchives ? new JavaDocArchive() : null, precompress, getDescriptor().createResultCache(),
+                durations,
+                new JavaDocPipeline.AntRunner() {
+                    public boolean execute(final String buildFile, final BuildListener antListener) throws InterruptedException {
+                        return JavaDocBuilder.this.execute(nwdiBuild, launcher, antListener, "javadoc", buildFile, null);
+                    }
+                });
+        final Collection<DevelopmentComponent> components =
+            nwdiBuild.getAffectedDevelopmentComponents(new DCWithJavaSourceAcceptingFilter());
+        boolean result = false;
 
         try {
-            for (final DevelopmentComponent component : nwdiBuild.getAffectedDevelopmentComponents(new DCWithJavaSourceAcceptingFilter())) {
-                final String location = generator.execute(component);
+            pipeline.scan(components);
+            result = pipeline.execute(components, createRunner(listener), ExecutionEngine.AntBatch.equals(getEngine()), listener);
+        }
+        catch (final InterruptedException e) {
+            // simply quit execution.
+        }
 
-                if (location != null) {
-                    execute(nwdiBuild, launcher, listener, "javadoc", location, null);
+        build.addAction(new JavaDocMetricsAction(build, pipeline.getMetrics()));
+
+        return result;
+    }
+
+    /**
+     * Create a runner for executing JavaDoc without Ant when the respective
+     * engine has been configured. Engines running JavaDoc in this JVM or a
+     * worker process started from it fall back to Ant when UML diagrams
+     * shall be generated but the UmlGraph doclet is not supported by the
+     * JavaDoc tool of this JVM.
+     * 
+     * @param listener
+     *            the listener to use for logging.
+     * @return a runner for executing JavaDoc or <code>null</code> when JavaDoc
+     *         should be run via Ant.
+     */
+    private JavaDocRunner createRunner(final BuildListener listener) {
+        final ExecutionEngine engine = getEngine();
+
+        if ((ExecutionEngine.Daemon.equals(engine) || ExecutionEngine.DocumentationTool.equals(engine)) && useUmlGraph
+            && !DocumentationToolRunner.isUmlGraphSupported()) {
+            listener.getLogger().println(
+                String.format("The UmlGraph doclet can't be run by the JavaDoc tool of this JVM (%s, JDK 13 or later), using Ant.",
+                    System.getProperty("java.version")));
+
+            return null;
+        }
+
+        if (ExecutionEngine.Daemon.equals(engine)) {
+            final DescriptorImpl descriptor = getDescriptor();
+            final JavaDocDaemon daemon = JavaDocDaemon.getInstance();
+            daemon.configure(descriptor.getDaemonMaxHeap(), descriptor.getDaemonIdleTimeout(), descriptor.getDaemonMaxJobs(),
+                descriptor.getDaemonJobTimeout());
+
+            if (getParallelism() > 1) {
+                listener.getLogger().println(
+                    String.format("The JavaDoc worker process runs one JavaDoc job at a time, %d parallel JavaDoc runs only "
+                        + "overlap the remaining stages.", getParallelism()));
+            }
+
+            return daemon;
+        }
+
+        if (ExecutionEngine.DocumentationTool.equals(engine)) {
+            if (DocumentationToolRunner.isAvailable()) {
+                if (getParallelism() > 1) {
+                    listener.getLogger().println(
+                        String.format("JavaDoc runs in the Jenkins process are serialized, %d parallel JavaDoc runs only overlap "
+                            + "the remaining stages.", getParallelism()));
                 }
+
+                return new DocumentationToolRunner();
             }
 
-            final OverviewGenerator overview =
-                new OverviewGenerator(new File(getAntHelper().getPathToWorkspace()), nwdiBuild.getDevelopmentConfiguration());
-            overview.execute();
+            listener.getLogger().println("javax.tools.DocumentationTool is not available (Jenkins not running on a JDK?), using Ant.");
         }
-        catch (final InterruptedException e) {
-            // simply quit execution.
+
+        if (ExecutionEngine.Agents.equals(engine)) {
+            final Label label = agentLabel == null ? null : Hudson.getInstance().getLabel(agentLabel);
+
+            if (label != null && !label.getNodes().isEmpty()) {
+                return new AgentJavaDocRunner(label);
+            }
+
+            listener.getLogger().println(String.format("No agents carry the label '%s', using Ant.", Util.fixNull(agentLabel)));
         }
 
-        return true;
+        return null;
     }
 
     /**
@@ -135,6 +304,19 @@ public class JavaDocBuilder extends AntTaskBuilder {
             .replace("\\", "/"));
     }
 
+    /**
+     * Provide an action serving the JavaDoc documentation in the workspace of
+     * the project.
+     * 
+     * @param project
+     *            the project this builder is configured in.
+     * @return the action serving the JavaDoc documentation.
+     */
+    @Override
+    public Collection<? extends Action> getProjectActions(final AbstractProject<?, ?> project) {
+        return Collections.singletonList(new JavaDocAction(project));
+    }
+
     // Overridden for better type safety.
     // If your plugin doesn't really define any property on Descriptor,
     // you don't have to do this.
@@ -151,6 +333,115 @@ public class JavaDocBuilder extends AntTaskBuilder {
     // This indicates to Jenkins that this is an implementation of an extension
     // point.
     public static final class DescriptorImpl extends BuildStepDescriptor<Builder> {
+        /**
+         * maximum heap size of the JavaDoc worker process.
+         */
+        private String daemonMaxHeap = "512m";
+
+        /**
+         * minutes after which an idle JavaDoc worker process is stopped.
+         */
+        private int daemonIdleTimeout = 30;
+
+        /**
+         * number of jobs after which the JavaDoc worker process is recycled.
+         */
+        private int daemonMaxJobs = 100;
+
+        /**
+         * minutes after which a JavaDoc worker process not finishing a job is
+         * killed.
+         */
+        private int daemonJobTimeout = 30;
+
+        /**
+         * hours a cached package list of an external link is used before it is
+         * downloaded again.
+         */
+        private int packageListTimeToLive = 24;
+
+        /**
+         * folder of the JavaDoc result cache shared by all jobs (
+         * <code>null</code>: no result cache).
+         */
+        private String resultCacheFolder;
+
+        /**
+         * maximum size of the JavaDoc result cache in megabytes.
+         */
+        private int resultCacheSize = 2048;
+
+        /**
+         * Create descriptor and load its persisted configuration.
+         */
+        public DescriptorImpl() {
+            load();
+        }
+
+        /**
+         * @return the maximum heap size of the JavaDoc worker process.
+         */
+        public String getDaemonMaxHeap() {
+            return daemonMaxHeap;
+        }
+
+        /**
+         * @return the minutes after which an idle JavaDoc worker process is
+         *         stopped.
+         */
+        public int getDaemonIdleTimeout() {
+            return daemonIdleTimeout;
+        }
+
+        /**
+         * @return the number of jobs after which the JavaDoc worker process is
+         *         recycled.
+         */
+        public int getDaemonMaxJobs() {
+            return daemonMaxJobs;
+        }
+
+        /**
+         * @return the minutes after which a JavaDoc worker process not
+         *         finishing a job is killed.
+         */
+        public int getDaemonJobTimeout() {
+            return daemonJobTimeout;
+        }
+
+        /**
+         * @return the hours a cached package list of an external link is used
+         *         before it is downloaded again.
+         */
+        public int getPackageListTimeToLive() {
+            return packageListTimeToLive;
+        }
+
+        /**
+         * @return the folder of the JavaDoc result cache shared by all jobs.
+         */
+        public String getResultCacheFolder() {
+            return resultCacheFolder;
+        }
+
+        /**
+         * @return the maximum size of the JavaDoc result cache in megabytes.
+         */
+        public int getResultCacheSize() {
+            return resultCacheSize;
+        }
+
+        /**
+         * Create the JavaDoc result cache configured for all jobs.
+         *
+         * @return the result cache or <code>null</code> when no result cache
+         *         is configured.
+         */
+        ResultCache createResultCache() {
+            return resultCacheFolder == null ? null : new FolderResultCache(new File(resultCacheFolder),
+                resultCacheSize * 1024L * 1024L);
+        }
+
         @Override
         public boolean isApplicable(final Class<? extends AbstractProject> aClass) {
             return NWDIProject.class.equals(aClass);
@@ -164,8 +455,35 @@ public class JavaDocBuilder extends AntTaskBuilder {
             return "NWDI JavaDoc Builder";
         }
 
+        /**
+         * Fill the engine selection box.
+         * 
+         * @return the available engines for executing JavaDoc.
+         */
+        public ListBoxModel doFillEngineItems() {
+            final ListBoxModel items = new ListBoxModel();
+
+            for (final ExecutionEngine engine : ExecutionEngine.values()) {
+                items.add(engine.getDescription(), engine.name());
+            }
+
+            return items;
+        }
+
         @Override
         public boolean configure(final StaplerRequest req, final JSONObject formData) throws FormException {
+            daemonMaxHeap = Util.fixEmptyAndTrim(formData.optString("daemonMaxHeap"));
+
+            if (daemonMaxHeap == null) {
+                daemonMaxHeap = "512m";
+            }
+
+            daemonIdleTimeout = formData.optInt("daemonIdleTimeout", 30);
+            daemonMaxJobs = formData.optInt("daemonMaxJobs", 100);
+            daemonJobTimeout = formData.optInt("daemonJobTimeout", 30);
+            packageListTimeToLive = formData.optInt("packageListTimeToLive", 24);
+            resultCacheFolder = Util.fixEmptyAndTrim(formData.optString("resultCacheFolder"));
+            resultCacheSize = formData.optInt("resultCacheSize", 2048);
             save();
             return super.configure(req, formData);
         }
@@ -178,6 +496,11 @@ public class JavaDocBuilder extends AntTaskBuilder {
             final JavaDocBuilder builder = new JavaDocBuilder();
 
             builder.setUseUmlGraph(Boolean.valueOf(formData.getString("useUmlGraph")));
+            builder.setParallelism(formData.optInt("parallelism", 1));
+            builder.setEngine(ExecutionEngine.fromString(formData.optString("engine")));
+            builder.setAgentLabel(formData.optString("agentLabel"));
+            builder.setPackArchives(formData.optBoolean("packArchives"));
+            builder.setPrecompress(formData.optBoolean("precompress"));
             final JSONObject config = (JSONObject)formData.get("advancedConfiguration");
 
             if (config != null) {
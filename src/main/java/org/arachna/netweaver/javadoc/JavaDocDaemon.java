@@ -0,0 +1,414 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import hudson.Util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Long lived JavaDoc worker process shared by all builds running on this
+ * node.
+ *
+ * The worker is started on demand and kept running between builds until it
+ * has been idle for the configured time. Before each job the worker is asked
+ * whether it is still healthy and it is recycled after a configurable number
+ * of jobs so that memory leaked by doclets cannot accumulate. A worker not
+ * answering within the configured time is killed.
+ *
+ * The worker runs one JavaDoc job at a time, concurrent jobs wait for it.
+ *
+ * @author Dirk Weigenand
+ */
+final class JavaDocDaemon implements JavaDocRunner {
+    /**
+     * the worker process shared on this node.
+     */
+    private static final JavaDocDaemon INSTANCE = new JavaDocDaemon();
+
+    /**
+     * classes whose code sources make up the class path of the worker
+     * process.
+     */
+    private static final String[] WORKER_CLASSES = { JavaDocWorker.class.getName(), Util.class.getName(),
+        Logger.class.getName(), "org.umlgraph.doclet.UmlGraphDoc" };
+
+    /**
+     * milliseconds to wait for the worker to answer a ping.
+     */
+    private static final long PING_TIMEOUT = 30L * 1000L;
+
+    /**
+     * timer for stopping an idle worker.
+     */
+    private final Timer timer = new Timer("JavaDoc worker idle timeout", true);
+
+    /**
+     * timer for killing a worker not answering in time (separate from
+     * {@link #timer}, whose tasks may wait for the lock held while waiting
+     * for an answer).
+     */
+    private final Timer watchdog = new Timer("JavaDoc worker watchdog", true);
+
+    /**
+     * maximum heap size of the worker process (e.g. <code>512m</code>).
+     */
+    private String maxHeap = "512m";
+
+    /**
+     * minutes after which an idle worker is stopped.
+     */
+    private int idleTimeout = 30;
+
+    /**
+     * number of jobs after which the worker is recycled.
+     */
+    private int maxJobs = 100;
+
+    /**
+     * minutes after which a worker not finishing a job is killed.
+     */
+    private int jobTimeout = 30;
+
+    /**
+     * the running worker process.
+     */
+    private Process process;
+
+    /**
+     * stream for sending requests to the worker.
+     */
+    private ObjectOutputStream requests;
+
+    /**
+     * stream for reading results from the worker.
+     */
+    private ObjectInputStream results;
+
+    /**
+     * number of jobs executed by the running worker.
+     */
+    private int jobs;
+
+    /**
+     * task stopping the worker when it is idle.
+     */
+    private TimerTask idleTask;
+
+    /**
+     * Create the daemon and register a hook stopping the worker when the JVM
+     * shuts down.
+     */
+    private JavaDocDaemon() {
+        Runtime.getRuntime().addShutdownHook(new Thread("JavaDoc worker shutdown") {
+            @Override
+            public void run() {
+                stop();
+            }
+        });
+    }
+
+    /**
+     * @return the worker shared on this node.
+     */
+    static JavaDocDaemon getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Configure the worker. A running worker is stopped when the given
+     * configuration differs from the current one.
+     *
+     * @param maxHeap
+     *            maximum heap size of the worker process (e.g.
+     *            <code>512m</code>).
+     * @param idleTimeout
+     *            minutes after which an idle worker is stopped.
+     * @param maxJobs
+     *            number of jobs after which the worker is recycled.
+     * @param jobTimeout
+     *            minutes after which a worker not finishing a job is killed.
+     */
+    synchronized void configure(final String maxHeap, final int idleTimeout, final int maxJobs, final int jobTimeout) {
+        if (!this.maxHeap.equals(maxHeap)) {
+            stop();
+        }
+
+        this.maxHeap = maxHeap;
+        this.idleTimeout = Math.max(1, idleTimeout);
+        this.maxJobs = Math.max(1, maxJobs);
+        this.jobTimeout = Math.max(1, jobTimeout);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public synchronized boolean execute(final JavaDocParameters parameters, final PrintStream logger) {
+        cancelIdleTask();
+
+        try {
+            if (process != null && !isHealthy()) {
+                logger.println("JavaDoc worker is not responding, restarting it.");
+                stop();
+            }
+
+            if (process == null) {
+                start();
+            }
+
+            final JavaDocWorker.Result result = send(parameters, jobTimeout * 60L * 1000L);
+            logger.print(result.getOutput());
+
+            if (++jobs >= maxJobs) {
+                logger.println(String.format("JavaDoc worker executed %d jobs, recycling it.", jobs));
+                stop();
+            }
+
+            return result.isSucceeded();
+        }
+        catch (final IOException e) {
+            e.printStackTrace(logger);
+            stop();
+
+            return false;
+        }
+        finally {
+            scheduleIdleTask();
+        }
+    }
+
+    /**
+     * Start a new worker process.
+     *
+     * @throws IOException
+     *             when the worker could not be started.
+     */
+    private void start() throws IOException {
+        final List<String> command = new ArrayList<String>();
+        command.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getAbsolutePath());
+        command.add("-Xmx" + maxHeap);
+        command.add("-cp");
+        command.add(createClassPath());
+        command.add(JavaDocWorker.class.getName());
+
+        process = new ProcessBuilder(command).start();
+        drain(process.getErrorStream());
+        requests = new ObjectOutputStream(process.getOutputStream());
+        requests.flush();
+        results = new ObjectInputStream(process.getInputStream());
+        jobs = 0;
+
+        if (!isHealthy()) {
+            stop();
+            throw new IOException("JavaDoc worker could not be started (is it running on a JDK?).");
+        }
+    }
+
+    /**
+     * Stop the running worker process (if any).
+     */
+    synchronized void stop() {
+        if (process != null) {
+            try {
+                requests.close();
+            }
+            catch (final IOException e) {
+                Logger.getLogger(getClass()).debug("", e);
+            }
+
+            process.destroy();
+            process = null;
+            requests = null;
+            results = null;
+        }
+    }
+
+    /**
+     * Ask the worker whether it is still healthy.
+     *
+     * @return <code>true</code> when the worker answered and can run JavaDoc,
+     *         <code>false</code> otherwise.
+     */
+    private boolean isHealthy() {
+        try {
+            return send(JavaDocWorker.PING, PING_TIMEOUT).isSucceeded();
+        }
+        catch (final IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Send the given request to the worker and wait for its result. The
+     * worker is killed when it does not answer within the given time.
+     *
+     * @param request
+     *            request to send.
+     * @param timeout
+     *            milliseconds to wait for the result.
+     * @return the result sent by the worker.
+     * @throws IOException
+     *             when communicating with the worker failed or it did not
+     *             answer in time.
+     */
+    private JavaDocWorker.Result send(final Object request, final long timeout) throws IOException {
+        final Process worker = process;
+        final AtomicBoolean expired = new AtomicBoolean();
+        final TimerTask kill = new TimerTask() {
+            @Override
+            public void run() {
+                expired.set(true);
+                worker.destroy();
+            }
+        };
+        watchdog.schedule(kill, timeout);
+
+        try {
+            requests.writeObject(request);
+            requests.flush();
+            requests.reset();
+
+            return (JavaDocWorker.Result)results.readObject();
+        }
+        catch (final IOException e) {
+            if (expired.get()) {
+                throw new IOException(String.format("JavaDoc worker did not answer within %d seconds, killed it.",
+                    timeout / 1000));
+            }
+
+            throw e;
+        }
+        catch (final ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+        finally {
+            kill.cancel();
+        }
+    }
+
+    /**
+     * Cancel a pending idle timeout.
+     */
+    private void cancelIdleTask() {
+        if (idleTask != null) {
+            idleTask.cancel();
+            idleTask = null;
+        }
+    }
+
+    /**
+     * Stop the worker when no further job arrives within the idle timeout.
+     */
+    private void scheduleIdleTask() {
+        if (process != null) {
+            idleTask = new TimerTask() {
+                @Override
+                public void run() {
+                    stopIfIdle(this);
+                }
+            };
+            timer.schedule(idleTask, idleTimeout * 60L * 1000L);
+        }
+    }
+
+    /**
+     * Stop the worker when the given idle task has not been cancelled by a job
+     * in the meantime.
+     *
+     * @param task
+     *            the idle task that expired.
+     */
+    private synchronized void stopIfIdle(final TimerTask task) {
+        if (idleTask == task) {
+            idleTask = null;
+            stop();
+        }
+    }
+
+    /**
+     * Copy output written to standard error by the worker to the log.
+     *
+     * @param stream
+     *            standard error of the worker process.
+     */
+    private void drain(final InputStream stream) {
+        final Thread drainer = new Thread("JavaDoc worker stderr") {
+            @Override
+            public void run() {
+                try {
+                    Util.copyStream(stream, new OutputStream() {
+                        private final StringBuilder line = new StringBuilder();
+
+                        @Override
+                        public void write(final int b) {
+                            if (b == '\n') {
+                                Logger.getLogger(JavaDocDaemon.class).debug(line);
+                                line.setLength(0);
+                            }
+                            else {
+                                line.append((char)b);
+                            }
+                        }
+                    });
+                }
+                catch (final IOException e) {
+                    Logger.getLogger(JavaDocDaemon.class).debug("", e);
+                }
+            }
+        };
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    /**
+     * Create the class path of the worker process from the locations the
+     * classes required by the worker were loaded from.
+     *
+     * @return class path of the worker process.
+     */
+    private String createClassPath() {
+        final Collection<String> locations = new LinkedHashSet<String>();
+
+        for (final String className : WORKER_CLASSES) {
+            try {
+                final Class<?> clazz = Class.forName(className);
+                locations.add(new File(clazz.getProtectionDomain().getCodeSource().getLocation().toURI()).getAbsolutePath());
+            }
+            catch (final ClassNotFoundException e) {
+                Logger.getLogger(getClass()).warn(className + " not available for JavaDoc worker.");
+            }
+            catch (final URISyntaxException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        final StringBuilder classPath = new StringBuilder();
+
+        for (final String location : locations) {
+            if (classPath.length() > 0) {
+                classPath.append(File.pathSeparatorChar);
+            }
+
+            classPath.append(location);
+        }
+
+        return classPath.toString();
+    }
+}
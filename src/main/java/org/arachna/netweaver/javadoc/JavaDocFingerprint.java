@@ -0,0 +1,450 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import hudson.Util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.Logger;
+import org.arachna.ant.AntHelper;
+import org.arachna.netweaver.dc.types.DevelopmentComponent;
+
+/**
+ * Calculates a fingerprint over all inputs of a JavaDoc run for a development
+ * component (sources, class path, links and options) and persists it next to
+ * the generated documentation.
+ *
+ * When the fingerprint of a development component did not change since the
+ * last successful run its JavaDoc documentation can be reused. Paths in the
+ * workspace are digested relative to the workspace, so a development
+ * component with identical inputs in another job has the same fingerprint
+ * (see {@link ResultCache}).
+ *
+ * Jars on the class path and the compiled classes of linked development
+ * components are digested by their {@link ApiSignature}, so changes to the
+ * implementation of a used development component don't invalidate the
+ * JavaDoc documentation of the development components using it.
+ *
+ * @author Dirk Weigenand
+ */
+final class JavaDocFingerprint {
+    /**
+     * suffix for files containing the fingerprint of a development
+     * component's JavaDoc documentation.
+     */
+    private static final String FINGERPRINT_SUFFIX = ".fingerprint";
+
+    /**
+     * Encoding to use for digesting strings and persisting fingerprints.
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * digest of the build file templates and the options passed to the in
+     * process engines. Neither can change while the plugin is loaded.
+     */
+    private static final String TOOL_DIGEST = calculateToolDigest();
+
+    /**
+     * Helper class for determining source folders and class path of
+     * development components.
+     */
+    private final AntHelper antHelper;
+
+    /**
+     * generator used to determine links and options for development
+     * components.
+     */
+    private final BuildFileGenerator generator;
+
+    /**
+     * Cache for API signatures of jar files and class folders shared between
+     * development components. Jars are identified by path, size and
+     * modification time, class folders by path.
+     */
+    private final Map<String, String> signatures = new ConcurrentHashMap<String, String>();
+
+    /**
+     * resolver for jar files in class path folders.
+     */
+    private final ClassPathResolver classPathResolver;
+
+    /**
+     * inventory of the source folders of development components.
+     */
+    private final SourceInventory sourceInventory;
+
+    /**
+     * Create a calculator for fingerprints of JavaDoc runs.
+     *
+     * @param antHelper
+     *            helper for determining source folders and class path of
+     *            development components.
+     * @param generator
+     *            generator used to determine links and options for
+     *            development components.
+     * @param classPathResolver
+     *            resolver for jar files in class path folders.
+     * @param sourceInventory
+     *            inventory of the source folders of development components.
+     */
+    JavaDocFingerprint(final AntHelper antHelper, final BuildFileGenerator generator, final ClassPathResolver classPathResolver,
+        final SourceInventory sourceInventory) {
+        this.antHelper = antHelper;
+        this.generator = generator;
+        this.classPathResolver = classPathResolver;
+        this.sourceInventory = sourceInventory;
+    }
+
+    /**
+     * Calculate the fingerprint of the inputs of a JavaDoc run for the given
+     * development component.
+     *
+     * @param component
+     *            development component to calculate the fingerprint for.
+     * @return the fingerprint as a hex string.
+     */
+    String calculate(final DevelopmentComponent component) {
+        final MessageDigest digest = createDigest();
+
+        try {
+            for (final String source : sort(sourceInventory.getSourcePaths(component))) {
+                update(digest, "source:" + relativize(source));
+
+                for (final String file : sourceInventory.getSourceFolder(source).getFiles()) {
+                    update(digest, file);
+                    updateWithContent(digest, new File(source, file));
+                }
+            }
+
+            for (final String path : sort(antHelper.createClassPath(component))) {
+                update(digest, "classpath:" + relativize(path));
+
+                for (final File jar : sort(classPathResolver.listJars(new File(path)))) {
+                    update(digest, relativize(jar.getPath()));
+                    update(digest, getSignature(jar, String.format("%s:%d:%d", jar.getAbsolutePath(), jar.length(),
+                        jar.lastModified())));
+                }
+            }
+
+            for (final String link : sort(generator.getLinks(component))) {
+                update(digest, "link:" + relativize(link));
+            }
+
+            final Collection<String> usedClasses = new ArrayList<String>();
+
+            for (final DevelopmentComponent usedDC : generator.getUsedDevelopmentComponents(component)) {
+                if (usedDC.getCompartment().isSourceState() && usedDC.getOutputFolder() != null) {
+                    usedClasses.add(usedDC.getOutputFolder());
+                }
+            }
+
+            for (final String path : sort(usedClasses)) {
+                final File classes = new File(path);
+                update(digest, "api:" + relativize(path));
+                update(digest, getSignature(classes, classes.getAbsolutePath()));
+            }
+
+            update(digest, "header:" + generator.getHeader(component));
+            update(digest, "useUmlGraph:" + generator.useUmlGraph(component));
+            update(digest, "sourceVersion:" + component.getCompartment().getDevelopmentConfiguration().getSourceVersion());
+            update(digest, "tool:" + TOOL_DIGEST);
+        }
+        catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return Util.toHexString(digest.digest());
+    }
+
+    /**
+     * Determine whether the JavaDoc documentation of the given development
+     * component has been generated from inputs with the given fingerprint.
+     *
+     * @param component
+     *            development component to check.
+     * @param fingerprint
+     *            fingerprint of the current inputs.
+     * @return <code>true</code> when the existing JavaDoc documentation was
+     *         generated from the same inputs, <code>false</code> otherwise.
+     */
+    boolean isUpToDate(final DevelopmentComponent component, final String fingerprint) {
+        final File javaDocFolder = new File(generator.getJavaDocFolder(component));
+        final File fingerprintFile = getFingerprintFile(component);
+
+        if (!javaDocFolder.isDirectory() || !fingerprintFile.exists()) {
+            return false;
+        }
+
+        Reader reader = null;
+
+        try {
+            reader = new InputStreamReader(new FileInputStream(fingerprintFile), UTF8);
+            final char[] buffer = new char[fingerprint.length() + 1];
+            final int length = reader.read(buffer);
+
+            return length == fingerprint.length() && fingerprint.equals(new String(buffer, 0, length));
+        }
+        catch (final IOException e) {
+            Logger.getLogger(getClass()).warn("Could not read " + fingerprintFile.getAbsolutePath(), e);
+            return false;
+        }
+        finally {
+            IOUtils.closeQuietly(reader);
+        }
+    }
+
+    /**
+     * Persist the given fingerprint for the given development component.
+     *
+     * @param component
+     *            development component whose JavaDoc documentation has been
+     *            generated successfully.
+     * @param fingerprint
+     *            fingerprint of the inputs used to generate the documentation.
+     */
+    void store(final DevelopmentComponent component, final String fingerprint) {
+        Writer writer = null;
+
+        try {
+            writer = new OutputStreamWriter(new FileOutputStream(getFingerprintFile(component)), UTF8);
+            writer.write(fingerprint);
+            writer.close();
+        }
+        catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+        finally {
+            IOUtils.closeQuietly(writer);
+        }
+    }
+
+    /**
+     * Remove the persisted fingerprint of the given development component so
+     * that an interrupted or failed run is not mistaken for an up to date one.
+     *
+     * @param component
+     *            development component whose JavaDoc documentation is about to
+     *            be regenerated.
+     */
+    void invalidate(final DevelopmentComponent component) {
+        final File fingerprintFile = getFingerprintFile(component);
+
+        if (fingerprintFile.exists() && !fingerprintFile.delete()) {
+            throw new IllegalStateException("Could not delete " + fingerprintFile.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Get the file the fingerprint of the given development component is
+     * persisted in.
+     *
+     * @param component
+     *            development component to get the fingerprint file for.
+     * @return the file containing the fingerprint of the given development
+     *         component.
+     */
+    private File getFingerprintFile(final DevelopmentComponent component) {
+        return new File(generator.getJavaDocFolder(component) + FINGERPRINT_SUFFIX);
+    }
+
+    /**
+     * Make the given path relative to the workspace.
+     *
+     * @param path
+     *            a path (or link).
+     * @return the path relative to the workspace or the given path when it is
+     *         not located in the workspace.
+     */
+    private String relativize(final String path) {
+        final File file = new File(path);
+
+        if (!file.isAbsolute()) {
+            return path;
+        }
+
+        final String workspace = new File(antHelper.getPathToWorkspace()).getAbsolutePath() + File.separator;
+        final String absolutePath = file.getAbsolutePath();
+
+        return absolutePath.startsWith(workspace) ? absolutePath.substring(workspace.length()).replace(File.separatorChar, '/')
+            : path;
+    }
+
+    /**
+     * Get the API signature of the given jar file or class folder. Signatures
+     * are cached using the given key. Jar files that can't be parsed are
+     * digested by their content instead.
+     *
+     * @param file
+     *            jar file or class folder.
+     * @param key
+     *            key to cache the signature with.
+     * @return the API signature of the given jar file or class folder.
+     * @throws IOException
+     *             when the jar file or class folder could not be read.
+     */
+    private String getSignature(final File file, final String key) throws IOException {
+        String signature = signatures.get(key);
+
+        if (signature == null) {
+            try {
+                signature = ApiSignature.calculate(file);
+            }
+            catch (final IOException e) {
+                if (!file.isFile()) {
+                    throw e;
+                }
+
+                Logger.getLogger(getClass()).warn("Could not read the API of " + file.getAbsolutePath(), e);
+                final MessageDigest digest = createDigest();
+                updateWithContent(digest, file);
+                signature = Util.toHexString(digest.digest());
+            }
+
+            signatures.put(key, signature);
+        }
+
+        return signature;
+    }
+
+    /**
+     * Calculate the digest of the templates used for generating build files
+     * and of the options {@link DocumentationToolRunner} passes to JavaDoc
+     * (including the UmlGraph options). A plugin update changing either
+     * invalidates documentation generated (or shared via the
+     * {@link ResultCache}) by an earlier version.
+     *
+     * @return digest of the build file templates and JavaDoc options.
+     */
+    private static String calculateToolDigest() {
+        final MessageDigest digest = createDigest();
+
+        try {
+            for (final String name : new String[] { BuildFileGenerator.TEMPLATE, BuildFileGenerator.MACROS }) {
+                final InputStream template = JavaDocFingerprint.class.getResourceAsStream(name);
+
+                try {
+                    updateWithContent(digest, template);
+                }
+                finally {
+                    IOUtils.closeQuietly(template);
+                }
+            }
+        }
+        catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        final JavaDocParameters parameters =
+            new JavaDocParameters("vendor", "vendor~dc", Collections.singleton("src"), Collections.singleton("package"),
+                Collections.singleton("src/package/Api.java"), "classes", Collections.singleton("lib.jar"), "javadoc", "1.8",
+                "header", Arrays.asList(new JavaDocLink("http://example.com/api/", "lists"), new JavaDocLink(
+                    "http://example.org/api/", null)), "", true);
+
+        for (final String option : new DocumentationToolRunner().createOptions(parameters)) {
+            update(digest, option);
+        }
+
+        return Util.toHexString(digest.digest());
+    }
+
+    /**
+     * Add the content of the given file to the given digest.
+     *
+     * @param digest
+     *            digest to update.
+     * @param file
+     *            file to digest.
+     * @throws IOException
+     *             when the file could not be read.
+     */
+    private static void updateWithContent(final MessageDigest digest, final File file) throws IOException {
+        final InputStream input = new FileInputStream(file);
+
+        try {
+            updateWithContent(digest, input);
+        }
+        finally {
+            IOUtils.closeQuietly(input);
+        }
+    }
+
+    /**
+     * Add the content of the given stream to the given digest.
+     *
+     * @param digest
+     *            digest to update.
+     * @param input
+     *            stream to digest.
+     * @throws IOException
+     *             when the stream could not be read.
+     */
+    private static void updateWithContent(final MessageDigest digest, final InputStream input) throws IOException {
+        final byte[] buffer = new byte[8192];
+        int length;
+
+        while ((length = input.read(buffer)) != -1) {
+            digest.update(buffer, 0, length);
+        }
+    }
+
+    /**
+     * Add the given string to the given digest.
+     *
+     * @param digest
+     *            digest to update.
+     * @param value
+     *            string to add.
+     */
+    private static void update(final MessageDigest digest, final String value) {
+        digest.update(String.valueOf(value).getBytes(UTF8));
+        digest.update((byte)0);
+    }
+
+    /**
+     * Create a copy of the given collection sorted by natural order.
+     *
+     * @param values
+     *            collection to sort.
+     * @return sorted copy of the given collection.
+     */
+    private <T extends Comparable<? super T>> List<T> sort(final Collection<T> values) {
+        final List<T> sorted = new ArrayList<T>(values);
+        Collections.sort(sorted);
+
+        return sorted;
+    }
+
+    /**
+     * @return a new SHA-1 message digest.
+     */
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        }
+        catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,529 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import hudson.model.BuildListener;
+import hudson.model.StreamBuildListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.arachna.netweaver.dc.types.DevelopmentComponent;
+
+/**
+ * Scheduler for running JavaDoc generation for a set of development
+ * components concurrently.
+ *
+ * A development component is started only after all development components
+ * it uses (and which are part of the same run) have finished. This way the
+ * JavaDoc documentation of used development components exists before it is
+ * linked into the documentation of using development components.
+ *
+ * Among the development components ready to be processed the ones on the
+ * longest remaining path through the dependency graph (measured by the
+ * durations recorded in the {@link JobDurationHistory}) are started first, so
+ * that large development components do not end up running alone at the end.
+ *
+ * @author Dirk Weigenand
+ */
+final class JavaDocJobScheduler {
+    /**
+     * Processor for a single development component.
+     */
+    interface DevelopmentComponentProcessor {
+        /**
+         * Process the given development component.
+         *
+         * @param component
+         *            development component to process.
+         * @param listener
+         *            listener to use for logging output related to the given
+         *            development component.
+         * @return <code>true</code> when processing succeeded,
+         *         <code>false</code> otherwise.
+         * @throws InterruptedException
+         *             when the build was interrupted.
+         */
+        boolean process(DevelopmentComponent component, BuildListener listener) throws InterruptedException;
+    }
+
+    /**
+     * index used to resolve the dependencies of development components.
+     */
+    private final DevelopmentComponentIndex index;
+
+    /**
+     * maximum number of development components to process concurrently.
+     */
+    private final int parallelism;
+
+    /**
+     * history of durations used to estimate the duration of processing
+     * development components.
+     */
+    private final JobDurationHistory durations;
+
+    /**
+     * Create a scheduler for processing development components.
+     *
+     * @param index
+     *            index used to resolve the dependencies of development
+     *            components.
+     * @param parallelism
+     *            maximum number of development components to process
+     *            concurrently.
+     * @param durations
+     *            history of durations used to estimate the duration of
+     *            processing development components.
+     */
+    JavaDocJobScheduler(final DevelopmentComponentIndex index, final int parallelism, final JobDurationHistory durations) {
+        this.index = index;
+        this.parallelism = Math.max(1, parallelism);
+        this.durations = durations;
+    }
+
+    /**
+     * Process the given development components using the given processor.
+     *
+     * When running with a parallelism greater than one the output of each
+     * development component is collected and written to the build log as one
+     * block when processing of the respective development component is
+     * finished.
+     *
+     * A failure to process a development component does not stop the
+     * processing of the remaining development components. The predicted and
+     * the actual makespan are written to the build log.
+     *
+     * @param components
+     *            development components to process.
+     * @param processor
+     *            processor to apply to each development component.
+     * @param listener
+     *            the listener to use for logging.
+     * @return <code>true</code> when all development components were
+     *         processed successfully, <code>false</code> otherwise.
+     * @throws InterruptedException
+     *             when the build was interrupted.
+     */
+    boolean execute(final Collection<DevelopmentComponent> components, final DevelopmentComponentProcessor processor,
+        final BuildListener listener) throws InterruptedException {
+        final long start = System.currentTimeMillis();
+        final Map<DevelopmentComponent, Set<DevelopmentComponent>> prerequisites = calculatePrerequisites(components);
+        final Map<DevelopmentComponent, Long> priorities = calculatePriorities(prerequisites);
+        final long predicted = predictMakespan(prerequisites, priorities);
+        final Set<DevelopmentComponent> pending = new LinkedHashSet<DevelopmentComponent>(components);
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, components.size())));
+        final CompletionService<JobResult> completionService = new ExecutorCompletionService<JobResult>(executor);
+        final Collection<DevelopmentComponent> failed = new ArrayList<DevelopmentComponent>();
+        int running = 0;
+        boolean cyclic = false;
+
+        try {
+            while (!pending.isEmpty() || running > 0) {
+                List<DevelopmentComponent> ready = getReadyComponents(pending, prerequisites, priorities);
+
+                if (ready.isEmpty() && running == 0) {
+                    // cyclic dependencies: start the remaining components
+                    // anyway.
+                    if (!cyclic) {
+                        listener.getLogger().println(
+                            String.format("Cyclic dependencies detected between %d development components.", pending.size()));
+                        cyclic = true;
+                    }
+
+                    ready = sort(pending, priorities);
+                }
+
+                for (final DevelopmentComponent component : ready.subList(0, Math.min(ready.size(), parallelism - running))) {
+                    pending.remove(component);
+                    completionService.submit(createJob(component, processor, listener));
+                    running++;
+                }
+
+                if (running > 0) {
+                    final JobResult result = completionService.take().get();
+                    running--;
+
+                    if (!result.succeeded) {
+                        failed.add(result.component);
+                    }
+
+                    for (final Set<DevelopmentComponent> dependencies : prerequisites.values()) {
+                        dependencies.remove(result.component);
+                    }
+                }
+            }
+        }
+        catch (final ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        for (final DevelopmentComponent component : failed) {
+            listener.error(String.format("JavaDoc generation failed for %s:%s.", component.getVendor(), component.getName()));
+        }
+
+        listener.getLogger().println(
+            String.format("JavaDoc generation for %d development components: predicted makespan %d ms, actual makespan %d ms.",
+                components.size(), predicted, System.currentTimeMillis() - start));
+
+        return failed.isEmpty();
+    }
+
+    /**
+     * Calculate the priority of each development component: its estimated
+     * duration plus the longest chain of estimated durations of development
+     * components (transitively) waiting for it.
+     *
+     * @param prerequisites
+     *            development components mapped to the development components
+     *            they depend on (as calculated by
+     *            {@link #calculatePrerequisites(Collection)}).
+     * @return development components mapped to their priority (the length of
+     *         the remaining critical path in milliseconds).
+     */
+    Map<DevelopmentComponent, Long> calculatePriorities(final Map<DevelopmentComponent, Set<DevelopmentComponent>> prerequisites) {
+        final Map<DevelopmentComponent, Collection<DevelopmentComponent>> dependents =
+            new HashMap<DevelopmentComponent, Collection<DevelopmentComponent>>();
+
+        for (final DevelopmentComponent component : prerequisites.keySet()) {
+            dependents.put(component, new ArrayList<DevelopmentComponent>());
+        }
+
+        for (final Map.Entry<DevelopmentComponent, Set<DevelopmentComponent>> entry : prerequisites.entrySet()) {
+            for (final DevelopmentComponent prerequisite : entry.getValue()) {
+                dependents.get(prerequisite).add(entry.getKey());
+            }
+        }
+
+        final Map<DevelopmentComponent, Long> priorities = new HashMap<DevelopmentComponent, Long>();
+
+        for (final DevelopmentComponent component : prerequisites.keySet()) {
+            calculatePriority(component, dependents, priorities, new HashSet<DevelopmentComponent>());
+        }
+
+        return priorities;
+    }
+
+    /**
+     * Calculate the priority of the given development component and of the
+     * development components waiting for it.
+     *
+     * @param component
+     *            development component to calculate the priority for.
+     * @param dependents
+     *            development components mapped to the development components
+     *            waiting for them.
+     * @param priorities
+     *            priorities calculated so far.
+     * @param visiting
+     *            development components on the current path (to break
+     *            dependency cycles).
+     * @return the priority of the given development component.
+     */
+    private long calculatePriority(final DevelopmentComponent component,
+        final Map<DevelopmentComponent, Collection<DevelopmentComponent>> dependents,
+        final Map<DevelopmentComponent, Long> priorities, final Set<DevelopmentComponent> visiting) {
+        final Long priority = priorities.get(component);
+
+        if (priority != null) {
+            return priority.longValue();
+        }
+
+        visiting.add(component);
+        long longest = 0;
+
+        for (final DevelopmentComponent dependent : dependents.get(component)) {
+            if (!visiting.contains(dependent)) {
+                longest = Math.max(longest, calculatePriority(dependent, dependents, priorities, visiting));
+            }
+        }
+
+        visiting.remove(component);
+        final long result = durations.estimate(component) + longest;
+        priorities.put(component, Long.valueOf(result));
+
+        return result;
+    }
+
+    /**
+     * Predict the makespan of processing the given development components by
+     * simulating the scheduling with the estimated durations.
+     *
+     * @param prerequisites
+     *            development components mapped to the development components
+     *            they depend on (as calculated by
+     *            {@link #calculatePrerequisites(Collection)}).
+     * @param priorities
+     *            development components mapped to their priority.
+     * @return the predicted makespan in milliseconds.
+     */
+    long predictMakespan(final Map<DevelopmentComponent, Set<DevelopmentComponent>> prerequisites,
+        final Map<DevelopmentComponent, Long> priorities) {
+        final Map<DevelopmentComponent, Set<DevelopmentComponent>> waiting =
+            new HashMap<DevelopmentComponent, Set<DevelopmentComponent>>();
+
+        for (final Map.Entry<DevelopmentComponent, Set<DevelopmentComponent>> entry : prerequisites.entrySet()) {
+            waiting.put(entry.getKey(), new HashSet<DevelopmentComponent>(entry.getValue()));
+        }
+
+        final Set<DevelopmentComponent> pending = new LinkedHashSet<DevelopmentComponent>(prerequisites.keySet());
+        final Map<DevelopmentComponent, Long> running = new HashMap<DevelopmentComponent, Long>();
+        long now = 0;
+
+        while (!pending.isEmpty() || !running.isEmpty()) {
+            List<DevelopmentComponent> ready = getReadyComponents(pending, waiting, priorities);
+
+            if (ready.isEmpty() && running.isEmpty()) {
+                ready = sort(pending, priorities);
+            }
+
+            for (final DevelopmentComponent component : ready.subList(0, Math.min(ready.size(), parallelism - running.size()))) {
+                pending.remove(component);
+                running.put(component, Long.valueOf(now + durations.estimate(component)));
+            }
+
+            DevelopmentComponent finished = null;
+
+            for (final Map.Entry<DevelopmentComponent, Long> entry : running.entrySet()) {
+                if (finished == null || entry.getValue().longValue() < running.get(finished).longValue()) {
+                    finished = entry.getKey();
+                }
+            }
+
+            now = running.remove(finished).longValue();
+
+            for (final Set<DevelopmentComponent> dependencies : waiting.values()) {
+                dependencies.remove(finished);
+            }
+        }
+
+        return now;
+    }
+
+    /**
+     * Determine the development components whose prerequisites have all been
+     * processed.
+     *
+     * @param pending
+     *            development components not yet started.
+     * @param prerequisites
+     *            development components each development component is waiting
+     *            for.
+     * @param priorities
+     *            development components mapped to their priority.
+     * @return development components ready to be processed ordered by
+     *         descending priority.
+     */
+    private List<DevelopmentComponent> getReadyComponents(final Set<DevelopmentComponent> pending,
+        final Map<DevelopmentComponent, Set<DevelopmentComponent>> prerequisites, final Map<DevelopmentComponent, Long> priorities) {
+        final Collection<DevelopmentComponent> ready = new ArrayList<DevelopmentComponent>();
+
+        for (final DevelopmentComponent component : pending) {
+            if (prerequisites.get(component).isEmpty()) {
+                ready.add(component);
+            }
+        }
+
+        return sort(ready, priorities);
+    }
+
+    /**
+     * Sort the given development components by descending priority.
+     *
+     * @param components
+     *            development components to sort.
+     * @param priorities
+     *            development components mapped to their priority.
+     * @return the given development components ordered by descending
+     *         priority.
+     */
+    private List<DevelopmentComponent> sort(final Collection<DevelopmentComponent> components,
+        final Map<DevelopmentComponent, Long> priorities) {
+        final List<DevelopmentComponent> sorted = new ArrayList<DevelopmentComponent>(components);
+
+        Collections.sort(sorted, new Comparator<DevelopmentComponent>() {
+            public int compare(final DevelopmentComponent first, final DevelopmentComponent second) {
+                return priorities.get(second).compareTo(priorities.get(first));
+            }
+        });
+
+        return sorted;
+    }
+
+    /**
+     * Calculate for each of the given development components the used
+     * development components that are also contained in the given collection.
+     *
+     * @param components
+     *            development components to calculate prerequisites for.
+     * @return map of development components to the development components
+     *         they depend on.
+     */
+    Map<DevelopmentComponent, Set<DevelopmentComponent>> calculatePrerequisites(
+        final Collection<DevelopmentComponent> components) {
+        final Map<DevelopmentComponent, Set<DevelopmentComponent>> prerequisites =
+            new HashMap<DevelopmentComponent, Set<DevelopmentComponent>>();
+        final Set<DevelopmentComponent> scheduled = new HashSet<DevelopmentComponent>(components);
+
+        for (final DevelopmentComponent component : components) {
+            final Set<DevelopmentComponent> dependencies = new HashSet<DevelopmentComponent>();
+
+            for (final DevelopmentComponent usedDC : index.getUsedDevelopmentComponents(component)) {
+                if (scheduled.contains(usedDC)) {
+                    dependencies.add(usedDC);
+                }
+            }
+
+            prerequisites.put(component, dependencies);
+        }
+
+        return prerequisites;
+    }
+
+    /**
+     * Group the given development components into levels such that each
+     * development component is placed in a later level than the development
+     * components it depends on. Development components in the same level are
+     * independent of each other. Development components in a dependency cycle
+     * are placed into the last level.
+     *
+     * @param prerequisites
+     *            development components mapped to the development components
+     *            they depend on (as calculated by
+     *            {@link #calculatePrerequisites(Collection)}).
+     * @return the development components grouped by dependency level.
+     */
+    static List<Collection<DevelopmentComponent>> calculateLevels(
+        final Map<DevelopmentComponent, Set<DevelopmentComponent>> prerequisites) {
+        final List<Collection<DevelopmentComponent>> levels = new ArrayList<Collection<DevelopmentComponent>>();
+        final Set<DevelopmentComponent> pending = new LinkedHashSet<DevelopmentComponent>(prerequisites.keySet());
+        final Set<DevelopmentComponent> done = new HashSet<DevelopmentComponent>();
+
+        while (!pending.isEmpty()) {
+            final Collection<DevelopmentComponent> level = new ArrayList<DevelopmentComponent>();
+
+            for (final DevelopmentComponent component : pending) {
+                if (done.containsAll(prerequisites.get(component))) {
+                    level.add(component);
+                }
+            }
+
+            if (level.isEmpty()) {
+                level.addAll(pending);
+            }
+
+            pending.removeAll(level);
+            done.addAll(level);
+            levels.add(level);
+        }
+
+        return levels;
+    }
+
+    /**
+     * Create a job processing the given development component.
+     *
+     * @param component
+     *            development component to process.
+     * @param processor
+     *            processor to apply to the development component.
+     * @param listener
+     *            the listener to use for logging.
+     * @return job processing the given development component.
+     */
+    private Callable<JobResult> createJob(final DevelopmentComponent component, final DevelopmentComponentProcessor processor,
+        final BuildListener listener) {
+        return new Callable<JobResult>() {
+            public JobResult call() throws InterruptedException {
+                // sequential processing writes directly to the build log
+                final ByteArrayOutputStream output = parallelism == 1 ? null : new ByteArrayOutputStream();
+                final BuildListener jobListener = output == null ? listener : new StreamBuildListener(output);
+                boolean succeeded = false;
+
+                try {
+                    succeeded = processor.process(component, jobListener);
+                }
+                catch (final RuntimeException e) {
+                    e.printStackTrace(jobListener.getLogger());
+                }
+                finally {
+                    if (output != null) {
+                        jobListener.getLogger().flush();
+                        writeOutput(component, output, listener);
+                    }
+                }
+
+                return new JobResult(component, succeeded);
+            }
+        };
+    }
+
+    /**
+     * Write the collected output for the given development component to the
+     * build log.
+     *
+     * @param component
+     *            development component the output belongs to.
+     * @param output
+     *            collected output.
+     * @param listener
+     *            the listener to use for logging.
+     */
+    private void writeOutput(final DevelopmentComponent component, final ByteArrayOutputStream output, final BuildListener listener) {
+        final PrintStream logger = listener.getLogger();
+
+        synchronized (logger) {
+            logger.println(String.format("[%s:%s] JavaDoc generation", component.getVendor(), component.getName()));
+            logger.write(output.toByteArray(), 0, output.size());
+            logger.flush();
+        }
+    }
+
+    /**
+     * Result of processing a development component.
+     */
+    private static final class JobResult {
+        /**
+         * the processed development component.
+         */
+        private final DevelopmentComponent component;
+
+        /**
+         * indicate whether processing succeeded.
+         */
+        private final boolean succeeded;
+
+        /**
+         * Create a result for the given development component.
+         *
+         * @param component
+         *            the processed development component.
+         * @param succeeded
+         *            indicate whether processing succeeded.
+         */
+        JobResult(final DevelopmentComponent component, final boolean succeeded) {
+            this.component = component;
+            this.succeeded = succeeded;
+        }
+    }
+}
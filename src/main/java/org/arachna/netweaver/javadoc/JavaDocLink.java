@@ -0,0 +1,70 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import java.io.Serializable;
+
+/**
+ * Link to JavaDoc documentation generated elsewhere.
+ *
+ * When the package list of the linked documentation is available locally
+ * JavaDoc is told to read it from there (<code>-linkoffline</code>) instead of
+ * fetching it from the linked location.
+ *
+ * @author Dirk Weigenand
+ */
+final class JavaDocLink implements Serializable {
+    /**
+     * serialization version.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * location of the linked documentation.
+     */
+    private final String href;
+
+    /**
+     * local folder containing the package list of the linked documentation.
+     */
+    private final String packageListLoc;
+
+    /**
+     * Create a link to JavaDoc documentation.
+     *
+     * @param href
+     *            location of the linked documentation.
+     * @param packageListLoc
+     *            local folder containing the package list of the linked
+     *            documentation or <code>null</code> when the package list
+     *            should be read from the linked location.
+     */
+    JavaDocLink(final String href, final String packageListLoc) {
+        this.href = href;
+        this.packageListLoc = packageListLoc;
+    }
+
+    /**
+     * @return the location of the linked documentation
+     */
+    public String getHref() {
+        return href;
+    }
+
+    /**
+     * @return the local folder containing the package list of the linked
+     *         documentation or <code>null</code> when the package list should
+     *         be read from the linked location
+     */
+    public String getPackageListLoc() {
+        return packageListLoc;
+    }
+
+    /**
+     * @return whether the package list should be read from a local folder
+     */
+    public boolean isOffline() {
+        return packageListLoc != null;
+    }
+}
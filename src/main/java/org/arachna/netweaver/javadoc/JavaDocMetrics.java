@@ -0,0 +1,179 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Collects the {@link StageMetrics} of the stages of JavaDoc generation during
+ * one build.
+ *
+ * CPU time is measured for the Jenkins thread executing a stage. Work done in
+ * other processes (Ant, Graphviz) or threads is therefore not included.
+ *
+ * @author Dirk Weigenand
+ */
+final class JavaDocMetrics {
+    /**
+     * nano seconds per milli second.
+     */
+    private static final long NANOS_PER_MILLI = 1000 * 1000;
+
+    /**
+     * management interface for measuring CPU time.
+     */
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    /**
+     * measurements taken so far.
+     */
+    private final List<StageMetrics> metrics = Collections.synchronizedList(new ArrayList<StageMetrics>());
+
+    /**
+     * Start measuring a stage of JavaDoc generation in the current thread.
+     *
+     * @param component
+     *            name of the development component (<code>vendor:name</code>).
+     * @param stage
+     *            the stage to measure.
+     * @return the running measurement.
+     */
+    Measurement start(final String component, final JavaDocStage stage) {
+        return new Measurement(component, stage);
+    }
+
+    /**
+     * @return the measurements taken so far
+     */
+    List<StageMetrics> getMetrics() {
+        synchronized (metrics) {
+            return new ArrayList<StageMetrics>(metrics);
+        }
+    }
+
+    /**
+     * Get the CPU time of the current thread.
+     *
+     * @return the CPU time of the current thread in nano seconds or 0 when the
+     *         JVM does not support measuring it.
+     */
+    private long getCpuTime() {
+        return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : 0;
+    }
+
+    /**
+     * A running measurement of a stage.
+     */
+    final class Measurement {
+        /**
+         * name of the development component.
+         */
+        private final String component;
+
+        /**
+         * the measured stage.
+         */
+        private final JavaDocStage stage;
+
+        /**
+         * wall clock time the measurement started at.
+         */
+        private final long wallStart = System.currentTimeMillis();
+
+        /**
+         * CPU time of the thread when the measurement started.
+         */
+        private final long cpuStart = getCpuTime();
+
+        /**
+         * Start measuring the given stage.
+         *
+         * @param component
+         *            name of the development component.
+         * @param stage
+         *            the stage to measure.
+         */
+        private Measurement(final String component, final JavaDocStage stage) {
+            this.component = component;
+            this.stage = stage;
+        }
+
+        /**
+         * @return the wall clock time elapsed since the start of the
+         *         measurement in milliseconds
+         */
+        long getElapsed() {
+            return System.currentTimeMillis() - wallStart;
+        }
+
+        /**
+         * Stop the measurement and record it together with the files
+         * generated into the given folder.
+         *
+         * @param sourceFiles
+         *            number of source files processed.
+         * @param folder
+         *            folder containing the generated files (may be
+         *            <code>null</code>).
+         * @param suffix
+         *            suffix of the generated files to count (<code>null</code>
+         *            for all files).
+         * @param recursive
+         *            indicate whether sub folders should be counted as well.
+         * @return the recorded measurement.
+         */
+        StageMetrics stop(final int sourceFiles, final File folder, final String suffix, final boolean recursive) {
+            final long elapsed = getElapsed();
+            final long cpuTime = (getCpuTime() - cpuStart) / NANOS_PER_MILLI;
+            final long[] output = new long[2];
+
+            if (folder != null) {
+                count(folder, suffix, recursive, output);
+            }
+
+            final StageMetrics measurement =
+                new StageMetrics(component, stage, elapsed, cpuTime, sourceFiles, (int)output[0], output[1]);
+            metrics.add(measurement);
+
+            return measurement;
+        }
+
+        /**
+         * Count the files and their sizes in the given folder.
+         *
+         * @param folder
+         *            folder containing the generated files.
+         * @param suffix
+         *            suffix of the files to count (<code>null</code> for all
+         *            files).
+         * @param recursive
+         *            indicate whether sub folders should be counted as well.
+         * @param output
+         *            array to add the number of files (index 0) and their size
+         *            (index 1) to.
+         */
+        private void count(final File folder, final String suffix, final boolean recursive, final long[] output) {
+            final File[] files = folder.listFiles();
+
+            if (files != null) {
+                for (final File file : files) {
+                    if (file.isDirectory()) {
+                        if (recursive && !file.getName().startsWith(".")) {
+                            count(file, suffix, recursive, output);
+                        }
+                    }
+                    else if (suffix == null || file.getName().endsWith(suffix)) {
+                        output[0]++;
+                        output[1] += file.length();
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import hudson.model.AbstractBuild;
+import hudson.model.Action;
+import hudson.model.Api;
+import hudson.util.ChartUtil.NumberOnlyBuildLabel;
+import hudson.util.DataSetBuilder;
+import hudson.util.Graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.plot.PlotOrientation;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * {@link Action} exposing the timing metrics of the stages of JavaDoc
+ * generation of a build as a table, as JSON (via <code>api/json</code>) and as
+ * a trend graph across builds.
+ *
+ * @author Dirk Weigenand
+ */
+@ExportedBean
+public class JavaDocMetricsAction implements Action {
+    /**
+     * maximum number of builds shown in the trend graph.
+     */
+    private static final int MAX_BUILDS = 30;
+
+    /**
+     * the build the metrics were recorded for.
+     */
+    private final AbstractBuild<?, ?> owner;
+
+    /**
+     * the metrics recorded per development component and stage.
+     */
+    private final List<StageMetrics> metrics;
+
+    /**
+     * Create an action for the given metrics.
+     *
+     * @param owner
+     *            the build the metrics were recorded for.
+     * @param metrics
+     *            the metrics recorded per development component and stage.
+     */
+    JavaDocMetricsAction(final AbstractBuild<?, ?> owner, final List<StageMetrics> metrics) {
+        this.owner = owner;
+        this.metrics = new ArrayList<StageMetrics>(metrics);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getIconFileName() {
+        return "graph.gif";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getDisplayName() {
+        return "JavaDoc Metrics";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getUrlName() {
+        return "javadoc-metrics";
+    }
+
+    /**
+     * @return the build the metrics were recorded for
+     */
+    public AbstractBuild<?, ?> getOwner() {
+        return owner;
+    }
+
+    /**
+     * @return the remote API of this action
+     */
+    public Api getApi() {
+        return new Api(this);
+    }
+
+    /**
+     * @return the metrics recorded per development component and stage
+     */
+    @Exported
+    public List<StageMetrics> getMetrics() {
+        return Collections.unmodifiableList(metrics);
+    }
+
+    /**
+     * Sum up the metrics of all development components per stage.
+     *
+     * @return the metrics summed up per stage (in the order of the stages).
+     */
+    @Exported
+    public List<StageMetrics> getTotals() {
+        final Map<JavaDocStage, long[]> totals = new EnumMap<JavaDocStage, long[]>(JavaDocStage.class);
+
+        for (final StageMetrics measurement : metrics) {
+            long[] total = totals.get(measurement.getStage());
+
+            if (total == null) {
+                total = new long[5];
+                totals.put(measurement.getStage(), total);
+            }
+
+            total[0] += measurement.getWallTime();
+            total[1] += measurement.getCpuTime();
+            total[2] += measurement.getSourceFiles();
+            total[3] += measurement.getGeneratedFiles();
+            total[4] += measurement.getOutputBytes();
+        }
+
+        final List<StageMetrics> result = new ArrayList<StageMetrics>();
+
+        for (final Map.Entry<JavaDocStage, long[]> total : totals.entrySet()) {
+            final long[] values = total.getValue();
+            result.add(new StageMetrics("", total.getKey(), values[0], values[1], (int)values[2], (int)values[3], values[4]));
+        }
+
+        return result;
+    }
+
+    /**
+     * Get the trend graph of the wall clock time per stage across this and
+     * previous builds.
+     *
+     * @return the trend graph.
+     */
+    public Graph getGraph() {
+        return new Graph(owner.getTimestamp(), 500, 200) {
+            @Override
+            protected JFreeChart createGraph() {
+                return ChartFactory.createStackedAreaChart(null, "build", "ms", createDataSet().build(), PlotOrientation.VERTICAL,
+                    true, true, false);
+            }
+        };
+    }
+
+    /**
+     * Create the data set for the trend graph: the wall clock time per stage
+     * of this and previous builds.
+     *
+     * @return the data set for the trend graph.
+     */
+    private DataSetBuilder<String, NumberOnlyBuildLabel> createDataSet() {
+        final DataSetBuilder<String, NumberOnlyBuildLabel> dataSet = new DataSetBuilder<String, NumberOnlyBuildLabel>();
+        AbstractBuild<?, ?> build = owner;
+
+        for (int i = 0; i < MAX_BUILDS && build != null; i++) {
+            final JavaDocMetricsAction action = build.getAction(JavaDocMetricsAction.class);
+
+            if (action != null) {
+                final NumberOnlyBuildLabel label = new NumberOnlyBuildLabel(build);
+
+                for (final StageMetrics total : action.getTotals()) {
+                    dataSet.add(Long.valueOf(total.getWallTime()), total.getStage().name(), label);
+                }
+            }
+
+            build = build.getPreviousBuild();
+        }
+
+        return dataSet;
+    }
+}
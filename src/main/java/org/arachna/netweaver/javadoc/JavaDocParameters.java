@@ -0,0 +1,232 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Inputs of a JavaDoc run for a development component.
+ *
+ * The parameters are the same regardless of whether JavaDoc is executed via a
+ * generated Ant build file or in process.
+ *
+ * @author Dirk Weigenand
+ */
+final class JavaDocParameters implements Serializable {
+    /**
+     * serialization version.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * source folders of the development component.
+     */
+    private final Collection<String> sourcePaths;
+
+    /**
+     * names of the packages to document.
+     */
+    private final Collection<String> packages;
+
+    /**
+     * Java sources of the development component.
+     */
+    private final Collection<String> sourceFiles;
+
+    /**
+     * folder containing the compiled classes of the development component.
+     */
+    private final String classes;
+
+    /**
+     * jars the development component depends on.
+     */
+    private final Collection<String> classPaths;
+
+    /**
+     * folder to write the JavaDoc documentation to.
+     */
+    private final String javaDocDir;
+
+    /**
+     * Java source level of the development component.
+     */
+    private final String source;
+
+    /**
+     * header to add to each generated page.
+     */
+    private final String header;
+
+    /**
+     * links to other JavaDoc documentation.
+     */
+    private final Collection<JavaDocLink> links;
+
+    /**
+     * additional parameters for configuring the HTTP proxy.
+     */
+    private final String proxy;
+
+    /**
+     * indicate whether UmlGraph should be used to generate UML diagrams.
+     */
+    private final boolean useUmlGraph;
+
+    /**
+     * vendor of the development component.
+     */
+    private final String vendor;
+
+    /**
+     * normalized name of the development component.
+     */
+    private final String component;
+
+    /**
+     * Create the parameters for a JavaDoc run.
+     *
+     * @param vendor
+     *            vendor of the development component.
+     * @param component
+     *            normalized name of the development component.
+     * @param sourcePaths
+     *            source folders of the development component.
+     * @param packages
+     *            names of the packages to document.
+     * @param sourceFiles
+     *            Java sources of the development component.
+     * @param classes
+     *            folder containing the compiled classes of the development
+     *            component.
+     * @param classPaths
+     *            jars the development component depends on.
+     * @param javaDocDir
+     *            folder to write the JavaDoc documentation to.
+     * @param source
+     *            Java source level of the development component.
+     * @param header
+     *            header to add to each generated page.
+     * @param links
+     *            links to other JavaDoc documentation.
+     * @param proxy
+     *            additional parameters for configuring the HTTP proxy.
+     * @param useUmlGraph
+     *            indicate whether UmlGraph should be used to generate UML
+     *            diagrams.
+     */
+    JavaDocParameters(final String vendor, final String component, final Collection<String> sourcePaths,
+        final Collection<String> packages, final Collection<String> sourceFiles, final String classes,
+        final Collection<String> classPaths, final String javaDocDir, final String source, final String header,
+        final Collection<JavaDocLink> links, final String proxy, final boolean useUmlGraph) {
+        this.vendor = vendor;
+        this.component = component;
+        this.sourcePaths = Collections.unmodifiableCollection(new ArrayList<String>(sourcePaths));
+        this.packages = Collections.unmodifiableCollection(new ArrayList<String>(packages));
+        this.sourceFiles = Collections.unmodifiableCollection(new ArrayList<String>(sourceFiles));
+        this.classes = classes;
+        this.classPaths = Collections.unmodifiableCollection(new ArrayList<String>(classPaths));
+        this.javaDocDir = javaDocDir;
+        this.source = source;
+        this.header = header;
+        this.links = Collections.unmodifiableCollection(new ArrayList<JavaDocLink>(links));
+        this.proxy = proxy;
+        this.useUmlGraph = useUmlGraph;
+    }
+
+    /**
+     * @return the source folders of the development component
+     */
+    public Collection<String> getSourcePaths() {
+        return sourcePaths;
+    }
+
+    /**
+     * @return the names of the packages to document
+     */
+    public Collection<String> getPackages() {
+        return packages;
+    }
+
+    /**
+     * @return the Java sources of the development component
+     */
+    public Collection<String> getSourceFiles() {
+        return sourceFiles;
+    }
+
+    /**
+     * @return the folder containing the compiled classes of the development
+     *         component
+     */
+    public String getClasses() {
+        return classes;
+    }
+
+    /**
+     * @return the jars the development component depends on
+     */
+    public Collection<String> getClassPaths() {
+        return classPaths;
+    }
+
+    /**
+     * @return the folder to write the JavaDoc documentation to
+     */
+    public String getJavaDocDir() {
+        return javaDocDir;
+    }
+
+    /**
+     * @return the Java source level of the development component
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * @return the header to add to each generated page
+     */
+    public String getHeader() {
+        return header;
+    }
+
+    /**
+     * @return the links to other JavaDoc documentation
+     */
+    public Collection<JavaDocLink> getLinks() {
+        return links;
+    }
+
+    /**
+     * @return the additional parameters for configuring the HTTP proxy
+     */
+    public String getProxy() {
+        return proxy;
+    }
+
+    /**
+     * @return whether UmlGraph should be used to generate UML diagrams
+     */
+    public boolean isUseUmlGraph() {
+        return useUmlGraph;
+    }
+
+    /**
+     * @return the vendor of the development component
+     */
+    public String getVendor() {
+        return vendor;
+    }
+
+    /**
+     * @return the normalized name of the development component
+     */
+    public String getComponent() {
+        return component;
+    }
+}
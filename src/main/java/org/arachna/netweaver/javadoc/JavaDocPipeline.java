@@ -0,0 +1,660 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import hudson.Util;
+import hudson.model.BuildListener;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.arachna.ant.AntHelper;
+import org.arachna.netweaver.dc.types.DevelopmentComponent;
+import org.arachna.netweaver.dc.types.DevelopmentConfiguration;
+
+/**
+ * The JavaDoc pipeline for a workspace: scanning sources, generating build
+ * files (or JavaDoc parameters), running JavaDoc for the outdated development
+ * components (reusing documentation from the result cache where possible),
+ * rendering UML diagrams, committing the documentation into the
+ * {@link ContentStore} (optionally packed into archives), generating the
+ * overview and (optionally) compressing the documentation published.
+ *
+ * The pipeline does not depend on a running Jenkins build. Ant build files
+ * are executed by an {@link AntRunner} provided by the caller, so that
+ * {@link JavaDocBuilder} and the benchmarks run the very same stages.
+ *
+ * @author Dirk Weigenand
+ */
+final class JavaDocPipeline {
+    /**
+     * Executes the <code>javadoc</code> target of generated Ant build files.
+     */
+    interface AntRunner {
+        /**
+         * Execute the <code>javadoc</code> target of the given Ant build file.
+         *
+         * @param buildFile
+         *            location of the Ant build file.
+         * @param listener
+         *            the listener to use for logging.
+         * @return <code>true</code> when the Ant run succeeded,
+         *         <code>false</code> otherwise.
+         * @throws InterruptedException
+         *             when the run was interrupted.
+         */
+        boolean execute(String buildFile, BuildListener listener) throws InterruptedException;
+    }
+
+    /**
+     * the workspace containing the development components.
+     */
+    private final File workspace;
+
+    /**
+     * the folder the JavaDoc documentation is generated into.
+     */
+    private final File javaDocFolder;
+
+    /**
+     * development configuration to generate the overview for.
+     */
+    private final DevelopmentConfiguration configuration;
+
+    /**
+     * index used to resolve the dependencies of development components.
+     */
+    private final DevelopmentComponentIndex index;
+
+    /**
+     * cache for the package lists of external links (may be
+     * <code>null</code>).
+     */
+    private final PackageListCache packageLists;
+
+    /**
+     * inventory of the source folders of the development components.
+     */
+    private final SourceInventory sourceInventory;
+
+    /**
+     * store to commit the generated JavaDoc documentation into.
+     */
+    private final ContentStore store;
+
+    /**
+     * packer for the generated JavaDoc documentation (<code>null</code>:
+     * don't pack).
+     */
+    private final JavaDocArchive archive;
+
+    /**
+     * indicates whether compressed siblings of the published documentation
+     * should be written.
+     */
+    private final boolean precompress;
+
+    /**
+     * cache of JavaDoc documentation shared by all jobs (<code>null</code>:
+     * no cache).
+     */
+    private final ResultCache cache;
+
+    /**
+     * generator for build files and JavaDoc parameters.
+     */
+    private final BuildFileGenerator generator;
+
+    /**
+     * fingerprints of the inputs of the development components.
+     */
+    private final JavaDocFingerprint fingerprints;
+
+    /**
+     * history to record the durations of JavaDoc runs and rendering UML
+     * diagrams in.
+     */
+    private final JobDurationHistory durations;
+
+    /**
+     * scheduler for processing the development components.
+     */
+    private final JavaDocJobScheduler scheduler;
+
+    /**
+     * renderer for UML diagrams.
+     */
+    private final DotRenderer renderer;
+
+    /**
+     * collector for the metrics of the stages of JavaDoc generation.
+     */
+    private final JavaDocMetrics metrics = new JavaDocMetrics();
+
+    /**
+     * development components whose JavaDoc documentation is up to date.
+     */
+    private final Collection<String> reused = Collections.synchronizedList(new ArrayList<String>());
+
+    /**
+     * JavaDoc folders of the development components published by this run.
+     */
+    private final Collection<File> published = Collections.synchronizedList(new ArrayList<File>());
+
+    /**
+     * maximum number of development components to process concurrently.
+     */
+    private final int parallelism;
+
+    /**
+     * executes generated Ant build files.
+     */
+    private final AntRunner ant;
+
+    /**
+     * Create the JavaDoc pipeline for the workspace of the given Ant helper.
+     *
+     * @param antHelper
+     *            helper for the workspace and the class paths of development
+     *            components.
+     * @param index
+     *            index used to resolve the dependencies of development
+     *            components.
+     * @param configuration
+     *            development configuration to generate the overview for.
+     * @param packageLists
+     *            cache for the package lists of external links (may be
+     *            <code>null</code>).
+     * @param useUmlGraph
+     *            indicate whether UML diagrams should be generated.
+     * @param parallelism
+     *            maximum number of development components to process
+     *            concurrently.
+     * @param archive
+     *            packer for the generated JavaDoc documentation
+     *            (<code>null</code>: don't pack).
+     * @param precompress
+     *            indicates whether compressed siblings of the published
+     *            documentation should be written.
+     * @param cache
+     *            cache of JavaDoc documentation shared by all jobs
+     *            (<code>null</code>: no cache).
+     * @param durations
+     *            history to record the durations of JavaDoc runs and
+     *            rendering UML diagrams in.
+     * @param ant
+     *            executes generated Ant build files.
+     */
+    JavaDocPipeline(final AntHelper antHelper, final DevelopmentComponentIndex index, final DevelopmentConfiguration configuration,
+        final PackageListCache packageLists, final boolean useUmlGraph, final int parallelism, final JavaDocArchive archive,
+        final boolean precompress, final ResultCache cache, final JobDurationHistory durations, final AntRunner ant) {
+        this.workspace = new File(antHelper.getPathToWorkspace());
+        this.javaDocFolder = new File(workspace, "javadoc");
+        this.configuration = configuration;
+        this.index = index;
+        this.packageLists = packageLists;
+        this.parallelism = Math.max(1, parallelism);
+        this.archive = archive;
+        this.precompress = precompress;
+        this.cache = cache;
+        this.durations = durations;
+        this.ant = ant;
+
+        final ClassPathResolver classPathResolver = new ClassPathResolver();
+        this.sourceInventory = new SourceInventory(antHelper);
+        this.store = new ContentStore(javaDocFolder);
+        this.generator =
+            new BuildFileGenerator(antHelper, index, null, useUmlGraph, packageLists, classPathResolver, sourceInventory, store);
+        this.fingerprints = new JavaDocFingerprint(antHelper, generator, classPathResolver, sourceInventory);
+        this.scheduler = new JavaDocJobScheduler(index, this.parallelism, durations);
+        this.renderer = new DotRenderer(new File(javaDocFolder, DotRenderer.CACHE_FOLDER));
+    }
+
+    /**
+     * Scan the source folders of the given development components.
+     *
+     * @param components
+     *            development components to generate JavaDoc documentation for.
+     * @throws InterruptedException
+     *             when the build was interrupted.
+     */
+    void scan(final Collection<DevelopmentComponent> components) throws InterruptedException {
+        sourceInventory.scan(components);
+    }
+
+    /**
+     * Generate the JavaDoc documentation for the given (scanned) development
+     * components, commit it, update the overview and (if requested) compress
+     * the documentation published.
+     *
+     * @param components
+     *            development components to generate JavaDoc documentation for.
+     * @param runner
+     *            runner for executing JavaDoc without Ant (<code>null</code>:
+     *            use Ant).
+     * @param batch
+     *            indicate whether all development components should be
+     *            documented using a single Ant build file and Ant run
+     *            (ignored when a runner is given).
+     * @param listener
+     *            the listener to use for logging.
+     * @return <code>true</code> when JavaDoc documentation could be generated
+     *         for all development components, <code>false</code> otherwise.
+     * @throws InterruptedException
+     *             when the build was interrupted.
+     */
+    boolean execute(final Collection<DevelopmentComponent> components, final JavaDocRunner runner, final boolean batch,
+        final BuildListener listener) throws InterruptedException {
+        final boolean result;
+
+        if (batch && runner == null) {
+            result = generateBatch(components, listener);
+        }
+        else {
+            result = generate(components, runner, listener);
+        }
+
+        durations.store();
+
+        renderer.prune();
+        store.prune();
+        listener.getLogger().println(String.format("JavaDoc documentation committed: %s.", store));
+
+        if (archive != null) {
+            listener.getLogger().println(
+                String.format("Packed %d files into %d archives.", archive.getFiles(), archive.getArchives()));
+        }
+
+        if (cache != null) {
+            listener.getLogger().println(String.format("JavaDoc result cache: %s.", cache));
+        }
+
+        if (packageLists != null && packageLists.getHits() + packageLists.getMisses() > 0) {
+            listener.getLogger().println(
+                String.format("Package lists of external links: %d taken from cache, %d downloaded.", packageLists.getHits(),
+                    packageLists.getMisses()));
+        }
+
+        if (!reused.isEmpty()) {
+            listener.getLogger().println(
+                String.format("Reused JavaDoc documentation of %d development components: %s", reused.size(), reused));
+        }
+
+        final OverviewGenerator overview = new OverviewGenerator(workspace, configuration, index);
+        final JavaDocMetrics.Measurement measurement = metrics.start("", JavaDocStage.Overview);
+
+        if (!overview.execute()) {
+            listener.getLogger().println("JavaDoc overview is up to date.");
+        }
+
+        measurement.stop(0, javaDocFolder, null, false);
+
+        if (precompress) {
+            final Precompressor precompressor = new Precompressor();
+
+            for (final File folder : published) {
+                precompressor.compress(folder);
+            }
+
+            precompressor.compressFiles(javaDocFolder).compress(new File(javaDocFolder, SymbolIndex.FOLDER));
+            listener.getLogger().println(
+                String.format("Compressed %d files of the JavaDoc documentation, removed %d stale compressed files.",
+                    precompressor.getCompressed(), precompressor.getRemoved()));
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the metrics of the stages of JavaDoc generation collected so
+     *         far.
+     */
+    List<StageMetrics> getMetrics() {
+        return metrics.getMetrics();
+    }
+
+    /**
+     * @return the folder the JavaDoc documentation is generated into.
+     */
+    File getJavaDocFolder() {
+        return javaDocFolder;
+    }
+
+    /**
+     * Generate JavaDoc documentation for each of the given development
+     * components separately.
+     *
+     * @param components
+     *            development components to generate JavaDoc documentation for.
+     * @param runner
+     *            runner for executing JavaDoc without Ant (<code>null</code>:
+     *            use Ant).
+     * @param listener
+     *            the listener to use for logging.
+     * @return <code>true</code> when JavaDoc documentation could be generated
+     *         for all development components, <code>false</code> otherwise.
+     * @throws InterruptedException
+     *             when the build was interrupted.
+     */
+    private boolean generate(final Collection<DevelopmentComponent> components, final JavaDocRunner runner,
+        final BuildListener listener) throws InterruptedException {
+        final Map<DevelopmentComponent, String> outdated = getOutdatedComponents(components, listener);
+
+        return scheduler.execute(outdated.keySet(), new JavaDocJobScheduler.DevelopmentComponentProcessor() {
+            public boolean process(final DevelopmentComponent component, final BuildListener dcListener) throws InterruptedException {
+                final String fingerprint = outdated.get(component);
+                final String name = String.format("%s:%s", component.getVendor(), component.getName());
+                final File folder = new File(generator.getJavaDocFolder(component));
+                store.prepare(folder);
+
+                if (restore(component, fingerprint, folder, dcListener)) {
+                    return true;
+                }
+
+                final JavaDocMetrics.Measurement template = metrics.start(name, JavaDocStage.Template);
+                final JavaDocParameters parameters = runner == null ? null : generator.createParameters(component);
+                final String location = runner == null ? generator.execute(component) : null;
+                template.stop(0, null, null, false);
+                boolean succeeded = true;
+
+                if (parameters != null || location != null) {
+                    final JavaDocMetrics.Measurement javaDoc = metrics.start(name, JavaDocStage.JavaDoc);
+                    succeeded =
+                        parameters != null ? runner.execute(parameters, dcListener.getLogger()) : ant.execute(location, dcListener);
+                    final StageMetrics measurement =
+                        javaDoc.stop(generator.getSourceFileCount(component), new File(generator.getOutputFolder(component)), null,
+                            true);
+
+                    if (succeeded) {
+                        durations.record(component, JavaDocStage.JavaDoc, measurement.getWallTime());
+                    }
+                }
+
+                if (succeeded) {
+                    final long start = System.currentTimeMillis();
+                    succeeded = renderDiagrams(component, dcListener);
+
+                    if (succeeded) {
+                        durations.record(component, JavaDocStage.Diagrams, System.currentTimeMillis() - start);
+
+                        if (cache != null) {
+                            cache.store(fingerprint, store.getStagingFolder(folder));
+                        }
+
+                        publish(folder);
+                        fingerprints.store(component, fingerprint);
+                    }
+                }
+
+                return succeeded;
+            }
+        }, listener);
+    }
+
+    /**
+     * Generate JavaDoc documentation for the given development components
+     * using a single Ant build file and Ant run. Development components with
+     * sources for which no documentation was generated are reported. The
+     * durations of the JavaDoc runs are taken from the markers the build file
+     * touches around each run and recorded for scheduling later builds.
+     *
+     * @param components
+     *            development components to generate JavaDoc documentation for.
+     * @param listener
+     *            the listener to use for logging.
+     * @return <code>true</code> when the Ant run succeeded and generated
+     *         documentation for all development components with sources,
+     *         <code>false</code> otherwise.
+     * @throws InterruptedException
+     *             when the build was interrupted.
+     */
+    private boolean generateBatch(final Collection<DevelopmentComponent> components, final BuildListener listener)
+        throws InterruptedException {
+        final Map<DevelopmentComponent, String> outdated = getOutdatedComponents(components, listener);
+
+        for (final Iterator<Map.Entry<DevelopmentComponent, String>> entries = outdated.entrySet().iterator(); entries.hasNext();) {
+            final Map.Entry<DevelopmentComponent, String> entry = entries.next();
+            final DevelopmentComponent component = entry.getKey();
+            final File folder = new File(generator.getJavaDocFolder(component));
+            store.prepare(folder);
+
+            if (restore(component, entry.getValue(), folder, listener)) {
+                entries.remove();
+            }
+            else {
+                // success is determined by the presence of index.html below,
+                // so documentation and markers left over from earlier runs
+                // must go.
+                clear(new File(generator.getOutputFolder(component)));
+                clear(generator.getBatchMarker(component, BuildFileGenerator.STARTED));
+                clear(generator.getBatchMarker(component, BuildFileGenerator.FINISHED));
+            }
+        }
+
+        final String name = String.format("%d development components", outdated.size());
+        final JavaDocMetrics.Measurement template = metrics.start(name, JavaDocStage.Template);
+        final String location =
+            generator.executeBatch(JavaDocJobScheduler.calculateLevels(scheduler.calculatePrerequisites(outdated.keySet())),
+                parallelism);
+        template.stop(0, null, null, false);
+
+        if (location == null) {
+            return true;
+        }
+
+        final JavaDocMetrics.Measurement javaDoc = metrics.start(name, JavaDocStage.JavaDoc);
+        boolean result = ant.execute(location, listener);
+        int sourceFiles = 0;
+
+        for (final DevelopmentComponent component : outdated.keySet()) {
+            sourceFiles += generator.getSourceFileCount(component);
+        }
+
+        javaDoc.stop(sourceFiles, null, null, false);
+
+        for (final Map.Entry<DevelopmentComponent, String> entry : outdated.entrySet()) {
+            final DevelopmentComponent component = entry.getKey();
+
+            if (!new File(generator.getOutputFolder(component), "index.html").exists()) {
+                if (generator.getSourceFileCount(component) > 0) {
+                    listener.getLogger().println(
+                        String.format("No JavaDoc documentation was generated for %s:%s, see the Ant output above.",
+                            component.getVendor(), component.getName()));
+                    result = false;
+                }
+
+                continue;
+            }
+
+            final File started = generator.getBatchMarker(component, BuildFileGenerator.STARTED);
+            final File finished = generator.getBatchMarker(component, BuildFileGenerator.FINISHED);
+
+            if (started.exists() && finished.exists()) {
+                durations.record(component, JavaDocStage.JavaDoc, Math.max(0, finished.lastModified() - started.lastModified()));
+            }
+
+            final long start = System.currentTimeMillis();
+
+            if (renderDiagrams(component, listener)) {
+                durations.record(component, JavaDocStage.Diagrams, System.currentTimeMillis() - start);
+                final File folder = new File(generator.getJavaDocFolder(component));
+
+                if (cache != null) {
+                    cache.store(entry.getValue(), store.getStagingFolder(folder));
+                }
+
+                publish(folder);
+                fingerprints.store(component, entry.getValue());
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Determine the development components whose JavaDoc documentation is
+     * outdated. Only these are scheduled, so that neither the priorities nor
+     * the predicted makespan include development components that are up to
+     * date.
+     *
+     * @param components
+     *            development components to check.
+     * @param listener
+     *            the listener to use for logging.
+     * @return the outdated development components mapped to the fingerprint
+     *         of their current inputs (in the order of the given
+     *         development components).
+     */
+    private Map<DevelopmentComponent, String> getOutdatedComponents(final Collection<DevelopmentComponent> components,
+        final BuildListener listener) {
+        final Map<DevelopmentComponent, String> outdated = new LinkedHashMap<DevelopmentComponent, String>();
+
+        for (final DevelopmentComponent component : components) {
+            final String fingerprint = fingerprints.calculate(component);
+
+            if (!isUpToDate(component, fingerprint, listener)) {
+                outdated.put(component, fingerprint);
+            }
+        }
+
+        return outdated;
+    }
+
+    /**
+     * Remove the given output folder (or marker file) of a development
+     * component including its content.
+     *
+     * @param folder
+     *            output folder or file to remove.
+     */
+    private void clear(final File folder) {
+        try {
+            Util.deleteRecursive(folder);
+        }
+        catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Restore the JavaDoc documentation of the given development component
+     * from the result cache into its (prepared) staging folder and publish it.
+     *
+     * @param component
+     *            development component to restore the JavaDoc documentation
+     *            of.
+     * @param fingerprint
+     *            fingerprint of the current inputs of the development
+     *            component.
+     * @param folder
+     *            JavaDoc folder of the development component.
+     * @param listener
+     *            the listener to use for logging.
+     * @return <code>true</code> when the JavaDoc documentation was restored
+     *         from the result cache, <code>false</code> otherwise.
+     */
+    private boolean restore(final DevelopmentComponent component, final String fingerprint, final File folder,
+        final BuildListener listener) {
+        if (cache == null || !cache.restore(fingerprint, store.getStagingFolder(folder))) {
+            return false;
+        }
+
+        listener.getLogger().println(
+            String.format("Restored JavaDoc documentation of %s:%s from result cache.", component.getVendor(),
+                component.getName()));
+        publish(folder);
+        fingerprints.store(component, fingerprint);
+
+        return true;
+    }
+
+    /**
+     * Publish the JavaDoc documentation generated into the staging folder of
+     * the given JavaDoc folder, packing it into an archive first if
+     * requested. Archives of development components no longer packed are
+     * removed.
+     *
+     * @param folder
+     *            JavaDoc folder of a development component.
+     */
+    private void publish(final File folder) {
+        final File packed = JavaDocArchive.getArchive(folder);
+
+        if (archive != null) {
+            archive.pack(store.getStagingFolder(folder), packed);
+        }
+        else if (packed.exists() && !packed.delete()) {
+            throw new IllegalStateException("Could not delete " + packed.getAbsolutePath());
+        }
+
+        store.commit(folder);
+        published.add(folder);
+    }
+
+    /**
+     * Render the UML diagrams generated for the given development component
+     * (if any) and log how many diagrams were rendered or reused.
+     *
+     * @param component
+     *            development component whose JavaDoc documentation has been
+     *            generated.
+     * @param listener
+     *            the listener to use for logging.
+     * @return <code>true</code> when all diagrams could be rendered,
+     *         <code>false</code> otherwise.
+     * @throws InterruptedException
+     *             when the build was interrupted.
+     */
+    private boolean renderDiagrams(final DevelopmentComponent component, final BuildListener listener) throws InterruptedException {
+        if (!generator.useUmlGraph(component)) {
+            return true;
+        }
+
+        final File folder = new File(generator.getOutputFolder(component));
+        final JavaDocMetrics.Measurement measurement =
+            metrics.start(String.format("%s:%s", component.getVendor(), component.getName()), JavaDocStage.Diagrams);
+        final DotRenderer.Statistics statistics = renderer.render(folder, listener.getLogger());
+        measurement.stop(0, folder, ".svg", true);
+        listener.getLogger().println(
+            String.format("UML diagrams for %s:%s: %s.", component.getVendor(), component.getName(), statistics));
+
+        return statistics.isSucceeded();
+    }
+
+    /**
+     * Determine whether the JavaDoc documentation of the given development
+     * component is up to date. Up to date development components are logged
+     * and remembered, the fingerprint of outdated ones is invalidated.
+     *
+     * @param component
+     *            development component to check.
+     * @param fingerprint
+     *            fingerprint of the current inputs of the development
+     *            component.
+     * @param listener
+     *            the listener to use for logging.
+     * @return <code>true</code> when the JavaDoc documentation of the given
+     *         development component is up to date, <code>false</code>
+     *         otherwise.
+     */
+    private boolean isUpToDate(final DevelopmentComponent component, final String fingerprint, final BuildListener listener) {
+        if (fingerprints.isUpToDate(component, fingerprint)) {
+            reused.add(String.format("%s:%s", component.getVendor(), component.getName()));
+            listener.getLogger().println(String.format("JavaDoc for %s:%s is up to date.", component.getVendor(), component.getName()));
+
+            return true;
+        }
+
+        fingerprints.invalidate(component);
+
+        return false;
+    }
+}
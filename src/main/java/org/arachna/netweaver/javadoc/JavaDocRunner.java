@@ -0,0 +1,28 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import java.io.PrintStream;
+
+/**
+ * Executes JavaDoc for the parameters of a development component without
+ * generating an Ant build file.
+ *
+ * @author Dirk Weigenand
+ */
+interface JavaDocRunner {
+    /**
+     * Run JavaDoc using the given parameters.
+     *
+     * @param parameters
+     *            inputs of the JavaDoc run.
+     * @param logger
+     *            stream to write JavaDoc output to.
+     * @return <code>true</code> when the JavaDoc documentation was generated
+     *         successfully, <code>false</code> otherwise.
+     * @throws InterruptedException
+     *             when the build was interrupted.
+     */
+    boolean execute(JavaDocParameters parameters, PrintStream logger) throws InterruptedException;
+}
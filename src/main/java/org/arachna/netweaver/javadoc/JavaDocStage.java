@@ -0,0 +1,31 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+/**
+ * Stages of JavaDoc generation.
+ *
+ * @author Dirk Weigenand
+ */
+public enum JavaDocStage {
+    /**
+     * generating the Ant build file or the parameters of a JavaDoc run.
+     */
+    Template,
+
+    /**
+     * running JavaDoc (including the UmlGraph doclet).
+     */
+    JavaDoc,
+
+    /**
+     * rendering UML diagrams using Graphviz.
+     */
+    Diagrams,
+
+    /**
+     * generating the overview page of all development components.
+     */
+    Overview;
+}
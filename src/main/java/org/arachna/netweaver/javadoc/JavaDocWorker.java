@@ -0,0 +1,146 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.PrintStream;
+import java.io.Serializable;
+
+/**
+ * Entry point of a JavaDoc worker process.
+ *
+ * The worker reads {@link JavaDocParameters} from standard input, runs
+ * JavaDoc in process for each of them and writes a {@link Result} back to
+ * standard output. Everything else written to standard output (e.g. by
+ * doclets) is redirected to standard error so it cannot corrupt the protocol.
+ *
+ * @author Dirk Weigenand
+ */
+public final class JavaDocWorker {
+    /**
+     * Request asking the worker whether it is still healthy.
+     */
+    static final String PING = "ping";
+
+    /**
+     * Utility class.
+     */
+    private JavaDocWorker() {
+    }
+
+    /**
+     * Process requests read from standard input until it is closed.
+     *
+     * @param args
+     *            ignored.
+     * @throws IOException
+     *             when communicating with the controlling process fails.
+     * @throws ClassNotFoundException
+     *             when an unknown request was received.
+     */
+    public static void main(final String[] args) throws IOException, ClassNotFoundException {
+        final ObjectOutputStream out = new ObjectOutputStream(System.out);
+        out.flush();
+        System.setOut(System.err);
+
+        final ObjectInputStream in = new ObjectInputStream(System.in);
+        final DocumentationToolRunner runner = new DocumentationToolRunner();
+
+        try {
+            while (true) {
+                final Object request = in.readObject();
+                Result result;
+
+                if (request instanceof JavaDocParameters) {
+                    result = execute(runner, (JavaDocParameters)request);
+                }
+                else {
+                    result = new Result(PING.equals(request) && DocumentationToolRunner.isAvailable(), "");
+                }
+
+                out.writeObject(result);
+                out.flush();
+                out.reset();
+            }
+        }
+        catch (final EOFException e) {
+            // controlling process closed the connection
+        }
+    }
+
+    /**
+     * Run JavaDoc for the given parameters collecting its output.
+     *
+     * @param runner
+     *            runner to execute JavaDoc with.
+     * @param parameters
+     *            inputs of the JavaDoc run.
+     * @return result of the JavaDoc run.
+     */
+    private static Result execute(final DocumentationToolRunner runner, final JavaDocParameters parameters) {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final PrintStream logger = new PrintStream(output, true);
+        boolean succeeded = false;
+
+        try {
+            succeeded = runner.execute(parameters, logger);
+        }
+        catch (final RuntimeException e) {
+            e.printStackTrace(logger);
+        }
+
+        return new Result(succeeded, output.toString());
+    }
+
+    /**
+     * Result of a request processed by the worker.
+     */
+    static final class Result implements Serializable {
+        /**
+         * serialization version.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * indicate whether the request succeeded.
+         */
+        private final boolean succeeded;
+
+        /**
+         * output collected while processing the request.
+         */
+        private final String output;
+
+        /**
+         * Create a result.
+         *
+         * @param succeeded
+         *            indicate whether the request succeeded.
+         * @param output
+         *            output collected while processing the request.
+         */
+        Result(final boolean succeeded, final String output) {
+            this.succeeded = succeeded;
+            this.output = output;
+        }
+
+        /**
+         * @return whether the request succeeded
+         */
+        boolean isSucceeded() {
+            return succeeded;
+        }
+
+        /**
+         * @return the output collected while processing the request
+         */
+        String getOutput() {
+            return output;
+        }
+    }
+}
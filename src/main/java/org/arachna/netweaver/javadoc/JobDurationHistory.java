@@ -0,0 +1,210 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.Logger;
+import org.arachna.netweaver.dc.types.DevelopmentComponent;
+
+/**
+ * History of the durations of the stages of JavaDoc generation (running
+ * JavaDoc, rendering UML diagrams) per development component.
+ *
+ * The history is kept per job and used to estimate how long generating the
+ * JavaDoc documentation of a development component will take. Each recorded
+ * duration is averaged with the previously recorded one so that single
+ * outliers do not dominate the estimate.
+ *
+ * @author Dirk Weigenand
+ */
+final class JobDurationHistory {
+    /**
+     * name of the file (relative to the root folder of a job) containing the
+     * history.
+     */
+    static final String FILE_NAME = "javadoc-durations.properties";
+
+    /**
+     * milliseconds assumed for development components without history when
+     * there is no history at all.
+     */
+    private static final long DEFAULT_DURATION = 1000;
+
+    /**
+     * file containing the history.
+     */
+    private final File file;
+
+    /**
+     * durations (in milliseconds) mapped to development component and stage.
+     */
+    private final ConcurrentMap<String, Long> durations = new ConcurrentHashMap<String, Long>();
+
+    /**
+     * Create a history of durations persisted in the given file and load the
+     * durations recorded so far.
+     *
+     * @param file
+     *            file containing the history.
+     */
+    JobDurationHistory(final File file) {
+        this.file = file;
+        load();
+    }
+
+    /**
+     * Record the duration of a stage of JavaDoc generation for the given
+     * development component.
+     *
+     * @param component
+     *            development component the duration was measured for.
+     * @param stage
+     *            stage the duration was measured for.
+     * @param duration
+     *            duration of the stage in milliseconds.
+     */
+    void record(final DevelopmentComponent component, final JavaDocStage stage, final long duration) {
+        final String key = getKey(component, stage);
+        final Long previous = durations.get(key);
+
+        durations.put(key, Long.valueOf(previous == null ? duration : (previous.longValue() + duration) / 2));
+    }
+
+    /**
+     * Estimate the duration of JavaDoc generation (all stages) for the given
+     * development component. Development components without history are
+     * assumed to take as long as the average development component.
+     *
+     * @param component
+     *            development component to estimate the duration for.
+     * @return the estimated duration in milliseconds.
+     */
+    long estimate(final DevelopmentComponent component) {
+        long estimate = 0;
+        boolean known = false;
+
+        for (final JavaDocStage stage : JavaDocStage.values()) {
+            final Long duration = durations.get(getKey(component, stage));
+
+            if (duration != null) {
+                estimate += duration.longValue();
+                known = true;
+            }
+        }
+
+        return known ? estimate : getAverage();
+    }
+
+    /**
+     * Persist the history.
+     */
+    void store() {
+        final Properties properties = new Properties();
+
+        for (final Map.Entry<String, Long> duration : durations.entrySet()) {
+            properties.setProperty(duration.getKey(), duration.getValue().toString());
+        }
+
+        OutputStream output = null;
+
+        try {
+            output = new FileOutputStream(file);
+            properties.store(output, "durations of JavaDoc generation in milliseconds");
+            output.close();
+        }
+        catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+        finally {
+            IOUtils.closeQuietly(output);
+        }
+    }
+
+    /**
+     * Load the history from the file.
+     */
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+
+        final Properties properties = new Properties();
+        InputStream input = null;
+
+        try {
+            input = new FileInputStream(file);
+            properties.load(input);
+        }
+        catch (final IOException e) {
+            Logger.getLogger(getClass()).warn("Could not read " + file.getAbsolutePath(), e);
+        }
+        finally {
+            IOUtils.closeQuietly(input);
+        }
+
+        for (final String key : properties.stringPropertyNames()) {
+            try {
+                durations.put(key, Long.valueOf(properties.getProperty(key)));
+            }
+            catch (final NumberFormatException e) {
+                Logger.getLogger(getClass()).warn(
+                    String.format("Ignoring invalid duration %s of %s.", properties.getProperty(key), key));
+            }
+        }
+    }
+
+    /**
+     * Calculate the average duration of JavaDoc generation over all
+     * development components in the history.
+     *
+     * @return the average duration in milliseconds.
+     */
+    private long getAverage() {
+        final Map<String, Long> totals = new HashMap<String, Long>();
+
+        for (final Map.Entry<String, Long> duration : durations.entrySet()) {
+            final String component = duration.getKey().substring(0, duration.getKey().lastIndexOf('.'));
+            final Long total = totals.get(component);
+            totals.put(component, Long.valueOf((total == null ? 0 : total.longValue()) + duration.getValue().longValue()));
+        }
+
+        if (totals.isEmpty()) {
+            return DEFAULT_DURATION;
+        }
+
+        long sum = 0;
+
+        for (final Long total : totals.values()) {
+            sum += total.longValue();
+        }
+
+        return sum / totals.size();
+    }
+
+    /**
+     * Get the key of the duration of the given stage for the given development
+     * component.
+     *
+     * @param component
+     *            development component.
+     * @param stage
+     *            stage of JavaDoc generation.
+     * @return key of the duration.
+     */
+    private String getKey(final DevelopmentComponent component, final JavaDocStage stage) {
+        return component.getNormalizedName("~") + '.' + stage.name();
+    }
+}
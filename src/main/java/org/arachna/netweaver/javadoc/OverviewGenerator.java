@@ -5,31 +5,41 @@ package org.arachna.netweaver.javadoc;
 
 import hudson.Util;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.TransformerFactoryConfigurationError;
-import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.log4j.Logger;
 import org.arachna.netweaver.dc.types.Compartment;
 import org.arachna.netweaver.dc.types.CompartmentByNameComparator;
@@ -39,8 +49,6 @@ import org.arachna.netweaver.dc.types.DevelopmentComponentByTypeFilter;
 import org.arachna.netweaver.dc.types.DevelopmentComponentType;
 import org.arachna.netweaver.dc.types.DevelopmentConfiguration;
 import org.arachna.netweaver.hudson.nwdi.DCWithJavaSourceAcceptingFilter;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 
 /**
  * Generator for JavaDoc overview page for all development components in a
@@ -49,6 +57,37 @@ import org.w3c.dom.Element;
  * @author Dirk Weigenand
  */
 final class OverviewGenerator {
+    /**
+     * factory for writers of <code>index.xml</code>.
+     */
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    /**
+     * name of the style sheet transforming <code>index.xml</code> into
+     * <code>index.html</code>.
+     */
+    private static final String STYLE_SHEET = "JavaDocIndex.xsl";
+
+    /**
+     * resources copied into the JavaDoc folder next to the overview.
+     */
+    private static final String[] RESOURCES = { "style.css", "html5shiv.js", "search.js" };
+
+    /**
+     * name of the file containing the fingerprint of the generated overview.
+     */
+    private static final String FINGERPRINT = "index.fingerprint";
+
+    /**
+     * Encoding to use for digesting strings and persisting fingerprints.
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * compiled style sheet transforming <code>index.xml</code> into
+     * <code>index.html</code>.
+     */
+    private static Templates templates;
 
     /**
      * development configuration to use for generating a javadoc overview page
@@ -61,6 +100,11 @@ final class OverviewGenerator {
      */
     private final File workspace;
 
+    /**
+     * index used to determine the JavaDoc folders of development components.
+     */
+    private final DevelopmentComponentIndex index;
+
     /**
      * Create generator for JavaDoc overview page.
      * 
@@ -68,17 +112,34 @@ final class OverviewGenerator {
      *            workspace folder where to create overview page.
      * @param developmentConfiguration
      *            development configuration to create overview page for.
+     * @param index
+     *            index used to determine the JavaDoc folders of development
+     *            components.
      */
-    OverviewGenerator(final File workspace, final DevelopmentConfiguration developmentConfiguration) {
+    OverviewGenerator(final File workspace, final DevelopmentConfiguration developmentConfiguration,
+        final DevelopmentComponentIndex index) {
         this.workspace = workspace;
         this.developmentConfiguration = developmentConfiguration;
+        this.index = index;
 
     }
 
     /**
-     * Create overview page.
+     * Create overview page. The overview is only written when the
+     * compartments or development components of the development
+     * configuration or the bundled resources changed since it was last
+     * written. Only development components whose JavaDoc documentation has
+     * been published are shown. Each file is written to a temporary file
+     * first and renamed afterwards, <code>index.html</code> last, so readers
+     * never see a partially written overview. The {@link SymbolIndex} searched from the overview is updated
+     * in any case (re-indexing only development components whose
+     * documentation changed and rebuilding its shards only when a
+     * development component was added, removed or re-indexed).
+     * 
+     * @return <code>true</code> when the overview was written,
+     *         <code>false</code> when it was up to date.
      */
-    void execute() {
+    boolean execute() {
         final File javaDocFolder = new File(workspace, "javadoc");
 
         if (!javaDocFolder.exists()) {
@@ -87,9 +148,184 @@ final class OverviewGenerator {
             }
         }
 
+        new SymbolIndex(javaDocFolder).update(index, getDevelopmentComponentsShownInOverview());
+
+        final String fingerprint = calculateFingerprint();
+        final File fingerprintFile = new File(javaDocFolder, FINGERPRINT);
+
+        if (isUpToDate(javaDocFolder, fingerprintFile, fingerprint)) {
+            return false;
+        }
+
+        if (fingerprintFile.exists() && !fingerprintFile.delete()) {
+            throw new IllegalStateException("Could not delete " + fingerprintFile.getAbsolutePath());
+        }
+
+        for (final String resource : RESOURCES) {
+            copyResourceTo(javaDocFolder, resource);
+        }
+
         createIndexHtml(javaDocFolder);
-        copyResourceTo(javaDocFolder, "style.css");
-        copyResourceTo(javaDocFolder, "html5shiv.js");
+
+        writeFingerprint(fingerprintFile, fingerprint);
+
+        return true;
+    }
+
+    /**
+     * Calculate a fingerprint over the compartments and development
+     * components shown in the overview (in the order they are shown) and the
+     * resources used to render it.
+     * 
+     * @return the fingerprint as a hex string.
+     */
+    String calculateFingerprint() {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            update(digest, this.developmentConfiguration.getCaption());
+
+            for (final Compartment compartment : getNonEmptyCompartmentsSortedAlphabetically(this.developmentConfiguration)) {
+                final Collection<DevelopmentComponent> components = this.getDevelopmentComponentsWithJavaSources(compartment);
+
+                if (!components.isEmpty()) {
+                    update(digest, "compartment:" + compartment.getVendor() + ":" + compartment.getSoftwareComponent());
+
+                    for (final DevelopmentComponent description : compartment
+                        .getDevelopmentComponents(new DevelopmentComponentByTypeFilter(
+                            DevelopmentComponentType.SoftwareComponentDescription))) {
+                        update(digest, description.getDescription());
+                    }
+
+                    for (final DevelopmentComponent component : components) {
+                        update(digest, "dc:" + component.getVendor() + ":" + component.getName());
+                        update(digest, component.getDescription());
+                    }
+                }
+            }
+
+            update(digest, "resource:" + STYLE_SHEET);
+            updateWithResource(digest, STYLE_SHEET);
+
+            for (final String resource : RESOURCES) {
+                update(digest, "resource:" + resource);
+                updateWithResource(digest, resource);
+            }
+
+            return Util.toHexString(digest.digest());
+        }
+        catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Determine whether the overview in the given folder has been generated
+     * from the given fingerprint.
+     * 
+     * @param javaDocFolder
+     *            the JavaDoc folder in workspace.
+     * @param fingerprintFile
+     *            file containing the fingerprint of the existing overview.
+     * @param fingerprint
+     *            fingerprint of the current overview.
+     * @return <code>true</code> when all files of the overview exist and
+     *         were generated from the given fingerprint, <code>false</code>
+     *         otherwise.
+     */
+    private boolean isUpToDate(final File javaDocFolder, final File fingerprintFile, final String fingerprint) {
+        if (!fingerprintFile.exists() || !new File(javaDocFolder, "index.html").exists()
+            || !new File(javaDocFolder, "index.xml").exists()) {
+            return false;
+        }
+
+        for (final String resource : RESOURCES) {
+            if (!new File(javaDocFolder, resource).exists()) {
+                return false;
+            }
+        }
+
+        Reader reader = null;
+
+        try {
+            reader = new InputStreamReader(new FileInputStream(fingerprintFile), UTF8);
+            final StringWriter content = new StringWriter();
+            Util.copyStream(reader, content);
+
+            return fingerprint.equals(content.toString());
+        }
+        catch (final IOException e) {
+            Logger.getLogger(getClass()).warn("Could not read " + fingerprintFile.getAbsolutePath(), e);
+            return false;
+        }
+        finally {
+            IOUtils.closeQuietly(reader);
+        }
+    }
+
+    /**
+     * Persist the fingerprint of the generated overview.
+     * 
+     * @param fingerprintFile
+     *            file to write the fingerprint to.
+     * @param fingerprint
+     *            fingerprint of the generated overview.
+     */
+    private void writeFingerprint(final File fingerprintFile, final String fingerprint) {
+        Writer writer = null;
+
+        try {
+            writer = new OutputStreamWriter(new FileOutputStream(fingerprintFile), UTF8);
+            writer.write(fingerprint);
+            writer.close();
+        }
+        catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+        finally {
+            IOUtils.closeQuietly(writer);
+        }
+    }
+
+    /**
+     * Add the given string to the given digest.
+     * 
+     * @param digest
+     *            digest to update.
+     * @param value
+     *            string to add.
+     */
+    private void update(final MessageDigest digest, final String value) {
+        digest.update(String.valueOf(value).getBytes(UTF8));
+        digest.update((byte)0);
+    }
+
+    /**
+     * Add the content of the given resource to the given digest.
+     * 
+     * @param digest
+     *            digest to update.
+     * @param resourceName
+     *            name of resource to digest.
+     * @throws IOException
+     *             when the resource could not be read.
+     */
+    private void updateWithResource(final MessageDigest digest, final String resourceName) throws IOException {
+        final InputStream input = this.getClass().getResourceAsStream(resourceName);
+
+        try {
+            final byte[] buffer = new byte[8192];
+            int length;
+
+            while ((length = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, length);
+            }
+        }
+        finally {
+            IOUtils.closeQuietly(input);
+        }
     }
 
     /**
@@ -101,11 +337,15 @@ final class OverviewGenerator {
      *            name of resource to copy.
      */
     private void copyResourceTo(final File parent, final String resourceName) {
+        final File temporary = new File(parent, resourceName + ".tmp");
         Writer writer = null;
 
         try {
-            writer = new FileWriter(new File(parent, resourceName));
+            writer = new FileWriter(temporary);
             Util.copyStream(new InputStreamReader(this.getClass().getResourceAsStream(resourceName)), writer);
+            writer.close();
+            writer = null;
+            publish(temporary, new File(parent, resourceName));
         }
         catch (final IOException e) {
             throw new RuntimeException(e);
@@ -124,105 +364,152 @@ final class OverviewGenerator {
 
     /**
      * Generate <code>index.html</code> as an entry point for all available
-     * JavaDoc documentation.
+     * JavaDoc documentation. The overview of all development components is
+     * written to <code>index.xml</code> first which is then transformed into
+     * <code>index.html</code>.
      * 
-     * @param configuration
-     *            {@link DevelopmentConfiguration} to generate entry page for.
+     * @param baseDir
+     *            the JavaDoc folder in workspace.
      */
     protected void createIndexHtml(final File baseDir) {
-        Writer result = null;
-        Writer indexXml = null;
+        final File indexXml = new File(baseDir, "index.xml.tmp");
+        final File indexHtml = new File(baseDir, "index.html.tmp");
+        createIndexXml(indexXml);
+
+        OutputStream result = null;
 
         try {
-            result = new OutputStreamWriter(new FileOutputStream(new File(baseDir, "index.html")), Charset.forName("UTF-8"));
-            indexXml = new OutputStreamWriter(new FileOutputStream(new File(baseDir, "index.xml")), Charset.forName("UTF-8"));
-            final Transformer transformer =
-                TransformerFactory.newInstance().newTransformer(new StreamSource(this.getClass().getResourceAsStream("JavaDocIndex.xsl")));
+            result = new BufferedOutputStream(new FileOutputStream(indexHtml));
+            final Transformer transformer = getTemplates().newTransformer();
             transformer.setParameter("track", this.developmentConfiguration.getCaption());
-            final DOMSource indexDom = createIndexDom();
-            transformer.transform(indexDom, new StreamResult(result));
-
-            TransformerFactory.newInstance().newTransformer().transform(indexDom, new StreamResult(indexXml));
+            transformer.transform(new StreamSource(indexXml), new StreamResult(result));
+            result.close();
+            result = null;
+            publish(indexXml, new File(baseDir, "index.xml"));
+            publish(indexHtml, new File(baseDir, "index.html"));
         }
         catch (final IOException e) {
             throw new IllegalStateException(e);
         }
-        catch (final TransformerConfigurationException e) {
-            throw new IllegalStateException(e);
-        }
-        catch (final TransformerFactoryConfigurationError e) {
-            throw new IllegalStateException(e);
-        }
         catch (final TransformerException e) {
             throw new IllegalStateException(e);
         }
-        catch (final ParserConfigurationException e) {
-            throw new IllegalStateException(e);
-        }
         finally {
-            if (result != null) {
-                try {
-                    result.close();
-                }
-                catch (final IOException e) {
-                    Logger.getLogger(getClass()).error("", e);
-                }
-            }
+            IOUtils.closeQuietly(result);
+        }
+    }
 
-            if (indexXml != null) {
-                try {
-                    indexXml.close();
-                }
-                catch (final IOException e) {
-                    Logger.getLogger(getClass()).error("", e);
+    /**
+     * Atomically replace the given file with the given temporary file.
+     * 
+     * @param temporary
+     *            the completely written temporary file.
+     * @param file
+     *            the file to replace.
+     * @throws IOException
+     *             when the temporary file could not be renamed.
+     */
+    private void publish(final File temporary, final File file) throws IOException {
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Write the compartments and development components of the development
+     * configuration to the given file. The XML is streamed so memory use does
+     * not depend on the size of the development configuration.
+     * 
+     * @param indexXml
+     *            file to write the overview to.
+     */
+    void createIndexXml(final File indexXml) {
+        OutputStream output = null;
+
+        try {
+            output = new BufferedOutputStream(new FileOutputStream(indexXml));
+            final XMLStreamWriter writer = OUTPUT_FACTORY.createXMLStreamWriter(output, "UTF-8");
+            writer.writeStartDocument("UTF-8", "1.0");
+            writer.writeStartElement("compartments");
+
+            for (final Compartment compartment : getNonEmptyCompartmentsSortedAlphabetically(this.developmentConfiguration)) {
+                final Collection<DevelopmentComponent> components = this.getDevelopmentComponentsWithJavaSources(compartment);
+
+                if (!components.isEmpty()) {
+                    writeCompartment(writer, compartment, components);
                 }
             }
 
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.close();
+        }
+        catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+        catch (final XMLStreamException e) {
+            throw new IllegalStateException(e);
+        }
+        finally {
+            IOUtils.closeQuietly(output);
         }
     }
 
     /**
-     * @return
+     * Write the given compartment and its development components.
+     * 
+     * @param writer
+     *            writer to write the compartment to.
+     * @param compartment
+     *            compartment to write.
+     * @param components
+     *            development components of the compartment containing Java
+     *            sources.
+     * @throws XMLStreamException
+     *             when writing failed.
      */
-    public DOMSource createIndexDom() throws ParserConfigurationException, IOException {
-        final DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-        final Document document = builder.newDocument();
-        final Element compartments = document.createElement("compartments");
-        document.appendChild(compartments);
-
-        for (final Compartment compartment : getNonEmptyCompartmentsSortedAlphabetically(this.developmentConfiguration)) {
-            final Collection<DevelopmentComponent> components = this.getDevelopmentComponentsWithJavaSources(compartment);
-
-            if (!components.isEmpty()) {
-                final Element compartmentElement = document.createElement("compartment");
-                compartmentElement.setAttribute("name", compartment.getSoftwareComponent());
-                compartmentElement.setAttribute("vendor", compartment.getVendor());
-                compartments.appendChild(compartmentElement);
-
-                final List<DevelopmentComponent> descriptions =
-                    new ArrayList<DevelopmentComponent>(compartment.getDevelopmentComponents(new DevelopmentComponentByTypeFilter(
-                        DevelopmentComponentType.SoftwareComponentDescription)));
-
-                if (!descriptions.isEmpty()) {
-                    final Element description = document.createElement("description");
-                    description.setTextContent(descriptions.get(0).getDescription());
-                    compartmentElement.appendChild(description);
-                }
+    private void writeCompartment(final XMLStreamWriter writer, final Compartment compartment,
+        final Collection<DevelopmentComponent> components) throws XMLStreamException {
+        writer.writeStartElement("compartment");
+        writer.writeAttribute("name", compartment.getSoftwareComponent());
+        writer.writeAttribute("vendor", compartment.getVendor());
+
+        final List<DevelopmentComponent> descriptions =
+            new ArrayList<DevelopmentComponent>(compartment.getDevelopmentComponents(new DevelopmentComponentByTypeFilter(
+                DevelopmentComponentType.SoftwareComponentDescription)));
+
+        if (!descriptions.isEmpty()) {
+            writer.writeStartElement("description");
+            writer.writeCharacters(Util.fixNull(descriptions.get(0).getDescription()));
+            writer.writeEndElement();
+        }
 
-                for (final DevelopmentComponent component : components) {
-                    final Element dc = document.createElement("dc");
-                    compartmentElement.appendChild(dc);
+        for (final DevelopmentComponent component : components) {
+            writer.writeStartElement("dc");
+            writer.writeAttribute("vendor", component.getVendor());
+            writer.writeAttribute("name", component.getName());
+            writer.writeAttribute("folder", index.getFolderName(component));
+            writer.writeCharacters(Util.fixNull(component.getDescription()));
+            writer.writeEndElement();
+        }
 
-                    dc.setAttribute("vendor", component.getVendor());
-                    dc.setAttribute("name", component.getName());
-                    dc.setAttribute("folder", component.getVendor() + "~" + component.getName().replace('/', '~'));
+        writer.writeEndElement();
+    }
 
-                    dc.appendChild(document.createTextNode(component.getDescription()));
-                }
-            }
+    /**
+     * Get the compiled style sheet transforming <code>index.xml</code> into
+     * <code>index.html</code>. The style sheet is compiled only once.
+     * 
+     * @return the compiled style sheet.
+     * @throws TransformerConfigurationException
+     *             when the style sheet could not be compiled.
+     */
+    private static synchronized Templates getTemplates() throws TransformerConfigurationException {
+        if (templates == null) {
+            templates =
+                TransformerFactory.newInstance().newTemplates(
+                    new StreamSource(OverviewGenerator.class.getResourceAsStream(STYLE_SHEET)));
         }
 
-        return new DOMSource(document);
+        return templates;
     }
 
     /**
@@ -243,12 +530,35 @@ final class OverviewGenerator {
         return compartments;
     }
 
+    /**
+     * @return the development components shown in the overview (in the order
+     *         they are shown)
+     */
+    private Collection<DevelopmentComponent> getDevelopmentComponentsShownInOverview() {
+        final Collection<DevelopmentComponent> components = new ArrayList<DevelopmentComponent>();
+
+        for (final Compartment compartment : getNonEmptyCompartmentsSortedAlphabetically(this.developmentConfiguration)) {
+            components.addAll(this.getDevelopmentComponentsWithJavaSources(compartment));
+        }
+
+        return components;
+    }
+
+    /**
+     * Determine the development components of the given compartment with
+     * Java sources whose JavaDoc documentation has been published.
+     * 
+     * @param compartment
+     *            compartment to get the development components of.
+     * @return the development components of the compartment shown in the
+     *         overview.
+     */
     private Collection<DevelopmentComponent> getDevelopmentComponentsWithJavaSources(final Compartment compartment) {
         final Collection<DevelopmentComponent> components = new ArrayList<DevelopmentComponent>();
         final DCWithJavaSourceAcceptingFilter filter = new DCWithJavaSourceAcceptingFilter();
 
         for (final DevelopmentComponent component : compartment.getDevelopmentComponents()) {
-            if (filter.accept(component)) {
+            if (filter.accept(component) && new File(index.getJavaDocFolder(component)).isDirectory()) {
                 components.add(component);
             }
         }
@@ -0,0 +1,327 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import hudson.ProxyConfiguration;
+import hudson.Util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.Logger;
+
+/**
+ * Local cache for the package lists (<code>package-list</code> or
+ * <code>element-list</code>) of external JavaDoc documentation.
+ *
+ * Each external link is resolved once per build: its package list is taken
+ * from the cache when it is younger than the configured time to live and
+ * downloaded otherwise. JavaDoc is then pointed to the cached copy so that it
+ * does not fetch the package list for every development component again.
+ *
+ * @author Dirk Weigenand
+ */
+final class PackageListCache {
+    /**
+     * name of the folder (relative to the JavaDoc folder of the workspace)
+     * containing cached package lists.
+     */
+    static final String CACHE_FOLDER = ".package-lists";
+
+    /**
+     * names of package lists in the order they are looked up.
+     */
+    private static final String[] PACKAGE_LISTS = { "package-list", "element-list" };
+
+    /**
+     * milliseconds to wait for connecting to or reading from a linked
+     * location.
+     */
+    private static final int TIMEOUT = 30 * 1000;
+
+    /**
+     * Encoding to use for digesting links.
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * folder containing cached package lists.
+     */
+    private final File cacheFolder;
+
+    /**
+     * milliseconds a cached package list is used before it is downloaded
+     * again.
+     */
+    private final long timeToLive;
+
+    /**
+     * stream to log cache hits and misses to.
+     */
+    private final PrintStream logger;
+
+    /**
+     * links resolved during the current build.
+     */
+    private final Map<String, JavaDocLink> links = new HashMap<String, JavaDocLink>();
+
+    /**
+     * number of package lists taken from the cache.
+     */
+    private int hits;
+
+    /**
+     * number of package lists downloaded.
+     */
+    private int misses;
+
+    /**
+     * Create a cache for package lists of external JavaDoc documentation.
+     *
+     * @param cacheFolder
+     *            folder containing cached package lists.
+     * @param timeToLive
+     *            hours a cached package list is used before it is downloaded
+     *            again.
+     * @param logger
+     *            stream to log cache hits and misses to.
+     */
+    PackageListCache(final File cacheFolder, final int timeToLive, final PrintStream logger) {
+        this.cacheFolder = cacheFolder;
+        this.timeToLive = Math.max(0, timeToLive) * 60L * 60L * 1000L;
+        this.logger = logger;
+    }
+
+    /**
+     * Resolve the given link. Links to documentation on the local file system
+     * are returned as is, for other links the package list is looked up in
+     * the cache or downloaded.
+     *
+     * @param href
+     *            location of the linked documentation.
+     * @return the link to use for the JavaDoc run.
+     */
+    synchronized JavaDocLink resolve(final String href) {
+        JavaDocLink link = links.get(href);
+
+        if (link == null) {
+            link = isRemote(href) ? resolveRemote(href) : new JavaDocLink(href, null);
+            links.put(href, link);
+        }
+
+        return link;
+    }
+
+    /**
+     * @return the number of package lists taken from the cache
+     */
+    synchronized int getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of package lists downloaded
+     */
+    synchronized int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Resolve the given link to documentation on a remote location.
+     *
+     * @param href
+     *            location of the linked documentation.
+     * @return a link using the cached package list or a link reading the
+     *         package list from the linked location when it could not be
+     *         downloaded.
+     */
+    private JavaDocLink resolveRemote(final String href) {
+        final File folder = new File(cacheFolder, digest(href));
+        final File cached = findPackageList(folder);
+
+        if (cached != null && System.currentTimeMillis() - cached.lastModified() < timeToLive) {
+            hits++;
+            logger.println(String.format("Package list of %s taken from cache.", href));
+
+            return new JavaDocLink(href, folder.getAbsolutePath());
+        }
+
+        misses++;
+
+        try {
+            download(href, folder);
+            logger.println(String.format("Package list of %s downloaded.", href));
+
+            return new JavaDocLink(href, folder.getAbsolutePath());
+        }
+        catch (final IOException e) {
+            if (cached != null) {
+                logger.println(String.format("Could not download package list of %s (%s), using cached copy.", href, e.getMessage()));
+
+                return new JavaDocLink(href, folder.getAbsolutePath());
+            }
+
+            logger.println(String.format("Could not download package list of %s (%s).", href, e.getMessage()));
+
+            return new JavaDocLink(href, null);
+        }
+    }
+
+    /**
+     * Download the package list of the given link into the given folder.
+     *
+     * @param href
+     *            location of the linked documentation.
+     * @param folder
+     *            folder to store the package list in.
+     * @throws IOException
+     *             when no package list could be downloaded.
+     */
+    private void download(final String href, final File folder) throws IOException {
+        if (!folder.exists() && !folder.mkdirs()) {
+            throw new IllegalStateException("Could not mkdir " + folder.getAbsolutePath());
+        }
+
+        final String base = href.endsWith("/") ? href : href + "/";
+        IOException failure = null;
+
+        for (final String name : PACKAGE_LISTS) {
+            try {
+                download(new URL(base + name), folder, name);
+                removeOtherPackageLists(folder, name);
+
+                return;
+            }
+            catch (final IOException e) {
+                failure = e;
+            }
+        }
+
+        throw failure;
+    }
+
+    /**
+     * Remove package lists other than the given one from the given folder so
+     * that JavaDoc does not pick up an outdated one.
+     *
+     * @param folder
+     *            folder containing the cached package list of a link.
+     * @param name
+     *            name of the package list just downloaded.
+     */
+    private void removeOtherPackageLists(final File folder, final String name) {
+        for (final String other : PACKAGE_LISTS) {
+            final File stale = new File(folder, other);
+
+            if (!other.equals(name) && stale.exists() && !stale.delete()) {
+                throw new IllegalStateException("Could not delete " + stale.getAbsolutePath());
+            }
+        }
+    }
+
+    /**
+     * Download the given URL into a file with the given name in the given
+     * folder.
+     *
+     * @param url
+     *            URL to download.
+     * @param folder
+     *            folder to store the downloaded file in.
+     * @param name
+     *            name of the file to store.
+     * @throws IOException
+     *             when downloading failed.
+     */
+    private void download(final URL url, final File folder, final String name) throws IOException {
+        final URLConnection connection = ProxyConfiguration.open(url);
+        connection.setConnectTimeout(TIMEOUT);
+        connection.setReadTimeout(TIMEOUT);
+
+        final InputStream input = connection.getInputStream();
+        OutputStream output = null;
+        File temp = null;
+
+        try {
+            temp = File.createTempFile(name, ".tmp", folder);
+            output = new FileOutputStream(temp);
+            Util.copyStream(input, output);
+            output.close();
+            output = null;
+
+            final File target = new File(folder, name);
+
+            if (target.exists() && !target.delete() || !temp.renameTo(target)) {
+                throw new IOException("Could not rename " + temp.getAbsolutePath() + " to " + target.getAbsolutePath());
+            }
+        }
+        finally {
+            IOUtils.closeQuietly(input);
+            IOUtils.closeQuietly(output);
+
+            if (temp != null && temp.exists() && !temp.delete()) {
+                Logger.getLogger(getClass()).warn("Could not delete " + temp.getAbsolutePath());
+            }
+        }
+    }
+
+    /**
+     * Find a cached package list in the given folder.
+     *
+     * @param folder
+     *            folder containing the cached package list of a link.
+     * @return the cached package list or <code>null</code> when there is
+     *         none.
+     */
+    private File findPackageList(final File folder) {
+        for (final String name : PACKAGE_LISTS) {
+            final File packageList = new File(folder, name);
+
+            if (packageList.exists()) {
+                return packageList;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Determine whether the given link points to a remote location.
+     *
+     * @param href
+     *            location of the linked documentation.
+     * @return <code>true</code> when the given link is a URL not pointing to
+     *         the local file system, <code>false</code> otherwise.
+     */
+    private boolean isRemote(final String href) {
+        return href.contains("://") && !href.startsWith("file:");
+    }
+
+    /**
+     * Calculate the name of the cache folder for the given link.
+     *
+     * @param href
+     *            location of the linked documentation.
+     * @return the SHA-1 of the given link as a hex string.
+     */
+    private String digest(final String href) {
+        try {
+            return Util.toHexString(MessageDigest.getInstance("SHA-1").digest(href.getBytes(UTF8)));
+        }
+        catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
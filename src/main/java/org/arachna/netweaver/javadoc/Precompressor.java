@@ -0,0 +1,223 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Writes gzip compressed siblings (<code>&lt;file&gt;.gz</code>) of the text
+ * files of the generated JavaDoc documentation, so that {@link JavaDocAction}
+ * can serve them to browsers accepting compressed content without
+ * compressing on every request.
+ *
+ * Only the folders published by the current build and the overview are
+ * compressed, and only when requested in the configuration of
+ * {@link JavaDocBuilder}. Siblings are only written for files changed since
+ * they were last compressed (the sibling carries the modification time of
+ * its file).
+ * Siblings of files that no longer exist are removed. Folders whose name
+ * starts with a dot (caches) are skipped.
+ *
+ * @author Dirk Weigenand
+ */
+final class Precompressor {
+    /**
+     * suffix of compressed siblings.
+     */
+    static final String SUFFIX = ".gz";
+
+    /**
+     * suffixes of the files worth compressing.
+     */
+    static final Collection<String> COMPRESSIBLE = new HashSet<String>(Arrays.asList("html", "css", "js", "json", "svg",
+        "txt", "xml"));
+
+    /**
+     * files smaller than this are not worth compressing.
+     */
+    private static final int MIN_SIZE = 1024;
+
+    /**
+     * number of siblings written.
+     */
+    private int compressed;
+
+    /**
+     * number of siblings removed.
+     */
+    private int removed;
+
+    /**
+     * Compress the files in the given folder and its sub folders.
+     *
+     * @param folder
+     *            JavaDoc folder of a development component.
+     * @return this precompressor (for querying statistics).
+     */
+    Precompressor compress(final File folder) {
+        return compress(folder, true);
+    }
+
+    /**
+     * Compress the files in the given folder, but not those in its sub
+     * folders (e.g. the overview in the JavaDoc folder of the workspace).
+     *
+     * @param folder
+     *            folder containing the files to compress.
+     * @return this precompressor (for querying statistics).
+     */
+    Precompressor compressFiles(final File folder) {
+        return compress(folder, false);
+    }
+
+    /**
+     * @return the number of siblings written
+     */
+    int getCompressed() {
+        return compressed;
+    }
+
+    /**
+     * @return the number of siblings removed
+     */
+    int getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Determine whether the given file is a text file worth compressing.
+     *
+     * @param file
+     *            file to check.
+     * @return <code>true</code> when the file is a text file that should be
+     *         compressed, <code>false</code> otherwise.
+     */
+    static boolean isCompressible(final File file) {
+        final String name = file.getName();
+
+        return COMPRESSIBLE.contains(name.substring(name.lastIndexOf('.') + 1).toLowerCase());
+    }
+
+    /**
+     * Get the compressed sibling of the given file.
+     *
+     * @param file
+     *            a file of the JavaDoc documentation.
+     * @return the compressed sibling when it is up to date with the given
+     *         file, <code>null</code> otherwise.
+     */
+    static File getCompressed(final File file) {
+        final File compressed = new File(file.getPath() + SUFFIX);
+
+        return compressed.lastModified() == file.lastModified() ? compressed : null;
+    }
+
+    /**
+     * Compress the files in the given folder and (optionally) its sub
+     * folders.
+     *
+     * @param folder
+     *            folder containing the files to compress.
+     * @param recursive
+     *            indicates whether sub folders should be compressed too.
+     * @return this precompressor (for querying statistics).
+     */
+    private Precompressor compress(final File folder, final boolean recursive) {
+        final File[] files = folder.listFiles();
+
+        if (files != null) {
+            for (final File file : files) {
+                if (file.isDirectory()) {
+                    if (recursive && !file.getName().startsWith(".")) {
+                        compress(file, true);
+                    }
+                }
+                else if (file.getName().endsWith(SUFFIX)) {
+                    removeOrphan(file);
+                }
+                else if (isCompressible(file) && file.length() >= MIN_SIZE) {
+                    compressFile(file);
+                }
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * Write the compressed sibling of the given file unless it is up to
+     * date.
+     *
+     * @param file
+     *            file to compress.
+     */
+    private void compressFile(final File file) {
+        if (getCompressed(file) != null) {
+            return;
+        }
+
+        final File sibling = new File(file.getPath() + SUFFIX);
+        final File temporary = new File(file.getPath() + SUFFIX + ".tmp");
+        InputStream input = null;
+        OutputStream output = null;
+
+        try {
+            input = new FileInputStream(file);
+            output = new GZIPOutputStream(new FileOutputStream(temporary));
+            final byte[] buffer = new byte[8192];
+            int length;
+
+            while ((length = input.read(buffer)) != -1) {
+                output.write(buffer, 0, length);
+            }
+
+            output.close();
+            output = null;
+
+            if (sibling.exists() && !sibling.delete() || !temporary.renameTo(sibling)
+                || !sibling.setLastModified(file.lastModified())) {
+                throw new IOException("Could not write " + sibling.getAbsolutePath());
+            }
+
+            compressed++;
+        }
+        catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+        finally {
+            IOUtils.closeQuietly(input);
+            IOUtils.closeQuietly(output);
+        }
+    }
+
+    /**
+     * Remove the given compressed sibling when the file it was compressed
+     * from no longer exists.
+     *
+     * @param sibling
+     *            compressed sibling.
+     */
+    private void removeOrphan(final File sibling) {
+        final String path = sibling.getPath();
+
+        if (!new File(path.substring(0, path.length() - SUFFIX.length())).exists()) {
+            if (!sibling.delete()) {
+                throw new IllegalStateException("Could not delete " + sibling.getAbsolutePath());
+            }
+
+            removed++;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import java.io.File;
+
+/**
+ * Cache of generated JavaDoc documentation shared by all jobs. Entries are
+ * keyed by the fingerprint of the inputs of a JavaDoc run (see
+ * {@link JavaDocFingerprint}), so a development component contained in
+ * several tracks is documented only once.
+ *
+ * Implementations must not fail a build: errors accessing the cache are
+ * logged and treated as a cache miss.
+ *
+ * @author Dirk Weigenand
+ */
+interface ResultCache {
+    /**
+     * Restore the JavaDoc documentation with the given fingerprint into the
+     * given (empty) folder.
+     *
+     * @param key
+     *            fingerprint of the inputs of the JavaDoc run.
+     * @param folder
+     *            folder to restore the JavaDoc documentation into.
+     * @return <code>true</code> when the JavaDoc documentation was restored,
+     *         <code>false</code> otherwise.
+     */
+    boolean restore(String key, File folder);
+
+    /**
+     * Store the JavaDoc documentation generated into the given folder under
+     * the given fingerprint.
+     *
+     * @param key
+     *            fingerprint of the inputs of the JavaDoc run.
+     * @param folder
+     *            folder containing the generated JavaDoc documentation.
+     */
+    void store(String key, File folder);
+}
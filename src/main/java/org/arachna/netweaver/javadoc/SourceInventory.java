@@ -0,0 +1,293 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+import org.arachna.ant.AntHelper;
+import org.arachna.netweaver.dc.types.DevelopmentComponent;
+
+/**
+ * Inventory of the source folders of development components.
+ *
+ * Each source folder is walked once per build. The files and Java packages
+ * found are used for generating JavaDoc (explicit package and file lists
+ * instead of wildcard file sets) and for calculating fingerprints.
+ *
+ * @author Dirk Weigenand
+ */
+final class SourceInventory {
+    /**
+     * Helper class for determining the source folders of development
+     * components.
+     */
+    private final AntHelper antHelper;
+
+    /**
+     * source folders of development components.
+     */
+    private final ConcurrentMap<DevelopmentComponent, List<String>> sourcePaths =
+        new ConcurrentHashMap<DevelopmentComponent, List<String>>();
+
+    /**
+     * contents of the source folders walked.
+     */
+    private final ConcurrentMap<String, SourceFolder> sourceFolders = new ConcurrentHashMap<String, SourceFolder>();
+
+    /**
+     * Create an inventory of the source folders of development components.
+     *
+     * @param antHelper
+     *            helper for determining the source folders of development
+     *            components.
+     */
+    SourceInventory(final AntHelper antHelper) {
+        this.antHelper = antHelper;
+    }
+
+    /**
+     * Walk the source folders of the given development components
+     * concurrently using as many threads as processors are available.
+     *
+     * @param components
+     *            development components whose source folders should be
+     *            walked.
+     * @throws InterruptedException
+     *             when the build was interrupted.
+     */
+    void scan(final Collection<DevelopmentComponent> components) throws InterruptedException {
+        final Set<String> folders = new TreeSet<String>();
+
+        for (final DevelopmentComponent component : components) {
+            folders.addAll(getSourcePaths(component));
+        }
+
+        folders.removeAll(sourceFolders.keySet());
+
+        if (folders.isEmpty()) {
+            return;
+        }
+
+        final ExecutorService executor =
+            Executors.newFixedThreadPool(Math.min(folders.size(), Runtime.getRuntime().availableProcessors()));
+
+        try {
+            final Collection<Future<SourceFolder>> results = new ArrayList<Future<SourceFolder>>();
+
+            for (final String folder : folders) {
+                results.add(executor.submit(new Callable<SourceFolder>() {
+                    public SourceFolder call() {
+                        return getSourceFolder(folder);
+                    }
+                }));
+            }
+
+            for (final Future<SourceFolder> result : results) {
+                result.get();
+            }
+        }
+        catch (final ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Get the source folders of the given development component.
+     *
+     * @param component
+     *            development component to get the source folders for.
+     * @return the source folders of the given development component.
+     */
+    List<String> getSourcePaths(final DevelopmentComponent component) {
+        List<String> paths = sourcePaths.get(component);
+
+        if (paths == null) {
+            paths = Collections.unmodifiableList(new ArrayList<String>(antHelper.createSourceFileSets(component)));
+            sourcePaths.put(component, paths);
+        }
+
+        return paths;
+    }
+
+    /**
+     * Get the contents of the given source folder. The folder is walked on
+     * first access.
+     *
+     * @param folder
+     *            source folder to get the contents of.
+     * @return contents of the given source folder.
+     */
+    SourceFolder getSourceFolder(final String folder) {
+        SourceFolder sourceFolder = sourceFolders.get(folder);
+
+        if (sourceFolder == null) {
+            sourceFolder = new SourceFolder(new File(folder));
+            sourceFolders.put(folder, sourceFolder);
+        }
+
+        return sourceFolder;
+    }
+
+    /**
+     * Get the Java packages in the source folders of the given development
+     * component.
+     *
+     * @param component
+     *            development component to get the packages of.
+     * @return names of the packages containing Java sources (sorted, without
+     *         the default package).
+     */
+    Collection<String> getPackages(final DevelopmentComponent component) {
+        final Set<String> packages = new TreeSet<String>();
+
+        for (final String folder : getSourcePaths(component)) {
+            packages.addAll(getSourceFolder(folder).getPackages());
+        }
+
+        packages.remove("");
+
+        return packages;
+    }
+
+    /**
+     * Get the Java sources in the source folders of the given development
+     * component.
+     *
+     * @param component
+     *            development component to get the Java sources of.
+     * @return absolute paths of the Java sources.
+     */
+    Collection<String> getSourceFiles(final DevelopmentComponent component) {
+        final Collection<String> sources = new ArrayList<String>();
+
+        for (final String folder : getSourcePaths(component)) {
+            final File root = new File(folder);
+
+            for (final String file : getSourceFolder(folder).getFiles()) {
+                if (file.endsWith(".java")) {
+                    sources.add(new File(root, file).getAbsolutePath());
+                }
+            }
+        }
+
+        return sources;
+    }
+
+    /**
+     * Contents of a source folder.
+     */
+    static final class SourceFolder {
+        /**
+         * paths of the files in the source folder (relative to it, separated
+         * by '/', sorted).
+         */
+        private final List<String> files;
+
+        /**
+         * names of the packages containing Java sources (the default package
+         * is represented by an empty string).
+         */
+        private final Set<String> packages;
+
+        /**
+         * Walk the given source folder.
+         *
+         * @param folder
+         *            source folder to walk.
+         */
+        SourceFolder(final File folder) {
+            final List<String> files = new ArrayList<String>();
+            final Set<String> packages = new TreeSet<String>();
+
+            if (folder.isDirectory()) {
+                walk(folder.toPath(), files, packages);
+            }
+
+            Collections.sort(files);
+            this.files = Collections.unmodifiableList(files);
+            this.packages = Collections.unmodifiableSet(packages);
+        }
+
+        /**
+         * @return the paths of the files in the source folder (relative to it,
+         *         separated by '/', sorted)
+         */
+        List<String> getFiles() {
+            return files;
+        }
+
+        /**
+         * @return the names of the packages containing Java sources (the
+         *         default package is represented by an empty string)
+         */
+        Set<String> getPackages() {
+            return packages;
+        }
+
+        /**
+         * Collect the files and packages in the given source folder.
+         *
+         * @param root
+         *            source folder to walk.
+         * @param files
+         *            list to add the relative paths of found files to.
+         * @param packages
+         *            set to add the names of packages containing Java sources
+         *            to.
+         */
+        private static void walk(final Path root, final List<String> files, final Set<String> packages) {
+            try {
+                Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(final Path file, final BasicFileAttributes attributes) {
+                        if (attributes.isRegularFile()) {
+                            final String path = root.relativize(file).toString().replace(File.separatorChar, '/');
+                            files.add(path);
+
+                            if (path.endsWith(".java")) {
+                                final int index = path.lastIndexOf('/');
+                                packages.add(index < 0 ? "" : path.substring(0, index).replace('/', '.'));
+                            }
+                        }
+
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(final Path file, final IOException e) {
+                        Logger.getLogger(SourceInventory.class).warn("Could not read " + file, e);
+
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            }
+            catch (final IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
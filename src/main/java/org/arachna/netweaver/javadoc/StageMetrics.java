@@ -0,0 +1,145 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import java.io.Serializable;
+
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * Measurements taken for one stage of JavaDoc generation of a development
+ * component.
+ *
+ * @author Dirk Weigenand
+ */
+@ExportedBean
+public final class StageMetrics implements Serializable {
+    /**
+     * serialization version.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * name of the development component (<code>vendor:name</code>).
+     */
+    private final String component;
+
+    /**
+     * the measured stage.
+     */
+    private final JavaDocStage stage;
+
+    /**
+     * wall clock time in milliseconds.
+     */
+    private final long wallTime;
+
+    /**
+     * CPU time of the Jenkins thread executing the stage in milliseconds.
+     */
+    private final long cpuTime;
+
+    /**
+     * number of source files processed.
+     */
+    private final int sourceFiles;
+
+    /**
+     * number of files generated.
+     */
+    private final int generatedFiles;
+
+    /**
+     * number of bytes generated.
+     */
+    private final long outputBytes;
+
+    /**
+     * Create measurements for a stage of JavaDoc generation.
+     *
+     * @param component
+     *            name of the development component (<code>vendor:name</code>).
+     * @param stage
+     *            the measured stage.
+     * @param wallTime
+     *            wall clock time in milliseconds.
+     * @param cpuTime
+     *            CPU time of the Jenkins thread executing the stage in
+     *            milliseconds.
+     * @param sourceFiles
+     *            number of source files processed.
+     * @param generatedFiles
+     *            number of files generated.
+     * @param outputBytes
+     *            number of bytes generated.
+     */
+    StageMetrics(final String component, final JavaDocStage stage, final long wallTime, final long cpuTime, final int sourceFiles,
+        final int generatedFiles, final long outputBytes) {
+        this.component = component;
+        this.stage = stage;
+        this.wallTime = wallTime;
+        this.cpuTime = cpuTime;
+        this.sourceFiles = sourceFiles;
+        this.generatedFiles = generatedFiles;
+        this.outputBytes = outputBytes;
+    }
+
+    /**
+     * @return the name of the development component (<code>vendor:name</code>)
+     */
+    @Exported
+    public String getComponent() {
+        return component;
+    }
+
+    /**
+     * @return the measured stage
+     */
+    @Exported
+    public JavaDocStage getStage() {
+        return stage;
+    }
+
+    /**
+     * @return the wall clock time in milliseconds
+     */
+    @Exported
+    public long getWallTime() {
+        return wallTime;
+    }
+
+    /**
+     * @return the CPU time of the Jenkins thread executing the stage in
+     *         milliseconds
+     */
+    @Exported
+    public long getCpuTime() {
+        return cpuTime;
+    }
+
+    /**
+     * @return the number of source files processed
+     */
+    @Exported
+    public int getSourceFiles() {
+        return sourceFiles;
+    }
+
+    /**
+     * @return the number of files generated
+     */
+    @Exported
+    public int getGeneratedFiles() {
+        return generatedFiles;
+    }
+
+    /**
+     * @return the number of bytes generated
+     */
+    @Exported
+    public long getOutputBytes() {
+        return outputBytes;
+    }
+}
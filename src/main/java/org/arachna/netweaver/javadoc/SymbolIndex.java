@@ -0,0 +1,1032 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import hudson.Util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.Logger;
+import org.arachna.netweaver.dc.types.DevelopmentComponent;
+
+/**
+ * Track wide index of the packages, types and members documented in the
+ * JavaDoc folders of all development components. The index is used by the
+ * search on the overview page.
+ *
+ * The symbols of a development component are read from the search index
+ * written by JavaDoc (Java 9 and later) or from <code>package-list</code>,
+ * <code>allclasses-*.html</code> and the index pages (earlier versions). They
+ * are cached per development component together with a stamp of the files
+ * they were read from, so only development components whose documentation
+ * changed are indexed again. The stamps of all development components are
+ * recorded as well, so the shards are not rebuilt at all when neither the
+ * indexed development components nor their documentation changed.
+ *
+ * The index is written as JSON into the folder {@link #FOLDER}:
+ * {@link #MANIFEST} lists the development components and the shards, each
+ * shard <code>&lt;prefix&gt;.json</code> contains the symbols whose name
+ * starts with the respective (lower case) prefix sorted by name. A search
+ * thus only loads the shards matching the query. Shards are only rewritten
+ * when their content changed.
+ *
+ * @author Dirk Weigenand
+ */
+final class SymbolIndex {
+    /**
+     * folder (in the JavaDoc folder) containing the index.
+     */
+    static final String FOLDER = "search";
+
+    /**
+     * name of the file listing development components and shards.
+     */
+    static final String MANIFEST = "index.json";
+
+    /**
+     * folder (in {@link #FOLDER}) containing the symbols cached per
+     * development component.
+     */
+    private static final String CACHE_FOLDER = ".dc";
+
+    /**
+     * file (in the cache folder) recording the stamps of the development
+     * components the shards were built from.
+     */
+    private static final String STAMPS = "stamps.txt";
+
+    /**
+     * number of characters of the symbol names shards are keyed by.
+     */
+    private static final int PREFIX_LENGTH = 2;
+
+    /**
+     * files of the JavaDoc documentation of a development component symbols
+     * are read from.
+     */
+    private static final String[] SOURCES = { "package-search-index.js", "package-search-index.zip", "type-search-index.js",
+        "type-search-index.zip", "member-search-index.js", "member-search-index.zip", "package-list", "element-list",
+        "allclasses-noframe.html", "allclasses-frame.html", "index-all.html", "index-files" };
+
+    /**
+     * an object in a JavaDoc search index.
+     */
+    private static final Pattern JSON_OBJECT = Pattern.compile("\\{([^{}]*)\\}");
+
+    /**
+     * a property with a string value of an object in a JavaDoc search index.
+     */
+    private static final Pattern JSON_PROPERTY = Pattern.compile("\"(\\w+)\"\\s*:\\s*\"((?:[^\"\\\\]|\\\\.)*)\"");
+
+    /**
+     * a link to a type in <code>allclasses-*.html</code>.
+     */
+    private static final Pattern TYPE_LINK = Pattern.compile("<a href=\"([^\"#:]+)\\.html\"[^>]*>(?:<[^>]+>)*([\\w$.]+)",
+        Pattern.CASE_INSENSITIVE);
+
+    /**
+     * a link to a member in the index pages (links to pages other than types,
+     * e.g. <code>index-all.html#I:A</code>, contain a dash and are skipped).
+     */
+    private static final Pattern MEMBER_LINK = Pattern.compile(
+        "<a href=\"(?:\\.\\.?/)?([^\"#:]+)\\.html#([^\"]+)\"[^>]*>(?:<[^>]+>)*([^<]+)", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Encoding of cache, JSON and HTML files.
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * the JavaDoc folder containing the documentation of all development
+     * components.
+     */
+    private final File javaDocFolder;
+
+    /**
+     * folder containing the index.
+     */
+    private final File folder;
+
+    /**
+     * Create a symbol index in the given JavaDoc folder.
+     *
+     * @param javaDocFolder
+     *            the JavaDoc folder containing the documentation of all
+     *            development components.
+     */
+    SymbolIndex(final File javaDocFolder) {
+        this.javaDocFolder = javaDocFolder;
+        folder = new File(javaDocFolder, FOLDER);
+    }
+
+    /**
+     * Update the index with the symbols of the given development components.
+     * Development components not given are removed from the index.
+     *
+     * @param index
+     *            index used to determine the JavaDoc folders of development
+     *            components.
+     * @param components
+     *            development components to index (in the order they are
+     *            shown in the overview).
+     * @return number of development components whose symbols were read from
+     *         their documentation (i.e. not from the cache).
+     */
+    int update(final DevelopmentComponentIndex index, final Collection<DevelopmentComponent> components) {
+        final File cacheFolder = new File(folder, CACHE_FOLDER);
+
+        if (!cacheFolder.exists() && !cacheFolder.mkdirs()) {
+            throw new IllegalStateException("Could not mkdir " + cacheFolder.getAbsolutePath());
+        }
+
+        final List<String[]> dcs = new ArrayList<String[]>();
+        final List<String> stamps = new ArrayList<String>();
+        final StringBuilder state = new StringBuilder();
+
+        for (final DevelopmentComponent component : components) {
+            final String folderName = index.getFolderName(component);
+            final File docFolder = new File(javaDocFolder, folderName);
+
+            if (docFolder.isDirectory()) {
+                final File archive = JavaDocArchive.getArchive(docFolder);
+                final String stamp = archive.isFile() ? getStamp(archive) : getStamp(docFolder);
+                dcs.add(new String[] { folderName, String.format("%s:%s", component.getVendor(), component.getName()) });
+                stamps.add(stamp);
+                state.append(folderName).append('\t').append(stamp).append('\n');
+            }
+        }
+
+        final File stampsFile = new File(cacheFolder, STAMPS);
+        final Map<String, List<IndexedSymbol>> shards = new TreeMap<String, List<IndexedSymbol>>();
+        final Set<String> cacheFiles = new HashSet<String>();
+        int indexed = 0;
+
+        try {
+            if (new File(folder, MANIFEST).isFile() && state.toString().equals(read(stampsFile))) {
+                return indexed;
+            }
+
+            for (int i = 0; i < dcs.size(); i++) {
+                final String folderName = dcs.get(i)[0];
+                final File docFolder = new File(javaDocFolder, folderName);
+                final File cacheFile = new File(cacheFolder, folderName + ".txt");
+                final File archive = JavaDocArchive.getArchive(docFolder);
+                final String stamp = stamps.get(i);
+                List<Symbol> symbols = readCache(cacheFile, stamp);
+
+                if (symbols == null) {
+                    symbols = archive.isFile() ? extractPacked(archive, new File(cacheFolder, folderName)) : extract(docFolder);
+                    writeCache(cacheFile, stamp, symbols);
+                    indexed++;
+                }
+
+                cacheFiles.add(cacheFile.getName());
+
+                for (final Symbol symbol : symbols) {
+                    final String shard = getShard(symbol.getName());
+                    List<IndexedSymbol> shardSymbols = shards.get(shard);
+
+                    if (shardSymbols == null) {
+                        shardSymbols = new ArrayList<IndexedSymbol>();
+                        shards.put(shard, shardSymbols);
+                    }
+
+                    shardSymbols.add(new IndexedSymbol(symbol, i));
+                }
+            }
+
+            cacheFiles.add(STAMPS);
+            removeStale(cacheFolder, cacheFiles);
+            writeShards(dcs, shards);
+            writeIfChanged(stampsFile, state.toString());
+        }
+        catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return indexed;
+    }
+
+    /**
+     * Determine the shard of a symbol with the given name: the first
+     * {@link #PREFIX_LENGTH} characters of the name in lower case with
+     * characters other than letters and digits (and missing characters)
+     * replaced by <code>_</code>.
+     *
+     * @param name
+     *            name of the symbol.
+     * @return the name of the shard.
+     */
+    static String getShard(final String name) {
+        final StringBuilder shard = new StringBuilder(PREFIX_LENGTH);
+
+        for (int i = 0; i < PREFIX_LENGTH; i++) {
+            final char c = i < name.length() ? Character.toLowerCase(name.charAt(i)) : '_';
+            shard.append((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') ? c : '_');
+        }
+
+        return shard.toString();
+    }
+
+    /**
+     * Read the symbols documented in the given JavaDoc folder of a
+     * development component.
+     *
+     * @param docFolder
+     *            JavaDoc folder of a development component.
+     * @return the symbols documented in the given folder.
+     * @throws IOException
+     *             when a file could not be read.
+     */
+    List<Symbol> extract(final File docFolder) throws IOException {
+        final List<Symbol> symbols = new ArrayList<Symbol>();
+        final String packages = read(docFolder, "package-search-index");
+
+        if (packages != null) {
+            extractFromSearchIndex(packages, read(docFolder, "type-search-index"), read(docFolder, "member-search-index"), symbols);
+        }
+        else {
+            extractFromPages(docFolder, symbols);
+        }
+
+        return symbols;
+    }
+
+    /**
+     * Read the symbols documented in the given archive of the JavaDoc
+     * documentation of a development component.
+     *
+     * @param archive
+     *            archive written by {@link JavaDocArchive}.
+     * @param folder
+     *            temporary folder to extract the files symbols are read from
+     *            to.
+     * @return the symbols documented in the given archive.
+     * @throws IOException
+     *             when the archive could not be read.
+     */
+    private List<Symbol> extractPacked(final File archive, final File folder) throws IOException {
+        Util.deleteRecursive(folder);
+
+        try {
+            JavaDocArchive.unpack(archive, folder, Arrays.asList(SOURCES));
+
+            return extract(folder);
+        }
+        finally {
+            Util.deleteRecursive(folder);
+        }
+    }
+
+    /**
+     * Read the symbols from the search index written by JavaDoc 9 and later.
+     *
+     * @param packages
+     *            content of the package search index.
+     * @param types
+     *            content of the type search index (may be <code>null</code>).
+     * @param members
+     *            content of the member search index (may be
+     *            <code>null</code>).
+     * @param symbols
+     *            list to add the symbols to.
+     */
+    private void extractFromSearchIndex(final String packages, final String types, final String members,
+        final List<Symbol> symbols) {
+        for (final Map<String, String> entry : parseSearchIndex(packages)) {
+            final String name = entry.get("l");
+            final String url = entry.get("url");
+
+            if (name != null && !name.startsWith("<") && (url == null || url.endsWith("package-summary.html"))) {
+                symbols.add(new Symbol(Symbol.Kind.Package, name, "", getPackageUrl(name)));
+            }
+        }
+
+        for (final Map<String, String> entry : parseSearchIndex(types)) {
+            final String packageName = entry.get("p");
+            final String name = entry.get("l");
+
+            if (packageName != null && name != null) {
+                final String url = entry.get("u");
+                symbols.add(new Symbol(Symbol.Kind.Type, name, packageName, url != null ? url : getTypeUrl(packageName, name)));
+            }
+        }
+
+        for (final Map<String, String> entry : parseSearchIndex(members)) {
+            final String packageName = entry.get("p");
+            final String type = entry.get("c");
+            final String name = entry.get("l");
+
+            if (packageName != null && type != null && name != null) {
+                final String anchor = entry.get("u");
+                symbols.add(new Symbol(Symbol.Kind.Member, name, packageName + "." + type, getTypeUrl(packageName, type) + "#"
+                    + (anchor != null ? anchor : name)));
+            }
+        }
+    }
+
+    /**
+     * Read the symbols from the pages written by JavaDoc 8 and earlier:
+     * packages from <code>package-list</code>, types from
+     * <code>allclasses-*.html</code> and members from the (split) index.
+     *
+     * @param docFolder
+     *            JavaDoc folder of a development component.
+     * @param symbols
+     *            list to add the symbols to.
+     * @throws IOException
+     *             when a file could not be read.
+     */
+    private void extractFromPages(final File docFolder, final List<Symbol> symbols) throws IOException {
+        final String packages = read(new File(docFolder, "package-list"));
+
+        if (packages != null) {
+            for (final String name : packages.split("\\s+")) {
+                if (name.length() > 0) {
+                    symbols.add(new Symbol(Symbol.Kind.Package, name, "", getPackageUrl(name)));
+                }
+            }
+        }
+
+        String types = read(new File(docFolder, "allclasses-noframe.html"));
+
+        if (types == null) {
+            types = read(new File(docFolder, "allclasses-frame.html"));
+        }
+
+        if (types != null) {
+            final Matcher matcher = TYPE_LINK.matcher(types);
+
+            while (matcher.find()) {
+                final String path = matcher.group(1);
+                final int separator = path.lastIndexOf('/');
+                symbols.add(new Symbol(Symbol.Kind.Type, matcher.group(2), separator < 0 ? "" : path.substring(0, separator)
+                    .replace('/', '.'), path + ".html"));
+            }
+        }
+
+        final List<File> indexPages = new ArrayList<File>();
+        final File[] splitIndex = new File(docFolder, "index-files").listFiles();
+
+        if (splitIndex != null) {
+            Arrays.sort(splitIndex);
+            indexPages.addAll(Arrays.asList(splitIndex));
+        }
+        else {
+            indexPages.add(new File(docFolder, "index-all.html"));
+        }
+
+        final Set<String> members = new HashSet<String>();
+
+        for (final File page : indexPages) {
+            final String content = read(page);
+
+            if (content != null) {
+                final Matcher matcher = MEMBER_LINK.matcher(content);
+
+                while (matcher.find()) {
+                    final String path = matcher.group(1);
+                    final String url = path + ".html#" + matcher.group(2);
+
+                    if (path.substring(path.lastIndexOf('/') + 1).indexOf('-') < 0 && members.add(url)) {
+                        symbols.add(new Symbol(Symbol.Kind.Member, unescape(matcher.group(3).trim()), path.replace('/', '.'), url));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Parse the objects of a JavaDoc search index into maps of their string
+     * properties.
+     *
+     * @param content
+     *            content of a JavaDoc search index (may be <code>null</code>).
+     * @return the objects of the search index.
+     */
+    private List<Map<String, String>> parseSearchIndex(final String content) {
+        final List<Map<String, String>> entries = new ArrayList<Map<String, String>>();
+
+        if (content != null) {
+            final Matcher object = JSON_OBJECT.matcher(content);
+
+            while (object.find()) {
+                final Map<String, String> entry = new HashMap<String, String>();
+                final Matcher property = JSON_PROPERTY.matcher(object.group(1));
+
+                while (property.find()) {
+                    entry.put(property.group(1), unquote(property.group(2)));
+                }
+
+                entries.add(entry);
+            }
+        }
+
+        return entries;
+    }
+
+    /**
+     * @param packageName
+     *            name of a package.
+     * @return the URL of the summary of the given package relative to the
+     *         JavaDoc folder
+     */
+    private String getPackageUrl(final String packageName) {
+        return packageName.replace('.', '/') + "/package-summary.html";
+    }
+
+    /**
+     * @param packageName
+     *            name of the package of a type.
+     * @param type
+     *            name of the type (including enclosing types).
+     * @return the URL of the documentation of the given type relative to the
+     *         JavaDoc folder
+     */
+    private String getTypeUrl(final String packageName, final String type) {
+        return packageName.replace('.', '/') + "/" + type + ".html";
+    }
+
+    /**
+     * Calculate a stamp from the sizes and modification times of the files
+     * symbols are read from.
+     *
+     * @param docFolder
+     *            JavaDoc folder of a development component (or its archive).
+     * @return the stamp of the JavaDoc folder.
+     */
+    private String getStamp(final File docFolder) {
+        final StringBuilder stamp = new StringBuilder();
+
+        if (docFolder.isFile()) {
+            appendStamp(stamp, docFolder);
+
+            return stamp.toString();
+        }
+
+        for (final String source : SOURCES) {
+            final File file = new File(docFolder, source);
+            final File[] files = file.listFiles();
+
+            if (files != null) {
+                Arrays.sort(files);
+
+                for (final File child : files) {
+                    appendStamp(stamp, child);
+                }
+            }
+            else if (file.exists()) {
+                appendStamp(stamp, file);
+            }
+        }
+
+        return stamp.toString();
+    }
+
+    /**
+     * Add name, size and modification time of the given file to the stamp.
+     *
+     * @param stamp
+     *            stamp to add to.
+     * @param file
+     *            file to add.
+     */
+    private void appendStamp(final StringBuilder stamp, final File file) {
+        stamp.append(file.getName()).append(':').append(file.length()).append(':').append(file.lastModified()).append(';');
+    }
+
+    /**
+     * Read the symbols cached for a development component.
+     *
+     * @param cacheFile
+     *            file caching the symbols.
+     * @param stamp
+     *            current stamp of the JavaDoc folder of the development
+     *            component.
+     * @return the cached symbols or <code>null</code> when there are none or
+     *         they were read from a different state of the JavaDoc folder.
+     * @throws IOException
+     *             when the cache file could not be read.
+     */
+    private List<Symbol> readCache(final File cacheFile, final String stamp) throws IOException {
+        if (!cacheFile.exists()) {
+            return null;
+        }
+
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(cacheFile), UTF8));
+
+        try {
+            if (!stamp.equals(reader.readLine())) {
+                return null;
+            }
+
+            final List<Symbol> symbols = new ArrayList<Symbol>();
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                final String[] fields = line.split("\t", -1);
+
+                if (fields.length == 4) {
+                    symbols.add(new Symbol(Symbol.Kind.valueOf(fields[0]), fields[1], fields[2], fields[3]));
+                }
+            }
+
+            return symbols;
+        }
+        catch (final IllegalArgumentException e) {
+            Logger.getLogger(getClass()).warn("Ignoring corrupt " + cacheFile.getAbsolutePath(), e);
+            return null;
+        }
+        finally {
+            IOUtils.closeQuietly(reader);
+        }
+    }
+
+    /**
+     * Cache the symbols of a development component.
+     *
+     * @param cacheFile
+     *            file to cache the symbols in.
+     * @param stamp
+     *            stamp of the JavaDoc folder of the development component.
+     * @param symbols
+     *            the symbols of the development component.
+     * @throws IOException
+     *             when the cache file could not be written.
+     */
+    private void writeCache(final File cacheFile, final String stamp, final List<Symbol> symbols) throws IOException {
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(cacheFile), UTF8));
+
+        try {
+            writer.write(stamp);
+            writer.write('\n');
+
+            for (final Symbol symbol : symbols) {
+                writer.write(String.format("%s\t%s\t%s\t%s%n", symbol.getKind(), clean(symbol.getName()),
+                    clean(symbol.getQualifier()), clean(symbol.getUrl())));
+            }
+
+            writer.close();
+        }
+        finally {
+            IOUtils.closeQuietly(writer);
+        }
+    }
+
+    /**
+     * Write the shards and the manifest. Shards no longer containing symbols
+     * are removed.
+     *
+     * @param dcs
+     *            folder and name of the indexed development components.
+     * @param shards
+     *            the symbols per shard.
+     * @throws IOException
+     *             when a file could not be written.
+     */
+    private void writeShards(final List<String[]> dcs, final Map<String, List<IndexedSymbol>> shards) throws IOException {
+        final StringBuilder manifest = new StringBuilder("{\"dcs\":[");
+        int symbols = 0;
+
+        for (int i = 0; i < dcs.size(); i++) {
+            manifest.append(i > 0 ? "," : "").append('[').append(quote(dcs.get(i)[0])).append(',').append(quote(dcs.get(i)[1]))
+                .append(']');
+        }
+
+        manifest.append("],\"shards\":{");
+
+        for (final Map.Entry<String, List<IndexedSymbol>> shard : shards.entrySet()) {
+            final List<IndexedSymbol> entries = shard.getValue();
+            Collections.sort(entries, new Comparator<IndexedSymbol>() {
+                public int compare(final IndexedSymbol first, final IndexedSymbol second) {
+                    int result = first.symbol.getName().compareToIgnoreCase(second.symbol.getName());
+
+                    if (result == 0) {
+                        result = first.symbol.getQualifier().compareTo(second.symbol.getQualifier());
+                    }
+
+                    return result;
+                }
+            });
+
+            final StringBuilder content = new StringBuilder("[");
+
+            for (final IndexedSymbol entry : entries) {
+                content.append(content.length() > 1 ? ",\n" : "").append('[').append(entry.symbol.getKind().ordinal()).append(',')
+                    .append(quote(entry.symbol.getName())).append(',').append(quote(entry.symbol.getQualifier())).append(',')
+                    .append(entry.dc).append(',').append(quote(entry.symbol.getUrl())).append(']');
+            }
+
+            content.append("]\n");
+            writeIfChanged(new File(folder, shard.getKey() + ".json"), content.toString());
+            manifest.append(symbols > 0 ? "," : "").append(quote(shard.getKey())).append(':').append(entries.size());
+            symbols += entries.size();
+        }
+
+        manifest.append("},\"symbols\":").append(symbols).append("}\n");
+
+        final Set<String> files = new HashSet<String>();
+        files.add(MANIFEST);
+
+        for (final String shard : shards.keySet()) {
+            files.add(shard + ".json");
+        }
+
+        removeStale(folder, files);
+        writeIfChanged(new File(folder, MANIFEST), manifest.toString());
+    }
+
+    /**
+     * Remove the files in the given folder not in the given set of names
+     * (sub folders are kept).
+     *
+     * @param parent
+     *            folder to remove files from.
+     * @param names
+     *            names of the files to keep.
+     */
+    private void removeStale(final File parent, final Set<String> names) {
+        final File[] files = parent.listFiles();
+
+        if (files != null) {
+            for (final File file : files) {
+                if (file.isFile() && !names.contains(file.getName()) && !file.delete()) {
+                    throw new IllegalStateException("Could not delete " + file.getAbsolutePath());
+                }
+            }
+        }
+    }
+
+    /**
+     * Write the given content to the given file unless the file already has
+     * exactly this content. The content is written to a temporary file that
+     * atomically replaces the file, so the search never reads a partially
+     * written shard.
+     *
+     * @param file
+     *            file to write.
+     * @param content
+     *            content to write.
+     * @throws IOException
+     *             when reading or writing the file failed.
+     */
+    private void writeIfChanged(final File file, final String content) throws IOException {
+        final byte[] bytes = content.getBytes(UTF8);
+
+        if (file.length() == bytes.length && content.equals(read(file))) {
+            return;
+        }
+
+        final File temporary = new File(file.getPath() + ".tmp");
+        final OutputStream output = new FileOutputStream(temporary);
+
+        try {
+            output.write(bytes);
+            output.close();
+        }
+        finally {
+            IOUtils.closeQuietly(output);
+        }
+
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Read a JavaDoc search index from the given folder, either the script
+     * (<code>&lt;name&gt;.js</code>) or the zipped JSON written by JavaDoc 9
+     * and 10 (<code>&lt;name&gt;.zip</code>).
+     *
+     * @param docFolder
+     *            JavaDoc folder of a development component.
+     * @param name
+     *            name of the search index.
+     * @return the content of the search index or <code>null</code> when
+     *         there is none.
+     * @throws IOException
+     *             when the search index could not be read.
+     */
+    private String read(final File docFolder, final String name) throws IOException {
+        final String script = read(new File(docFolder, name + ".js"));
+
+        if (script != null) {
+            return script;
+        }
+
+        final File zip = new File(docFolder, name + ".zip");
+
+        if (!zip.exists()) {
+            return null;
+        }
+
+        final ZipInputStream input = new ZipInputStream(new FileInputStream(zip));
+
+        try {
+            final ZipEntry entry = input.getNextEntry();
+
+            return entry == null ? null : read(input);
+        }
+        finally {
+            IOUtils.closeQuietly(input);
+        }
+    }
+
+    /**
+     * Read the given file.
+     *
+     * @param file
+     *            file to read.
+     * @return the content of the given file or <code>null</code> when it does
+     *         not exist.
+     * @throws IOException
+     *             when the file could not be read.
+     */
+    private String read(final File file) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+
+        final InputStream input = new FileInputStream(file);
+
+        try {
+            return read(input);
+        }
+        finally {
+            IOUtils.closeQuietly(input);
+        }
+    }
+
+    /**
+     * Read the given stream.
+     *
+     * @param input
+     *            stream to read.
+     * @return the content of the given stream.
+     * @throws IOException
+     *             when the stream could not be read.
+     */
+    private String read(final InputStream input) throws IOException {
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[8192];
+        int length;
+
+        while ((length = input.read(buffer)) != -1) {
+            content.write(buffer, 0, length);
+        }
+
+        return new String(content.toByteArray(), UTF8);
+    }
+
+    /**
+     * Decode the escape sequences of a JSON string.
+     *
+     * @param value
+     *            JSON string without quotes.
+     * @return the decoded string.
+     */
+    private String unquote(final String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+
+        final StringBuilder result = new StringBuilder(value.length());
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            if (c == '\\' && i + 1 < value.length()) {
+                c = value.charAt(++i);
+
+                if (c == 'u' && i + 4 < value.length()) {
+                    c = (char)Integer.parseInt(value.substring(i + 1, i + 5), 16);
+                    i += 4;
+                }
+                else if (c == 'n') {
+                    c = '\n';
+                }
+                else if (c == 't') {
+                    c = '\t';
+                }
+            }
+
+            result.append(c);
+        }
+
+        return result.toString();
+    }
+
+    /**
+     * Decode the entities used by JavaDoc in the index pages.
+     *
+     * @param value
+     *            HTML text.
+     * @return the decoded text.
+     */
+    private String unescape(final String value) {
+        return value.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"").replace("&nbsp;", " ")
+            .replace("&amp;", "&");
+    }
+
+    /**
+     * Encode the given string as JSON string.
+     *
+     * @param value
+     *            string to encode.
+     * @return the JSON string (including quotes).
+     */
+    static String quote(final String value) {
+        final StringBuilder result = new StringBuilder(value.length() + 2).append('"');
+
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+
+            if (c == '"' || c == '\\') {
+                result.append('\\').append(c);
+            }
+            else if (c < ' ' || c == '<' || c == '>' || c == '&') {
+                result.append(String.format("\\u%04x", Integer.valueOf(c)));
+            }
+            else {
+                result.append(c);
+            }
+        }
+
+        return result.append('"').toString();
+    }
+
+    /**
+     * Replace the characters separating fields and lines of the cache with
+     * blanks.
+     *
+     * @param value
+     *            value to write to the cache.
+     * @return the cleaned value.
+     */
+    private String clean(final String value) {
+        return value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    /**
+     * A package, type or member documented in a JavaDoc folder.
+     */
+    static final class Symbol {
+        /**
+         * Kinds of symbols (the ordinal is written to the index).
+         */
+        enum Kind {
+            /**
+             * a package.
+             */
+            Package,
+
+            /**
+             * a class, interface, enum or annotation type.
+             */
+            Type,
+
+            /**
+             * a constructor, method or field.
+             */
+            Member;
+        }
+
+        /**
+         * the kind of the symbol.
+         */
+        private final Kind kind;
+
+        /**
+         * name of the symbol (members including their parameters).
+         */
+        private final String name;
+
+        /**
+         * package (of types) or type (of members) containing the symbol.
+         */
+        private final String qualifier;
+
+        /**
+         * URL of the documentation of the symbol relative to the JavaDoc
+         * folder.
+         */
+        private final String url;
+
+        /**
+         * Create a symbol.
+         *
+         * @param kind
+         *            the kind of the symbol.
+         * @param name
+         *            name of the symbol.
+         * @param qualifier
+         *            package (of types) or type (of members) containing the
+         *            symbol.
+         * @param url
+         *            URL of the documentation of the symbol relative to the
+         *            JavaDoc folder.
+         */
+        Symbol(final Kind kind, final String name, final String qualifier, final String url) {
+            this.kind = kind;
+            this.name = name;
+            this.qualifier = qualifier;
+            this.url = url;
+        }
+
+        /**
+         * @return the kind of the symbol
+         */
+        Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * @return the name of the symbol
+         */
+        String getName() {
+            return name;
+        }
+
+        /**
+         * @return the package (of types) or type (of members) containing the
+         *         symbol
+         */
+        String getQualifier() {
+            return qualifier;
+        }
+
+        /**
+         * @return the URL of the documentation of the symbol relative to the
+         *         JavaDoc folder
+         */
+        String getUrl() {
+            return url;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return String.format("%s %s (%s) %s", kind, name, qualifier, url);
+        }
+    }
+
+    /**
+     * A symbol together with the number of its development component in the
+     * manifest.
+     */
+    private static final class IndexedSymbol {
+        /**
+         * the symbol.
+         */
+        private final Symbol symbol;
+
+        /**
+         * number of the development component in the manifest.
+         */
+        private final int dc;
+
+        /**
+         * Create an indexed symbol.
+         *
+         * @param symbol
+         *            the symbol.
+         * @param dc
+         *            number of the development component in the manifest.
+         */
+        IndexedSymbol(final Symbol symbol, final int dc) {
+            this.symbol = symbol;
+            this.dc = dc;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import java.io.InputStream;
+
+import org.apache.commons.collections.ExtendedProperties;
+import org.apache.velocity.Template;
+import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.exception.ResourceNotFoundException;
+import org.apache.velocity.runtime.RuntimeConstants;
+import org.apache.velocity.runtime.log.Log4JLogChute;
+import org.apache.velocity.runtime.resource.Resource;
+import org.apache.velocity.runtime.resource.loader.ResourceLoader;
+
+/**
+ * Cache for the compiled templates used to generate build files.
+ *
+ * Templates are loaded from the class path of this plugin and parsed once by
+ * a {@link VelocityEngine} shared by all builds. Since templates cannot change
+ * while the plugin is loaded they are never checked for modification. The
+ * engine logs to the Log4J logger of this class instead of creating a
+ * <code>velocity.log</code> in the working directory of Jenkins.
+ *
+ * @author Dirk Weigenand
+ */
+final class TemplateCache {
+    /**
+     * template engine shared by all builds.
+     */
+    private static final VelocityEngine ENGINE = createEngine();
+
+    /**
+     * Utility class.
+     */
+    private TemplateCache() {
+    }
+
+    /**
+     * Get the compiled template with the given name.
+     *
+     * @param name
+     *            location of the template on the class path.
+     * @return the compiled template.
+     */
+    static Template getTemplate(final String name) {
+        try {
+            return ENGINE.getTemplate(name, "UTF-8");
+        }
+        catch (final Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Create the template engine loading templates from the class path of this
+     * plugin and caching them indefinitely. Log messages are passed on to
+     * the Log4J logger of this class.
+     *
+     * @return the template engine.
+     */
+    private static VelocityEngine createEngine() {
+        final VelocityEngine engine = new VelocityEngine();
+        engine.setProperty(RuntimeConstants.RUNTIME_LOG_LOGSYSTEM_CLASS, Log4JLogChute.class.getName());
+        engine.setProperty(Log4JLogChute.RUNTIME_LOG_LOG4J_LOGGER, TemplateCache.class.getName());
+        engine.setProperty("resource.loader", "plugin");
+        engine.setProperty("plugin.resource.loader.instance", new PluginResourceLoader());
+        engine.setProperty("plugin.resource.loader.cache", Boolean.TRUE);
+        engine.setProperty("plugin.resource.loader.modificationCheckInterval", Long.valueOf(0));
+        engine.setProperty("velocimacro.library", BuildFileGenerator.MACROS);
+
+        try {
+            engine.init();
+        }
+        catch (final Exception e) {
+            throw new IllegalStateException(e);
+        }
+
+        return engine;
+    }
+
+    /**
+     * Loads templates using the class loader of this plugin.
+     */
+    private static final class PluginResourceLoader extends ResourceLoader {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void init(final ExtendedProperties configuration) {
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public InputStream getResourceStream(final String source) {
+            final InputStream stream = TemplateCache.class.getResourceAsStream(source.startsWith("/") ? source : "/" + source);
+
+            if (stream == null) {
+                throw new ResourceNotFoundException("Template " + source + " not found.");
+            }
+
+            return stream;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean isSourceModified(final Resource resource) {
+            return false;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long getLastModified(final Resource resource) {
+            return 0;
+        }
+    }
+}
@@ -35,6 +35,10 @@
           <h1>
             <xsl:value-of select="$title" />
           </h1>
+          <form id="search" onsubmit="return false;" hidden="hidden">
+            <input type="search" id="search-input" placeholder="Search packages, types and members" autocomplete="off" />
+            <ul id="search-results"></ul>
+          </form>
         </header>
         <div id="container">
           <aside>
@@ -57,6 +61,7 @@
             <xsl:apply-templates />
           </div>
         </div>
+        <script src="search.js"></script>
       </xsl:element>
     </xsl:element>
   </xsl:template>
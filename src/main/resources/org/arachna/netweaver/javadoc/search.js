@@ -0,0 +1,133 @@
+/*
+ * Search for packages, types and members of all development components using
+ * the symbol index in search/: index.json lists the development components
+ * and shards, each shard contains the symbols whose name starts with the
+ * shard's (lower case) two character prefix. Only shards matching the query
+ * are loaded. The search form is hidden until this script runs, so it is not
+ * shown when the content security policy blocks scripts.
+ */
+(function () {
+  var MAX_RESULTS = 100;
+  var KINDS = [ 'package', 'type', 'member' ];
+  var input = document.getElementById('search-input');
+  var results = document.getElementById('search-results');
+  var manifest = null;
+  var shards = {};
+
+  function load(url, callback) {
+    var request = new XMLHttpRequest();
+
+    request.onreadystatechange = function () {
+      if (request.readyState === 4 && (request.status === 200 || request.status === 0) && request.responseText) {
+        callback(JSON.parse(request.responseText));
+      }
+    };
+    request.open('GET', url, true);
+    request.send(null);
+  }
+
+  function getShard(name) {
+    var shard = '', i, c;
+
+    for (i = 0; i < 2; i++) {
+      c = i < name.length ? name.charAt(i).toLowerCase() : '_';
+      shard += /[a-z0-9]/.test(c) ? c : '_';
+    }
+
+    return shard;
+  }
+
+  function getShards(query) {
+    var names = [], prefix, name;
+
+    if (query.length > 1) {
+      name = getShard(query);
+
+      if (manifest.shards.hasOwnProperty(name)) {
+        names.push(name);
+      }
+    } else {
+      prefix = getShard(query).charAt(0);
+
+      for (name in manifest.shards) {
+        if (manifest.shards.hasOwnProperty(name) && name.charAt(0) === prefix) {
+          names.push(name);
+        }
+      }
+    }
+
+    return names;
+  }
+
+  function loadShard(name) {
+    shards[name] = null;
+    load('search/' + name + '.json', function (symbols) {
+      shards[name] = symbols;
+      search();
+    });
+  }
+
+  function addResult(symbol) {
+    var dc = manifest.dcs[symbol[3]];
+    var item = document.createElement('li');
+    var link = document.createElement('a');
+    var kind = document.createElement('span');
+
+    link.href = dc[0] + '/' + symbol[4];
+    link.appendChild(document.createTextNode(symbol[1]));
+    kind.className = 'kind';
+    kind.appendChild(document.createTextNode(KINDS[symbol[0]]));
+    item.appendChild(link);
+    item.appendChild(document.createTextNode(' '));
+    item.appendChild(kind);
+    item.appendChild(document.createTextNode(' ' + (symbol[2] ? symbol[2] + ' ' : '') + '(' + dc[1] + ')'));
+    results.appendChild(item);
+  }
+
+  function search() {
+    var query = input.value.replace(/^\s+|\s+$/g, '').toLowerCase();
+    var names, i, j, symbols, found = 0, loading = false;
+
+    while (results.firstChild) {
+      results.removeChild(results.firstChild);
+    }
+
+    if (manifest === null || query.length === 0) {
+      return;
+    }
+
+    names = getShards(query);
+
+    for (i = 0; i < names.length; i++) {
+      if (!shards.hasOwnProperty(names[i])) {
+        loadShard(names[i]);
+      }
+
+      loading = loading || shards[names[i]] === null;
+    }
+
+    if (loading) {
+      return;
+    }
+
+    for (i = 0; i < names.length && found < MAX_RESULTS; i++) {
+      symbols = shards[names[i]];
+
+      for (j = 0; j < symbols.length && found < MAX_RESULTS; j++) {
+        if (symbols[j][1].toLowerCase().indexOf(query) === 0) {
+          addResult(symbols[j]);
+          found++;
+        }
+      }
+    }
+  }
+
+  if (input !== null && results !== null) {
+    input.form.removeAttribute('hidden');
+    input.onkeyup = search;
+    load('search/index.json', function (data) {
+      manifest = data;
+      search();
+    });
+  }
+}());
@@ -0,0 +1,157 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import hudson.Util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unittests for {@link AgentJavaDocRunner}.
+ *
+ * @author Dirk Weigenand
+ */
+public class AgentJavaDocRunnerTest {
+    /**
+     * temporary folder removed after each test.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * workspace containing sources, jars and package lists.
+     */
+    private File workspace;
+
+    /**
+     * runner under test.
+     */
+    private final AgentJavaDocRunner runner = new AgentJavaDocRunner(null);
+
+    /**
+     * Create a workspace containing sources, jars and package lists.
+     */
+    @Before
+    public void setUp() throws IOException {
+        workspace = temporaryFolder.newFolder("workspace");
+        new File(workspace, "src/com/example").mkdirs();
+        new File(workspace, "lib").mkdirs();
+        new File(workspace, "javadoc/example.com~dc0").mkdirs();
+        new File(workspace, "javadoc/.package-lists/remote").mkdirs();
+        new File(workspace, "src/com/example/Api.java").createNewFile();
+        new File(workspace, "lib/api.jar").createNewFile();
+        new File(workspace, "javadoc/example.com~dc0/package-list").createNewFile();
+        new File(workspace, "javadoc/.package-lists/remote/element-list").createNewFile();
+    }
+
+    /**
+     * Sources and package lists should be copied to the agent, the missing
+     * classes folder and the cached jars should be skipped.
+     */
+    @Test
+    public final void testCreateTransfers() {
+        final Map<String, String> transfers = runner.createTransfers(createParameters());
+
+        assertEquals(Arrays.asList("sources/0", "links/0/element-list", "links/1/package-list"), new ArrayList<String>(
+            transfers.values()));
+        assertFalse(transfers.containsKey(path("classes")));
+    }
+
+    /**
+     * Jars should be cached by path, size and modification time, missing
+     * jars should be skipped.
+     */
+    @Test
+    public final void testCreateCachedJars() throws IOException {
+        final File jar = new File(path("lib/api.jar"));
+        jar.setLastModified(10000);
+        final Map<String, String> jars = runner.createCachedJars(createParameters());
+
+        assertEquals(Arrays.asList(jar.getAbsolutePath()), new ArrayList<String>(jars.keySet()));
+        assertEquals(Util.getDigestOf(jar.getAbsolutePath()) + "-0-2710.jar", jars.get(jar.getAbsolutePath()));
+
+        Files.write(jar.toPath(), "changed".getBytes("UTF-8"));
+        jar.setLastModified(20000);
+
+        assertEquals(Util.getDigestOf(jar.getAbsolutePath()) + "-7-4e20.jar",
+            runner.createCachedJars(createParameters()).get(jar.getAbsolutePath()));
+
+        jar.delete();
+
+        assertTrue(runner.createCachedJars(createParameters()).isEmpty());
+    }
+
+    /**
+     * Paths should be relocated into the work folder on the agent, jars into
+     * the jar cache, linked documentation should be read from the copied
+     * package lists.
+     */
+    @Test
+    public final void testRelocate() {
+        final JavaDocParameters parameters = createParameters();
+        final Map<String, String> jars = runner.createCachedJars(parameters);
+        final JavaDocParameters relocated =
+            runner.relocate(parameters, runner.createTransfers(parameters), jars, "/agent/job", "/agent/jars");
+
+        assertEquals(Arrays.asList("/agent/job/sources/0"), new ArrayList<String>(relocated.getSourcePaths()));
+        assertEquals(Arrays.asList("/agent/job/sources/0/com/example/Api.java"), new ArrayList<String>(relocated.getSourceFiles()));
+        assertEquals(Arrays.asList("/agent/jars/" + jars.get(path("lib/api.jar"))), new ArrayList<String>(relocated
+            .getClassPaths()));
+        assertEquals("/agent/job/javadoc", relocated.getJavaDocDir());
+        assertEquals("/agent/job/classes", relocated.getClasses());
+
+        final Iterator<JavaDocLink> links = relocated.getLinks().iterator();
+        JavaDocLink link = links.next();
+        assertEquals("http://example.com/api/", link.getHref());
+        assertEquals("/agent/job/links/0", link.getPackageListLoc());
+        link = links.next();
+        assertEquals(path("javadoc/example.com~dc0"), link.getHref());
+        assertEquals("/agent/job/links/1", link.getPackageListLoc());
+        link = links.next();
+        assertEquals("http://example.org/api/", link.getHref());
+        assertNull(link.getPackageListLoc());
+    }
+
+    /**
+     * Create the parameters of a JavaDoc run on the controller.
+     *
+     * @return parameters of a JavaDoc run.
+     */
+    private JavaDocParameters createParameters() {
+        final List<JavaDocLink> links =
+            Arrays.asList(new JavaDocLink("http://example.com/api/", path("javadoc/.package-lists/remote")), new JavaDocLink(
+                path("javadoc/example.com~dc0"), null), new JavaDocLink("http://example.org/api/", null));
+
+        return new JavaDocParameters("example.com", "example.com~dc1", Arrays.asList(path("src")), Arrays.asList("com.example"),
+            Arrays.asList(path("src/com/example/Api.java")), path("classes"), Arrays.asList(path("lib/api.jar")),
+            path("javadoc/example.com~dc1"), "1.6", "", links, "", false);
+    }
+
+    /**
+     * Get the absolute path of the given file in the workspace.
+     *
+     * @param path
+     *            path relative to the workspace.
+     * @return absolute path of the given file.
+     */
+    private String path(final String path) {
+        return new File(workspace, path).getAbsolutePath();
+    }
+}
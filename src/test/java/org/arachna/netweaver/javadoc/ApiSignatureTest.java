@@ -0,0 +1,110 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unittests for {@link ApiSignature}.
+ *
+ * @author Dirk Weigenand
+ */
+public class ApiSignatureTest {
+    /**
+     * temporary folder removed after each test.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * source of the compiled class.
+     */
+    private static final String API =
+        "package com.example; public class Api { public String name() { return \"%s\"; } %s private class Impl {} }";
+
+    /**
+     * temporary folder.
+     */
+    private File folder;
+
+    /**
+     * Create a temporary folder.
+     */
+    @Before
+    public void setUp() throws IOException {
+        folder = temporaryFolder.newFolder("classes");
+    }
+
+    /**
+     * Changes to the implementation should not change the signature.
+     */
+    @Test
+    public final void testImplementationChange() throws IOException {
+        final String signature = ApiSignature.calculate(compile("first", "a", ""));
+
+        assertEquals(signature, ApiSignature.calculate(compile("second", "b", "private int count() { return 1; }")));
+    }
+
+    /**
+     * Changes to public or protected members should change the signature.
+     */
+    @Test
+    public final void testApiChange() throws IOException {
+        final String signature = ApiSignature.calculate(compile("first", "a", ""));
+
+        assertFalse(signature.equals(ApiSignature.calculate(compile("second", "a", "protected int count() { return 1; }"))));
+        assertFalse(signature.equals(ApiSignature.calculate(compile("third", "a", "public static final int COUNT = 1;"))));
+    }
+
+    /**
+     * Classes in a jar file should have the same signature as in a folder.
+     */
+    @Test
+    public final void testJar() throws IOException {
+        final File classes = compile("first", "a", "");
+        final File jar = new File(folder, "api.jar");
+        JavaDocArchive.write(classes, jar);
+
+        assertTrue(jar.isFile());
+        assertEquals(ApiSignature.calculate(classes), ApiSignature.calculate(jar));
+    }
+
+    /**
+     * Compile the test class into a new folder.
+     *
+     * @param name
+     *            name of the folder to compile into.
+     * @param value
+     *            value returned by the public method.
+     * @param members
+     *            additional members.
+     * @return folder containing the compiled classes.
+     */
+    private File compile(final String name, final String value, final String members) throws IOException {
+        final File source = new File(folder, name + "-src/com/example/Api.java");
+        final File classes = new File(folder, name);
+        source.getParentFile().mkdirs();
+        classes.mkdirs();
+        Files.write(source.toPath(), String.format(API, value, members).getBytes("UTF-8"));
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+
+        assertEquals(0, compiler.run(null, null, null, "-d", classes.getAbsolutePath(), source.getAbsolutePath()));
+
+        return classes;
+    }
+}
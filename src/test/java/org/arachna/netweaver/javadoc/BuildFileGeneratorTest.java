@@ -3,17 +3,39 @@
  */
 package org.arachna.netweaver.javadoc;
 
-import static org.junit.Assert.fail;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
-import java.util.HashSet;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
-import org.apache.velocity.app.VelocityEngine;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.apache.velocity.VelocityContext;
 import org.arachna.ant.AntHelper;
+import org.arachna.netweaver.dc.types.Compartment;
+import org.arachna.netweaver.dc.types.CompartmentState;
+import org.arachna.netweaver.dc.types.DevelopmentComponent;
 import org.arachna.netweaver.dc.types.DevelopmentComponentFactory;
+import org.arachna.netweaver.dc.types.DevelopmentComponentType;
 import org.arachna.netweaver.dc.types.DevelopmentConfiguration;
-import org.junit.After;
+import org.arachna.netweaver.dc.types.PublicPartReference;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
 
 /**
  * Unittests for {@link BuildFileGenerator}.
@@ -21,32 +43,308 @@ import org.junit.Test;
  * @author Dirk Weigenand
  */
 public class BuildFileGeneratorTest {
+    /**
+     * temporary folder removed after each test.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * workspace containing the development components.
+     */
+    private File workspace;
+
+    /**
+     * registry for development components.
+     */
+    private final DevelopmentComponentFactory dcFactory = new DevelopmentComponentFactory();
+
+    /**
+     * helper for the workspace.
+     */
+    private AntHelper antHelper;
+
+    /**
+     * index of the development components in the workspace.
+     */
+    private DevelopmentComponentIndex index;
+
+    /**
+     * development component used by {@link #dc1}.
+     */
+    private DevelopmentComponent dc0;
+
+    /**
+     * development component using {@link #dc0}.
+     */
+    private DevelopmentComponent dc1;
+
+    /**
+     * development component without sources.
+     */
+    private DevelopmentComponent dc2;
+
     /**
      * Instance under test.
      */
     private BuildFileGenerator generator;
 
     /**
-     * @throws java.lang.Exception
+     * Create two development components with sources (one using the other)
+     * and one without sources in a temporary workspace.
      */
     @Before
-    public void setUp() throws Exception {
-        final DevelopmentConfiguration developmentConfiguration = new DevelopmentConfiguration("DI1");
-        final DevelopmentComponentFactory dcFactory = new DevelopmentComponentFactory();
-        final AntHelper antHelper = new AntHelper("", dcFactory);
-        generator = new BuildFileGenerator(antHelper, dcFactory, new HashSet<String>(), new VelocityEngine(), false);
+    public void setUp() throws IOException, InterruptedException {
+        workspace = temporaryFolder.newFolder("workspace");
+        antHelper = new AntHelper(workspace.getAbsolutePath(), dcFactory);
+        index = new DevelopmentComponentIndex(dcFactory, workspace.getAbsolutePath(), Collections.<String> emptyList());
+        final DevelopmentConfiguration configuration = new DevelopmentConfiguration("DI1_Example_D");
+        configuration.setSourceVersion("1.8");
+        final Compartment compartment =
+            new Compartment("example.com_EXAMPLE_SC_1", CompartmentState.Source, "example.com", "", "EXAMPLE_SC");
+        configuration.add(compartment);
+
+        dc0 = createComponent(compartment, "dc0");
+        dc0.setOutputFolder(new File(workspace, "gen/dc0").getAbsolutePath());
+        write(new File(dc0.getOutputFolder(), "lib/api.jar"), "");
+        dc1 = createComponent(compartment, "dc1");
+        dc1.addUsedDevelopmentComponent(new PublicPartReference("example.com", "dc0"));
+        dc2 = dcFactory.create("example.com", "dc2", DevelopmentComponentType.Java);
+        compartment.add(dc2);
+
+        final SourceInventory sourceInventory = new SourceInventory(antHelper);
+        sourceInventory.scan(Arrays.asList(dc0, dc1, dc2));
+        generator = new BuildFileGenerator(antHelper, index, null, false, null, new ClassPathResolver(), sourceInventory);
     }
 
     /**
-     * @throws java.lang.Exception
+     * The build file of a development component should document its packages
+     * using the jars of the development components it uses and link to their
+     * documentation.
      */
-    @After
-    public void tearDown() throws Exception {
+    @Test
+    public final void testExecute() throws Exception {
+        final String location = generator.execute(dc1);
+        final String buildFile = read(location);
+        final Document document = parse(buildFile);
+
+        assertEquals(new File(antHelper.getBaseLocation(dc1), "javadoc-build.xml").getAbsolutePath(),
+            new File(location).getAbsolutePath());
+        assertEquals(1, document.getElementsByTagName("javadoc").getLength());
+        assertTrue(buildFile.contains(String.format("<pathelement location=\"%s\" />",
+            new File(antHelper.getBaseLocation(dc1), "src/packages").getAbsolutePath())));
+        assertTrue(buildFile.contains("<package name=\"com.example.dc1\" />"));
+        assertFalse(buildFile.contains("<sourcefiles>"));
+        assertTrue(buildFile.contains(String.format("<pathelement location=\"%s\" />",
+            new File(dc0.getOutputFolder(), "lib/api.jar").getAbsolutePath())));
+        assertTrue(buildFile.contains(String.format("<link href=\"../example.com~dc0\" offline=\"true\" packagelistLoc=\"%s\" />",
+            index.getJavaDocFolder(dc0))));
     }
 
+    /**
+     * No build file should be generated for a development component without
+     * sources.
+     */
     @Test
-    public final void test() {
-//        generator.execute(component);
-        // fail("Not implemented yet!");
+    public final void testExecuteWithoutSources() {
+        assertNull(generator.execute(dc2));
+    }
+
+    /**
+     * The batch build file should contain a macro per development component
+     * with sources, run level by level.
+     */
+    @Test
+    public final void testExecuteBatch() throws Exception {
+        final String location =
+            generator.executeBatch(Arrays.<Collection<DevelopmentComponent>> asList(Arrays.asList(dc0, dc2),
+                Arrays.<DevelopmentComponent> asList(dc1)), 4);
+        final String buildFile = read(location);
+        final Document document = parse(buildFile);
+
+        assertEquals(new File(workspace, "javadoc-batch-build.xml").getAbsolutePath(), new File(location).getAbsolutePath());
+        assertEquals(2, document.getElementsByTagName("macrodef").getLength());
+        assertEquals(1, document.getElementsByTagName("target").getLength());
+        assertEquals(2, document.getElementsByTagName("parallel").getLength());
+        assertFalse(buildFile.contains("classpath-example.com~dc2"));
+        assertTrue(buildFile.indexOf("<javadoc-dc-0 />") < buildFile.indexOf("<javadoc-dc-1 />"));
+        assertTrue(buildFile.contains("<parallel threadCount=\"4\" failonany=\"false\">"));
+    }
+
+    /**
+     * The build file template should render the given context using the
+     * shared macros.
+     */
+    @Test
+    public final void testMergeTemplate() throws Exception {
+        final VelocityContext context = new VelocityContext();
+        context.put("dc", createTemplateParameters("example.com~dc1"));
+
+        final String buildFile = merge(BuildFileGenerator.TEMPLATE, context);
+        final Document document = parse(buildFile);
+
+        assertEquals(1, document.getElementsByTagName("path").getLength());
+        assertEquals(1, document.getElementsByTagName("javadoc").getLength());
+        assertTrue(buildFile.contains("<path id=\"classpath-example.com~dc1\">"));
+        assertTrue(buildFile.contains("<pathelement location=\"/tmp/example.com~dc1/src/packages\" />"));
+        assertTrue(buildFile.contains("<package name=\"com.example.dc1\" />"));
+        assertFalse(buildFile.contains("<packageset"));
+        assertFalse(buildFile.contains("<sourcefiles>"));
+        assertTrue(buildFile.contains("<pathelement location=\"/tmp/example.com~dc1/lib/api.jar\" />"));
+    }
+
+    /**
+     * Links with a locally cached package list should be rendered as offline
+     * links.
+     */
+    @Test
+    public final void testMergeOfflineLinks() throws Exception {
+        final Map<String, Object> dc = createTemplateParameters("example.com~dc1");
+        dc.put("links", Arrays.asList(createLink("http://example.com/api/", "/tmp/package-lists/example"),
+            createLink("/tmp/javadoc/example.com~dc0", null)));
+        final VelocityContext context = new VelocityContext();
+        context.put("dc", dc);
+
+        final String buildFile = merge(BuildFileGenerator.TEMPLATE, context);
+
+        assertEquals(2, parse(buildFile).getElementsByTagName("link").getLength());
+        assertTrue(buildFile
+            .contains("<link href=\"http://example.com/api/\" offline=\"true\" packagelistLoc=\"/tmp/package-lists/example\" />"));
+        assertTrue(buildFile.contains("<link href=\"/tmp/javadoc/example.com~dc0\" />"));
+    }
+
+    /**
+     * The batch template should contain a macro per development component and
+     * process the development components of each level in parallel.
+     */
+    @Test
+    public final void testMergeBatchTemplate() throws Exception {
+        final Map<String, Object> first = createTemplateParameters("example.com~dc1");
+        first.put("macro", "javadoc-dc-0");
+        final Map<String, Object> second = createTemplateParameters("example.com~dc2");
+        second.put("macro", "javadoc-dc-1");
+
+        final VelocityContext context = new VelocityContext();
+        context.put("components", Arrays.asList(first, second));
+        context.put("levels", Arrays.asList(Arrays.asList(first), Arrays.asList(second)));
+        context.put("threadCount", Integer.valueOf(4));
+
+        final String buildFile = merge(BuildFileGenerator.BATCH_TEMPLATE, context);
+        final Document document = parse(buildFile);
+
+        assertEquals(2, document.getElementsByTagName("macrodef").getLength());
+        assertEquals(2, document.getElementsByTagName("javadoc").getLength());
+        assertEquals(2, document.getElementsByTagName("parallel").getLength());
+        assertEquals(1, document.getElementsByTagName("target").getLength());
+        assertTrue(buildFile.contains("<parallel threadCount=\"4\" failonany=\"false\">"));
+    }
+
+    /**
+     * Create a development component with a single class in the given
+     * compartment.
+     *
+     * @param compartment
+     *            compartment the development component belongs to.
+     * @param name
+     *            name of the development component.
+     * @return the development component.
+     */
+    private DevelopmentComponent createComponent(final Compartment compartment, final String name) throws IOException {
+        final DevelopmentComponent component = dcFactory.create("example.com", name, DevelopmentComponentType.Java);
+        compartment.add(component);
+        component.addSourceFolder("src/packages");
+        write(new File(antHelper.getBaseLocation(component), String.format("src/packages/com/example/%s/Api.java", name)),
+            String.format("package com.example.%s; /** API. */ public class Api {}", name));
+
+        return component;
+    }
+
+    /**
+     * Write the given content into the given file.
+     *
+     * @param file
+     *            file to write.
+     * @param content
+     *            content of the file.
+     */
+    private void write(final File file, final String content) throws IOException {
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes("UTF-8"));
+    }
+
+    /**
+     * Read the build file at the given location.
+     *
+     * @param location
+     *            location of the build file.
+     * @return content of the build file.
+     */
+    private String read(final String location) throws IOException {
+        return new String(Files.readAllBytes(new File(location).toPath()), "UTF-8");
+    }
+
+    /**
+     * Create the template parameters of a development component.
+     *
+     * @param component
+     *            normalized name of the development component.
+     * @return template parameters of the development component.
+     */
+    private Map<String, Object> createTemplateParameters(final String component) {
+        final Map<String, Object> dc = new HashMap<String, Object>();
+        dc.put("component", component);
+        dc.put("javaDocDir", "/tmp/javadoc/" + component);
+        dc.put("sourcePaths", Arrays.asList("/tmp/" + component + "/src/packages"));
+        dc.put("packages", Arrays.asList("com.example." + component.substring(component.indexOf('~') + 1)));
+        dc.put("defaultPackageFiles", Collections.emptyList());
+        dc.put("classpaths", Arrays.asList("/tmp/" + component + "/lib/api.jar"));
+        dc.put("links", Collections.emptyList());
+        dc.put("useUmlGraph", Boolean.FALSE);
+
+        return dc;
+    }
+
+    /**
+     * Create the template parameters of a link.
+     *
+     * @param href
+     *            location of the linked documentation.
+     * @param packageListLoc
+     *            local folder containing the package list.
+     * @return template parameters of the link.
+     */
+    private Map<String, String> createLink(final String href, final String packageListLoc) {
+        final Map<String, String> link = new HashMap<String, String>();
+        link.put("href", href);
+        link.put("packageListLoc", packageListLoc);
+
+        return link;
+    }
+
+    /**
+     * Merge the given template with the given context.
+     *
+     * @param template
+     *            template to merge.
+     * @param context
+     *            context to merge the template with.
+     * @return the merged template.
+     */
+    private String merge(final String template, final VelocityContext context) {
+        final StringWriter buildFile = new StringWriter();
+        TemplateCache.getTemplate(template).merge(context, buildFile);
+
+        return buildFile.toString();
+    }
+
+    /**
+     * Parse the given build file.
+     *
+     * @param buildFile
+     *            build file to parse.
+     * @return the parsed build file.
+     */
+    private Document parse(final String buildFile) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new InputSource(new StringReader(buildFile)));
     }
 }
@@ -0,0 +1,83 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unittests for {@link ClassPathResolver}.
+ *
+ * @author Dirk Weigenand
+ */
+public class ClassPathResolverTest {
+    /**
+     * temporary folder removed after each test.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * folder containing the jars of a public part.
+     */
+    private File folder;
+
+    /**
+     * Create a public part folder containing jars.
+     */
+    @Before
+    public void setUp() throws IOException {
+        folder = temporaryFolder.newFolder("classpath");
+        new File(folder, "lib/java").mkdirs();
+        createFile("lib/java/b.jar");
+        createFile("lib/java/a.jar");
+        createFile("lib/java/readme.txt");
+    }
+
+    /**
+     * Jars in sub folders should be found sorted by path.
+     */
+    @Test
+    public final void testListJars() {
+        final List<File> jars = new ClassPathResolver().listJars(folder);
+
+        assertEquals(Arrays.asList(new File(folder, "lib/java/a.jar"), new File(folder, "lib/java/b.jar")), jars);
+    }
+
+    /**
+     * Scan results should be reused across resolvers while the folders are
+     * unchanged and refreshed when a folder was modified.
+     */
+    @Test
+    public final void testScanResultsAreReusedUntilFolderChanges() throws IOException {
+        final List<File> jars = new ClassPathResolver().listJars(folder);
+        assertSame(jars, new ClassPathResolver().listJars(folder));
+
+        final File lib = new File(folder, "lib/java");
+        createFile("lib/java/c.jar");
+        lib.setLastModified(lib.lastModified() + 2000);
+
+        assertEquals(3, new ClassPathResolver().listJars(folder).size());
+    }
+
+    /**
+     * Create an empty file in the public part folder.
+     *
+     * @param path
+     *            path of the file relative to the public part folder.
+     */
+    private void createFile(final String path) throws IOException {
+        new File(folder, path).createNewFile();
+    }
+}
@@ -0,0 +1,259 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import hudson.Util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unittests for {@link ContentStore}.
+ *
+ * @author Dirk Weigenand
+ */
+public class ContentStoreTest {
+    /**
+     * temporary folder removed after each test.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * the JavaDoc folder.
+     */
+    private File folder;
+
+    /**
+     * JavaDoc folder of a development component.
+     */
+    private File dcFolder;
+
+    /**
+     * store to test.
+     */
+    private ContentStore store;
+
+    /**
+     * Create a JavaDoc folder and stage the documentation of a development
+     * component.
+     */
+    @Before
+    public void setUp() throws IOException {
+        folder = temporaryFolder.newFolder("javadoc");
+        dcFolder = new File(folder, "example.com~dc");
+        store = new ContentStore(folder);
+        store.prepare(dcFolder);
+        createFile("index.html", "index");
+        createFile("stylesheet.css", "style");
+        createFile("com/example/stylesheet.css", "style");
+        createFile("com/example/Api.html", "api");
+    }
+
+    /**
+     * Identical files should be stored once and linked into the JavaDoc
+     * folder.
+     */
+    @Test
+    public final void testCommit() throws IOException {
+        store.commit(dcFolder);
+
+        assertFalse(store.getStagingFolder(dcFolder).exists());
+        assertEquals("index", read("index.html"));
+        assertEquals("api", read("com/example/Api.html"));
+        assertEquals(3, store.getStored());
+        assertEquals(1, store.getLinked());
+        assertTrue(Files.isSameFile(new File(dcFolder, "stylesheet.css").toPath(),
+            new File(dcFolder, "com/example/stylesheet.css").toPath()));
+    }
+
+    /**
+     * Unchanged files should keep their inode, modification time and
+     * compressed sibling, changed and stale files should be replaced or
+     * removed.
+     */
+    @Test
+    public final void testRecommit() throws IOException {
+        store.commit(dcFolder);
+        final File index = new File(dcFolder, "index.html");
+        final long lastModified = index.lastModified() - 10000;
+        index.setLastModified(lastModified);
+        createCompressed("index.html");
+        createCompressed("com/example/Api.html");
+
+        store.prepare(dcFolder);
+        createFile("index.html", "index");
+        createFile("stylesheet.css", "style");
+        createFile("com/example/Api.html", "changed");
+        store.commit(dcFolder);
+
+        assertEquals(lastModified, index.lastModified());
+        assertEquals(2, store.getUnchanged());
+        assertEquals("changed", read("com/example/Api.html"));
+        assertFalse(new File(dcFolder, "com/example/stylesheet.css").exists());
+        assertTrue(new File(dcFolder, "index.html.gz").exists());
+        assertFalse(new File(dcFolder, "com/example/Api.html.gz").exists());
+    }
+
+    /**
+     * The JavaDoc folder should be published as symbolic link to a version
+     * that is replaced by the next commit.
+     */
+    @Test
+    public final void testCommitPublishesVersion() throws IOException {
+        store.commit(dcFolder);
+        final Path version = Files.readSymbolicLink(dcFolder.toPath());
+
+        store.prepare(dcFolder);
+        createFile("index.html", "changed");
+        store.commit(dcFolder);
+
+        assertTrue(Files.isSymbolicLink(dcFolder.toPath()));
+        assertFalse(version.equals(Files.readSymbolicLink(dcFolder.toPath())));
+        assertFalse(folder.toPath().resolve(version).toFile().exists());
+        assertEquals(1, new File(folder, ContentStore.VERSIONS_FOLDER).list().length);
+        assertEquals("changed", read("index.html"));
+    }
+
+    /**
+     * A JavaDoc folder published by renaming folders should be replaced by a
+     * symbolic link.
+     */
+    @Test
+    public final void testCommitReplacesFolder() throws IOException {
+        assertTrue(new File(dcFolder, "removed.html").mkdirs());
+        store.commit(dcFolder);
+
+        assertTrue(Files.isSymbolicLink(dcFolder.toPath()));
+        assertFalse(new File(dcFolder, "removed.html").exists());
+        assertEquals("index", read("index.html"));
+    }
+
+    /**
+     * Objects no longer linked into a JavaDoc folder should be pruned.
+     */
+    @Test
+    public final void testPrune() throws IOException {
+        store.commit(dcFolder);
+        store.prepare(dcFolder);
+        createFile("index.html", "index");
+        store.commit(dcFolder);
+        store.prune();
+
+        assertEquals(1, countObjects(new File(folder, ContentStore.STORE_FOLDER)));
+    }
+
+    /**
+     * Objects of JavaDoc folders that have been removed should be pruned
+     * together with their references.
+     */
+    @Test
+    public final void testPruneRemovedFolder() throws IOException {
+        store.commit(dcFolder);
+        Util.deleteRecursive(dcFolder);
+        store.prune();
+
+        assertEquals(0, countObjects(new File(folder, ContentStore.STORE_FOLDER)));
+        assertFalse(new File(folder, ContentStore.REFERENCES_FOLDER + "/" + dcFolder.getName()).exists());
+    }
+
+    /**
+     * Objects of JavaDoc folders committed without references should be
+     * kept and the references should be created.
+     */
+    @Test
+    public final void testPruneWithoutReferences() throws IOException {
+        store.commit(dcFolder);
+        final File references = new File(folder, ContentStore.REFERENCES_FOLDER + "/" + dcFolder.getName());
+
+        assertTrue(references.delete());
+        store.prune();
+
+        assertEquals(3, countObjects(new File(folder, ContentStore.STORE_FOLDER)));
+        assertTrue(references.isFile());
+    }
+
+    /**
+     * Create a file with the given content in the staging folder.
+     *
+     * @param path
+     *            path of the file relative to the staging folder.
+     * @param content
+     *            content of the file.
+     */
+    private void createFile(final String path, final String content) throws IOException {
+        final File file = new File(store.getStagingFolder(dcFolder), path);
+        file.getParentFile().mkdirs();
+        final OutputStream output = new FileOutputStream(file);
+
+        try {
+            output.write(content.getBytes("UTF-8"));
+        }
+        finally {
+            output.close();
+        }
+    }
+
+    /**
+     * Create a compressed sibling of the given committed file.
+     *
+     * @param path
+     *            path of the file relative to the JavaDoc folder of the
+     *            development component.
+     */
+    private void createCompressed(final String path) throws IOException {
+        final File file = new File(dcFolder, path);
+        final File compressed = new File(dcFolder, path + Precompressor.SUFFIX);
+        Files.write(compressed.toPath(), new byte[10]);
+        compressed.setLastModified(file.lastModified());
+    }
+
+    /**
+     * Read the given committed file.
+     *
+     * @param path
+     *            path of the file relative to the JavaDoc folder of the
+     *            development component.
+     * @return the content of the file.
+     */
+    private String read(final String path) throws IOException {
+        return new String(Files.readAllBytes(new File(dcFolder, path).toPath()), "UTF-8");
+    }
+
+    /**
+     * Count the files in the given folder and its sub folders.
+     *
+     * @param file
+     *            folder to count the files in.
+     * @return number of files in the folder.
+     */
+    private int countObjects(final File file) {
+        final File[] files = file.listFiles();
+
+        if (files == null) {
+            return 1;
+        }
+
+        int count = 0;
+
+        for (final File child : files) {
+            count += countObjects(child);
+        }
+
+        return count;
+    }
+}
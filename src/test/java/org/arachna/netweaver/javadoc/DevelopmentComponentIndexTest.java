@@ -0,0 +1,154 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import org.arachna.netweaver.dc.types.Compartment;
+import org.arachna.netweaver.dc.types.CompartmentState;
+import org.arachna.netweaver.dc.types.DevelopmentComponent;
+import org.arachna.netweaver.dc.types.DevelopmentComponentFactory;
+import org.arachna.netweaver.dc.types.DevelopmentComponentType;
+import org.arachna.netweaver.dc.types.DevelopmentConfiguration;
+import org.arachna.netweaver.dc.types.PublicPartReference;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unittests for {@link DevelopmentComponentIndex}.
+ *
+ * @author Dirk Weigenand
+ */
+public class DevelopmentComponentIndexTest {
+    /**
+     * link to JavaDoc documentation generated elsewhere.
+     */
+    private static final String LINK = "http://example.com/api/";
+
+    /**
+     * path to the workspace.
+     */
+    private static final String WORKSPACE = new File("workspace").getAbsolutePath();
+
+    /**
+     * registry for development components.
+     */
+    private final DevelopmentComponentFactory dcFactory = new DevelopmentComponentFactory();
+
+    /**
+     * development component in source state used by the others.
+     */
+    private DevelopmentComponent dc0;
+
+    /**
+     * development component in archive state.
+     */
+    private DevelopmentComponent library;
+
+    /**
+     * index under test.
+     */
+    private DevelopmentComponentIndex index;
+
+    /**
+     * Create a development component in source state and one in archive
+     * state.
+     */
+    @Before
+    public void setUp() {
+        final DevelopmentConfiguration configuration = new DevelopmentConfiguration("DI1_Example_D");
+        final Compartment sources =
+            new Compartment("example.com_EXAMPLE_SC_1", CompartmentState.Source, "example.com", "", "EXAMPLE_SC");
+        final Compartment archives =
+            new Compartment("example.com_EXAMPLE_LIB_1", CompartmentState.Archive, "example.com", "", "EXAMPLE_LIB");
+        configuration.add(sources);
+        configuration.add(archives);
+
+        dc0 = dcFactory.create("example.com", "dc0", DevelopmentComponentType.Java);
+        sources.add(dc0);
+        library = dcFactory.create("example.com", "lib", DevelopmentComponentType.Java);
+        archives.add(library);
+
+        index = new DevelopmentComponentIndex(dcFactory, WORKSPACE, Arrays.asList(LINK));
+    }
+
+    /**
+     * Development components using the same development components in source
+     * state should share one immutable list of links.
+     */
+    @Test
+    public final void testGetLinksIsShared() {
+        final DevelopmentComponent dc1 = createComponent("dc1", "dc0", "lib");
+        final DevelopmentComponent dc2 = createComponent("dc2", "dc0");
+        final DevelopmentComponent dc3 = createComponent("dc3", "lib");
+        final List<String> links = index.getLinks(dc1);
+
+        assertEquals(Arrays.asList(index.getJavaDocFolder(dc0), LINK), links);
+        assertSame(links, index.getLinks(dc2));
+        assertSame(links, index.getLinks(dc1));
+        assertNotSame(links, index.getLinks(dc3));
+        assertEquals(Arrays.asList(LINK), index.getLinks(dc3));
+    }
+
+    /**
+     * The list of links must not be modifiable since it is shared.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public final void testGetLinksIsImmutable() {
+        index.getLinks(createComponent("dc1", "dc0")).add(LINK);
+    }
+
+    /**
+     * JavaDoc folders in the workspace should be linked relative to the
+     * JavaDoc folder of another development component, other links not at
+     * all.
+     */
+    @Test
+    public final void testGetRelativeLink() {
+        assertEquals("../example.com~dc0", index.getRelativeLink(index.getJavaDocFolder(dc0)));
+        assertNull(index.getRelativeLink(LINK));
+        assertNull(index.getRelativeLink(new File(WORKSPACE + "-other", "javadoc/example.com~dc0").getAbsolutePath()));
+    }
+
+    /**
+     * Used development components should be reported once, without the
+     * development component itself and without development components
+     * unknown to the registry.
+     */
+    @Test
+    public final void testGetUsedDevelopmentComponents() {
+        final DevelopmentComponent dc1 = createComponent("dc1", "dc0", "dc1", "unknown", "lib");
+        dc1.addUsedDevelopmentComponent(new PublicPartReference("example.com", "dc0", "def"));
+
+        assertEquals(Arrays.asList(dc0, library), Arrays.asList(index.getUsedDevelopmentComponents(dc1).toArray()));
+        assertSame(index.getUsedDevelopmentComponents(dc1), index.getUsedDevelopmentComponents(dc1));
+    }
+
+    /**
+     * Create a development component using the given development components.
+     *
+     * @param name
+     *            name of the development component.
+     * @param used
+     *            names of the used development components.
+     * @return the development component.
+     */
+    private DevelopmentComponent createComponent(final String name, final String... used) {
+        final DevelopmentComponent component = dcFactory.create("example.com", name, DevelopmentComponentType.Java);
+        dc0.getCompartment().add(component);
+
+        for (final String usedName : used) {
+            component.addUsedDevelopmentComponent(new PublicPartReference("example.com", usedName, "api"));
+        }
+
+        return component;
+    }
+}
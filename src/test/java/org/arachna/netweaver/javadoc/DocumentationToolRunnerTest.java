@@ -0,0 +1,167 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unittests for {@link DocumentationToolRunner}.
+ *
+ * @author Dirk Weigenand
+ */
+public class DocumentationToolRunnerTest {
+    /**
+     * temporary folder removed after each test.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * workspace containing sources and classes.
+     */
+    private File workspace;
+
+    /**
+     * runner under test.
+     */
+    private final DocumentationToolRunner runner = new DocumentationToolRunner();
+
+    /**
+     * Create a small source tree.
+     */
+    @Before
+    public void setUp() throws IOException {
+        workspace = temporaryFolder.newFolder("workspace");
+        new File(workspace, "classes").mkdirs();
+        write("src/com/example/Api.java", "package com.example; /** API. */ public interface Api { /** @return name. */ String name(); }");
+        write("src/com/example/impl/ApiImpl.java",
+            "package com.example.impl; /** Implementation. */ public class ApiImpl implements com.example.Api {"
+                + " public String name() { return \"impl\"; } }");
+    }
+
+    /**
+     * The source tree should be documented in process.
+     */
+    @Test
+    public final void testExecute() {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        assertTrue(runner.execute(createParameters(Collections.<JavaDocLink> emptyList()), new PrintStream(output, true)));
+        assertTrue(new File(workspace, "javadoc/index.html").exists());
+        assertTrue(new File(workspace, "javadoc/com/example/Api.html").exists());
+        assertTrue(new File(workspace, "javadoc/com/example/impl/ApiImpl.html").exists());
+    }
+
+    /**
+     * UML diagrams should be refused with a clear message when the JavaDoc
+     * tool of the running JVM does not accept the UmlGraph doclet.
+     */
+    @Test
+    public final void testExecuteRefusesUnsupportedUmlGraph() {
+        assumeFalse(DocumentationToolRunner.isUmlGraphSupported());
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        assertFalse(runner.execute(createParameters(Collections.<JavaDocLink> emptyList(), true), new PrintStream(output, true)));
+        assertTrue(output.toString().contains("Use the Ant engine to generate UML diagrams."));
+        assertFalse(new File(workspace, "javadoc/index.html").exists());
+    }
+
+    /**
+     * Links with a package list location should be passed as offline links.
+     */
+    @Test
+    public final void testCreateOptions() {
+        final List<String> options =
+            runner.createOptions(createParameters(Arrays.asList(new JavaDocLink("http://example.com/api/", path("lists")),
+                new JavaDocLink("http://example.org/api/", null))));
+
+        assertEquals(Arrays.asList("-linkoffline", "http://example.com/api/", path("lists")),
+            options.subList(options.indexOf("-linkoffline"), options.indexOf("-linkoffline") + 3));
+        assertEquals("http://example.org/api/", options.get(options.indexOf("-link") + 1));
+        assertEquals(path("javadoc"), options.get(options.indexOf("-d") + 1));
+    }
+
+    /**
+     * Without a source version no <code>-source</code> option should be
+     * passed.
+     */
+    @Test
+    public final void testCreateOptionsWithoutSource() {
+        final List<String> options =
+            runner.createOptions(new JavaDocParameters("example.com", "example.com~dc1", Arrays.asList(path("src")), Arrays
+                .asList("com.example"), Arrays.asList(path("src/com/example/Api.java")), path("classes"), Collections
+                .<String> emptyList(), path("javadoc"), null, "", Collections.<JavaDocLink> emptyList(), "", false));
+
+        assertFalse(options.contains("-source"));
+        assertFalse(options.contains(null));
+    }
+
+    /**
+     * Create the parameters for documenting the source tree.
+     *
+     * @param links
+     *            links to put into the documentation.
+     * @return parameters of a JavaDoc run.
+     */
+    private JavaDocParameters createParameters(final List<JavaDocLink> links) {
+        return createParameters(links, false);
+    }
+
+    /**
+     * Create the parameters for documenting the source tree.
+     *
+     * @param links
+     *            links to put into the documentation.
+     * @param useUmlGraph
+     *            indicate whether UML diagrams shall be generated.
+     * @return parameters of a JavaDoc run.
+     */
+    private JavaDocParameters createParameters(final List<JavaDocLink> links, final boolean useUmlGraph) {
+        return new JavaDocParameters("example.com", "example.com~dc1", Arrays.asList(path("src")), Arrays.asList("com.example",
+            "com.example.impl"), Arrays.asList(path("src/com/example/Api.java"), path("src/com/example/impl/ApiImpl.java")),
+            path("classes"), Collections.<String> emptyList(), path("javadoc"), "1.8", "", links, "", useUmlGraph);
+    }
+
+    /**
+     * Write the given content into a file in the workspace.
+     *
+     * @param path
+     *            path relative to the workspace.
+     * @param content
+     *            content of the file.
+     */
+    private void write(final String path, final String content) throws IOException {
+        final File file = new File(workspace, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes("UTF-8"));
+    }
+
+    /**
+     * Get the absolute path of the given file in the workspace.
+     *
+     * @param path
+     *            path relative to the workspace.
+     * @return absolute path of the given file.
+     */
+    private String path(final String path) {
+        return new File(workspace, path).getAbsolutePath();
+    }
+}
@@ -0,0 +1,215 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unittests for {@link DotRenderer}. A shell script copying the
+ * <code>.dot</code> file to the SVG file replaces <code>dot</code>, so
+ * Graphviz need not be installed.
+ *
+ * @author Dirk Weigenand
+ */
+public class DotRendererTest {
+    /**
+     * temporary folder removed after each test.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * folder containing the generated documentation.
+     */
+    private File javaDocDir;
+
+    /**
+     * folder containing rendered diagrams.
+     */
+    private File cacheFolder;
+
+    /**
+     * file the stub <code>dot</code> appends a line to per rendered diagram.
+     */
+    private File invocations;
+
+    /**
+     * renderer under test.
+     */
+    private DotRenderer renderer;
+
+    /**
+     * Create the stub <code>dot</code> executable and a diagram.
+     */
+    @Before
+    public void setUp() throws IOException {
+        assumeTrue(File.separatorChar == '/');
+
+        javaDocDir = temporaryFolder.newFolder("javadoc");
+        cacheFolder = new File(temporaryFolder.getRoot(), DotRenderer.CACHE_FOLDER);
+        invocations = new File(temporaryFolder.getRoot(), "invocations");
+
+        final File dot = new File(temporaryFolder.getRoot(), "dot");
+        write(dot, String.format("#!/bin/sh%necho \"$4\" >> '%s'%ncat \"$4\" > \"$3\"%n", invocations.getAbsolutePath()));
+        assertTrue(dot.setExecutable(true));
+
+        renderer = new DotRenderer(cacheFolder, dot.getAbsolutePath());
+        write(new File(javaDocDir, "com/example/Api.dot"), "digraph Api {}");
+    }
+
+    /**
+     * An unchanged diagram should be taken from the cache.
+     */
+    @Test
+    public final void testCacheHit() throws IOException, InterruptedException {
+        DotRenderer.Statistics statistics = render();
+
+        assertEquals(1, statistics.getRendered());
+        assertEquals(0, statistics.getReused());
+        assertEquals("digraph Api {}", read(new File(javaDocDir, "com/example/Api.svg")));
+
+        new File(javaDocDir, "com/example/Api.svg").delete();
+        statistics = render();
+
+        assertEquals(0, statistics.getRendered());
+        assertEquals(1, statistics.getReused());
+        assertEquals("digraph Api {}", read(new File(javaDocDir, "com/example/Api.svg")));
+        assertEquals(1, getInvocations());
+    }
+
+    /**
+     * A changed diagram should be rendered again.
+     */
+    @Test
+    public final void testInvalidation() throws IOException, InterruptedException {
+        render();
+        write(new File(javaDocDir, "com/example/Api.dot"), "digraph Api { Impl -> Api }");
+        final DotRenderer.Statistics statistics = render();
+
+        assertEquals(1, statistics.getRendered());
+        assertEquals(0, statistics.getReused());
+        assertEquals("digraph Api { Impl -> Api }", read(new File(javaDocDir, "com/example/Api.svg")));
+        assertEquals(2, getInvocations());
+        assertEquals(2, cacheFolder.list().length);
+    }
+
+    /**
+     * Diagrams unused for more than 30 days should be removed from the cache.
+     */
+    @Test
+    public final void testPrune() throws IOException, InterruptedException {
+        render();
+        write(new File(javaDocDir, "com/example/Api.dot"), "digraph Api { Impl -> Api }");
+        render();
+
+        final File[] cached = cacheFolder.listFiles();
+        cached[0].setLastModified(System.currentTimeMillis() - 31L * 24L * 60L * 60L * 1000L);
+        renderer.prune();
+
+        assertFalse(cached[0].exists());
+        assertTrue(cached[1].exists());
+    }
+
+    /**
+     * A <code>dot</code> process should be destroyed when rendering is
+     * interrupted.
+     */
+    @Test
+    public final void testInterruptDestroysProcess() throws IOException, InterruptedException {
+        final File pid = new File(temporaryFolder.getRoot(), "pid");
+        final File dot = new File(temporaryFolder.getRoot(), "dot-hanging");
+        write(dot, String.format("#!/bin/sh%necho $$ > '%s.tmp'%nmv '%s.tmp' '%s'%nexec sleep 60%n", pid.getAbsolutePath(),
+            pid.getAbsolutePath(), pid.getAbsolutePath()));
+        assertTrue(dot.setExecutable(true));
+
+        final DotRenderer hanging = new DotRenderer(cacheFolder, dot.getAbsolutePath());
+        final Thread thread = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    hanging.render(javaDocDir, new PrintStream(new ByteArrayOutputStream()));
+                }
+                catch (final InterruptedException e) {
+                    // expected
+                }
+            }
+        };
+        thread.start();
+
+        for (int i = 0; i < 100 && !pid.exists(); i++) {
+            Thread.sleep(100);
+        }
+
+        assertTrue(pid.exists());
+        thread.interrupt();
+        thread.join(10000);
+
+        final File process = new File("/proc/" + read(pid).trim());
+
+        for (int i = 0; i < 100 && process.exists(); i++) {
+            Thread.sleep(100);
+        }
+
+        assertFalse(thread.isAlive());
+        assertFalse(process.exists());
+    }
+
+    /**
+     * Render the diagrams in the JavaDoc folder.
+     *
+     * @return statistics about the rendered diagrams.
+     */
+    private DotRenderer.Statistics render() throws InterruptedException {
+        final DotRenderer.Statistics statistics = renderer.render(javaDocDir, new PrintStream(new ByteArrayOutputStream()));
+
+        assertTrue(statistics.isSucceeded());
+
+        return statistics;
+    }
+
+    /**
+     * @return the number of diagrams rendered by the stub <code>dot</code>
+     */
+    private int getInvocations() throws IOException {
+        return invocations.exists() ? Files.readAllLines(invocations.toPath()).size() : 0;
+    }
+
+    /**
+     * Write the given content into the given file.
+     *
+     * @param file
+     *            file to write.
+     * @param content
+     *            content of the file.
+     */
+    private void write(final File file, final String content) throws IOException {
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes("UTF-8"));
+    }
+
+    /**
+     * Read the given file.
+     *
+     * @param file
+     *            file to read.
+     * @return content of the file.
+     */
+    private String read(final File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), "UTF-8");
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unittests for {@link FolderResultCache}.
+ *
+ * @author Dirk Weigenand
+ */
+public class FolderResultCacheTest {
+    /**
+     * temporary folder removed after each test.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * temporary folder.
+     */
+    private File folder;
+
+    /**
+     * folder containing generated JavaDoc documentation.
+     */
+    private File generated;
+
+    /**
+     * folder containing the cache entries.
+     */
+    private File cacheFolder;
+
+    /**
+     * Create a folder with generated JavaDoc documentation.
+     */
+    @Before
+    public void setUp() throws IOException {
+        folder = temporaryFolder.newFolder("javadoc");
+        generated = new File(folder, "generated");
+        cacheFolder = new File(folder, "cache");
+        createFile(generated, "index.html", "index");
+        createFile(generated, "com/example/Api.html", "api");
+    }
+
+    /**
+     * Stored JavaDoc documentation should be restored by its fingerprint.
+     */
+    @Test
+    public final void testRestore() throws IOException {
+        final FolderResultCache cache = new FolderResultCache(cacheFolder, Long.MAX_VALUE);
+        final File restored = new File(folder, "restored");
+
+        assertFalse(cache.restore("abc", restored));
+
+        cache.store("abc", generated);
+
+        assertTrue(cache.restore("abc", restored));
+        assertEquals("api", new String(Files.readAllBytes(new File(restored, "com/example/Api.html").toPath()), "UTF-8"));
+        assertEquals(1, cache.getStored());
+        assertEquals(1, cache.getRestored());
+    }
+
+    /**
+     * The least recently used entries should be evicted when the cache
+     * exceeds its size.
+     */
+    @Test
+    public final void testEvict() throws IOException {
+        final FolderResultCache cache = new FolderResultCache(cacheFolder, Long.MAX_VALUE);
+        cache.store("first", generated);
+        cache.store("second", generated);
+        final File first = new File(cacheFolder, "first" + JavaDocArchive.SUFFIX);
+        final File second = new File(cacheFolder, "second" + JavaDocArchive.SUFFIX);
+        first.setLastModified(System.currentTimeMillis() - 20000);
+        second.setLastModified(System.currentTimeMillis() - 10000);
+
+        assertTrue(cache.restore("first", new File(folder, "restored")));
+
+        new FolderResultCache(cacheFolder, first.length() * 2).store("third", generated);
+
+        assertTrue(first.exists());
+        assertFalse(second.exists());
+        assertTrue(new File(cacheFolder, "third" + JavaDocArchive.SUFFIX).exists());
+    }
+
+    /**
+     * The size of the stored entries should be tracked, so storing further
+     * entries with the same cache evicts the least recently used ones.
+     */
+    @Test
+    public final void testEvictTrackedSize() throws IOException {
+        new FolderResultCache(cacheFolder, Long.MAX_VALUE).store("first", generated);
+        final File first = new File(cacheFolder, "first" + JavaDocArchive.SUFFIX);
+        final FolderResultCache cache = new FolderResultCache(cacheFolder, first.length() * 2);
+        cache.store("second", generated);
+        first.setLastModified(System.currentTimeMillis() - 20000);
+
+        assertTrue(first.exists());
+
+        cache.store("third", generated);
+
+        assertFalse(first.exists());
+        assertTrue(new File(cacheFolder, "second" + JavaDocArchive.SUFFIX).exists());
+        assertTrue(new File(cacheFolder, "third" + JavaDocArchive.SUFFIX).exists());
+    }
+
+    /**
+     * A corrupt entry should be treated as cache miss and removed.
+     */
+    @Test
+    public final void testRestoreCorruptEntry() throws IOException {
+        final FolderResultCache cache = new FolderResultCache(cacheFolder, Long.MAX_VALUE);
+        final File entry = new File(cacheFolder, "abc" + JavaDocArchive.SUFFIX);
+        createFile(cacheFolder, entry.getName(), "no archive");
+
+        assertFalse(cache.restore("abc", new File(folder, "restored")));
+        assertFalse(entry.exists());
+        assertEquals(0, cache.getRestored());
+    }
+
+    /**
+     * Create a file with the given content.
+     *
+     * @param parent
+     *            folder to create the file in.
+     * @param path
+     *            path of the file relative to the folder.
+     * @param content
+     *            content of the file.
+     */
+    private void createFile(final File parent, final String path, final String content) throws IOException {
+        final File file = new File(parent, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes("UTF-8"));
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unittests for {@link HotPageCache}.
+ *
+ * @author Dirk Weigenand
+ */
+public class HotPageCacheTest {
+    /**
+     * temporary folder removed after each test.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * folder containing the cached files.
+     */
+    private File folder;
+
+    /**
+     * Create the folder.
+     */
+    @Before
+    public void setUp() throws IOException {
+        folder = temporaryFolder.newFolder("pages");
+    }
+
+    /**
+     * Repeated requests should be answered from the cache, changed files
+     * should be read again.
+     */
+    @Test
+    public final void testChangedFilesAreReadAgain() throws IOException {
+        final HotPageCache cache = new HotPageCache(100, 50);
+        final File page = createFile("index.html", 10);
+
+        assertEquals(10, cache.get(page).length);
+        assertEquals(10, cache.get(page).length);
+        assertEquals(1, cache.getHits());
+
+        createFile("index.html", 20);
+        page.setLastModified(page.lastModified() + 2000);
+        assertArrayEquals(new byte[20], cache.get(page));
+        assertEquals(2, cache.getMisses());
+        assertEquals(20, cache.getBytes());
+    }
+
+    /**
+     * Files larger than the page limit should not be cached, least recently
+     * used files should be evicted when the cache is full.
+     */
+    @Test
+    public final void testLimits() throws IOException {
+        final HotPageCache cache = new HotPageCache(100, 50);
+
+        assertNull(cache.get(createFile("large.html", 60)));
+
+        final File first = createFile("first.html", 40);
+        final File second = createFile("second.html", 40);
+        cache.get(first);
+        cache.get(second);
+        cache.get(first);
+        cache.get(createFile("third.html", 40));
+
+        assertEquals(80, cache.getBytes());
+        cache.get(first);
+        assertEquals(2, cache.getHits());
+        cache.get(second);
+        assertEquals(4, cache.getMisses());
+    }
+
+    /**
+     * Create a file of the given size in the folder.
+     *
+     * @param name
+     *            name of the file.
+     * @param size
+     *            size of the file.
+     * @return the file.
+     */
+    private File createFile(final String name, final int size) throws IOException {
+        final File file = new File(folder, name);
+        final OutputStream output = new FileOutputStream(file);
+
+        try {
+            output.write(new byte[size]);
+        }
+        finally {
+            output.close();
+        }
+
+        return file;
+    }
+}
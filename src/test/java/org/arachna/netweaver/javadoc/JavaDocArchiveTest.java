@@ -0,0 +1,171 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unittests for {@link JavaDocArchive}.
+ *
+ * @author Dirk Weigenand
+ */
+public class JavaDocArchiveTest {
+    /**
+     * temporary folder removed after each test.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * the JavaDoc folder.
+     */
+    private File folder;
+
+    /**
+     * staging folder containing generated JavaDoc documentation.
+     */
+    private File staging;
+
+    /**
+     * the archive to write.
+     */
+    private File archive;
+
+    /**
+     * Create a staging folder with generated JavaDoc documentation.
+     */
+    @Before
+    public void setUp() throws IOException {
+        folder = temporaryFolder.newFolder("javadoc");
+        staging = new File(folder, ".staging/example.com~dc");
+        archive = JavaDocArchive.getArchive(new File(folder, "example.com~dc"));
+        createFile("index.html", "index");
+        createFile("package-list", "com.example");
+        createFile("index-files/index-1.html", "index");
+        createFile("com/example/Api.html", "api");
+    }
+
+    /**
+     * All files should be stored uncompressed, only the package lists should
+     * stay in the staging folder.
+     */
+    @Test
+    public final void testPack() throws IOException {
+        final JavaDocArchive packer = new JavaDocArchive();
+        packer.pack(staging, archive);
+
+        assertEquals(4, packer.getFiles());
+        assertEquals(1, packer.getArchives());
+        assertTrue(new File(staging, "package-list").exists());
+        assertFalse(new File(staging, "index.html").exists());
+        assertFalse(new File(staging, "com").exists());
+
+        final ZipFile zip = new ZipFile(archive);
+
+        try {
+            final ZipEntry entry = zip.getEntry("com/example/Api.html");
+            assertNotNull(entry);
+            assertEquals(ZipEntry.STORED, entry.getMethod());
+            assertNotNull(zip.getEntry("com/example/"));
+        }
+        finally {
+            zip.close();
+        }
+    }
+
+    /**
+     * Only the requested files and folders should be extracted.
+     */
+    @Test
+    public final void testUnpack() throws IOException {
+        new JavaDocArchive().pack(staging, archive);
+        final File target = new File(folder, "unpacked");
+        JavaDocArchive.unpack(archive, target, Arrays.asList("package-list", "index-files"));
+
+        assertEquals("com.example", new String(Files.readAllBytes(new File(target, "package-list").toPath()), "UTF-8"));
+        assertTrue(new File(target, "index-files/index-1.html").exists());
+        assertFalse(new File(target, "index.html").exists());
+    }
+
+    /**
+     * Opened archives should be shared until they are replaced.
+     */
+    @Test
+    public final void testOpen() throws IOException {
+        new JavaDocArchive().pack(staging, archive);
+        final JavaDocArchive.OpenArchive open = JavaDocArchive.open(archive);
+        final JavaDocArchive.OpenArchive shared = JavaDocArchive.open(archive);
+
+        assertSame(open, shared);
+
+        open.release();
+        shared.release();
+        createFile("index.html", "changed");
+        new JavaDocArchive().pack(staging, archive);
+        final JavaDocArchive.OpenArchive reopened = JavaDocArchive.open(archive);
+
+        assertNotSame(open, reopened);
+
+        reopened.release();
+    }
+
+    /**
+     * A replaced archive should stay readable until its last reader released
+     * it.
+     */
+    @Test
+    public final void testReplacedArchiveIsClosedOnRelease() throws IOException {
+        new JavaDocArchive().pack(staging, archive);
+        final JavaDocArchive.OpenArchive open = JavaDocArchive.open(archive);
+        final ZipFile zip = open.getZipFile();
+
+        createFile("index.html", "changed");
+        new JavaDocArchive().pack(staging, archive);
+        JavaDocArchive.open(archive).release();
+
+        assertNotNull(zip.getEntry("index.html"));
+
+        open.release();
+
+        try {
+            zip.getEntry("index.html");
+            fail("The replaced archive should have been closed.");
+        }
+        catch (final IllegalStateException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Create a file with the given content in the staging folder.
+     *
+     * @param path
+     *            path of the file relative to the staging folder.
+     * @param content
+     *            content of the file.
+     */
+    private void createFile(final String path, final String content) throws IOException {
+        final File file = new File(staging, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes("UTF-8"));
+    }
+}
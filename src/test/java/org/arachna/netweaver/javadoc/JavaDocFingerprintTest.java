@@ -0,0 +1,303 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import javax.tools.ToolProvider;
+
+import org.arachna.ant.AntHelper;
+import org.arachna.netweaver.dc.types.Compartment;
+import org.arachna.netweaver.dc.types.CompartmentState;
+import org.arachna.netweaver.dc.types.DevelopmentComponent;
+import org.arachna.netweaver.dc.types.DevelopmentComponentFactory;
+import org.arachna.netweaver.dc.types.DevelopmentComponentType;
+import org.arachna.netweaver.dc.types.DevelopmentConfiguration;
+import org.arachna.netweaver.dc.types.PublicPartReference;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unittests for {@link JavaDocFingerprint}.
+ *
+ * @author Dirk Weigenand
+ */
+public class JavaDocFingerprintTest {
+    /**
+     * source of the class packed into the class path jar.
+     */
+    private static final String LIBRARY =
+        "package com.example.lib; public class Library { public String name() { return \"%s\"; } %s }";
+
+    /**
+     * temporary folder removed after each test.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * workspace containing the development components.
+     */
+    private File workspace;
+
+    /**
+     * registry for development components.
+     */
+    private final DevelopmentComponentFactory dcFactory = new DevelopmentComponentFactory();
+
+    /**
+     * development configuration the development components belong to.
+     */
+    private final DevelopmentConfiguration configuration = new DevelopmentConfiguration("DI1_Example_D");
+
+    /**
+     * helper for the workspace.
+     */
+    private AntHelper antHelper;
+
+    /**
+     * development component to calculate fingerprints for.
+     */
+    private DevelopmentComponent component;
+
+    /**
+     * class path jar of the development component.
+     */
+    private File jar;
+
+    /**
+     * Create a development component with a single class using a development
+     * component in archive state providing a jar.
+     */
+    @Before
+    public void setUp() throws IOException {
+        workspace = temporaryFolder.newFolder("workspace");
+        antHelper = new AntHelper(workspace.getAbsolutePath(), dcFactory);
+        configuration.setSourceVersion("1.8");
+
+        final Compartment archives =
+            new Compartment("example.com_EXAMPLE_LIB_1", CompartmentState.Archive, "example.com", "", "EXAMPLE_LIB");
+        configuration.add(archives);
+        final DevelopmentComponent library = dcFactory.create("example.com", "lib", DevelopmentComponentType.Java);
+        archives.add(library);
+        library.setOutputFolder(new File(workspace, "gen/lib").getAbsolutePath());
+        jar = new File(library.getOutputFolder(), "lib/api.jar");
+        createJar("a", "", 10000);
+
+        component = createComponent("example.com_EXAMPLE_SC_1");
+        component.addUsedDevelopmentComponent(new PublicPartReference("example.com", "lib"));
+    }
+
+    /**
+     * The fingerprint should not change as long as the inputs do not change
+     * and should change when a source file changes.
+     */
+    @Test
+    public final void testSourceChange() throws IOException, InterruptedException {
+        final String fingerprint = calculate();
+
+        assertEquals(fingerprint, calculate());
+
+        writeSource(component, "package com.example; /** Changed API. */ public class Api {}");
+
+        assertFalse(fingerprint.equals(calculate()));
+    }
+
+    /**
+     * The fingerprint should change when the API of a class path jar changes
+     * but not when only its implementation changes.
+     */
+    @Test
+    public final void testClassPathJarChange() throws IOException, InterruptedException {
+        final String fingerprint = calculate();
+
+        createJar("b", "", 20000);
+
+        assertEquals(fingerprint, calculate());
+
+        createJar("b", "public int count() { return 1; }", 30000);
+
+        assertFalse(fingerprint.equals(calculate()));
+    }
+
+    /**
+     * The fingerprint should change when a link is added.
+     */
+    @Test
+    public final void testLinkChange() throws IOException, InterruptedException {
+        final String fingerprint = calculate();
+
+        assertFalse(fingerprint.equals(calculate(Arrays.asList("http://example.com/api/"))));
+    }
+
+    /**
+     * The fingerprint should change when the header changes (the development
+     * component is moved into another compartment shown in the header).
+     */
+    @Test
+    public final void testHeaderChange() throws IOException, InterruptedException {
+        final String fingerprint = calculate();
+        final String source =
+            new String(Files.readAllBytes(new File(antHelper.getBaseLocation(component), "src/packages/com/example/Api.java")
+                .toPath()), "UTF-8");
+        final Compartment compartment =
+            new Compartment("example.com_EXAMPLE_OTHER_1", CompartmentState.Source, "example.com", "", "EXAMPLE_OTHER");
+        configuration.add(compartment);
+        compartment.add(component);
+        writeSource(component, source);
+
+        assertFalse(fingerprint.equals(calculate()));
+    }
+
+    /**
+     * A stored fingerprint should mark the documentation up to date (also for
+     * later builds) until it is invalidated, the fingerprint changes or the
+     * documentation is removed.
+     */
+    @Test
+    public final void testStoreAndInvalidate() throws IOException, InterruptedException {
+        final DevelopmentComponentIndex index = createIndex(Collections.<String> emptyList());
+        final JavaDocFingerprint fingerprints = createFingerprint(index);
+        final String fingerprint = fingerprints.calculate(component);
+
+        final File javaDocFolder = new File(index.getJavaDocFolder(component));
+        javaDocFolder.mkdirs();
+
+        assertFalse(fingerprints.isUpToDate(component, fingerprint));
+
+        fingerprints.store(component, fingerprint);
+
+        assertTrue(fingerprints.isUpToDate(component, fingerprint));
+        assertTrue(createFingerprint(index).isUpToDate(component, fingerprint));
+        assertFalse(fingerprints.isUpToDate(component, fingerprint.substring(1)));
+        assertFalse(fingerprints.isUpToDate(component, fingerprint + "0"));
+
+        fingerprints.invalidate(component);
+
+        assertFalse(fingerprints.isUpToDate(component, fingerprint));
+
+        fingerprints.store(component, fingerprint);
+        javaDocFolder.delete();
+
+        assertFalse(fingerprints.isUpToDate(component, fingerprint));
+    }
+
+    /**
+     * Calculate the fingerprint of the development component without links.
+     *
+     * @return the fingerprint of the development component.
+     */
+    private String calculate() throws InterruptedException {
+        return calculate(Collections.<String> emptyList());
+    }
+
+    /**
+     * Calculate the fingerprint of the development component using a fresh
+     * source inventory.
+     *
+     * @param links
+     *            links to JavaDoc documentation generated elsewhere.
+     * @return the fingerprint of the development component.
+     */
+    private String calculate(final Collection<String> links) throws InterruptedException {
+        return createFingerprint(createIndex(links)).calculate(component);
+    }
+
+    /**
+     * Create an index of the development components in the workspace.
+     *
+     * @param links
+     *            links to JavaDoc documentation generated elsewhere.
+     * @return the index.
+     */
+    private DevelopmentComponentIndex createIndex(final Collection<String> links) {
+        return new DevelopmentComponentIndex(dcFactory, workspace.getAbsolutePath(), links);
+    }
+
+    /**
+     * Create a fingerprint calculator scanning the development component.
+     *
+     * @param index
+     *            index of the development components in the workspace.
+     * @return the fingerprint calculator.
+     */
+    private JavaDocFingerprint createFingerprint(final DevelopmentComponentIndex index) throws InterruptedException {
+        final ClassPathResolver classPathResolver = new ClassPathResolver();
+        final SourceInventory sourceInventory = new SourceInventory(antHelper);
+        sourceInventory.scan(Arrays.asList(component));
+
+        return new JavaDocFingerprint(antHelper, new BuildFileGenerator(antHelper, index, null, false, null, classPathResolver,
+            sourceInventory), classPathResolver, sourceInventory);
+    }
+
+    /**
+     * Create a development component with a single class in a new compartment
+     * in source state.
+     *
+     * @param compartmentName
+     *            name of the compartment.
+     * @return the development component.
+     */
+    private DevelopmentComponent createComponent(final String compartmentName) throws IOException {
+        final Compartment compartment = new Compartment(compartmentName, CompartmentState.Source, "example.com", "", "EXAMPLE_SC");
+        configuration.add(compartment);
+        final DevelopmentComponent dc = dcFactory.create("example.com", "dc1", DevelopmentComponentType.Java);
+        compartment.add(dc);
+        dc.addSourceFolder("src/packages");
+        writeSource(dc, "package com.example; /** API. */ public class Api {}");
+
+        return dc;
+    }
+
+    /**
+     * Write the class of the given development component.
+     *
+     * @param dc
+     *            development component to write the class of.
+     * @param content
+     *            content of the class.
+     */
+    private void writeSource(final DevelopmentComponent dc, final String content) throws IOException {
+        final File source = new File(antHelper.getBaseLocation(dc), "src/packages/com/example/Api.java");
+        source.getParentFile().mkdirs();
+        Files.write(source.toPath(), content.getBytes("UTF-8"));
+    }
+
+    /**
+     * Compile the library class and pack it into the class path jar.
+     *
+     * @param value
+     *            value returned by the public method.
+     * @param members
+     *            additional members.
+     * @param lastModified
+     *            modification time of the jar.
+     */
+    private void createJar(final String value, final String members, final long lastModified) throws IOException {
+        final File folder = temporaryFolder.newFolder();
+        final File source = new File(folder, "src/com/example/lib/Library.java");
+        final File classes = new File(folder, "classes");
+        source.getParentFile().mkdirs();
+        classes.mkdirs();
+        Files.write(source.toPath(), String.format(LIBRARY, value, members).getBytes("UTF-8"));
+
+        assertEquals(0, ToolProvider.getSystemJavaCompiler().run(null, null, null, "-d", classes.getAbsolutePath(),
+            source.getAbsolutePath()));
+
+        jar.getParentFile().mkdirs();
+        JavaDocArchive.write(classes, jar);
+        jar.setLastModified(lastModified);
+    }
+}
@@ -0,0 +1,170 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import hudson.model.BuildListener;
+import hudson.model.StreamBuildListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.arachna.netweaver.dc.types.DevelopmentComponent;
+import org.arachna.netweaver.dc.types.DevelopmentComponentFactory;
+import org.arachna.netweaver.dc.types.DevelopmentComponentType;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unittests for the critical path scheduling in {@link JavaDocJobScheduler}.
+ *
+ * @author Dirk Weigenand
+ */
+public class JavaDocJobSchedulerTest {
+    /**
+     * temporary folder removed after each test.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * file containing the history of durations.
+     */
+    private File file;
+
+    /**
+     * history of durations.
+     */
+    private JobDurationHistory durations;
+
+    /**
+     * library used by {@link #application}.
+     */
+    private final DevelopmentComponent library = createComponent("library");
+
+    /**
+     * application using {@link #library}.
+     */
+    private final DevelopmentComponent application = createComponent("application");
+
+    /**
+     * development component independent of the others.
+     */
+    private final DevelopmentComponent standalone = createComponent("standalone");
+
+    /**
+     * development components mapped to their prerequisites.
+     */
+    private final Map<DevelopmentComponent, Set<DevelopmentComponent>> prerequisites =
+        new HashMap<DevelopmentComponent, Set<DevelopmentComponent>>();
+
+    /**
+     * Record durations for the development components.
+     */
+    @Before
+    public void setUp() throws IOException {
+        file = new File(temporaryFolder.getRoot(), "durations.properties");
+        durations = new JobDurationHistory(file);
+        durations.record(library, JavaDocStage.JavaDoc, 2000);
+        durations.record(library, JavaDocStage.Diagrams, 1000);
+        durations.record(application, JavaDocStage.JavaDoc, 3000);
+        durations.record(standalone, JavaDocStage.JavaDoc, 4000);
+
+        prerequisites.put(library, new HashSet<DevelopmentComponent>());
+        prerequisites.put(application, new HashSet<DevelopmentComponent>(Arrays.asList(library)));
+        prerequisites.put(standalone, new HashSet<DevelopmentComponent>());
+    }
+
+    /**
+     * The priority of a development component should include the durations of
+     * the development components waiting for it.
+     */
+    @Test
+    public final void testCalculatePriorities() {
+        final Map<DevelopmentComponent, Long> priorities =
+            new JavaDocJobScheduler(null, 2, durations).calculatePriorities(prerequisites);
+
+        assertEquals(Long.valueOf(6000), priorities.get(library));
+        assertEquals(Long.valueOf(3000), priorities.get(application));
+        assertEquals(Long.valueOf(4000), priorities.get(standalone));
+    }
+
+    /**
+     * Starting the critical path first should yield its length as makespan.
+     */
+    @Test
+    public final void testPredictMakespan() {
+        final JavaDocJobScheduler scheduler = new JavaDocJobScheduler(null, 2, durations);
+
+        assertEquals(6000, scheduler.predictMakespan(prerequisites, scheduler.calculatePriorities(prerequisites)));
+        assertEquals(10000,
+            new JavaDocJobScheduler(null, 1, durations).predictMakespan(prerequisites, scheduler.calculatePriorities(prerequisites)));
+    }
+
+    /**
+     * Recorded durations should survive storing and loading the history,
+     * unknown development components should be estimated by the average.
+     */
+    @Test
+    public final void testStoreAndLoad() {
+        durations.store();
+        final JobDurationHistory loaded = new JobDurationHistory(file);
+
+        assertEquals(3000, loaded.estimate(library));
+        assertEquals(10000 / 3, loaded.estimate(createComponent("unknown")));
+    }
+
+    /**
+     * A development component failing with an exception should not stop
+     * the processing of the remaining development components, neither when
+     * processing sequentially nor concurrently.
+     */
+    @Test
+    public final void testFailingComponentDoesNotAbortExecution() throws InterruptedException {
+        for (final int parallelism : new int[] { 1, 2 }) {
+            final Collection<DevelopmentComponent> processed = new ArrayList<DevelopmentComponent>();
+            final JavaDocJobScheduler scheduler =
+                new JavaDocJobScheduler(new DevelopmentComponentIndex(new DevelopmentComponentFactory(), "workspace",
+                    new ArrayList<String>()), parallelism, durations);
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+            assertFalse(scheduler.execute(Arrays.asList(library, standalone), new JavaDocJobScheduler.DevelopmentComponentProcessor() {
+                public boolean process(final DevelopmentComponent component, final BuildListener listener) {
+                    synchronized (processed) {
+                        processed.add(component);
+                    }
+
+                    if (library.equals(component)) {
+                        throw new IllegalStateException("failure");
+                    }
+
+                    return true;
+                }
+            }, new StreamBuildListener(output)));
+            assertEquals(2, processed.size());
+        }
+    }
+
+    /**
+     * Create a development component with the given name.
+     *
+     * @param name
+     *            name of the development component.
+     * @return the development component.
+     */
+    private DevelopmentComponent createComponent(final String name) {
+        return new DevelopmentComponent("example.com", name, DevelopmentComponentType.Java);
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unittests for {@link JavaDocMetrics} and {@link JavaDocMetricsAction}.
+ *
+ * @author Dirk Weigenand
+ */
+public class JavaDocMetricsTest {
+    /**
+     * temporary folder removed after each test.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * folder containing generated documentation.
+     */
+    private File folder;
+
+    /**
+     * Create a folder containing generated documentation.
+     */
+    @Before
+    public void setUp() throws IOException {
+        folder = temporaryFolder.newFolder("javadoc");
+        new File(folder, "com/example").mkdirs();
+        new File(folder, ".svg-cache").mkdirs();
+        createFile("index.html", 10);
+        createFile("com/example/Api.html", 20);
+        createFile("com/example/Api.svg", 30);
+        createFile(".svg-cache/cached.svg", 40);
+    }
+
+    /**
+     * Generated files should be counted recursively (skipping hidden folders)
+     * or filtered by suffix.
+     */
+    @Test
+    public final void testStopCountsGeneratedFiles() {
+        final JavaDocMetrics metrics = new JavaDocMetrics();
+        final StageMetrics javaDoc = metrics.start("example.com:dc1", JavaDocStage.JavaDoc).stop(5, folder, null, true);
+        final StageMetrics diagrams = metrics.start("example.com:dc1", JavaDocStage.Diagrams).stop(0, folder, ".svg", true);
+        final StageMetrics overview = metrics.start("", JavaDocStage.Overview).stop(0, folder, null, false);
+
+        assertEquals(5, javaDoc.getSourceFiles());
+        assertEquals(3, javaDoc.getGeneratedFiles());
+        assertEquals(60, javaDoc.getOutputBytes());
+        assertEquals(1, diagrams.getGeneratedFiles());
+        assertEquals(30, diagrams.getOutputBytes());
+        assertEquals(1, overview.getGeneratedFiles());
+        assertEquals(3, metrics.getMetrics().size());
+    }
+
+    /**
+     * The action should sum up the metrics of all development components per
+     * stage.
+     */
+    @Test
+    public final void testTotals() {
+        final JavaDocMetrics metrics = new JavaDocMetrics();
+        metrics.start("example.com:dc1", JavaDocStage.JavaDoc).stop(5, folder, null, true);
+        metrics.start("example.com:dc2", JavaDocStage.JavaDoc).stop(7, folder, "html", true);
+        metrics.start("", JavaDocStage.Overview).stop(0, null, null, false);
+
+        final List<StageMetrics> totals = new JavaDocMetricsAction(null, metrics.getMetrics()).getTotals();
+
+        assertEquals(2, totals.size());
+        assertEquals(JavaDocStage.JavaDoc, totals.get(0).getStage());
+        assertEquals(12, totals.get(0).getSourceFiles());
+        assertEquals(5, totals.get(0).getGeneratedFiles());
+        assertEquals(JavaDocStage.Overview, totals.get(1).getStage());
+    }
+
+    /**
+     * Create a file of the given size in the folder.
+     *
+     * @param path
+     *            path of the file relative to the folder.
+     * @param size
+     *            size of the file.
+     */
+    private void createFile(final String path, final int size) throws IOException {
+        final OutputStream output = new FileOutputStream(new File(folder, path));
+
+        try {
+            output.write(new byte[size]);
+        }
+        finally {
+            output.close();
+        }
+    }
+}
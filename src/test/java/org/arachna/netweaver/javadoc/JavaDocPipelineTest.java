@@ -0,0 +1,255 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import hudson.model.BuildListener;
+import hudson.model.StreamBuildListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Properties;
+
+import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.DefaultLogger;
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.ProjectHelper;
+import org.arachna.ant.AntHelper;
+import org.arachna.netweaver.dc.types.Compartment;
+import org.arachna.netweaver.dc.types.CompartmentState;
+import org.arachna.netweaver.dc.types.DevelopmentComponent;
+import org.arachna.netweaver.dc.types.DevelopmentComponentFactory;
+import org.arachna.netweaver.dc.types.DevelopmentComponentType;
+import org.arachna.netweaver.dc.types.DevelopmentConfiguration;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unittests for {@link JavaDocPipeline}.
+ *
+ * @author Dirk Weigenand
+ */
+public class JavaDocPipelineTest {
+    /**
+     * temporary folder removed after each test.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * workspace containing the development component.
+     */
+    private File workspace;
+
+    /**
+     * registry for development components.
+     */
+    private final DevelopmentComponentFactory dcFactory = new DevelopmentComponentFactory();
+
+    /**
+     * development configuration the development component belongs to.
+     */
+    private final DevelopmentConfiguration configuration = new DevelopmentConfiguration("DI1_Example_D");
+
+    /**
+     * development component to document.
+     */
+    private DevelopmentComponent component;
+
+    /**
+     * helper for the workspace.
+     */
+    private AntHelper antHelper;
+
+    /**
+     * index of the development components in the workspace.
+     */
+    private DevelopmentComponentIndex index;
+
+    /**
+     * Create a development component with a single class in a temporary
+     * workspace.
+     */
+    @Before
+    public void setUp() throws IOException {
+        workspace = temporaryFolder.newFolder("workspace");
+        antHelper = new AntHelper(workspace.getAbsolutePath(), dcFactory);
+        index = new DevelopmentComponentIndex(dcFactory, workspace.getAbsolutePath(), Collections.<String> emptyList());
+        configuration.setCaption("Example track");
+        configuration.setSourceVersion("1.8");
+        final Compartment compartment =
+            new Compartment("example.com_EXAMPLE_SC_1", CompartmentState.Source, "example.com", "", "EXAMPLE_SC");
+        configuration.add(compartment);
+        component = dcFactory.create("example.com", "dc1", DevelopmentComponentType.Java);
+        compartment.add(component);
+        component.addSourceFolder("src/packages");
+
+        final File source = new File(antHelper.getBaseLocation(component), "src/packages/com/example/Api.java");
+        source.getParentFile().mkdirs();
+        Files.write(source.toPath(), "package com.example; /** API. */ public class Api {}".getBytes("UTF-8"));
+    }
+
+    /**
+     * The documentation should be generated and committed into the JavaDoc
+     * folder of the development component, a second run should find it up
+     * to date.
+     */
+    @Test
+    public final void testExecuteInProcess() throws InterruptedException {
+        final Collection<DevelopmentComponent> components = Arrays.asList(component);
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        assertTrue(createPipeline(components).execute(components, new DocumentationToolRunner(), false,
+            new StreamBuildListener(output)));
+        assertTrue(new File(index.getJavaDocFolder(component), "index.html").exists());
+        assertFalse(output.toString().contains("is up to date"));
+
+        output.reset();
+
+        assertTrue(createPipeline(components).execute(components, new DocumentationToolRunner(), false,
+            new StreamBuildListener(output)));
+        assertTrue(output.toString().contains("JavaDoc for example.com:dc1 is up to date."));
+    }
+
+    /**
+     * The documentation should be generated by a batch build file and the
+     * duration of the JavaDoc run should be recorded.
+     */
+    @Test
+    public final void testExecuteBatch() throws InterruptedException, IOException {
+        final Collection<DevelopmentComponent> components = Arrays.asList(component);
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        assertTrue(createPipeline(components, new JavaDocPipeline.AntRunner() {
+            public boolean execute(final String buildFile, final BuildListener listener) {
+                return runAnt(buildFile, listener);
+            }
+        }).execute(components, null, true, new StreamBuildListener(output)));
+        assertTrue(new File(index.getJavaDocFolder(component), "index.html").exists());
+        assertTrue(loadDurations().containsKey("example.com~dc1.JavaDoc"));
+    }
+
+    /**
+     * A development component without generated documentation should be
+     * reported and fail the batch.
+     */
+    @Test
+    public final void testExecuteBatchWithoutOutput() throws InterruptedException {
+        final Collection<DevelopmentComponent> components = Arrays.asList(component);
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        assertFalse(createPipeline(components, new JavaDocPipeline.AntRunner() {
+            public boolean execute(final String buildFile, final BuildListener listener) {
+                return true;
+            }
+        }).execute(components, null, true, new StreamBuildListener(output)));
+        assertTrue(output.toString().contains(
+            "No JavaDoc documentation was generated for example.com:dc1, see the Ant output above."));
+        assertFalse(new File(index.getJavaDocFolder(component), "index.html").exists());
+    }
+
+    /**
+     * Create a pipeline for the workspace and scan the given development
+     * components. Ant must not be used.
+     *
+     * @param components
+     *            development components to scan.
+     * @return the pipeline.
+     */
+    private JavaDocPipeline createPipeline(final Collection<DevelopmentComponent> components) throws InterruptedException {
+        return createPipeline(components, new JavaDocPipeline.AntRunner() {
+            public boolean execute(final String buildFile, final BuildListener listener) {
+                throw new IllegalStateException("Ant should not be used.");
+            }
+        });
+    }
+
+    /**
+     * Create a pipeline for the workspace and scan the given development
+     * components.
+     *
+     * @param components
+     *            development components to scan.
+     * @param ant
+     *            runner for Ant build files.
+     * @return the pipeline.
+     */
+    private JavaDocPipeline createPipeline(final Collection<DevelopmentComponent> components, final JavaDocPipeline.AntRunner ant)
+        throws InterruptedException {
+        final JavaDocPipeline pipeline =
+            new JavaDocPipeline(antHelper, index, configuration, null, false, 1, null, false, null, new JobDurationHistory(
+                getDurationsFile()), ant);
+        pipeline.scan(components);
+
+        return pipeline;
+    }
+
+    /**
+     * Run the given Ant build file in this JVM.
+     *
+     * @param buildFile
+     *            build file to run.
+     * @param listener
+     *            the listener to log to.
+     * @return <code>true</code> when the build succeeded, <code>false</code>
+     *         otherwise.
+     */
+    private boolean runAnt(final String buildFile, final BuildListener listener) {
+        final Project project = new Project();
+        final DefaultLogger logger = new DefaultLogger();
+        logger.setOutputPrintStream(listener.getLogger());
+        logger.setErrorPrintStream(listener.getLogger());
+        logger.setMessageOutputLevel(Project.MSG_INFO);
+        project.addBuildListener(logger);
+        project.init();
+
+        try {
+            ProjectHelper.configureProject(project, new File(buildFile));
+            project.executeTarget(project.getDefaultTarget());
+
+            return true;
+        }
+        catch (final BuildException e) {
+            e.printStackTrace(listener.getLogger());
+
+            return false;
+        }
+    }
+
+    /**
+     * @return the file the durations of JavaDoc runs are recorded in.
+     */
+    private File getDurationsFile() {
+        return new File(temporaryFolder.getRoot(), JobDurationHistory.FILE_NAME);
+    }
+
+    /**
+     * Load the recorded durations of JavaDoc runs.
+     *
+     * @return the recorded durations.
+     */
+    private Properties loadDurations() throws IOException {
+        final Properties durations = new Properties();
+        final InputStream input = new FileInputStream(getDurationsFile());
+
+        try {
+            durations.load(input);
+        }
+        finally {
+            input.close();
+        }
+
+        return durations;
+    }
+}
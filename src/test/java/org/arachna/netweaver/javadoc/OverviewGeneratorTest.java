@@ -0,0 +1,225 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import org.arachna.ant.AntHelper;
+import org.arachna.netweaver.dc.types.Compartment;
+import org.arachna.netweaver.dc.types.CompartmentState;
+import org.arachna.netweaver.dc.types.DevelopmentComponent;
+import org.arachna.netweaver.dc.types.DevelopmentComponentFactory;
+import org.arachna.netweaver.dc.types.DevelopmentComponentType;
+import org.arachna.netweaver.dc.types.DevelopmentConfiguration;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unittests for {@link OverviewGenerator}.
+ *
+ * @author Dirk Weigenand
+ */
+public class OverviewGeneratorTest {
+    /**
+     * temporary folder removed after each test.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * workspace containing the development components.
+     */
+    private File workspace;
+
+    /**
+     * registry for development components.
+     */
+    private final DevelopmentComponentFactory dcFactory = new DevelopmentComponentFactory();
+
+    /**
+     * helper for the workspace.
+     */
+    private AntHelper antHelper;
+
+    /**
+     * index of the development components in the workspace.
+     */
+    private DevelopmentComponentIndex index;
+
+    /**
+     * development component shown in every overview.
+     */
+    private DevelopmentComponent first;
+
+    /**
+     * development component added to or removed from the overview.
+     */
+    private DevelopmentComponent second;
+
+    /**
+     * Create two development components with a single class and published
+     * JavaDoc documentation each.
+     */
+    @Before
+    public void setUp() throws IOException {
+        workspace = temporaryFolder.newFolder("workspace");
+        antHelper = new AntHelper(workspace.getAbsolutePath(), dcFactory);
+        index = new DevelopmentComponentIndex(dcFactory, workspace.getAbsolutePath(), Collections.<String> emptyList());
+        first = createComponent("dc1");
+        second = createComponent("dc2");
+    }
+
+    /**
+     * An unchanged configuration should keep its fingerprint and the overview
+     * should not be written again.
+     */
+    @Test
+    public final void testUnchangedConfiguration() throws IOException {
+        final OverviewGenerator generator = createGenerator(first);
+        final String fingerprint = generator.calculateFingerprint();
+
+        assertEquals(fingerprint, createGenerator(first).calculateFingerprint());
+        assertTrue(generator.execute());
+
+        final File indexHtml = getOverviewFile("index.html");
+        indexHtml.setLastModified(10000);
+
+        assertFalse(createGenerator(first).execute());
+        assertEquals(10000, indexHtml.lastModified());
+        assertEquals(fingerprint, read(getOverviewFile("index.fingerprint")));
+    }
+
+    /**
+     * Adding a development component should change the fingerprint and the
+     * overview should be written again showing the added development
+     * component.
+     */
+    @Test
+    public final void testAddedDevelopmentComponent() throws IOException {
+        final OverviewGenerator generator = createGenerator(first);
+        generator.execute();
+
+        final OverviewGenerator changed = createGenerator(first, second);
+
+        assertFalse(generator.calculateFingerprint().equals(changed.calculateFingerprint()));
+        assertTrue(changed.execute());
+        assertTrue(read(getOverviewFile("index.xml")).contains("example.com~dc2"));
+    }
+
+    /**
+     * Removing a development component should change the fingerprint and the
+     * overview should be written again without the removed development
+     * component.
+     */
+    @Test
+    public final void testRemovedDevelopmentComponent() throws IOException {
+        final OverviewGenerator generator = createGenerator(first, second);
+        generator.execute();
+
+        final OverviewGenerator changed = createGenerator(first);
+
+        assertFalse(generator.calculateFingerprint().equals(changed.calculateFingerprint()));
+        assertTrue(changed.execute());
+        assertFalse(read(getOverviewFile("index.xml")).contains("example.com~dc2"));
+    }
+
+    /**
+     * A missing resource should cause the overview to be written again
+     * although the configuration did not change.
+     */
+    @Test
+    public final void testMissingResource() {
+        createGenerator(first).execute();
+        final File styleSheet = getOverviewFile("style.css");
+
+        assertTrue(styleSheet.delete());
+        assertTrue(createGenerator(first).execute());
+        assertTrue(styleSheet.exists());
+        assertFalse(createGenerator(first).execute());
+    }
+
+    /**
+     * Create an overview generator for a development configuration containing
+     * the given development components.
+     *
+     * @param components
+     *            development components to show in the overview.
+     * @return the overview generator.
+     */
+    private OverviewGenerator createGenerator(final DevelopmentComponent... components) {
+        final DevelopmentConfiguration configuration = new DevelopmentConfiguration("DI1_Example_D");
+        configuration.setCaption("Example track");
+        final Compartment compartment =
+            new Compartment("example.com_EXAMPLE_SC_1", CompartmentState.Source, "example.com", "", "EXAMPLE_SC");
+        configuration.add(compartment);
+
+        for (final DevelopmentComponent component : components) {
+            compartment.add(component);
+        }
+
+        return new OverviewGenerator(workspace, configuration, index);
+    }
+
+    /**
+     * Create a development component with a single class and published
+     * JavaDoc documentation.
+     *
+     * @param name
+     *            name of the development component.
+     * @return the development component.
+     */
+    private DevelopmentComponent createComponent(final String name) throws IOException {
+        final DevelopmentComponent component = dcFactory.create("example.com", name, DevelopmentComponentType.Java);
+        component.addSourceFolder("src/packages");
+        write(new File(antHelper.getBaseLocation(component), "src/packages/com/example/Api.java"),
+            "package com.example; /** API. */ public class Api {}");
+        write(new File(index.getJavaDocFolder(component), "index.html"), "<html/>");
+
+        return component;
+    }
+
+    /**
+     * Get the given file of the overview.
+     *
+     * @param name
+     *            name of the file in the JavaDoc folder of the workspace.
+     * @return the file of the overview.
+     */
+    private File getOverviewFile(final String name) {
+        return new File(workspace, "javadoc/" + name);
+    }
+
+    /**
+     * Write the given content into the given file.
+     *
+     * @param file
+     *            file to write.
+     * @param content
+     *            content of the file.
+     */
+    private void write(final File file, final String content) throws IOException {
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes("UTF-8"));
+    }
+
+    /**
+     * Read the given file.
+     *
+     * @param file
+     *            file to read.
+     * @return content of the file.
+     */
+    private String read(final File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), "UTF-8");
+    }
+}
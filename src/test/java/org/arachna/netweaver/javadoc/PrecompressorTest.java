@@ -0,0 +1,122 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unittests for {@link Precompressor} and the helpers of
+ * {@link JavaDocAction} serving its results.
+ *
+ * @author Dirk Weigenand
+ */
+public class PrecompressorTest {
+    /**
+     * temporary folder removed after each test.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * the JavaDoc folder.
+     */
+    private File folder;
+
+    /**
+     * Create a JavaDoc folder with text and binary files.
+     */
+    @Before
+    public void setUp() throws IOException {
+        folder = temporaryFolder.newFolder("javadoc");
+        new File(folder, "dc/com/example").mkdirs();
+        new File(folder, ".svg-cache").mkdirs();
+        createFile("index.html", 4096);
+        createFile("small.css", 10);
+        createFile("dc/com/example/Api.html", 4096);
+        createFile("dc/com/example/Api.png", 4096);
+        createFile(".svg-cache/cached.svg", 4096);
+        createFile("removed.html.gz", 10);
+    }
+
+    /**
+     * Only large enough text files outside of hidden folders should be
+     * compressed, each only once, and orphaned siblings should be removed.
+     */
+    @Test
+    public final void testCompress() {
+        final Precompressor precompressor = new Precompressor().compress(folder);
+
+        assertEquals(2, precompressor.getCompressed());
+        assertEquals(1, precompressor.getRemoved());
+        assertNotNull(Precompressor.getCompressed(new File(folder, "dc/com/example/Api.html")));
+        assertNull(Precompressor.getCompressed(new File(folder, "small.css")));
+        assertFalse(new File(folder, ".svg-cache/cached.svg.gz").exists());
+        assertEquals(0, new Precompressor().compress(folder).getCompressed());
+    }
+
+    /**
+     * Compressing the files of a folder should leave its sub folders alone.
+     */
+    @Test
+    public final void testCompressFiles() {
+        final Precompressor precompressor = new Precompressor().compressFiles(folder);
+
+        assertEquals(1, precompressor.getCompressed());
+        assertEquals(1, precompressor.getRemoved());
+        assertNotNull(Precompressor.getCompressed(new File(folder, "index.html")));
+        assertNull(Precompressor.getCompressed(new File(folder, "dc/com/example/Api.html")));
+    }
+
+    /**
+     * Paths should be resolved inside the JavaDoc folder only.
+     */
+    @Test
+    public final void testResolve() {
+        assertEquals(new File(folder, "dc/index.html"), JavaDocAction.resolve(folder, "/dc/index.html"));
+        assertEquals(folder, JavaDocAction.resolve(folder, ""));
+        assertNull(JavaDocAction.resolve(folder, "/dc/../../secret"));
+        assertNull(JavaDocAction.resolve(folder, "/.svg-cache/cached.svg"));
+    }
+
+    /**
+     * Content types should be derived from the suffix.
+     */
+    @Test
+    public final void testGetContentType() {
+        assertEquals("text/html;charset=UTF-8", JavaDocAction.getContentType("index.html"));
+        assertEquals("application/octet-stream", JavaDocAction.getContentType("package-list"));
+    }
+
+    /**
+     * Create a file of the given size in the folder.
+     *
+     * @param path
+     *            path of the file relative to the folder.
+     * @param size
+     *            size of the file.
+     */
+    private void createFile(final String path, final int size) throws IOException {
+        final OutputStream output = new FileOutputStream(new File(folder, path));
+
+        try {
+            output.write(new byte[size]);
+        }
+        finally {
+            output.close();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.arachna.netweaver.javadoc.SourceInventory.SourceFolder;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unittests for {@link SourceInventory}.
+ *
+ * @author Dirk Weigenand
+ */
+public class SourceInventoryTest {
+    /**
+     * temporary folder removed after each test.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * source folder of a development component.
+     */
+    private File folder;
+
+    /**
+     * Create a source folder containing Java sources and resources.
+     */
+    @Before
+    public void setUp() throws IOException {
+        folder = temporaryFolder.newFolder("sources");
+        new File(folder, "com/example/impl").mkdirs();
+        new File(folder, "com/example/empty").mkdirs();
+        createFile("Main.java");
+        createFile("com/example/Api.java");
+        createFile("com/example/package.html");
+        createFile("com/example/impl/ApiImpl.java");
+        createFile("com/example/impl/messages.properties");
+    }
+
+    /**
+     * All files should be listed relative to the source folder, sorted.
+     */
+    @Test
+    public final void testFilesAreListedRelativeAndSorted() {
+        final SourceFolder sourceFolder = new SourceFolder(folder);
+
+        assertEquals(Arrays.asList("Main.java", "com/example/Api.java", "com/example/impl/ApiImpl.java",
+            "com/example/impl/messages.properties", "com/example/package.html"), sourceFolder.getFiles());
+    }
+
+    /**
+     * Only folders containing Java sources should be reported as packages.
+     */
+    @Test
+    public final void testPackagesContainJavaSources() {
+        final SourceFolder sourceFolder = new SourceFolder(folder);
+
+        assertEquals(Arrays.asList("", "com.example", "com.example.impl"), Arrays.asList(sourceFolder.getPackages().toArray()));
+    }
+
+    /**
+     * Create an empty file in the source folder.
+     *
+     * @param path
+     *            path of the file relative to the source folder.
+     */
+    private void createFile(final String path) throws IOException {
+        new File(folder, path).createNewFile();
+    }
+}
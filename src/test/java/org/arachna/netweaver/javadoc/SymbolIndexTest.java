@@ -0,0 +1,202 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.arachna.netweaver.dc.types.DevelopmentComponent;
+import org.arachna.netweaver.dc.types.DevelopmentComponentFactory;
+import org.arachna.netweaver.dc.types.DevelopmentComponentType;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unittests for {@link SymbolIndex}.
+ *
+ * @author Dirk Weigenand
+ */
+public class SymbolIndexTest {
+    /**
+     * temporary folder removed after each test.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * the JavaDoc folder.
+     */
+    private File javaDocFolder;
+
+    /**
+     * development component documented by JavaDoc 9 or later.
+     */
+    private final DevelopmentComponent searchIndexDC = new DevelopmentComponent("example.com", "dc1",
+        DevelopmentComponentType.Java);
+
+    /**
+     * development component documented by JavaDoc 8 or earlier.
+     */
+    private final DevelopmentComponent pagesDC = new DevelopmentComponent("example.com", "dc2", DevelopmentComponentType.Java);
+
+    /**
+     * index used to determine the JavaDoc folders.
+     */
+    private DevelopmentComponentIndex index;
+
+    /**
+     * Create JavaDoc folders for both development components.
+     */
+    @Before
+    public void setUp() throws IOException {
+        javaDocFolder = temporaryFolder.newFolder("javadoc");
+        index = new DevelopmentComponentIndex(new DevelopmentComponentFactory(), javaDocFolder.getParent(),
+            Collections.<String> emptyList());
+
+        final String searchIndex = index.getFolderName(searchIndexDC) + "/";
+        createFile(searchIndex + "package-search-index.js",
+            "packageSearchIndex = [{\"l\":\"All Packages\",\"url\":\"allpackages-index.html\"},{\"l\":\"com.example\"}]");
+        createFile(searchIndex + "type-search-index.js",
+            "typeSearchIndex = [{\"l\":\"All Classes\",\"url\":\"allclasses-index.html\"},{\"p\":\"com.example\",\"l\":\"Api\"}]");
+        createFile(searchIndex + "member-search-index.js",
+            "memberSearchIndex = [{\"p\":\"com.example\",\"c\":\"Api\",\"l\":\"apply(String)\",\"u\":\"apply(java.lang.String)\"}]");
+
+        final String pages = index.getFolderName(pagesDC) + "/";
+        createFile(pages + "package-list", "org.example\n");
+        createFile(pages + "allclasses-noframe.html",
+            "<ul><li><a href=\"org/example/Impl.html\" title=\"class in org.example\">Impl</a></li></ul>");
+        createFile(pages + "index-all.html", "<a href=\"index-all.html#I:A\">A</a><dl><dt><span class=\"memberNameLink\">"
+            + "<a href=\"org/example/Impl.html#apply-java.lang.String-\">apply(String)</a></span> - Method in class "
+            + "<a href=\"org/example/Impl.html\">Impl</a></dt></dl>");
+    }
+
+    /**
+     * Symbols should be read from the search index of JavaDoc 9 and later.
+     */
+    @Test
+    public final void testExtractFromSearchIndex() throws IOException {
+        final List<SymbolIndex.Symbol> symbols =
+            new SymbolIndex(javaDocFolder).extract(new File(javaDocFolder, index.getFolderName(searchIndexDC)));
+
+        assertEquals(Arrays.asList("Package com.example () com/example/package-summary.html",
+            "Type Api (com.example) com/example/Api.html",
+            "Member apply(String) (com.example.Api) com/example/Api.html#apply(java.lang.String)"), toStrings(symbols));
+    }
+
+    /**
+     * Symbols should be read from package list, class list and index of
+     * JavaDoc 8 and earlier.
+     */
+    @Test
+    public final void testExtractFromPages() throws IOException {
+        final List<SymbolIndex.Symbol> symbols =
+            new SymbolIndex(javaDocFolder).extract(new File(javaDocFolder, index.getFolderName(pagesDC)));
+
+        assertEquals(Arrays.asList("Package org.example () org/example/package-summary.html",
+            "Type Impl (org.example) org/example/Impl.html",
+            "Member apply(String) (org.example.Impl) org/example/Impl.html#apply-java.lang.String-"), toStrings(symbols));
+    }
+
+    /**
+     * Symbols should be written to shards keyed by the prefix of their names
+     * and only changed development components should be indexed again.
+     */
+    @Test
+    public final void testUpdateIsIncremental() throws IOException {
+        final SymbolIndex symbolIndex = new SymbolIndex(javaDocFolder);
+        final List<DevelopmentComponent> components = Arrays.asList(searchIndexDC, pagesDC);
+        final File searchFolder = new File(javaDocFolder, SymbolIndex.FOLDER);
+
+        assertEquals(2, symbolIndex.update(index, components));
+        assertTrue(new File(searchFolder, "ap.json").exists());
+        assertTrue(new File(searchFolder, "co.json").exists());
+        assertTrue(new File(searchFolder, SymbolIndex.MANIFEST).exists());
+        assertEquals(0, symbolIndex.update(index, components));
+
+        createFile(index.getFolderName(pagesDC) + "/package-list", "org.example\norg.example.spi\n");
+        assertEquals(1, symbolIndex.update(index, components));
+
+        symbolIndex.update(index, Collections.singletonList(searchIndexDC));
+        assertFalse(new File(searchFolder, "or.json").exists());
+        assertFalse(new File(searchFolder, "im.json").exists());
+    }
+
+    /**
+     * The shards should not be rebuilt when neither the development
+     * components nor their documentation changed.
+     */
+    @Test
+    public final void testUpdateSkipsUnchangedIndex() throws IOException {
+        final SymbolIndex symbolIndex = new SymbolIndex(javaDocFolder);
+        final List<DevelopmentComponent> components = Arrays.asList(searchIndexDC, pagesDC);
+        final File searchFolder = new File(javaDocFolder, SymbolIndex.FOLDER);
+        symbolIndex.update(index, components);
+        final File shard = new File(searchFolder, "ap.json");
+
+        assertTrue(shard.delete());
+        assertEquals(0, symbolIndex.update(index, components));
+        assertFalse(shard.exists());
+
+        symbolIndex.update(index, Arrays.asList(pagesDC, searchIndexDC));
+        assertTrue(shard.exists());
+    }
+
+    /**
+     * Shards should be keyed by the lower case prefix of names.
+     */
+    @Test
+    public final void testGetShard() {
+        assertEquals("ap", SymbolIndex.getShard("Api"));
+        assertEquals("a_", SymbolIndex.getShard("A"));
+        assertEquals("_e", SymbolIndex.getShard("$e"));
+    }
+
+    /**
+     * @param symbols
+     *            symbols to convert.
+     * @return the string representations of the given symbols
+     */
+    private List<String> toStrings(final List<SymbolIndex.Symbol> symbols) {
+        final String[] strings = new String[symbols.size()];
+
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = symbols.get(i).toString();
+        }
+
+        return Arrays.asList(strings);
+    }
+
+    /**
+     * Create a file in the JavaDoc folder.
+     *
+     * @param path
+     *            path of the file relative to the JavaDoc folder.
+     * @param content
+     *            content of the file.
+     */
+    private void createFile(final String path, final String content) throws IOException {
+        final File file = new File(javaDocFolder, path);
+        file.getParentFile().mkdirs();
+
+        final OutputStream output = new FileOutputStream(file);
+
+        try {
+            output.write(content.getBytes("UTF-8"));
+        }
+        finally {
+            output.close();
+        }
+    }
+}
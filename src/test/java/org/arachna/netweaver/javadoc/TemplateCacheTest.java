@@ -0,0 +1,23 @@
+/**
+ *
+ */
+package org.arachna.netweaver.javadoc;
+
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+/**
+ * Unittests for {@link TemplateCache}.
+ *
+ * @author Dirk Weigenand
+ */
+public class TemplateCacheTest {
+    /**
+     * The build file template should be parsed only once.
+     */
+    @Test
+    public final void testTemplateIsCached() {
+        assertSame(TemplateCache.getTemplate(BuildFileGenerator.TEMPLATE), TemplateCache.getTemplate(BuildFileGenerator.TEMPLATE));
+    }
+}